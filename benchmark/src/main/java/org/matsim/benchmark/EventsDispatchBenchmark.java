@@ -0,0 +1,130 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsDispatchBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.EventHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how fast {@link org.matsim.core.events.EventsManagerImpl} dispatches events, either a custom event as
+ * the events of contribs, which is passed on by a generated caller, or a link enter event, which is passed on by
+ * callHandlerFast(). Each event is passed to a number of handlers, which only count the events.
+ * <br>
+ * To compare two versions of the dispatching, run the benchmark on both versions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EventsDispatchBenchmark {
+
+	@Param({ "1", "4" })
+	public int numberOfHandlers;
+
+	@Param({ "custom", "linkEnter" })
+	public String eventType;
+
+	private EventsManager events;
+	private CountingHandler[] handlers;
+	private Event event;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.events = EventsUtils.createEventsManager();
+		this.handlers = new CountingHandler[this.numberOfHandlers];
+		for (int i = 0; i < this.numberOfHandlers; i++) {
+			this.handlers[i] = new CountingHandler();
+			this.events.addHandler(this.handlers[i]);
+		}
+		if (this.eventType.equals("custom")) {
+			this.event = new CustomEvent(7 * 3600);
+		} else {
+			this.event = new LinkEnterEvent(7 * 3600, Id.createVehicleId(1), Id.createLinkId(1));
+		}
+	}
+
+	@Benchmark
+	public void processEvent() {
+		this.events.processEvent(this.event);
+	}
+
+	public static final class CustomEvent extends Event {
+		public CustomEvent(final double time) {
+			super(time);
+		}
+		@Override
+		public String getEventType() {
+			return "custom";
+		}
+	}
+
+	public interface CustomEventHandler extends EventHandler {
+		void handleEvent(CustomEvent event);
+	}
+
+	public static final class CountingHandler implements CustomEventHandler, LinkEnterEventHandler {
+		/*package*/ long counter = 0;
+		@Override
+		public void handleEvent(final CustomEvent event) {
+			this.counter++;
+		}
+		@Override
+		public void handleEvent(final LinkEnterEvent event) {
+			this.counter++;
+		}
+		@Override
+		public void reset(final int iteration) {
+			this.counter = 0;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(EventsDispatchBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,151 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QueueWithBufferBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.QSimConfigGroup.TrafficDynamics;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.qsim.QSimUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the links' doSimStep, i.e. {@link org.matsim.core.mobsim.qsim.qnetsimengine.QueueWithBuffer}, by running
+ * the QSim on a corridor with a bottleneck in the middle. Upstream of the bottleneck, the vehicle queues of the links
+ * hold hundreds of vehicles and the buffers are full, so most of the time is spent moving vehicles through the queues
+ * of the links. The routes are short, so the agents' logic does not dominate.
+ * <br>
+ * To compare two versions of the queues, run the benchmark on both versions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class QueueWithBufferBenchmark {
+
+	private static final int NUMBER_OF_LINKS = 20;
+	private static final int BOTTLENECK_LINK = NUMBER_OF_LINKS / 2;
+
+	@Param({ "20000", "100000" })
+	public int numberOfAgents;
+
+	@Param({ "queue", "withHoles" })
+	public String trafficDynamics;
+
+	private Scenario scenario;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		this.scenario = createScenario(this.numberOfAgents, TrafficDynamics.valueOf(this.trafficDynamics));
+	}
+
+	@Benchmark
+	public void runQSim() {
+		QSimUtils.createDefaultQSim(this.scenario, EventsUtils.createEventsManager()).run();
+	}
+
+	/**
+	 * A corridor of {@value #NUMBER_OF_LINKS} links with a bottleneck of a quarter of the capacity in the middle. All
+	 * agents depart between 6:00 and 8:00 on one of the links upstream of the bottleneck and drive to one of the
+	 * links downstream of it.
+	 */
+	static Scenario createScenario(final int numberOfAgents, final TrafficDynamics trafficDynamics) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setTrafficDynamics(trafficDynamics);
+		config.qsim().setEndTime(36 * 3600);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+
+		Network network = scenario.getNetwork();
+		Node previous = NetworkUtils.createAndAddNode(network, Id.createNodeId(0), new Coord(0, 0));
+		List<Id<Link>> linkIds = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_LINKS; i++) {
+			Node node = NetworkUtils.createAndAddNode(network, Id.createNodeId(i + 1), new Coord((i + 1) * 2000, 0));
+			double capacity = i == BOTTLENECK_LINK ? 1800 : 7200;
+			Link link = NetworkUtils.createAndAddLink(network, Id.createLinkId(i), previous, node, 2000, 20, capacity, 4);
+			linkIds.add(link.getId());
+			previous = node;
+		}
+
+		Random random = new Random(4711);
+		Population population = scenario.getPopulation();
+		PopulationFactory factory = population.getFactory();
+		for (int p = 0; p < numberOfAgents; p++) {
+			int from = random.nextInt(BOTTLENECK_LINK);
+			int to = BOTTLENECK_LINK + 1 + random.nextInt(NUMBER_OF_LINKS - BOTTLENECK_LINK - 1);
+			Plan plan = factory.createPlan();
+			Activity home = factory.createActivityFromLinkId("home", linkIds.get(from));
+			home.setEndTime(6 * 3600 + random.nextInt(2 * 3600));
+			plan.addActivity(home);
+			Leg leg = factory.createLeg("car");
+			leg.setRoute(RouteUtils.createNetworkRoute(linkIds.subList(from, to + 1), network));
+			plan.addLeg(leg);
+			plan.addActivity(factory.createActivityFromLinkId("work", linkIds.get(to)));
+			Person person = factory.createPerson(Id.createPersonId(p));
+			person.addPlan(plan);
+			population.addPerson(person);
+		}
+		return scenario;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(QueueWithBufferBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,177 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TransitRouterBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.config.groups.PlansCalcRouteConfigGroup;
+import org.matsim.core.config.groups.VspExperimentalConfigGroup;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.config.TransitRouterConfigGroup;
+import org.matsim.pt.config.TransitRouterConfigGroup.TransitRouterType;
+import org.matsim.pt.router.FakeFacility;
+import org.matsim.pt.router.TransitRouter;
+import org.matsim.pt.router.TransitRouterConfig;
+import org.matsim.pt.router.TransitRouterImpl;
+import org.matsim.pt.router.TransitRouterRaptor;
+import org.matsim.pt.transitSchedule.TransitScheduleFactoryImpl;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the time per query of {@link TransitRouterImpl} and {@link TransitRouterRaptor} on a grid of stops, served
+ * by bus lines along the rows and columns of the grid in both directions. Some of the lines are left out, and the
+ * stop positions, travel times and headways are random, but the same for both routers. The queries are between
+ * random coordinates within the grid, departing between 04:00 and 24:00.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class TransitRouterBenchmark {
+
+	private static final int NUMBER_OF_QUERIES = 1000;
+	private static final double STOP_DISTANCE = 600.0;
+
+	@Param({ "20", "30" })
+	public int gridSize;
+
+	@Param({ "Dijkstra", "Raptor" })
+	public TransitRouterType routerType;
+
+	private TransitRouter router;
+	private FakeFacility[] fromFacilities;
+	private FakeFacility[] toFacilities;
+	private double[] departureTimes;
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(4711);
+		TransitSchedule schedule = createSchedule(this.gridSize, random);
+		TransitRouterConfigGroup transitRouterConfig = new TransitRouterConfigGroup();
+		transitRouterConfig.setMaxBeelineWalkConnectionDistance(300.0);
+		TransitRouterConfig config = new TransitRouterConfig(new PlanCalcScoreConfigGroup(), new PlansCalcRouteConfigGroup(),
+				transitRouterConfig, new VspExperimentalConfigGroup());
+		if (this.routerType == TransitRouterType.Raptor) {
+			this.router = new TransitRouterRaptor(config, schedule);
+		} else {
+			this.router = new TransitRouterImpl(config, schedule);
+		}
+
+		double extent = this.gridSize * STOP_DISTANCE;
+		this.fromFacilities = new FakeFacility[NUMBER_OF_QUERIES];
+		this.toFacilities = new FakeFacility[NUMBER_OF_QUERIES];
+		this.departureTimes = new double[NUMBER_OF_QUERIES];
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			this.fromFacilities[i] = new FakeFacility(new Coord(random.nextDouble() * extent, random.nextDouble() * extent));
+			this.toFacilities[i] = new FakeFacility(new Coord(random.nextDouble() * extent, random.nextDouble() * extent));
+			this.departureTimes[i] = 4 * 3600 + random.nextDouble() * 20 * 3600;
+		}
+	}
+
+	@Benchmark
+	public List<Leg> calcRoute() {
+		int i = this.next;
+		this.next = (i + 1) % NUMBER_OF_QUERIES;
+		return this.router.calcRoute(this.fromFacilities[i], this.toFacilities[i], this.departureTimes[i], null);
+	}
+
+	private static TransitSchedule createSchedule(final int gridSize, final Random random) {
+		TransitScheduleFactory factory = new TransitScheduleFactoryImpl();
+		TransitSchedule schedule = factory.createTransitSchedule();
+		TransitStopFacility[][] stops = new TransitStopFacility[gridSize][gridSize];
+		for (int i = 0; i < gridSize; i++) {
+			for (int j = 0; j < gridSize; j++) {
+				Coord coord = new Coord(i * STOP_DISTANCE + random.nextInt(100), j * STOP_DISTANCE + random.nextInt(100));
+				stops[i][j] = factory.createTransitStopFacility(Id.create(i + "_" + j, TransitStopFacility.class), coord, false);
+				stops[i][j].setLinkId(Id.createLinkId(i + "_" + j));
+				schedule.addStopFacility(stops[i][j]);
+			}
+		}
+		int lineCount = 0;
+		for (int k = 0; k < gridSize; k++) {
+			// 0 and 1: along column k in both directions, 2 and 3: along row k
+			for (int direction = 0; direction < 4; direction++) {
+				if (random.nextInt(3) == 0) {
+					continue;
+				}
+				List<TransitRouteStop> routeStops = new ArrayList<>();
+				double offset = 0.0;
+				for (int m = 0; m < gridSize; m++) {
+					int index = direction % 2 == 0 ? m : gridSize - 1 - m;
+					TransitStopFacility stop = direction < 2 ? stops[k][index] : stops[index][k];
+					double arrivalOffset = m == 0 ? Time.UNDEFINED_TIME : offset;
+					double departureOffset = offset + (m == 0 ? 0 : 30 * random.nextInt(2));
+					routeStops.add(factory.createTransitRouteStop(stop, arrivalOffset, departureOffset));
+					offset = departureOffset + 60 + random.nextInt(120);
+				}
+				TransitLine line = factory.createTransitLine(Id.create(lineCount++, TransitLine.class));
+				TransitRoute route = factory.createTransitRoute(Id.create("r", TransitRoute.class), null, routeStops, "bus");
+				int headway = 300 + 60 * random.nextInt(15);
+				int departureCount = 0;
+				for (double time = 5 * 3600 + random.nextInt(600); time < 23 * 3600; time += headway) {
+					route.addDeparture(factory.createDeparture(Id.create(departureCount++, Departure.class), time));
+				}
+				line.addRoute(route);
+				schedule.addTransitLine(line);
+			}
+		}
+		return schedule;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(TransitRouterBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -24,8 +24,6 @@ import org.matsim.api.core.v01.events.*;
 import org.matsim.contrib.protobuf.events.ProtobufEvents;
 import org.matsim.core.gbl.Gbl;
 
-import java.util.Map;
-
 /**
  * Created by laemmel on 16/02/16.
  */
@@ -174,10 +172,18 @@ public abstract class Event2ProtoEvent {
 																	log.warn(Gbl.ONLYONCE);
 //																throw new RuntimeException("Unsopported event type:" + event.getEventType());
 																}
-																ProtobufEvents.GenericEvent.Builder ge = ProtobufEvents.GenericEvent.newBuilder();
-																for (Map.Entry<String,String> e : event.getAttributes().entrySet()) {
-																	ge.addAttrVal(ProtobufEvents.AttrVal.newBuilder().setValue(e.getValue()).setAttribut(e.getKey()));
-																}
+																final ProtobufEvents.GenericEvent.Builder ge = ProtobufEvents.GenericEvent.newBuilder();
+																event.writeAttributes(new EventAttributeSink() {
+																	@Override
+																	public void attribute(String name, String value) {
+																		ge.addAttrVal(ProtobufEvents.AttrVal.newBuilder().setValue(value).setAttribut(name));
+																	}
+
+																	@Override
+																	public void attribute(String name, double value) {
+																		attribute(name, Double.toString(value));
+																	}
+																});
 																eb.setType(ProtobufEvents.Event.Type.GenericEvent).setGenericEvent(ge);
 															}
 														}
@@ -41,6 +41,7 @@ import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.controler.BackgroundOutputWriter;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.IterationEndsEvent;
 import org.matsim.core.controler.events.ShutdownEvent;
@@ -85,6 +86,7 @@ public class ScoreStatsControlerListener implements StartupListener, IterationEn
 	
 	private final boolean createPNG;
 	private final ControlerConfigGroup controlerConfigGroup;
+	private final BackgroundOutputWriter backgroundOutputWriter;
 
 	Map<ScoreItem,Map< Integer, Double>> scoreHistory = new HashMap<>() ;
 	private int minIteration = 0;
@@ -93,8 +95,9 @@ public class ScoreStatsControlerListener implements StartupListener, IterationEn
 
 	@Inject
 	ScoreStatsControlerListener(ControlerConfigGroup controlerConfigGroup, Population population1, OutputDirectoryHierarchy controlerIO,
-			PlanCalcScoreConfigGroup scoreConfig, Provider<TripRouter> tripRouterFactory ) {
+			PlanCalcScoreConfigGroup scoreConfig, Provider<TripRouter> tripRouterFactory, BackgroundOutputWriter backgroundOutputWriter ) {
 		this.controlerConfigGroup = controlerConfigGroup;
+		this.backgroundOutputWriter = backgroundOutputWriter;
 		this.population = population1;
 		this.fileName = controlerIO.getOutputFilename(FILENAME_SCORESTATS);
 		this.createPNG = controlerConfigGroup.isCreateGraphs();
@@ -210,17 +213,23 @@ public class ScoreStatsControlerListener implements StartupListener, IterationEn
 
 		if (this.createPNG && event.getIteration() > this.minIteration) {
 			// create chart when data of more than one iteration is available.
-			XYLineChart chart = new XYLineChart("Score Statistics", "iteration", "score");
-//			double[] iterations = new double[index + 1];
-//			for (int i = 0; i <= index; i++) {
-//				iterations[i] = i + this.minIteration;
-//			}
-			chart.addSeries("avg. worst score", this.scoreHistory.get( ScoreItem.worst ) ) ;
-			chart.addSeries("avg. best score", this.scoreHistory.get( ScoreItem.best) );
-			chart.addSeries("avg. of plans' average score", this.scoreHistory.get( ScoreItem.average) );
-			chart.addSeries("avg. executed score", this.scoreHistory.get( ScoreItem.executed ) );
-			chart.addMatsimLogo();
-			chart.saveAsPng(this.fileName + ".png", 800, 600);
+			// (the score history is only changed again when the next iteration ends)
+			this.backgroundOutputWriter.submit("score statistics graph", new Runnable() {
+				@Override
+				public void run() {
+					XYLineChart chart = new XYLineChart("Score Statistics", "iteration", "score");
+//					double[] iterations = new double[index + 1];
+//					for (int i = 0; i <= index; i++) {
+//						iterations[i] = i + this.minIteration;
+//					}
+					chart.addSeries("avg. worst score", scoreHistory.get( ScoreItem.worst ) ) ;
+					chart.addSeries("avg. best score", scoreHistory.get( ScoreItem.best) );
+					chart.addSeries("avg. of plans' average score", scoreHistory.get( ScoreItem.average) );
+					chart.addSeries("avg. executed score", scoreHistory.get( ScoreItem.executed ) );
+					chart.addMatsimLogo();
+					chart.saveAsPng(fileName + ".png", 800, 600);
+				}
+			});
 		}
 	}
 
@@ -20,8 +20,11 @@
 
 package org.matsim.api.core.v01;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Node;
@@ -39,7 +42,7 @@ import org.matsim.vehicles.Vehicle;
  */
 public abstract class Id<T> implements Comparable<Id<T>> {
 
-	private final static Map<Class<?>, Map<String, Id<?>>> cache = new ConcurrentHashMap<Class<?>, Map<String, Id<?>>>();
+	private final static ConcurrentMap<Class<?>, IdCache> cache = new ConcurrentHashMap<Class<?>, IdCache>();
 	
 	
 	public static <T> Id<T> create(final long key, final Class<T> type) {
@@ -54,23 +57,73 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	}
 	
 	/**
-	 * This method supports a cache where ids are stored and re-used per type.   
+	 * This method supports a cache where ids are stored and re-used per type.  Every newly created id gets
+	 * the next free index of its type, see {@link #index()}.
 	 */
 	public static <T> Id<T> create(final String key, final Class<T> type) {
-		Map<String, Id<?>> map = cache.get(type);
-		if (map == null) {
-			map = new ConcurrentHashMap<String, Id<?>>();
-			cache.put(type, map);
-		}
-		Id<?> id = map.get(key);
+		IdCache idCache = getIdCache(type);
+		Id<?> id = idCache.ids.get(key);
 		if (id == null) {
-			id = new IdImpl<T>(key);
-			map.put(key, id);
+			synchronized (idCache) {
+				// another thread might have created the id in the mean time
+				id = idCache.ids.get(key);
+				if (id == null) {
+					id = new IdImpl<T>(key, idCache.idsByIndex.size());
+					idCache.idsByIndex.add(id);
+					idCache.ids.put(key, id);
+				}
+			}
 		}
 		
 		return (Id<T>) id;
 	}
 	
+	/**
+	 * @return the id of the given type with the given index, or <code>null</code> if there is no such id.
+	 */
+	public static <T> Id<T> get(final int index, final Class<T> type) {
+		IdCache idCache = cache.get(type);
+		if (idCache == null) {
+			return null;
+		}
+		synchronized (idCache) {
+			return (index < idCache.idsByIndex.size()) ? (Id<T>) idCache.idsByIndex.get(index) : null;
+		}
+	}
+	
+	/**
+	 * @return the number of ids created so far for the given type, i.e. all ids of this type have an index
+	 * <code>&lt;</code> the returned value.
+	 */
+	public static <T> int getNumberOfIds(final Class<T> type) {
+		IdCache idCache = cache.get(type);
+		if (idCache == null) {
+			return 0;
+		}
+		synchronized (idCache) {
+			return idCache.idsByIndex.size();
+		}
+	}
+	
+	private static IdCache getIdCache(final Class<?> type) {
+		IdCache idCache = cache.get(type);
+		if (idCache == null) {
+			IdCache newIdCache = new IdCache();
+			idCache = cache.putIfAbsent(type, newIdCache);
+			if (idCache == null) {
+				idCache = newIdCache;
+			}
+		}
+		return idCache;
+	}
+	
+	/**
+	 * Ids are numbered consecutively per type, starting at 0, in the order in which they are created.  This allows to
+	 * use the index for array-based lookups (see {@link org.matsim.core.utils.collections.IdMap} and 
+	 * {@link org.matsim.core.utils.collections.IdSet}).  Note that ids of different types may have the same index.
+	 */
+	public abstract int index();
+	
 	/**
 	 * @return <code>0</code> when the two objects being compared are the same objects, other values according to their ids being compared to each other.
 	 * 
@@ -111,9 +164,16 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	private static class IdImpl<T> extends Id<T> {
 
 		private final String id; 
+		private final int index;
 		
-		/*package*/ IdImpl(final String id) {
+		/*package*/ IdImpl(final String id, final int index) {
 			this.id = id;
+			this.index = index;
+		}
+
+		@Override
+		public int index() {
+			return this.index;
 		}
 
 		@Override
@@ -127,6 +187,11 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 		}
 	}
 
+	private static class IdCache {
+		final Map<String, Id<?>> ids = new ConcurrentHashMap<String, Id<?>>();
+		final List<Id<?>> idsByIndex = new ArrayList<Id<?>>();
+	}
+
 	// helper classes for some common cases:
 	public static Id<Person> createPersonId( final long key ) {
 		return create( key, Person.class ) ;
@@ -85,5 +85,18 @@ public final class ActivityEndEvent extends Event implements HasPersonId {
 		return attr;
 	}
 
+	@Override
+	public void writeAttributes(final EventAttributeSink sink) {
+		writeTimeAndType(sink);
+		sink.attribute(ATTRIBUTE_PERSON, this.personId.toString());
+		if (this.linkId != null) {
+			sink.attribute(ATTRIBUTE_LINK, this.linkId.toString());
+		}
+		if (this.facilityId != null) {
+			sink.attribute(ATTRIBUTE_FACILITY, this.facilityId.toString());
+		}
+		sink.attribute(ATTRIBUTE_ACTTYPE, this.acttype);
+	}
+
 	
 }
@@ -84,4 +84,17 @@ public class ActivityStartEvent extends Event implements HasPersonId {
 		attr.put(ATTRIBUTE_ACTTYPE, this.acttype);
 		return attr;
 	}
+
+	@Override
+	public void writeAttributes(final EventAttributeSink sink) {
+		writeTimeAndType(sink);
+		sink.attribute(ATTRIBUTE_PERSON, this.personId.toString());
+		if (this.linkId != null) {
+			sink.attribute(ATTRIBUTE_LINK, this.linkId.toString());
+		}
+		if (this.facilityId != null) {
+			sink.attribute(ATTRIBUTE_FACILITY, this.facilityId.toString());
+		}
+		sink.attribute(ATTRIBUTE_ACTTYPE, this.acttype);
+	}
 }
\ No newline at end of file
@@ -41,6 +41,26 @@ public abstract class Event {
 		return attr;
 	}
 
+	/**
+	 * Passes the attributes of this event (the same as in {@link #getAttributes()}) to the sink, without creating
+	 * a map. Events which add attributes in {@link #getAttributes()} should also override this method; the default
+	 * implementation falls back to {@link #getAttributes()}.
+	 */
+	public void writeAttributes(final EventAttributeSink sink) {
+		for (Map.Entry<String, String> entry : getAttributes().entrySet()) {
+			sink.attribute(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Passes the attributes of this class, i.e. the time and the type, to the sink. To be used by subclasses
+	 * overriding {@link #writeAttributes(EventAttributeSink)}.
+	 */
+	protected final void writeTimeAndType(final EventAttributeSink sink) {
+		sink.attribute(ATTRIBUTE_TIME, this.time);
+		sink.attribute(ATTRIBUTE_TYPE, getEventType());
+	}
+
 	/** @return a unique, descriptive name for this event type, used to identify event types in files. */
 	abstract public String getEventType();
 
@@ -0,0 +1,40 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventAttributeSink.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01.events;
+
+/**
+ * Receives the attributes of an event from {@link Event#writeAttributes(EventAttributeSink)}, in the same
+ * order as they are contained in {@link Event#getAttributes()}, but without creating a map for every event.
+ */
+public interface EventAttributeSink {
+
+	/**
+	 * @param value may be <code>null</code>
+	 */
+	void attribute(String name, String value);
+
+	/**
+	 * Numeric attributes are passed without converting them to a string first. The string representation
+	 * of the value is the one of {@link Double#toString(double)}.
+	 */
+	void attribute(String name, double value);
+
+}
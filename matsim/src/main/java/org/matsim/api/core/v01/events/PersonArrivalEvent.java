@@ -73,4 +73,14 @@ public class PersonArrivalEvent extends Event implements HasPersonId {
 		}
 		return attr;
 	}
+
+	@Override
+	public void writeAttributes(final EventAttributeSink sink) {
+		writeTimeAndType(sink);
+		sink.attribute(ATTRIBUTE_PERSON, this.personId.toString());
+		sink.attribute(ATTRIBUTE_LINK, (this.linkId == null ? null : this.linkId.toString()));
+		if (this.legMode != null) {
+			sink.attribute(ATTRIBUTE_LEGMODE, this.legMode);
+		}
+	}
 }
\ No newline at end of file
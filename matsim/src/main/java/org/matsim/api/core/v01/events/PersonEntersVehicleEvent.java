@@ -66,4 +66,11 @@ public class PersonEntersVehicleEvent extends Event implements HasPersonId {
 		attrs.put(ATTRIBUTE_VEHICLE, this.vehicleId.toString());
 		return attrs;
 	}
+
+	@Override
+	public void writeAttributes(final EventAttributeSink sink) {
+		writeTimeAndType(sink);
+		sink.attribute(ATTRIBUTE_PERSON, this.personId.toString());
+		sink.attribute(ATTRIBUTE_VEHICLE, this.vehicleId.toString());
+	}
 }
\ No newline at end of file
@@ -79,4 +79,11 @@ public final class PersonMoneyEvent extends Event implements HasPersonId {
 		attr.put(ATTRIBUTE_PERSON, this.personId.toString());
 		return attr;
 	}
+
+	@Override
+	public void writeAttributes(final EventAttributeSink sink) {
+		writeTimeAndType(sink);
+		sink.attribute(ATTRIBUTE_AMOUNT, this.amount);
+		sink.attribute(ATTRIBUTE_PERSON, this.personId.toString());
+	}
 }
\ No newline at end of file
@@ -93,4 +93,18 @@ public class VehicleEntersTrafficEvent extends Event implements HasPersonId, Has
 		attr.put(ATTRIBUTE_POSITION, Double.toString(this.relativePositionOnLink));
 		return attr;
 	}
+
+	@Override
+	public void writeAttributes(final EventAttributeSink sink) {
+		writeTimeAndType(sink);
+		sink.attribute(ATTRIBUTE_DRIVER, this.driverId.toString());
+		sink.attribute(ATTRIBUTE_LINK, (this.linkId == null ? null : this.linkId.toString()));
+		if (this.vehicleId != null) {
+			sink.attribute(ATTRIBUTE_VEHICLE, this.vehicleId.toString());
+		}
+		if (this.networkMode != null) {
+			sink.attribute(ATTRIBUTE_NETWORKMODE, networkMode);
+		}
+		sink.attribute(ATTRIBUTE_POSITION, this.relativePositionOnLink);
+	}
 }
\ No newline at end of file
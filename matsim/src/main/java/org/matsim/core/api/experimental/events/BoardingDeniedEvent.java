@@ -26,6 +26,7 @@ import java.util.Map;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.EventAttributeSink;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.internal.HasPersonId;
 import org.matsim.vehicles.Vehicle;
@@ -66,6 +67,13 @@ public final class BoardingDeniedEvent extends Event implements HasPersonId
 		atts.put(ATTRIBUTE_VEHICLE_ID, this.vehicleId.toString());
 		return atts;
 	}
+
+	@Override
+	public void writeAttributes(final EventAttributeSink sink) {
+		writeTimeAndType(sink);
+		sink.attribute(ATTRIBUTE_PERSON_ID, this.personId.toString());
+		sink.attribute(ATTRIBUTE_VEHICLE_ID, this.vehicleId.toString());
+	}
 	
 	@Override
 	public String getEventType() {
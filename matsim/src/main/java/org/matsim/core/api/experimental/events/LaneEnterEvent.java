@@ -23,6 +23,7 @@ import java.util.Map;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.EventAttributeSink;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.lanes.data.Lane;
 import org.matsim.vehicles.Vehicle;
@@ -65,6 +66,14 @@ public final class LaneEnterEvent extends Event  {
 		return attr;
 	}
 
+	@Override
+	public void writeAttributes(final EventAttributeSink sink) {
+		writeTimeAndType(sink);
+		sink.attribute(ATTRIBUTE_VEHICLE, this.vehicleId.toString());
+		sink.attribute(ATTRIBUTE_LINK, this.linkId.toString());
+		sink.attribute(ATTRIBUTE_LANE, this.laneId.toString());
+	}
+
 	public Id<Vehicle> getVehicleId() {
 		return vehicleId;
 	}
@@ -135,6 +135,17 @@ public final class ConfigConsistencyCheckerImpl implements ConfigConsistencyChec
 				config.controler().getRoutingAlgorithmType() != RoutingAlgorithmType.Dijkstra ) {
 			log.warn("We don't know if non-Dijkstra routing works together with LinkToLink routing.");
 		}
+
+		if ( config.controler().getRoutingAlgorithmType() == RoutingAlgorithmType.ContractionHierarchies &&
+				config.plansCalcRoute().getRoutingRandomness() != 0. ) {
+			log.warn("ContractionHierarchies routing computes the link costs without person, which does not work with the randomizing travel " +
+					"disutility, so Dijkstra is used instead. Set the routingRandomness to 0 to use it. A custom travel disutility must not depend on the person either.");
+		}
+
+		if ( config.controler().getRouteCacheSize() > 0 && config.plansCalcRoute().getRoutingRandomness() != 0. ) {
+			log.warn("The route cache gives all trips of a time bin the same route, which does not work with the randomizing travel disutility, " +
+					"so it is disabled. Set the routingRandomness to 0 to use it. A custom travel disutility must not depend on the person either.");
+		}
 		
 	}
 
@@ -32,15 +32,16 @@ import org.apache.log4j.Logger;
 import org.matsim.core.config.ReflectiveConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
 import org.matsim.core.controler.corelisteners.DumpDataAtEnd;
+import org.matsim.core.router.FastRouterType;
 import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.misc.StringUtils;
 
 public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final Logger log = Logger.getLogger( ControlerConfigGroup.class );
 
-	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks}
+	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks, ContractionHierarchies}
 
-	public enum EventsFileFormat {xml}
+	public enum EventsFileFormat {xml, binary}
 
 	public static final String GROUP_NAME = "controler";
 
@@ -48,6 +49,10 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final String FIRST_ITERATION = "firstIteration";
 	private static final String LAST_ITERATION = "lastIteration";
 	private static final String ROUTINGALGORITHM_TYPE = "routingAlgorithmType";
+	private static final String FAST_ROUTER_TYPE = "fastRouterType";
+	private static final String LANDMARKS_CACHE_FILE = "landmarksCacheFile";
+	private static final String ROUTE_CACHE_SIZE = "routeCacheSize";
+	private static final String ROUTE_CACHE_TIME_BIN_SIZE = "routeCacheTimeBinSize";
 	private static final String RUNID = "runId";
 	private static final String LINKTOLINK_ROUTING_ENABLED = "enableLinkToLinkRouting";
 	/*package*/ static final String EVENTS_FILE_FORMAT = "eventsFileFormat";
@@ -57,6 +62,7 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final String OVERWRITE_FILE = "overwriteFiles";
 	private static final String CREATE_GRAPHS = "createGraphs";
 	private static final String DUMP_DATA_AT_END = "dumpDataAtEnd";
+	private static final String NUMBER_OF_OUTPUT_THREADS = "numberOfOutputThreads";
 
 	/*package*/ static final String MOBSIM = "mobsim";
 	public enum MobsimType {qsim, JDEQSim}
@@ -68,6 +74,10 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private int firstIteration = 0;
 	private int lastIteration = 1000;
 	private RoutingAlgorithmType routingAlgorithmType = RoutingAlgorithmType.Dijkstra;
+	private FastRouterType fastRouterType = FastRouterType.ARRAY;
+	private String landmarksCacheFile = null;
+	private int routeCacheSize = 0;
+	private double routeCacheTimeBinSize = 900.0;
 
 	private boolean linkToLinkRoutingEnabled = false;
 
@@ -82,6 +92,7 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private int writeSnapshotsInterval = 1;
 	private boolean createGraphs = true;
 	private boolean dumpDataAtEnd = true;
+	private int numberOfOutputThreads = 0;
 	private OverwriteFileSetting overwriteFileSetting = OverwriteFileSetting.failIfDirectoryExists;
 
 	public ControlerConfigGroup() {
@@ -92,9 +103,18 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	public final Map<String, String> getComments() {
 		Map<String,String> map = super.getComments();
 		map.put(ROUTINGALGORITHM_TYPE, "The type of routing (least cost path) algorithm used, may have the values: " + RoutingAlgorithmType.Dijkstra + ", " + 
-				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + " or "  + RoutingAlgorithmType.FastAStarLandmarks);
+				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + ", "  + RoutingAlgorithmType.FastAStarLandmarks + " or " +
+				RoutingAlgorithmType.ContractionHierarchies + ". " + RoutingAlgorithmType.ContractionHierarchies + " requires a travel disutility which does not depend on the person. " + RoutingAlgorithmType.Dijkstra + " is used instead if the routingRandomness is not 0.");
+		map.put(FAST_ROUTER_TYPE, "Only used by " + RoutingAlgorithmType.FastDijkstra + " and " + RoutingAlgorithmType.FastAStarLandmarks + ". " + FastRouterType.ARRAY
+				+ " (default) or " + FastRouterType.CSR + ", which stores the network in plain arrays shared by all routers, and keeps the state of a search in plain arrays.");
+		map.put(LANDMARKS_CACHE_FILE, "Only used by " + RoutingAlgorithmType.AStarLandmarks + " and " + RoutingAlgorithmType.FastAStarLandmarks
+				+ ". If set, the landmarks are stored in this file and read from it in later runs, as long as the network does not change and no link got cheaper"
+				+ " than when the file was written (the stored costs are then still lower bounds). Otherwise, the landmarks are calculated again.");
+		map.put(ROUTE_CACHE_SIZE, "The maximum number of network routes which are cached per iteration, 0 to disable the cache (default). Trips with the same start and end node and a departure time in the same time bin "
+				+ "then get the same route. Requires a travel disutility which does not depend on the person. The cache is disabled if the routingRandomness is not 0.");
+		map.put(ROUTE_CACHE_TIME_BIN_SIZE, "The duration of the time bins of the route cache, in seconds.");
 		map.put(RUNID, "An identifier for the current run which is used as prefix for output files and mentioned in output xml files etc.");
-		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: txt, xml."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
+		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml, binary."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
 				"Multiple values can be specified separated by commas (',').");
 		map.put(WRITE_EVENTS_INTERVAL, "iterationNumber % writeEventsInterval == 0 defines in which iterations events are written " +
 				"to a file. `0' disables events writing completely.");
@@ -121,6 +141,8 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		map.put(WRITE_SNAPSHOTS_INTERVAL, "iterationNumber % " + WRITE_SNAPSHOTS_INTERVAL + " == 0 defines in which iterations snapshots are written " +
 				"to a file. `0' disables snapshots writing completely");
 		map.put(DUMP_DATA_AT_END, "true if at the end of a run, plans, network, config etc should be dumped to a file");
+		map.put(NUMBER_OF_OUTPUT_THREADS, "Number of background threads writing output files such as plans dumps and graphs while the iterations " +
+				"continue, e.g. during the mobsim. `0' writes all output synchronously (default).");
 		return map;
 	}
 
@@ -165,6 +187,49 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		this.routingAlgorithmType = type;
 	}
 
+	@StringGetter( FAST_ROUTER_TYPE )
+	public FastRouterType getFastRouterType() {
+		return this.fastRouterType;
+	}
+
+	@StringSetter( FAST_ROUTER_TYPE )
+	public void setFastRouterType(final FastRouterType fastRouterType) {
+		if (fastRouterType == FastRouterType.POINTER) {
+			throw new IllegalArgumentException(FastRouterType.POINTER + " is no longer supported, use " + FastRouterType.ARRAY + " or " + FastRouterType.CSR + ".");
+		}
+		this.fastRouterType = fastRouterType;
+	}
+
+	@StringGetter( LANDMARKS_CACHE_FILE )
+	public String getLandmarksCacheFile() {
+		return this.landmarksCacheFile;
+	}
+
+	@StringSetter( LANDMARKS_CACHE_FILE )
+	public void setLandmarksCacheFile(final String landmarksCacheFile) {
+		this.landmarksCacheFile = landmarksCacheFile;
+	}
+
+	@StringGetter( ROUTE_CACHE_SIZE )
+	public int getRouteCacheSize() {
+		return this.routeCacheSize;
+	}
+
+	@StringSetter( ROUTE_CACHE_SIZE )
+	public void setRouteCacheSize(final int routeCacheSize) {
+		this.routeCacheSize = routeCacheSize;
+	}
+
+	@StringGetter( ROUTE_CACHE_TIME_BIN_SIZE )
+	public double getRouteCacheTimeBinSize() {
+		return this.routeCacheTimeBinSize;
+	}
+
+	@StringSetter( ROUTE_CACHE_TIME_BIN_SIZE )
+	public void setRouteCacheTimeBinSize(final double routeCacheTimeBinSize) {
+		this.routeCacheTimeBinSize = routeCacheTimeBinSize;
+	}
+
 	@StringGetter( RUNID )
 	public String getRunId() {
 		return this.runId;
@@ -339,6 +404,16 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	public void setDumpDataAtEnd(boolean dumpDataAtEnd) {
 		this.dumpDataAtEnd = dumpDataAtEnd;
 	}
+
+	@StringGetter(NUMBER_OF_OUTPUT_THREADS)
+	public int getNumberOfOutputThreads() {
+		return numberOfOutputThreads;
+	}
+
+	@StringSetter(NUMBER_OF_OUTPUT_THREADS)
+	public void setNumberOfOutputThreads(int numberOfOutputThreads) {
+		this.numberOfOutputThreads = numberOfOutputThreads;
+	}
 	// ---
 	int writePlansUntilIteration = 1 ;
 	public int getWritePlansUntilIteration() {
@@ -37,10 +37,12 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	private static final String RANDOM_SEED = "randomSeed";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
 	private static final String COORDINATE_SYSTEM = "coordinateSystem";
+	private static final String REPLANNING_BATCH_SIZE = "replanningBatchSize";
 
 	private long randomSeed = 4711L;
 	private int numberOfThreads = 2;
 	private String coordinateSystem = "Atlantis";
+	private int replanningBatchSize = 0;
 	
 	@Override
 	public Map<String, String> getComments() {
@@ -48,6 +50,10 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "\"global\" number of threads.  "
 				+ "This number is used, e.g., for replanning, but NOT in the mobsim.  "
 				+ "This can typically be set to as many cores as you have available, or possibly even slightly more.") ;
+		map.put(REPLANNING_BATCH_SIZE, "If larger than 0, the threads of multi-threaded replanning modules take the plans in batches of this size "
+				+ "from a shared queue, which balances the load between the threads.  The random number generators of the modules are then "
+				+ "re-initialized for each person, so the results do not depend on which thread handles a plan.  "
+				+ "If 0, the plans are distributed equally to the threads in advance (default).") ;
 		return map ;
 	}
 
@@ -72,6 +78,15 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		this.numberOfThreads = numberOfThreads;
 	}
 
+	@StringGetter( REPLANNING_BATCH_SIZE )
+	public int getReplanningBatchSize() {
+		return this.replanningBatchSize;
+	}
+	@StringSetter( REPLANNING_BATCH_SIZE )
+	public void setReplanningBatchSize(final int replanningBatchSize) {
+		this.replanningBatchSize = replanningBatchSize;
+	}
+
 	@StringGetter( COORDINATE_SYSTEM )
 	public String getCoordinateSystem() {
 		return this.coordinateSystem;
@@ -45,6 +45,9 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 	private final static String ONE_THREAD_PER_HANDLER = "oneThreadPerHandler"; 
 	private Boolean oneThreadPerHandler = false;
 	
+	private final static String USING_RING_BUFFER = "usingRingBuffer";
+	private Boolean usingRingBuffer = false;
+
 	private boolean locked = false;
 
 	public ParallelEventHandlingConfigGroup() {
@@ -60,6 +63,8 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 				+ "before the next time step is simulated. E.g. neccessary when within-day replanning is used.");
 		comments.put(ONE_THREAD_PER_HANDLER, "If enabled, each event handler is assigned to its own thread. Note that enabling this feature disabled the " + NUMBER_OF_THREADS + " option! "
 				+ "This feature is still experimental!");
+		comments.put(USING_RING_BUFFER, "If enabled (and " + NUMBER_OF_THREADS + " is set), the events are passed to the " + NUMBER_OF_THREADS + " processing threads "
+				+ "by a pre-allocated ring buffer instead of by queues. Respects the " + SYNCHRONIZE_ON_SIMSTEPS + " option. This feature is still experimental!");
 		return comments;
 	}
 
@@ -127,6 +132,20 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 		}
 	}
 	
+	@StringGetter( USING_RING_BUFFER )
+	public Boolean getUsingRingBuffer() {
+		return this.usingRingBuffer;
+	}
+
+	@StringSetter( USING_RING_BUFFER )
+	public void setUsingRingBuffer(Boolean usingRingBuffer) {
+		if ( !this.locked ) {
+			this.usingRingBuffer = usingRingBuffer;
+		} else {
+			throw new RuntimeException("it is too late in the control flow to modify this parameter");
+		}
+	}
+
 	public void makeLocked() {
 		this.locked = true;
 	}
@@ -59,6 +59,7 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 	private static final String WAITING_PT  = "waitingPt";
 
 	private static final String WRITE_EXPERIENCED_PLANS = "writeExperiencedPlans";
+	private static final String NUMBER_OF_EVENT_HANDLERS = "numberOfEventHandlers";
 
 	private static final String MARGINAL_UTL_OF_MONEY = "marginalUtilityOfMoney" ;
 
@@ -319,6 +320,8 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 		map.put(UTL_OF_LINE_SWITCH, "[utils] utility of switching a line (= transfer penalty).  Normally negative") ;
 		map.put(MARGINAL_UTL_OF_MONEY, "[utils/unit_of_money] conversion of money (e.g. toll, distance cost) into utils. Normall positive (i.e. toll/cost/fare are processed as negative amounts of money)." ) ;
 		map.put(WRITE_EXPERIENCED_PLANS, "write a plans file in each iteration directory which contains what each agent actually did, and the score it received.");
+		map.put(NUMBER_OF_EVENT_HANDLERS, "The number of event handlers among which the persons are split for scoring. " +
+				"With parallel event handling, the handlers can run in different threads.");
 
 		return map;
 	}
@@ -547,6 +550,14 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 		delegate.setWriteExperiencedPlans(writeExperiencedPlans);
 	}
 
+	public int getNumberOfEventHandlers() {
+		return delegate.getNumberOfEventHandlers();
+	}
+
+	public void setNumberOfEventHandlers(int numberOfEventHandlers) {
+		delegate.setNumberOfEventHandlers(numberOfEventHandlers);
+	}
+
 	public double getMarginalUtlOfWaiting_utils_hr() {
 		return getScoringParameters( null ).getMarginalUtlOfWaiting_utils_hr();
 	}
@@ -1205,6 +1216,8 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 
 		private boolean writeExperiencedPlans = false;
 
+		private int numberOfEventHandlers = 1;
+
 		private Double fractionOfIterationsToStartScoreMSA = null ;
 
 		private boolean usingOldScoringBelowZeroUtilityDuration = false;
@@ -1278,6 +1291,20 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 			this.writeExperiencedPlans = writeExperiencedPlans;
 		}
 
+		@StringGetter( NUMBER_OF_EVENT_HANDLERS )
+		public int getNumberOfEventHandlers() {
+			return numberOfEventHandlers;
+		}
+
+		@StringSetter( NUMBER_OF_EVENT_HANDLERS )
+		public void setNumberOfEventHandlers(int numberOfEventHandlers) {
+			testForLocked() ;
+			if ( numberOfEventHandlers < 1 ) {
+				throw new IllegalArgumentException( "The number of event handlers must be at least 1: " + numberOfEventHandlers );
+			}
+			this.numberOfEventHandlers = numberOfEventHandlers;
+		}
+
 	}
 
 }
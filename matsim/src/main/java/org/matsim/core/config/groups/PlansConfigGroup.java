@@ -21,6 +21,7 @@
 package org.matsim.core.config.groups;
 
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
@@ -34,20 +35,24 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 	public abstract static class NetworkRouteType {
 		public static final String LinkNetworkRoute = "LinkNetworkRoute";
 		public static final String CompressedNetworkRoute = "CompressedNetworkRoute";
+		public static final String DeltaEncodedNetworkRoute = "DeltaEncodedNetworkRoute";
 	}
 
 	public static enum ActivityDurationInterpretation { minOfDurationAndEndTime, tryEndTimeThenDuration, @Deprecated endTimeOnly }
+	public static enum PlanStorage { objects, packed, packedOffHeap }
 	private static final String INPUT_FILE = "inputPlansFile";
 	private static final String INPUT_PERSON_ATTRIBUTES_FILE = "inputPersonAttributesFile";
 	private static final String NETWORK_ROUTE_TYPE = "networkRouteType";
 	private static final String SUBPOPULATION_ATTRIBUTE = "subpopulationAttributeName";
 	private static final String INPUT_CRS = "inputCRS";
+	private static final String PLAN_STORAGE = "planStorage";
 
 	private String inputFile = null;
 	private String networkRouteType = NetworkRouteType.LinkNetworkRoute;
 	private String inputPersonAttributeFile = null;
 	private String subpopulationAttributeName = "subpopulation";
 	private String inputCRS = null;
+	private PlanStorage planStorage = PlanStorage.objects;
 	
 	//--
 	
@@ -67,7 +72,9 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 				NETWORK_ROUTE_TYPE,
 				"Defines how routes are stored in memory. Currently supported: " +
 				NetworkRouteType.LinkNetworkRoute + ", " +
-				NetworkRouteType.CompressedNetworkRoute + ".");
+				NetworkRouteType.CompressedNetworkRoute + ", " +
+				NetworkRouteType.DeltaEncodedNetworkRoute + ". " +
+				NetworkRouteType.DeltaEncodedNetworkRoute + " stores routes with the same links only once.");
 		comments.put(
 				INPUT_PERSON_ATTRIBUTES_FILE,
 				"Path to a file containing person attributes (required file format: ObjectAttributes).");
@@ -91,6 +98,11 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
 
+		comments.put( PLAN_STORAGE , "Defines how plans are stored in memory. Possible values: " + Arrays.toString( PlanStorage.values() ) + ". " +
+				PlanStorage.packed + " stores the plans in packed arrays after they were scored, which needs much less memory. " +
+				PlanStorage.packedOffHeap + " stores these arrays outside of the java heap. " +
+				"Times of packed plans are stored as float, i.e. exactly only for whole seconds. default=" + PlanStorage.objects );
+
 		return comments;
 	}
 
@@ -188,5 +200,15 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		this.inputCRS = inputCRS;
 	}
 
+	@StringGetter( PLAN_STORAGE )
+	public PlanStorage getPlanStorage() {
+		return this.planStorage;
+	}
+
+	@StringSetter( PLAN_STORAGE )
+	public void setPlanStorage(final PlanStorage planStorage) {
+		this.planStorage = planStorage;
+	}
+
 
 }
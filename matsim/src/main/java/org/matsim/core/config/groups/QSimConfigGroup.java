@@ -237,6 +237,18 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(USE_PERSON_ID_FOR_MISSING_VEHICLE_ID, "If a route does not reference a vehicle, agents will use the vehicle with the same id as their own.");
 		map.put(USING_THREADPOOL, "if the qsim should use as many runners as there are threads (Christoph's dissertation version)"
 				+ " or more of them, together with a thread pool (seems to be faster in some situations, but is not tested).") ;
+		map.put(USING_WORK_STEALING, "if true (and " + USING_THREADPOOL + " is true), the network is split into many more runners than there are"
+				+ " threads, which are executed by a work stealing pool and re-balanced based on how often their links and nodes were simulated.  As the"
+				+ " results depend on the number of runners and on the assignment of the network to them (MATSIM-404), they differ from the ones"
+				+ " without work stealing, but they are the same in every run.  Default is false.") ;
+		map.put(NETWORK_PARTITIONING, "How the nodes (together with their out-links) are assigned to the runners.  " + NetworkPartitioning.roundRobin 
+				+ ": in the order of the network;  " + NetworkPartitioning.graphPartitioning + ": such that few links connect nodes of different runners,"
+				+ " balanced by lane-km.  As the order in which the vehicles are moved depends on the runners (MATSIM-404), this may change"
+				+ " the results.  Default is " + NetworkPartitioning.roundRobin + ".") ;
+		map.put(SKIPPING_IDLE_TIME_STEPS, "if true, the qsim jumps directly to the next time step in which one of the mobsim engines has something"
+				+ " to do (e.g. the next activity end) instead of simulating every time step, which is mostly helpful in the night hours.  Only works"
+				+ " if all mobsim engines support it (e.g. not with within-day replanning).  Note that mobsim listeners (and thus snapshot writers)"
+				+ " are only called in the simulated time steps.  Default is false.") ;
 		map.put(FAST_CAPACITY_UPDATE, "If false, the qsim accumulates fractional flows up to one flow unit in every time step.  If true, "
 				+ "flows are updated only if an agent wants to enter the link or an agent is added to buffer. "
 				+ "Default is true.") ;
@@ -486,6 +498,40 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		this.usingThreadpool = val ;
 	}
 
+	private static final String USING_WORK_STEALING = "usingWorkStealing" ;
+	private boolean usingWorkStealing = false ;
+	@StringGetter(USING_WORK_STEALING)
+	public boolean isUsingWorkStealing() {
+		return this.usingWorkStealing ;
+	}
+	@StringSetter(USING_WORK_STEALING)
+	public void setUsingWorkStealing( boolean val ) {
+		this.usingWorkStealing = val ;
+	}
+
+	private static final String NETWORK_PARTITIONING = "networkPartitioning" ;
+	public static enum NetworkPartitioning { roundRobin, graphPartitioning } ;
+	private NetworkPartitioning networkPartitioning = NetworkPartitioning.roundRobin ;
+	@StringGetter(NETWORK_PARTITIONING)
+	public NetworkPartitioning getNetworkPartitioning() {
+		return this.networkPartitioning ;
+	}
+	@StringSetter(NETWORK_PARTITIONING)
+	public void setNetworkPartitioning( NetworkPartitioning val ) {
+		this.networkPartitioning = val ;
+	}
+
+	private static final String SKIPPING_IDLE_TIME_STEPS = "skippingIdleTimeSteps" ;
+	private boolean skippingIdleTimeSteps = false ;
+	@StringGetter(SKIPPING_IDLE_TIME_STEPS)
+	public boolean isSkippingIdleTimeSteps() {
+		return this.skippingIdleTimeSteps ;
+	}
+	@StringSetter(SKIPPING_IDLE_TIME_STEPS)
+	public void setSkippingIdleTimeSteps( boolean val ) {
+		this.skippingIdleTimeSteps = val ;
+	}
+
 	private static final String USE_LANES="useLanes" ;
 	private boolean useLanes = false ;
 
@@ -34,7 +34,7 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 
 	public static final String GROUPNAME = "travelTimeCalculator";
 
-	public enum TravelTimeCalculatorType {TravelTimeCalculatorArray,TravelTimeCalculatorHashMap}
+	public enum TravelTimeCalculatorType {TravelTimeCalculatorArray,TravelTimeCalculatorHashMap,TravelTimeCalculatorFlatArray}
 	
 	private static final String TRAVEL_TIME_CALCULATOR = "travelTimeCalculator";
 	private static final String TRAVEL_TIME_BIN_SIZE = "travelTimeBinSize";
@@ -49,6 +49,11 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private static final String FILTERMODES = "filterModes";
 	private static final String SEPARATEMODES = "separateModes";
 
+	private static final String NUMBER_OF_EVENT_HANDLERS = "numberOfEventHandlers";
+
+	private static final String INPUT_TRAVEL_TIMES_FILE = "inputTravelTimesFile";
+	private static final String WRITE_TRAVEL_TIMES_INTERVAL = "writeTravelTimesInterval";
+
 	private TravelTimeCalculatorType travelTimeCalculator = TravelTimeCalculatorType.TravelTimeCalculatorArray;
 	private String travelTimeAggregator = "optimistic";
 	private String travelTimeGetter = "average";
@@ -62,6 +67,11 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private boolean filterModes = false;
 	private boolean separateModes = false;
 
+	private int numberOfEventHandlers = 1;
+
+	private String inputTravelTimesFile = null;
+	private int writeTravelTimesInterval = 0;
+
 	public TravelTimeCalculatorConfigGroup() {
 		super(GROUPNAME);
 	}
@@ -81,12 +91,19 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 				"includes also busses from the pt simulation module. Use this parameter in combination with 'filterModes' = true!");
 		map.put(FILTERMODES, "If true, link travel times from legs performed on modes not included in the 'analyzedModes' parameter are ignored.");
 		map.put(SEPARATEMODES, "If true, link travel times are measured and calculated separately for each mode in analyzedModes. Other modes are ignored. If true, filterModes has no effect.");
+		map.put(NUMBER_OF_EVENT_HANDLERS, "The number of event handlers among which the links are split for collecting the travel times. " +
+				"With parallel event handling, the handlers can run in different threads. Must be 1 if link to link travel times are calculated.");
+		map.put(INPUT_TRAVEL_TIMES_FILE, "If set, the link travel times are initialized from this binary file, e.g. output_linkTravelTimes.bin of a previous run, "
+				+ "instead of free speed. They are used until the events of the first iteration are collected.");
+		map.put(WRITE_TRAVEL_TIMES_INTERVAL, "Iteration interval in which the link travel times are written to a binary file, which can be used as "
+				+ INPUT_TRAVEL_TIMES_FILE + ". 0 disables writing. If not 0, they are also written at the end of the last iteration. Not available with separateModes.");
 		// === 
 		String str = null ;
 		for ( TravelTimeCalculatorType type : TravelTimeCalculatorType.values() ) {
 			str += type.toString() + " " ;
 		}
-		map.put( TRAVEL_TIME_CALCULATOR, "possible values: " + str ) ;
+		map.put( TRAVEL_TIME_CALCULATOR, "possible values: " + str + ". TravelTimeCalculatorFlatArray stores the travel times of all " +
+				"links in a few large arrays, which uses less memory and is faster if most links are used." ) ;
 		return map;
 	}
 
@@ -203,4 +220,34 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 		this.separateModes = separateModes;
 	}
 	
+	@StringGetter(NUMBER_OF_EVENT_HANDLERS)
+	public int getNumberOfEventHandlers() {
+		return this.numberOfEventHandlers;
+	}
+
+	@StringSetter(NUMBER_OF_EVENT_HANDLERS)
+	public void setNumberOfEventHandlers(int numberOfEventHandlers) {
+		this.numberOfEventHandlers = numberOfEventHandlers;
+	}
+
+	@StringGetter(INPUT_TRAVEL_TIMES_FILE)
+	public String getInputTravelTimesFile() {
+		return this.inputTravelTimesFile;
+	}
+
+	@StringSetter(INPUT_TRAVEL_TIMES_FILE)
+	public void setInputTravelTimesFile(String inputTravelTimesFile) {
+		this.inputTravelTimesFile = inputTravelTimesFile;
+	}
+
+	@StringGetter(WRITE_TRAVEL_TIMES_INTERVAL)
+	public int getWriteTravelTimesInterval() {
+		return this.writeTravelTimesInterval;
+	}
+
+	@StringSetter(WRITE_TRAVEL_TIMES_INTERVAL)
+	public void setWriteTravelTimesInterval(int writeTravelTimesInterval) {
+		this.writeTravelTimesInterval = writeTravelTimesInterval;
+	}
+
 }
@@ -0,0 +1,189 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BackgroundOutputWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.events.ScoringEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.controler.listener.ScoringListener;
+import org.matsim.core.controler.listener.ShutdownListener;
+
+/**
+ * Writes output files in background threads while the iterations continue, see
+ * {@link ControlerConfigGroup#getNumberOfOutputThreads()}. If no output threads are configured, the submitted
+ * tasks are run directly.
+ * <br>
+ * The tasks have to be submitted by the listeners at a point where the data they write is not changed until the
+ * next barrier. The controler waits for all submitted tasks to be finished
+ * <ul>
+ * <li>at the start of each iteration, before the replanning changes the plans and the iteration start listeners
+ * reset their data,</li>
+ * <li>when the scoring event is fired, before the scores of the plans change,</li>
+ * <li>at shutdown.</li>
+ * </ul>
+ * For example, graphs of the statistics of an iteration can be created when the iteration ends. Data which may be
+ * changed before the next barrier, like the plans before the mobsim, has to be copied before it is submitted, see
+ * {@link #isWritingInBackground()}.
+ */
+public final class BackgroundOutputWriter implements IterationStartsListener, ScoringListener, ShutdownListener {
+
+	private final static Logger log = Logger.getLogger(BackgroundOutputWriter.class);
+
+	private final int numberOfThreads;
+	private ExecutorService executor = null;
+	private boolean isShutdown = false;
+	private final List<Future<?>> pendingTasks = new ArrayList<>();
+
+	@Inject
+	BackgroundOutputWriter(final ControlerConfigGroup controlerConfigGroup) {
+		this(controlerConfigGroup.getNumberOfOutputThreads());
+	}
+
+	public BackgroundOutputWriter(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * Runs the task in a background thread, or directly if no background threads are configured or the writer was
+	 * already shut down.
+	 *
+	 * @param name a description of the written output, used in error messages.
+	 */
+	public void submit(final String name, final Runnable task) {
+		synchronized (this) {
+			if (this.numberOfThreads > 0 && !this.isShutdown) {
+				if (this.executor == null) {
+					this.executor = Executors.newFixedThreadPool(this.numberOfThreads, new OutputThreadFactory());
+				}
+				this.pendingTasks.add(this.executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						try {
+							task.run();
+						} catch (RuntimeException e) {
+							throw new RuntimeException("Writing " + name + " failed.", e);
+						}
+						return null;
+					}
+				}));
+				return;
+			}
+		}
+		task.run();
+	}
+
+	/**
+	 * @return <code>true</code> if submitted tasks are run in background threads, i.e. whether the data they write
+	 * must not change until the next barrier.
+	 */
+	public synchronized boolean isWritingInBackground() {
+		return this.numberOfThreads > 0 && !this.isShutdown;
+	}
+
+	/**
+	 * Waits until all tasks submitted so far are finished.
+	 *
+	 * @throws RuntimeException if one of the tasks failed.
+	 */
+	public void awaitCompletion() {
+		List<Future<?>> tasks;
+		synchronized (this) {
+			tasks = new ArrayList<>(this.pendingTasks);
+			this.pendingTasks.clear();
+		}
+		Throwable failure = null;
+		for (Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause();
+				} else {
+					log.error("Writing output in the background failed.", e.getCause());
+				}
+			}
+		}
+		if (failure != null) {
+			throw new RuntimeException("Writing output in the background failed.", failure);
+		}
+	}
+
+	@Override
+	public void notifyIterationStarts(final IterationStartsEvent event) {
+		awaitCompletion();
+	}
+
+	@Override
+	public void notifyScoring(final ScoringEvent event) {
+		awaitCompletion();
+	}
+
+	@Override
+	public void notifyShutdown(final ShutdownEvent event) {
+		try {
+			awaitCompletion();
+		} catch (RuntimeException e) {
+			if (!event.isUnexpected()) {
+				throw e;
+			}
+			// do not hide the reason of the unexpected shutdown
+			log.error("Writing output in the background failed.", e);
+		} finally {
+			synchronized (this) {
+				this.isShutdown = true;
+				if (this.executor != null) {
+					this.executor.shutdown();
+					this.executor = null;
+				}
+			}
+		}
+	}
+
+	private static class OutputThreadFactory implements ThreadFactory {
+		private final AtomicInteger counter = new AtomicInteger(0);
+
+		@Override
+		public Thread newThread(final Runnable r) {
+			Thread thread = new Thread(r, "OutputWriter-" + this.counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
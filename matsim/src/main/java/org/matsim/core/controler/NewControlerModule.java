@@ -11,6 +11,7 @@ public class NewControlerModule extends AbstractModule {
 		bind(PrepareForSim.class).to(PrepareForSimImpl.class);
 		bind(IterationStopWatch.class).asEagerSingleton();
 		bind(OutputDirectoryHierarchy.class).asEagerSingleton();
+		bind(BackgroundOutputWriter.class).asEagerSingleton();
 		bind(TerminationCriterion.class).to(TerminateAtFixedIterationNumber.class);
 		bind(MatsimServices.class).to(MatsimServicesImpl.class);
 	}
@@ -22,19 +22,31 @@ package org.matsim.core.controler.corelisteners;
 
 import org.apache.log4j.Logger;
 import org.matsim.analysis.IterationStopWatch;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.PopulationWriter;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.controler.BackgroundOutputWriter;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.BeforeMobsimEvent;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.population.PopulationUtils;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
 
 /**
  * {@link org.matsim.core.controler.listener.ControlerListener} that dumps the
@@ -42,6 +54,12 @@ import org.matsim.core.utils.geometry.transformations.TransformationFactory;
  * ({@link ControlerConfigGroup#getWritePlansInterval()} as well as in the first
  * iteration, just in case someone might check that the replanning worked
  * correctly in the first iteration.
+ * <p></p>
+ * The plans are written by the {@link BackgroundOutputWriter}. If it writes in background threads, a snapshot of the
+ * persons and their plans is written, taken before the other listeners and the mobsim may change the plans, so the
+ * dump contains the same plans as if it was written directly. Only the selected plans are copied, as the mobsim
+ * changes them, e.g. sets the vehicles of the routes. The other plans are shared with the population: they are
+ * only changed by the replanning, and the writer finishes before the next replanning starts.
  *
  * @author mrieser
  */
@@ -55,6 +73,7 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 	@Inject private Population population;
 	@Inject private IterationStopWatch stopwatch;
 	@Inject private OutputDirectoryHierarchy controlerIO;
+	@Inject private BackgroundOutputWriter backgroundOutputWriter;
 	private int writePlansInterval ;
 
 	private int writeMoreUntilIteration;
@@ -75,23 +94,118 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 			log.info("dumping plans...");
 			final String inputCRS = config.plans().getInputCRS();
 			final String internalCRS = config.global().getCoordinateSystem();
+			final String filename = controlerIO.getIterationFilename(event.getIteration(), "plans.xml.gz");
 
-			if ( inputCRS == null ) {
-				new PopulationWriter(population, network).write(controlerIO.getIterationFilename(event.getIteration(), "plans.xml.gz"));
-			}
-			else {
-				log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
+			final Population plansToWrite = backgroundOutputWriter.isWritingInBackground() ? createSnapshot(population, config) : population;
+			backgroundOutputWriter.submit("plans dump", new Runnable() {
+				@Override
+				public void run() {
+					if ( inputCRS == null ) {
+						new PopulationWriter(plansToWrite, network).write(filename);
+					}
+					else {
+						log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
 
-				final CoordinateTransformation transformation =
-						TransformationFactory.getCoordinateTransformation(
-								internalCRS,
-								inputCRS );
+						final CoordinateTransformation transformation =
+								TransformationFactory.getCoordinateTransformation(
+										internalCRS,
+										inputCRS );
 
-				new PopulationWriter(transformation, population, network).write(controlerIO.getIterationFilename(event.getIteration(), "plans.xml.gz"));
-			}
-			log.info("finished plans dump.");
+						new PopulationWriter(transformation, plansToWrite, network).write(filename);
+					}
+					log.info("finished plans dump.");
+				}
+			});
 			stopwatch.endOperation("dump all plans");
 		}
 	}
 
+	/**
+	 * @return a snapshot of the persons of the population, with copies of their selected plans and the other plans
+	 * of the population, with all data written by the {@link PopulationWriter}.
+	 */
+	/*package*/ static Population createSnapshot(final Population population, final Config config) {
+		Population snapshot = PopulationUtils.createPopulation(config);
+		snapshot.setName(population.getName());
+		AttributesUtils.copyTo(population.getAttributes(), snapshot.getAttributes());
+		for (Person person : population.getPersons().values()) {
+			snapshot.addPerson(new PersonSnapshot(person));
+		}
+		return snapshot;
+	}
+
+	/**
+	 * A person which can only be written. It has its own copy of the selected plan, so the selected plan is the only
+	 * plan which refers to the snapshot, as {@link org.matsim.core.population.PersonUtils#isSelected} expects.
+	 */
+	private static final class PersonSnapshot implements Person {
+		private final Person person;
+		private final Attributes attributes = new Attributes();
+		private final List<Plan> plans;
+		private final Plan selectedPlan;
+
+		PersonSnapshot(final Person person) {
+			this.person = person;
+			AttributesUtils.copyTo(person.getAttributes(), this.attributes);
+			List<Plan> plans = new ArrayList<>(person.getPlans());
+			Plan selectedPlan = null;
+			for (int i = 0; i < plans.size(); i++) {
+				Plan plan = plans.get(i);
+				if (plan == person.getSelectedPlan()) {
+					selectedPlan = PopulationUtils.createPlan(this);
+					PopulationUtils.copyFromTo(plan, selectedPlan);
+					AttributesUtils.copyTo(plan.getAttributes(), selectedPlan.getAttributes());
+					plans.set(i, selectedPlan);
+				}
+			}
+			this.plans = Collections.unmodifiableList(plans);
+			this.selectedPlan = selectedPlan;
+		}
+
+		@Override
+		public Id<Person> getId() {
+			return this.person.getId();
+		}
+
+		@Override
+		public Attributes getAttributes() {
+			return this.attributes;
+		}
+
+		@Override
+		public Map<String, Object> getCustomAttributes() {
+			return this.person.getCustomAttributes();
+		}
+
+		@Override
+		public List<Plan> getPlans() {
+			return this.plans;
+		}
+
+		@Override
+		public Plan getSelectedPlan() {
+			return this.selectedPlan;
+		}
+
+		@Override
+		public boolean addPlan(final Plan p) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean removePlan(final Plan p) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setSelectedPlan(final Plan selectedPlan) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Plan createCopyOfSelectedPlanAndMakeSelected() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
 }
@@ -0,0 +1,428 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsReaderBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.events.EventsReaderXMLv1.CustomEventMapper;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.xml.sax.Attributes;
+
+/**
+ * Reads events files written by {@link EventWriterBinary}. The events are created in the same way as by
+ * {@link EventsReaderXMLv1}, i.e. the same event classes are created and custom event mappers are supported.
+ * <br>
+ * With {@link #readFile(String, double, double)}, only the events within a time window are read. The reader
+ * takes the dictionary from the end of the file and jumps to the blocks which contain events of this time
+ * window, all other blocks are skipped. This needs random access to the file, so it does not work with
+ * compressed files.
+ */
+public class EventsReaderBinary implements MatsimReader {
+
+	private final EventsReaderXMLv1 eventCreator;
+
+	private final List<String> strings = new ArrayList<>();
+	private final List<Layout> layouts = new ArrayList<>();
+	private final EventAttributes attributes = new EventAttributes();
+
+	private final Inflater inflater = new Inflater();
+	private byte[] compressed = new byte[1 << 16];
+	private final Section dictionary = new Section();
+	private final Section times = new Section();
+	private final Section layoutColumn = new Section();
+	private final Section values = new Section();
+
+	public EventsReaderBinary(final EventsManager events) {
+		this.eventCreator = new EventsReaderXMLv1(events);
+	}
+
+	public void addCustomEventMapper(String eventType, CustomEventMapper<?> cem) {
+		this.eventCreator.addCustomEventMapper(eventType, cem);
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		try (InputStream stream = IOUtils.getInputStream(filename)) {
+			readStream(stream);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void readStream(final InputStream stream) {
+		try {
+			DataInputStream in = new DataInputStream(stream);
+			readHeader(in);
+			int eventCount;
+			while ((eventCount = in.readInt()) >= 0) {
+				in.readDouble(); // minTime
+				in.readDouble(); // maxTime
+				readBlock(in, eventCount, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			clear();
+		}
+	}
+
+	/**
+	 * Reads only the events with <code>fromTime &lt;= time &lt;= toTime</code>, using the index at the end of the
+	 * file to skip all blocks without such events.
+	 *
+	 * @throws IllegalArgumentException if the file is gzip-compressed, as a compressed file cannot be read from
+	 * an arbitrary position. Such files can only be read completely with {@link #readFile(String)}.
+	 */
+	public void readFile(final String filename, final double fromTime, final double toTime) {
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			if (file.length() >= 2 && file.readUnsignedByte() == 0x1f && file.readUnsignedByte() == 0x8b) {
+				throw new IllegalArgumentException("The events file " + filename + " is gzip-compressed. Reading the events of a time window "
+						+ "requires an uncompressed file. Read all events with readFile(String), or write the events without compression.");
+			}
+			file.seek(0);
+			readHeader(file);
+			file.seek(file.length() - EventWriterBinary.MAGIC.length - 8);
+			long footerOffset = file.readLong();
+			checkMagic(file);
+			file.seek(footerOffset);
+			if (file.readInt() != -1) {
+				throw new IllegalArgumentException("The index of the events file " + filename + " is corrupt.");
+			}
+			int blockCount = file.readInt();
+			long[] offsets = new long[blockCount];
+			boolean[] relevant = new boolean[blockCount];
+			for (int i = 0; i < blockCount; i++) {
+				offsets[i] = file.readLong();
+				file.readInt(); // eventCount
+				double minTime = file.readDouble();
+				double maxTime = file.readDouble();
+				relevant[i] = maxTime >= fromTime && minTime <= toTime;
+			}
+			// the dictionary of all blocks, so the dictionaries of the blocks are not needed
+			readSection(file, this.dictionary);
+			readDictionary();
+
+			for (int i = 0; i < blockCount; i++) {
+				if (relevant[i]) {
+					file.seek(offsets[i]);
+					int eventCount = file.readInt();
+					file.readDouble(); // minTime
+					file.readDouble(); // maxTime
+					skipSection(file); // dictionary
+					readEvents(file, eventCount, fromTime, toTime);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			clear();
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the stream starts like a binary events file. The stream must support
+	 * {@link InputStream#mark(int)}, it is reset to its current position.
+	 */
+	/*package*/ static boolean isBinaryEventsStream(final InputStream stream) {
+		try {
+			stream.mark(EventWriterBinary.MAGIC.length);
+			byte[] magic = new byte[EventWriterBinary.MAGIC.length];
+			int read = 0;
+			int n;
+			while (read < magic.length && (n = stream.read(magic, read, magic.length - read)) > 0) {
+				read += n;
+			}
+			stream.reset();
+			return read == magic.length && Arrays.equals(magic, EventWriterBinary.MAGIC);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void readHeader(final DataInput in) throws IOException {
+		checkMagic(in);
+		int version = in.readInt();
+		if (version != EventWriterBinary.VERSION) {
+			throw new IllegalArgumentException("Unsupported version of binary events file: " + version);
+		}
+	}
+
+	private static void checkMagic(final DataInput in) throws IOException {
+		byte[] magic = new byte[EventWriterBinary.MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, EventWriterBinary.MAGIC)) {
+			throw new IllegalArgumentException("Not a binary events file.");
+		}
+	}
+
+	private void readBlock(final DataInput in, final int eventCount, final double fromTime, final double toTime) throws IOException {
+		readSection(in, this.dictionary);
+		readDictionary();
+		readEvents(in, eventCount, fromTime, toTime);
+	}
+
+	private void readEvents(final DataInput in, final int eventCount, final double fromTime, final double toTime) throws IOException {
+		readSection(in, this.times);
+		readSection(in, this.layoutColumn);
+		readSection(in, this.values);
+
+		long lastSeconds = 0;
+		for (int i = 0; i < eventCount; i++) {
+			Layout layout = this.layouts.get(this.layoutColumn.readVarInt());
+			double time;
+			long t = this.times.readVarLong();
+			if (t == EventWriterBinary.TIME_RAW) {
+				time = this.times.readDouble();
+			} else {
+				lastSeconds += unZigZag(t >>> 1);
+				time = lastSeconds;
+			}
+			String[] attributeValues = this.attributes.values;
+			for (int k = 0; k < layout.keys.length; k++) {
+				int v = this.values.readVarInt();
+				if (v == EventWriterBinary.VALUE_NULL) {
+					attributeValues[k] = null;
+				} else if (v == EventWriterBinary.VALUE_INLINE) {
+					attributeValues[k] = this.values.readString();
+				} else {
+					attributeValues[k] = this.strings.get(v - EventWriterBinary.VALUE_DICTIONARY_OFFSET);
+				}
+			}
+			if (time >= fromTime && time <= toTime) {
+				this.attributes.setKeys(layout.keys);
+				this.eventCreator.startEvent(time, layout.type, this.attributes);
+			}
+		}
+	}
+
+	private void readDictionary() {
+		int newStrings = this.dictionary.readVarInt();
+		for (int i = 0; i < newStrings; i++) {
+			this.strings.add(this.dictionary.readString());
+		}
+		int newLayouts = this.dictionary.readVarInt();
+		for (int i = 0; i < newLayouts; i++) {
+			String type = this.strings.get(this.dictionary.readVarInt());
+			String[] keys = new String[this.dictionary.readVarInt()];
+			for (int k = 0; k < keys.length; k++) {
+				keys[k] = this.strings.get(this.dictionary.readVarInt());
+			}
+			this.layouts.add(new Layout(type, keys));
+			this.attributes.ensureCapacity(keys.length);
+		}
+	}
+
+	private void readSection(final DataInput in, final Section section) throws IOException {
+		int rawLength = in.readInt();
+		int compressedLength = in.readInt();
+		if (this.compressed.length < compressedLength) {
+			this.compressed = new byte[compressedLength];
+		}
+		in.readFully(this.compressed, 0, compressedLength);
+		section.reset(rawLength);
+		this.inflater.reset();
+		this.inflater.setInput(this.compressed, 0, compressedLength);
+		try {
+			int length = 0;
+			while (length < rawLength) {
+				int n = this.inflater.inflate(section.data, length, rawLength - length);
+				if (n == 0 && (this.inflater.finished() || this.inflater.needsInput())) {
+					throw new IOException("Unexpected end of compressed data in binary events file.");
+				}
+				length += n;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static void skipSection(final RandomAccessFile file) throws IOException {
+		file.readInt(); // rawLength
+		int compressedLength = file.readInt();
+		file.seek(file.getFilePointer() + compressedLength);
+	}
+
+	private void clear() {
+		this.strings.clear();
+		this.layouts.clear();
+	}
+
+	private static long unZigZag(final long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static final class Layout {
+		final String type;
+		final String[] keys;
+
+		Layout(final String type, final String[] keys) {
+			this.type = type;
+			this.keys = keys;
+		}
+	}
+
+	/**
+	 * The uncompressed content of a section of a block, with methods to read it sequentially.
+	 */
+	private static final class Section {
+		byte[] data = new byte[1 << 16];
+		int pos = 0;
+
+		void reset(final int length) {
+			if (this.data.length < length) {
+				this.data = new byte[length];
+			}
+			this.pos = 0;
+		}
+
+		int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		long readVarLong() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.data[this.pos++];
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			return value;
+		}
+
+		double readDouble() {
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits = (bits << 8) | (this.data[this.pos++] & 0xFF);
+			}
+			return Double.longBitsToDouble(bits);
+		}
+
+		String readString() {
+			int length = readVarInt();
+			String s = new String(this.data, this.pos, length, IOUtils.CHARSET_UTF8);
+			this.pos += length;
+			return s;
+		}
+	}
+
+	/**
+	 * The attributes of one event, without time and type. The same instance is re-used for all events.
+	 */
+	private static final class EventAttributes implements Attributes {
+		String[] keys = new String[0];
+		String[] values = new String[16];
+
+		void setKeys(final String[] keys) {
+			this.keys = keys;
+		}
+
+		void ensureCapacity(final int size) {
+			if (this.values.length < size) {
+				this.values = Arrays.copyOf(this.values, size);
+			}
+		}
+
+		@Override
+		public int getLength() {
+			return this.keys.length;
+		}
+
+		@Override
+		public String getURI(final int index) {
+			return "";
+		}
+
+		@Override
+		public String getLocalName(final int index) {
+			return isValid(index) ? this.keys[index] : null;
+		}
+
+		@Override
+		public String getQName(final int index) {
+			return getLocalName(index);
+		}
+
+		@Override
+		public String getType(final int index) {
+			return isValid(index) ? "CDATA" : null;
+		}
+
+		@Override
+		public String getValue(final int index) {
+			return isValid(index) ? this.values[index] : null;
+		}
+
+		@Override
+		public int getIndex(final String uri, final String localName) {
+			return getIndex(localName);
+		}
+
+		@Override
+		public int getIndex(final String qName) {
+			for (int i = 0; i < this.keys.length; i++) {
+				if (this.keys[i].equals(qName)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public String getType(final String uri, final String localName) {
+			return getType(getIndex(localName));
+		}
+
+		@Override
+		public String getType(final String qName) {
+			return getType(getIndex(qName));
+		}
+
+		@Override
+		public String getValue(final String uri, final String localName) {
+			return getValue(localName);
+		}
+
+		@Override
+		public String getValue(final String qName) {
+			return getValue(getIndex(qName));
+		}
+
+		private boolean isValid(final int index) {
+			return index >= 0 && index < this.keys.length;
+		}
+	}
+
+}
@@ -103,7 +103,14 @@ public class EventsReaderXMLv1 extends MatsimXmlParser {
 	private void startEvent(final Attributes atts) {
 		double time = Double.parseDouble(atts.getValue("time"));
 		String eventType = atts.getValue("type");
+		startEvent(time, eventType, atts);
+	}
 
+	/**
+	 * Creates the event from the given attributes and passes it to the events manager. Also used by
+	 * {@link EventsReaderBinary}, whose attributes do not contain the time and the type.
+	 */
+	/*package*/ void startEvent(final double time, final String eventType, final Attributes atts) {
 		// === material related to wait2link below here ===
 		if (LinkLeaveEvent.EVENT_TYPE.equals(eventType)) {
 			this.events.processEvent(new LinkLeaveEvent(time, 
@@ -0,0 +1,39 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * HandlerCaller.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * Calls the handleEvent method of one handler interface for one event class.
+ *
+ * @see HandlerCallers
+ */
+/*package*/ interface HandlerCaller {
+
+	/**
+	 * Passes the event to the handler. Exceptions of the handler are wrapped as by {@link java.lang.reflect.Method#invoke},
+	 * i.e. into a RuntimeException whose cause is an {@link java.lang.reflect.InvocationTargetException}.
+	 */
+	void call(EventHandler handler, Event event);
+
+}
@@ -0,0 +1,160 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * HandlerCallers.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * Creates the {@link HandlerCaller}s of the events managers, one per handleEvent method, i.e. per pair of
+ * handler interface and event class.
+ * <br>
+ * The callers are created by the {@link LambdaMetafactory}, as the compiler does for a method reference like
+ * <code>LinkEnterEventHandler::handleEvent</code>. They call the method directly, so the JIT compiler can inline
+ * the call, which it cannot do with {@link Method#invoke}. On Java 7, which has no LambdaMetafactory, and for
+ * methods which cannot be accessed from here, e.g. of package-private handler interfaces, the method is called
+ * by reflection.
+ * <br>
+ * The callers are cached per handler interface in a {@link ClassValue}, so they do not keep the handler
+ * interface from being unloaded.
+ */
+/*package*/ final class HandlerCallers {
+
+	private static final Logger log = Logger.getLogger(HandlerCallers.class);
+
+	private static final ClassValue<ConcurrentMap<Method, HandlerCaller>> callers = new ClassValue<ConcurrentMap<Method, HandlerCaller>>() {
+		@Override
+		protected ConcurrentMap<Method, HandlerCaller> computeValue(final Class<?> handlerClass) {
+			return new ConcurrentHashMap<Method, HandlerCaller>(4);
+		}
+	};
+
+	private HandlerCallers() {
+	}
+
+	/**
+	 * @param method a handleEvent method with one parameter, the event
+	 * @return the caller of the method, which is created the first time it is requested
+	 */
+	/*package*/ static HandlerCaller getCaller(final Method method) {
+		ConcurrentMap<Method, HandlerCaller> handlerCallers = callers.get(method.getDeclaringClass());
+		HandlerCaller caller = handlerCallers.get(method);
+		if (caller == null) {
+			caller = createCaller(method);
+			HandlerCaller existing = handlerCallers.putIfAbsent(method, caller);
+			if (existing != null) {
+				caller = existing;
+			}
+		}
+		return caller;
+	}
+
+	/*package*/ static boolean isGenerated(final HandlerCaller caller) {
+		return caller instanceof GeneratedHandlerCaller;
+	}
+
+	private static HandlerCaller createCaller(final Method method) {
+		Class<?> handlerClass = method.getDeclaringClass();
+		Class<?> eventClass = method.getParameterTypes()[0];
+		// the generated class is defined by the class loader of this class, so it has to see the handler and the event classes
+		if (Modifier.isPublic(handlerClass.getModifiers()) && isVisible(handlerClass) && isVisible(eventClass)) {
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.lookup();
+				MethodHandle target = lookup.unreflect(method);
+				CallSite site = LambdaMetafactory.metafactory(lookup, "call", MethodType.methodType(HandlerCaller.class),
+						MethodType.methodType(void.class, EventHandler.class, Event.class), target,
+						MethodType.methodType(void.class, handlerClass, eventClass));
+				return new GeneratedHandlerCaller((HandlerCaller) site.getTarget().invoke());
+			} catch (LinkageError e) {
+				// no LambdaMetafactory on Java 7
+				log.debug("calling " + handlerClass.getName() + " for " + eventClass.getName() + " by reflection: " + e);
+			} catch (Throwable e) {
+				log.warn("calling " + handlerClass.getName() + " for " + eventClass.getName() + " by reflection: " + e);
+			}
+		}
+		return new ReflectiveHandlerCaller(method);
+	}
+
+	private static boolean isVisible(final Class<?> klass) {
+		try {
+			return Class.forName(klass.getName(), false, HandlerCallers.class.getClassLoader()) == klass;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static RuntimeException wrap(final EventHandler handler, final Event event, final Throwable e) {
+		return new RuntimeException("problem invoking EventHandler " + handler.getClass().getCanonicalName() + " for event-class " + event.getClass().getCanonicalName(), e);
+	}
+
+	/**
+	 * Wraps the exceptions of the handler as {@link Method#invoke} does, so that they look the same for both kinds of callers.
+	 */
+	private static final class GeneratedHandlerCaller implements HandlerCaller {
+		private final HandlerCaller delegate;
+
+		GeneratedHandlerCaller(final HandlerCaller delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void call(final EventHandler handler, final Event event) {
+			try {
+				this.delegate.call(handler, event);
+			} catch (RuntimeException | Error e) {
+				throw wrap(handler, event, new InvocationTargetException(e));
+			}
+		}
+	}
+
+	private static final class ReflectiveHandlerCaller implements HandlerCaller {
+		private final Method method;
+
+		ReflectiveHandlerCaller(final Method method) {
+			this.method = method;
+			if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+				method.setAccessible(true);
+			}
+		}
+
+		@Override
+		public void call(final EventHandler handler, final Event event) {
+			try {
+				this.method.invoke(handler, event);
+			} catch (IllegalArgumentException | IllegalAccessException | InvocationTargetException e) {
+				throw wrap(handler, event, e);
+			}
+		}
+	}
+
+}
@@ -20,6 +20,7 @@
 
 package org.matsim.core.events;
 
+import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.util.Locale;
 import java.util.Stack;
@@ -61,6 +62,8 @@ public class MatsimEventsReader implements MatsimReader {
 		String lcFilename = filename.toLowerCase(Locale.ROOT);
 		if (lcFilename.endsWith(".xml") || lcFilename.endsWith(".xml.gz")) {
 			new XmlEventsReader(this.events).readFile(filename);
+		} else if (lcFilename.endsWith(".bin")) {
+			new EventsReaderBinary(this.events).readFile(filename);
 		} else if (lcFilename.endsWith(".txt") || lcFilename.endsWith(".txt.gz")) {
 			throw new RuntimeException("text events are no longer supported. Please use MATSim 0.6.1 or earlier to read text events.");
 		} else {
@@ -69,7 +72,12 @@ public class MatsimEventsReader implements MatsimReader {
 	}
 
 	public void readStream(final InputStream stream) {
-		new XmlEventsReader(this.events).parse(stream);
+		InputStream in = stream.markSupported() ? stream : new BufferedInputStream(stream);
+		if (EventsReaderBinary.isBinaryEventsStream(in)) {
+			new EventsReaderBinary(this.events).readStream(in);
+		} else {
+			new XmlEventsReader(this.events).parse(in);
+		}
 	}
 
 	private static class XmlEventsReader extends MatsimXmlParser {
@@ -0,0 +1,341 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RingBufferEventsManagerImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.ParallelEventHandlingConfigGroup;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * An EventsManager that hands the events to its processing threads via a pre-allocated ring buffer instead
+ * of (synchronized or blocking) queues.  Every events processing thread owns a fixed subset of the event handlers
+ * and reads all events from the ring buffer, i.e. all handlers see the events in the same order as with the
+ * {@link SimStepParallelEventsManagerImpl}.
+ * <br>
+ * The events are written to the ring buffer by the threads of the mobsim (which claim a slot by incrementing an
+ * atomic counter, thus there is no lock).  The processing threads process all events that are available in one
+ * batch and only then publish their progress.  If synchronizeOnSimSteps is set, {@link #afterSimStep(double)} waits
+ * until all events of the time step have been processed.
+ * <br>
+ * Events that are created by event handlers (i.e. by the processing threads) are not written directly to the ring
+ * buffer, since a processing thread might wait for itself if the buffer is full.  They are collected and added to
+ * the ring buffer at the end of the time step, before the events are synchronized.
+ */
+class RingBufferEventsManagerImpl implements EventsManager {
+
+	private final static Logger log = Logger.getLogger(RingBufferEventsManagerImpl.class);
+
+	/*package*/ static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 1000;
+
+	private final int numOfThreads;
+	private final boolean synchronizeOnSimSteps;
+	private final int bufferSize;
+	private final int mask;
+	private final Event[] buffer;
+	/** the sequence number of the event in each slot, written after the event, i.e. the slot is published */
+	private final AtomicLongArray published;
+	/** the last sequence number which was claimed by a producer */
+	private final AtomicLong cursor = new AtomicLong(-1);
+	/** a cached (thus possibly too small) value of the slowest consumer's sequence, to avoid reading all of them for every event */
+	private volatile long cachedMinConsumerSequence = -1;
+
+	private final EventsManagerImpl delegate = new EventsManagerImpl();
+	private final EventsManagerImpl[] eventsManagers;
+	private int handlerCount = 0;
+
+	private ProcessEventsThread[] threads;
+	private final Queue<Event> eventsFromHandlers = new ConcurrentLinkedQueue<>();
+	private final AtomicReference<Throwable> hadException = new AtomicReference<>();
+	private volatile boolean parallelMode = false;
+
+	@Inject
+	RingBufferEventsManagerImpl(ParallelEventHandlingConfigGroup config) {
+		this(config.getNumberOfThreads() != null && config.getNumberOfThreads() > 0 ? config.getNumberOfThreads() : 1,
+				config.getSynchronizeOnSimSteps() == null || config.getSynchronizeOnSimSteps(), DEFAULT_BUFFER_SIZE);
+	}
+
+	public RingBufferEventsManagerImpl(int numOfThreads) {
+		this(numOfThreads, true, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param bufferSize the number of events the ring buffer can hold; must be a power of two.
+	 */
+	public RingBufferEventsManagerImpl(int numOfThreads, boolean synchronizeOnSimSteps, int bufferSize) {
+		if (Integer.bitCount(bufferSize) != 1) {
+			throw new IllegalArgumentException("the buffer size must be a power of two, but is " + bufferSize);
+		}
+		this.numOfThreads = numOfThreads;
+		this.synchronizeOnSimSteps = synchronizeOnSimSteps;
+		this.bufferSize = bufferSize;
+		this.mask = bufferSize - 1;
+		this.buffer = new Event[bufferSize];
+		this.published = new AtomicLongArray(bufferSize);
+
+		this.eventsManagers = new EventsManagerImpl[numOfThreads];
+		for (int i = 0; i < numOfThreads; i++) this.eventsManagers[i] = new EventsManagerImpl();
+	}
+
+	@Override
+	public void processEvent(final Event event) {
+		if (!this.parallelMode) {
+			this.delegate.processEvent(event);
+		} else if (Thread.currentThread() instanceof ProcessEventsThread) {
+			this.eventsFromHandlers.add(event);
+		} else {
+			publish(event);
+		}
+	}
+
+	@Override
+	public void addHandler(final EventHandler handler) {
+		this.delegate.addHandler(handler);
+
+		this.eventsManagers[this.handlerCount % this.numOfThreads].addHandler(handler);
+		this.handlerCount++;
+	}
+
+	@Override
+	public void removeHandler(final EventHandler handler) {
+		this.delegate.removeHandler(handler);
+
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.removeHandler(handler);
+	}
+
+	@Override
+	public void resetHandlers(int iteration) {
+		this.delegate.resetHandlers(iteration);
+	}
+
+	@Override
+	public void initProcessing() {
+		this.delegate.initProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.initProcessing();
+
+		this.cursor.set(-1);
+		this.cachedMinConsumerSequence = -1;
+		for (int i = 0; i < this.bufferSize; i++) {
+			this.buffer[i] = null;
+			this.published.set(i, -1);
+		}
+		this.eventsFromHandlers.clear();
+		this.hadException.set(null);
+
+		this.threads = new ProcessEventsThread[this.numOfThreads];
+		for (int i = 0; i < this.numOfThreads; i++) {
+			this.threads[i] = new ProcessEventsThread(this.eventsManagers[i]);
+			this.threads[i].setDaemon(true);
+			this.threads[i].setName(ProcessEventsThread.class.getSimpleName() + i);
+		}
+		for (ProcessEventsThread thread : this.threads) thread.start();
+
+		/*
+		 * During the simulation, events are processed by the ProcessEventsThreads.
+		 */
+		this.parallelMode = true;
+	}
+
+	@Override
+	public void afterSimStep(double time) {
+		/*
+		 * If an exception occurred, the processing threads only skip the events, thus we do not wait for them.
+		 * The exception is thrown in finishProcessing().
+		 */
+		if (this.hadException.get() != null) {
+			return;
+		}
+		if (this.synchronizeOnSimSteps) {
+			waitUntilAllEventsProcessed();
+		} else {
+			publishEventsFromHandlers();
+		}
+	}
+
+	@Override
+	public synchronized void finishProcessing() {
+		if (this.parallelMode) {
+			waitUntilAllEventsProcessed();
+
+			/*
+			 * After the simulation, events are processed in the main thread.
+			 */
+			this.parallelMode = false;
+			for (ProcessEventsThread thread : this.threads) {
+				thread.running = false;
+				LockSupport.unpark(thread);
+			}
+			for (ProcessEventsThread thread : this.threads) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			this.threads = null;
+		}
+
+		this.delegate.finishProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.finishProcessing();
+
+		Throwable throwable = this.hadException.get();
+		if (throwable != null) {
+			throw new RuntimeException("Exception while processing events. Cannot guarantee that all events have been fully processed.", throwable);
+		}
+	}
+
+	private void publish(final Event event) {
+		final long sequence = this.cursor.incrementAndGet();
+		final long wrapPoint = sequence - this.bufferSize;
+		if (wrapPoint > this.cachedMinConsumerSequence) {
+			long minSequence;
+			int tries = 0;
+			while (wrapPoint > (minSequence = getMinConsumerSequence())) {
+				tries = waitABit(tries);
+			}
+			this.cachedMinConsumerSequence = minSequence;
+		}
+		final int index = (int) sequence & this.mask;
+		this.buffer[index] = event;
+		// the volatile write makes sure that the event is visible to the consumers before the sequence.  It needs to be a full
+		// volatile write (and not an ordered one), as otherwise we might miss a consumer that just went to sleep
+		this.published.set(index, sequence);
+
+		for (ProcessEventsThread thread : this.threads) {
+			if (thread.sleeping) LockSupport.unpark(thread);
+		}
+	}
+
+	private long getMinConsumerSequence() {
+		long min = Long.MAX_VALUE;
+		for (ProcessEventsThread thread : this.threads) {
+			min = Math.min(min, thread.sequence.get());
+		}
+		return min;
+	}
+
+	private void publishEventsFromHandlers() {
+		Event event;
+		while ((event = this.eventsFromHandlers.poll()) != null) {
+			publish(event);
+		}
+	}
+
+	/*
+	 * Must only be called when no other thread than the processing threads creates events, i.e. between two time steps.
+	 * Event handlers might create additional events while we are waiting, thus we repeat until no new events show up.
+	 */
+	private void waitUntilAllEventsProcessed() {
+		do {
+			publishEventsFromHandlers();
+			final long target = this.cursor.get();
+			int tries = 0;
+			while (getMinConsumerSequence() < target) {
+				tries = waitABit(tries);
+			}
+		} while (!this.eventsFromHandlers.isEmpty());
+	}
+
+	private static int waitABit(int tries) {
+		if (tries < SPIN_TRIES) {
+			// busy spin
+		} else if (tries < YIELD_TRIES) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(1000);
+		}
+		return tries + 1;
+	}
+
+	private class ProcessEventsThread extends Thread {
+
+		private final EventsManager eventsManager;
+		/** the sequence number of the last processed event */
+		private final AtomicLong sequence = new AtomicLong(-1);
+		private volatile boolean sleeping = false;
+		private volatile boolean running = true;
+
+		ProcessEventsThread(EventsManager eventsManager) {
+			this.eventsManager = eventsManager;
+		}
+
+		@Override
+		public void run() {
+			long next = 0;
+			int tries = 0;
+			while (true) {
+				/*
+				 * Find all events that are published, and process them as one batch.
+				 */
+				long last = next - 1;
+				while (last - next + 1 < bufferSize && published.get((int) (last + 1) & mask) == last + 1) {
+					last++;
+				}
+
+				if (last < next) {
+					if (!this.running) {
+						break;
+					}
+					if (tries < YIELD_TRIES) {
+						tries = waitABit(tries);
+					} else {
+						// let the producers wake us up when the next event is published
+						this.sleeping = true;
+						if (published.get((int) next & mask) != next && this.running) {
+							LockSupport.park(this);
+						}
+						this.sleeping = false;
+					}
+					continue;
+				}
+				tries = 0;
+
+				for (long s = next; s <= last; s++) {
+					Event event = buffer[(int) s & mask];
+					if (hadException.get() == null) {
+						try {
+							this.eventsManager.processEvent(event);
+						} catch (Throwable e) {
+							// skip the remaining events, but keep on advancing the sequence so that nobody waits for this thread forever
+							hadException.compareAndSet(null, e);
+							log.error("Thread " + getName() + " died with exception while handling events.", e);
+						}
+					}
+				}
+				this.sequence.lazySet(last);
+				next = last + 1;
+			}
+		}
+	}
+
+}
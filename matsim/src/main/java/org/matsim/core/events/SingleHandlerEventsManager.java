@@ -20,7 +20,6 @@
 
 package org.matsim.core.events;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -80,9 +79,9 @@ public class SingleHandlerEventsManager implements EventsManager {
 	private static final Logger log = Logger.getLogger(SingleHandlerEventsManager.class);
 	
 	/*
-	 * This cannot be just a map<Class, Method> since we need to differentiate between
+	 * This cannot be just a map<Class, HandlerCaller> since we need to differentiate between
 	 * a) Class is handled the first time, therefore we have to check whether the Handler can handle it (no HandlerInfo object)
-	 * b) Class cannot be handled (HandlerInfo with empty Method field)
+	 * b) Class cannot be handled (HandlerInfo with empty caller field)
 	 */
 	private final Map<Class<?>, HandlerInfo> methodToHandle = new HashMap<Class<?>, HandlerInfo>();
 
@@ -191,9 +190,9 @@ public class SingleHandlerEventsManager implements EventsManager {
 	}
 	
 	static private class HandlerInfo {
-		protected final Method method;
-		protected HandlerInfo(final Method method) {
-			this.method = method;
+		protected final HandlerCaller caller;
+		protected HandlerInfo(final HandlerCaller caller) {
+			this.caller = caller;
 		}
 	}
 
@@ -259,51 +258,42 @@ public class SingleHandlerEventsManager implements EventsManager {
 	
 	private void computeEvent(final Event event) {
 		if (callHandlerFast(event)) return;
-		try {
-			Method method = this.getHandlersForClass(event.getClass());
-			if (method != null) method.invoke(this.eventHandler, event);
-		} catch (IllegalArgumentException e) {
-			throw new RuntimeException("problem invoking EventHandler " + this.eventHandler.getClass().getCanonicalName() + " for event-class " + event.getClass().getCanonicalName(), e);
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException("problem invoking EventHandler " + this.eventHandler.getClass().getCanonicalName() + " for event-class " + event.getClass().getCanonicalName(), e);
-		} catch (InvocationTargetException e) {
-			throw new RuntimeException("problem invoking EventHandler " + this.eventHandler.getClass().getCanonicalName() + " for event-class " + event.getClass().getCanonicalName(), e);
-		}
+		HandlerCaller caller = this.getHandlersForClass(event.getClass());
+		if (caller != null) caller.call(this.eventHandler, event);
 	}
 	
-	private Method getHandlersForClass(final Class<?> eventClass) {
+	private HandlerCaller getHandlersForClass(final Class<?> eventClass) {
 		Class<?> klass = eventClass;
 		
 		HandlerInfo info = this.methodToHandle.get(eventClass);
-		if (info != null) return info.method;
+		if (info != null) return info.caller;
 
-		Method method = null;
+		HandlerCaller caller = null;
 		
 		// first search in class-hierarchy
 		while (klass != Object.class) {
 			info = this.methodToHandle.get(klass);
 			if (info != null) {
-				method = info.method;
+				caller = info.caller;
 				break;
 			}
 			klass = klass.getSuperclass();
 		}
 		
 		// second search in implemented interfaces if no method was found yet
-		if (method == null) {
+		if (caller == null) {
 			for (Class<?> intfc : getAllInterfaces(eventClass)) {
 				info = this.methodToHandle.get(intfc);
 				if (info != null) {
-					method = info.method;
+					caller = info.caller;
 					break;
 				}
 			}			
 		}
 
-		info = new HandlerInfo(method);
-		this.methodToHandle.put(eventClass, new HandlerInfo(info.method));
+		this.methodToHandle.put(eventClass, new HandlerInfo(caller));
 		
-		return method;
+		return caller;
 	}
 	
 	private void addHandlerInterfaces(final Class<?> handlerClass) {
@@ -315,7 +305,7 @@ public class SingleHandlerEventsManager implements EventsManager {
 					Class<?> eventClass = params[0];
 					log.info("    > " + eventClass.getName());
 					if (!this.methodToHandle.containsKey(eventClass)) {
-						HandlerInfo info = new HandlerInfo(method);
+						HandlerInfo info = new HandlerInfo(HandlerCallers.getCaller(method));
 						this.methodToHandle.put(eventClass, info);
 					}
 				}
@@ -0,0 +1,387 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes events in a compact binary format which can be read again by
+ * {@link org.matsim.core.events.EventsReaderBinary} (and thus by {@link org.matsim.core.events.MatsimEventsReader}).
+ * <br>
+ * The events are written in blocks of {@value #EVENTS_PER_BLOCK} events. All strings (event types, attribute
+ * names and values) are dictionary-encoded; the dictionary entries are written in the block in which they are
+ * used for the first time. Every block stores its columns (times, attribute layouts and values) separately, each
+ * compressed with deflate. The times are delta-coded within each block. At the end of the file, an index of all
+ * blocks with their time range and the complete dictionary are written, so that a reader can jump to a time
+ * window without reading the whole file, or the dictionaries of the blocks before it.
+ * <br>
+ * Layout of the file (all numbers in big-endian byte order):
+ * <pre>
+ * file    := MAGIC version:int block* -1:int footer
+ * block   := eventCount:int minTime:double maxTime:double dictionary times layouts values
+ *            (each of dictionary, times, layouts and values: rawLength:int compressedLength:int deflatedBytes)
+ * footer  := blockCount:int (offset:long eventCount:int minTime:double maxTime:double)* dictionary footerOffset:long MAGIC
+ *            (the dictionary of the footer contains the entries of all blocks)
+ * </pre>
+ */
+public class EventWriterBinary implements EventWriter, BasicEventHandler {
+
+	public static final byte[] MAGIC = { 'M', 'A', 'T', 'S', 'I', 'M', 'E', 'V' };
+	public static final int VERSION = 2;
+
+	/*package*/ static final int EVENTS_PER_BLOCK = 1 << 14;
+	/** if the dictionary reaches this size, new strings are written inline instead of being added to the dictionary */
+	/*package*/ static final int MAX_DICTIONARY_SIZE = 1 << 22;
+
+	/** marks a time which is not delta-coded, but written as raw double value; delta-coded times are always even */
+	public static final int TIME_RAW = 1;
+	public static final int VALUE_NULL = 0;
+	/** marks a value which is not dictionary-encoded, but written as string */
+	public static final int VALUE_INLINE = 1;
+	/** dictionary-encoded values are written as index + VALUE_DICTIONARY_OFFSET */
+	public static final int VALUE_DICTIONARY_OFFSET = 2;
+
+	private final DataOutputStream out;
+	private long position = 0;
+
+	private final Map<String, Integer> strings = new HashMap<>();
+	private final Map<Layout, Integer> layouts = new HashMap<>();
+	private final Layout probe = new Layout(new int[16], 0);
+	private final List<BlockInfo> blocks = new ArrayList<>();
+
+	private final ByteArrayOutputStream timesBytes = new ByteArrayOutputStream();
+	private final DataOutputStream times = new DataOutputStream(this.timesBytes);
+	private final ByteArrayOutputStream layoutBytes = new ByteArrayOutputStream();
+	private final DataOutputStream layoutColumn = new DataOutputStream(this.layoutBytes);
+	private final ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+	private final DataOutputStream values = new DataOutputStream(this.valueBytes);
+	/** the dictionary entries which are new in the current block: first the strings, then the layouts */
+	private final ByteArrayOutputStream newStringBytes = new ByteArrayOutputStream();
+	private final DataOutputStream newStringsOut = new DataOutputStream(this.newStringBytes);
+	private int newStrings = 0;
+	private final ByteArrayOutputStream newLayoutBytes = new ByteArrayOutputStream();
+	private final DataOutputStream newLayoutsOut = new DataOutputStream(this.newLayoutBytes);
+	private int newLayouts = 0;
+	/** the entries of the dictionaries of all blocks written so far, for the footer */
+	private final ByteArrayOutputStream allStringBytes = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream allLayoutBytes = new ByteArrayOutputStream();
+
+	private int eventCount = 0;
+	private double minTime = Double.POSITIVE_INFINITY;
+	private double maxTime = Double.NEGATIVE_INFINITY;
+	private long lastSeconds = 0;
+
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+	private byte[] compressBuffer = new byte[1 << 16];
+	private String[] valueBuffer = new String[16];
+
+	public EventWriterBinary(final String outfilename) {
+		this(IOUtils.getOutputStream(outfilename));
+	}
+
+	public EventWriterBinary(final OutputStream stream) {
+		this.out = new DataOutputStream(stream);
+		try {
+			this.out.write(MAGIC);
+			this.out.writeInt(VERSION);
+			this.position = MAGIC.length + 4;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void reset(final int iter) {
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		try {
+			Map<String, String> attr = event.getAttributes();
+			int typeIndex = getStringIndex(event.getEventType());
+			int[] keys = this.probe.keys;
+			int n = 0;
+			for (Map.Entry<String, String> entry : attr.entrySet()) {
+				String key = entry.getKey();
+				if (Event.ATTRIBUTE_TIME.equals(key) || Event.ATTRIBUTE_TYPE.equals(key)) {
+					continue;
+				}
+				if (n == keys.length) {
+					keys = Arrays.copyOf(keys, n * 2);
+					this.probe.keys = keys;
+					this.valueBuffer = Arrays.copyOf(this.valueBuffer, n * 2);
+				}
+				keys[n] = getStringIndex(key);
+				this.valueBuffer[n] = entry.getValue();
+				n++;
+			}
+			this.probe.type = typeIndex;
+			this.probe.size = n;
+			writeVarInt(this.layoutColumn, getLayoutIndex());
+			for (int i = 0; i < n; i++) {
+				writeValue(this.valueBuffer[i]);
+				this.valueBuffer[i] = null;
+			}
+
+			writeTime(event.getTime());
+			this.eventCount++;
+			if (this.eventCount == EVENTS_PER_BLOCK) {
+				writeBlock();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void closeFile() {
+		try {
+			if (this.eventCount > 0) {
+				writeBlock();
+			}
+			long footerOffset = this.position;
+			this.out.writeInt(-1);
+			this.out.writeInt(this.blocks.size());
+			for (BlockInfo block : this.blocks) {
+				this.out.writeLong(block.offset);
+				this.out.writeInt(block.eventCount);
+				this.out.writeDouble(block.minTime);
+				this.out.writeDouble(block.maxTime);
+			}
+			writeSection(createDictionarySection(this.strings.size(), this.allStringBytes, this.layouts.size(), this.allLayoutBytes));
+			this.out.writeLong(footerOffset);
+			this.out.write(MAGIC);
+			this.out.close();
+			this.deflater.end();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Times are written as the difference to the previous time of the block if they are whole seconds (as
+	 * most events are), and as raw double value otherwise.
+	 */
+	private void writeTime(final double time) throws IOException {
+		long seconds = (long) time;
+		if (Double.doubleToRawLongBits(seconds) == Double.doubleToRawLongBits(time) && Math.abs(seconds) < (1L << 40)) {
+			writeVarLong(this.times, zigZag(seconds - this.lastSeconds) << 1);
+			this.lastSeconds = seconds;
+		} else {
+			writeVarLong(this.times, TIME_RAW);
+			this.times.writeDouble(time);
+		}
+		this.minTime = Math.min(this.minTime, time);
+		this.maxTime = Math.max(this.maxTime, time);
+	}
+
+	private void writeValue(final String value) throws IOException {
+		if (value == null) {
+			writeVarInt(this.values, VALUE_NULL);
+			return;
+		}
+		Integer index = this.strings.get(value);
+		if (index == null && this.strings.size() < MAX_DICTIONARY_SIZE) {
+			index = getStringIndex(value);
+		}
+		if (index == null) {
+			writeVarInt(this.values, VALUE_INLINE);
+			writeString(this.values, value);
+		} else {
+			writeVarInt(this.values, index + VALUE_DICTIONARY_OFFSET);
+		}
+	}
+
+	private int getStringIndex(final String s) throws IOException {
+		Integer index = this.strings.get(s);
+		if (index == null) {
+			index = this.strings.size();
+			this.strings.put(s, index);
+			writeString(this.newStringsOut, s);
+			this.newStrings++;
+		}
+		return index;
+	}
+
+	private int getLayoutIndex() throws IOException {
+		Integer index = this.layouts.get(this.probe);
+		if (index == null) {
+			index = this.layouts.size();
+			this.layouts.put(new Layout(Arrays.copyOf(this.probe.keys, this.probe.size), this.probe.type), index);
+			writeVarInt(this.newLayoutsOut, this.probe.type);
+			writeVarInt(this.newLayoutsOut, this.probe.size);
+			for (int i = 0; i < this.probe.size; i++) {
+				writeVarInt(this.newLayoutsOut, this.probe.keys[i]);
+			}
+			this.newLayouts++;
+		}
+		return index;
+	}
+
+	private void writeBlock() throws IOException {
+		this.blocks.add(new BlockInfo(this.position, this.eventCount, this.minTime, this.maxTime));
+		this.out.writeInt(this.eventCount);
+		this.out.writeDouble(this.minTime);
+		this.out.writeDouble(this.maxTime);
+		this.position += 4 + 8 + 8;
+
+		writeSection(createDictionarySection(this.newStrings, this.newStringBytes, this.newLayouts, this.newLayoutBytes));
+		this.newStringBytes.writeTo(this.allStringBytes);
+		this.newLayoutBytes.writeTo(this.allLayoutBytes);
+		writeSection(this.timesBytes);
+		writeSection(this.layoutBytes);
+		writeSection(this.valueBytes);
+
+		this.newStringBytes.reset();
+		this.newLayoutBytes.reset();
+		this.timesBytes.reset();
+		this.layoutBytes.reset();
+		this.valueBytes.reset();
+		this.newStrings = 0;
+		this.newLayouts = 0;
+		this.eventCount = 0;
+		this.minTime = Double.POSITIVE_INFINITY;
+		this.maxTime = Double.NEGATIVE_INFINITY;
+		this.lastSeconds = 0;
+	}
+
+	private static ByteArrayOutputStream createDictionarySection(final int stringCount, final ByteArrayOutputStream stringBytes,
+			final int layoutCount, final ByteArrayOutputStream layoutBytes) throws IOException {
+		ByteArrayOutputStream section = new ByteArrayOutputStream(stringBytes.size() + layoutBytes.size() + 10);
+		DataOutputStream out = new DataOutputStream(section);
+		writeVarInt(out, stringCount);
+		stringBytes.writeTo(out);
+		writeVarInt(out, layoutCount);
+		layoutBytes.writeTo(out);
+		return section;
+	}
+
+	private void writeSection(final ByteArrayOutputStream section) throws IOException {
+		byte[] raw = section.toByteArray();
+		this.deflater.reset();
+		this.deflater.setInput(raw);
+		this.deflater.finish();
+		int compressedLength = 0;
+		while (!this.deflater.finished()) {
+			if (compressedLength == this.compressBuffer.length) {
+				this.compressBuffer = Arrays.copyOf(this.compressBuffer, this.compressBuffer.length * 2);
+			}
+			compressedLength += this.deflater.deflate(this.compressBuffer, compressedLength, this.compressBuffer.length - compressedLength);
+		}
+		this.out.writeInt(raw.length);
+		this.out.writeInt(compressedLength);
+		this.out.write(this.compressBuffer, 0, compressedLength);
+		this.position += 4 + 4 + compressedLength;
+	}
+
+	private static void writeString(final DataOutputStream out, final String s) throws IOException {
+		byte[] bytes = s.getBytes(IOUtils.CHARSET_UTF8);
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	private static long zigZag(final long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static void writeVarInt(final DataOutputStream out, final int value) throws IOException {
+		writeVarLong(out, value & 0xFFFFFFFFL);
+	}
+
+	private static void writeVarLong(final DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	/**
+	 * The event type and the (ordered) attribute names of an event. Mutable, so that the same instance can be
+	 * used to look up the layout of every event.
+	 */
+	private static final class Layout {
+		int[] keys;
+		int size;
+		int type;
+
+		Layout(final int[] keys, final int type) {
+			this.keys = keys;
+			this.size = keys.length;
+			this.type = type;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof Layout)) {
+				return false;
+			}
+			Layout other = (Layout) obj;
+			if (this.type != other.type || this.size != other.size) {
+				return false;
+			}
+			for (int i = 0; i < this.size; i++) {
+				if (this.keys[i] != other.keys[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = this.type;
+			for (int i = 0; i < this.size; i++) {
+				hash = 31 * hash + this.keys[i];
+			}
+			return hash;
+		}
+	}
+
+	private static final class BlockInfo {
+		final long offset;
+		final int eventCount;
+		final double minTime;
+		final double maxTime;
+
+		BlockInfo(final long offset, final int eventCount, final double minTime, final double maxTime) {
+			this.offset = offset;
+			this.eventCount = eventCount;
+			this.minTime = minTime;
+			this.maxTime = maxTime;
+		}
+	}
+
+}
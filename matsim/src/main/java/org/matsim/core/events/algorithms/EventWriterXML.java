@@ -24,15 +24,18 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
-import java.util.Map;
 
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.EventAttributeSink;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.io.UncheckedIOException;
 
 public class EventWriterXML implements EventWriter, BasicEventHandler {
+	private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+
 	private final BufferedWriter out;
+	private final AttributeWriter attributeWriter = new AttributeWriter();
 
 	public EventWriterXML(final String outfilename) {
 		this.out = IOUtils.getBufferedWriter(outfilename);
@@ -84,72 +87,104 @@ public class EventWriterXML implements EventWriter, BasicEventHandler {
 	public void handleEvent(final Event event) {
 		try {
 			this.out.append("\t<event ");
-			Map<String, String> attr = event.getAttributes();
-			for (Map.Entry<String, String> entry : attr.entrySet()) {
-				this.out.append(entry.getKey());
-				this.out.append("=\"");
-				this.out.append(encodeAttributeValue(entry.getValue()));
-				this.out.append("\" ");
-			}
+			event.writeAttributes(this.attributeWriter);
 			this.out.append(" />\n");
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
-	// the following method was taken from MatsimXmlWriter in order to correctly encode attributes, but
+	/**
+	 * Writes the attributes of the events directly to the file, i.e. without creating a map or encoded
+	 * strings for every event.
+	 */
+	private final class AttributeWriter implements EventAttributeSink {
+
+		private final char[] digits = new char[20];
+
+		@Override
+		public void attribute(final String name, final String value) {
+			try {
+				out.write(name);
+				out.write("=\"");
+				writeEncodedAttributeValue(value);
+				out.write("\" ");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public void attribute(final String name, final double value) {
+			try {
+				out.write(name);
+				out.write("=\"");
+				writeDouble(value);
+				out.write("\" ");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Writes the same as <code>Double.toString(value)</code>, but without creating a string for whole numbers
+		 * (such as most times), for which Double.toString() writes the digits followed by ".0".
+		 */
+		private void writeDouble(final double value) throws IOException {
+			long l = (long) value;
+			if (l == value && Math.abs(l) < 10000000L && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO_BITS) {
+				int pos = this.digits.length;
+				long rest = Math.abs(l);
+				do {
+					this.digits[--pos] = (char) ('0' + (rest % 10));
+					rest /= 10;
+				} while (rest > 0);
+				if (l < 0) {
+					this.digits[--pos] = '-';
+				}
+				out.write(this.digits, pos, this.digits.length - pos);
+				out.write(".0");
+			} else {
+				out.write(Double.toString(value));
+			}
+		}
+	}
+
+	// the following method was adapted from MatsimXmlWriter in order to correctly encode attributes, but
 	// to forego the overhead of using the full MatsimXmlWriter.
 	/**
-	 * Encodes the given string in such a way that it no longer contains
+	 * Writes the given string in such a way that it no longer contains
 	 * characters that have a special meaning in xml.
 	 * 
 	 * @see <a href="http://www.w3.org/International/questions/qa-escapes#use">http://www.w3.org/International/questions/qa-escapes#use</a>
 	 * @param attributeValue
-	 * @return String with some characters replaced by their xml-encoding.
 	 */
-	private String encodeAttributeValue(final String attributeValue) {
+	private void writeEncodedAttributeValue(final String attributeValue) throws IOException {
 		if (attributeValue == null) {
-			return null;
+			this.out.write("null");
+			return;
 		}
 		int len = attributeValue.length();
-		boolean encode = false;
+		int start = 0;
 		for (int pos = 0; pos < len; pos++) {
 			char ch = attributeValue.charAt(pos);
+			String replacement;
 			if (ch == '<') {
-				encode = true;
-				break;
+				replacement = "&lt;";
 			} else if (ch == '>') {
-				encode = true;
-				break;
+				replacement = "&gt;";
 			} else if (ch == '\"') {
-				encode = true;
-				break;
+				replacement = "&quot;";
 			} else if (ch == '&') {
-				encode = true;
-				break;
+				replacement = "&amp;";
+			} else {
+				continue;
 			}
+			this.out.write(attributeValue, start, pos - start);
+			this.out.write(replacement);
+			start = pos + 1;
 		}
-		if (encode) {
-			StringBuffer bf = new StringBuffer();
-			for (int pos = 0; pos < len; pos++) {
-				char ch = attributeValue.charAt(pos);
-				if (ch == '<') {
-					bf.append("&lt;");
-				} else if (ch == '>') {
-					bf.append("&gt;");
-				} else if (ch == '\"') {
-					bf.append("&quot;");
-				} else if (ch == '&') {
-					bf.append("&amp;");
-				} else {
-					bf.append(ch);
-				}
-			}
-			
-			return bf.toString();
-		}
-		return attributeValue;
-
+		this.out.write(attributeValue, start, len - start);
 	}
 
 }
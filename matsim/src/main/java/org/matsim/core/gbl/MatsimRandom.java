@@ -20,6 +20,8 @@
 
 package org.matsim.core.gbl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -39,6 +41,9 @@ public abstract class MatsimRandom {
 	/** the global random number generator */
 	private static final Random random = new Random(DEFAULT_RANDOM_SEED);
 
+	/** the local instances created by each thread while recording, see {@link #startRecordingLocalInstances()} */
+	private static final ThreadLocal<List<Random>> recordedLocalInstances = new ThreadLocal<>();
+
 	/** Resets the random number generator with a default random seed. */
 	public static void reset() {
 		reset(DEFAULT_RANDOM_SEED);
@@ -68,9 +73,48 @@ public abstract class MatsimRandom {
 		internalCounter++;
 		Random r = new Random(lastUsedSeed + internalCounter*23l);
 		prepareRNG(r);
+		List<Random> recorded = recordedLocalInstances.get();
+		if (recorded != null) {
+			recorded.add(r);
+		}
 		return r;
 	}
 
+	/**
+	 * Re-initializes a local random number generator, such that the random numbers drawn afterwards only
+	 * depend on the global seed and the given key, e.g. the id of the person whose plan is handled next.
+	 * This allows to get reproducible results even if it is not reproducible by which thread, i.e. with
+	 * which local instance, something is handled.
+	 *
+	 * @param rng the random number generator to initialize.
+	 * @param key the key from which the seed is derived.
+	 */
+	public static void resetLocalInstance(final Random rng, final long key) {
+		rng.setSeed(lastUsedSeed ^ (key * 0x9e3779b97f4a7c15L));
+		prepareRNG(rng);
+	}
+
+	/**
+	 * Starts recording the instances returned by {@link #getLocalInstance()} in the current thread, e.g. to
+	 * find the random number generators used by an algorithm while creating it.
+	 */
+	public static void startRecordingLocalInstances() {
+		recordedLocalInstances.set(new ArrayList<Random>());
+	}
+
+	/**
+	 * @return the instances returned by {@link #getLocalInstance()} in the current thread since recording
+	 * was started with {@link #startRecordingLocalInstances()}.
+	 */
+	public static List<Random> stopRecordingLocalInstances() {
+		List<Random> recorded = recordedLocalInstances.get();
+		recordedLocalInstances.remove();
+		if (recorded == null) {
+			throw new IllegalStateException("Recording of local instances was not started.");
+		}
+		return recorded;
+	}
+
 	/**
 	 * Draw some random numbers to better initialize the pseudo-random number generator.
 	 *
@@ -0,0 +1,222 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ActivityEndsQueue.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.utils.misc.Time;
+
+/**
+ * The agents of the {@link ActivityEngine}, ordered by the end time of their activity. Agents with the
+ * same activity end time are ordered by descending id.
+ * <br>
+ * The queue is a binary min heap whose entries know their position in the heap, and which are found
+ * by agent in a map. Thus, the activity end time of an agent can be changed, and an agent can be removed,
+ * in O(log n) instead of searching the whole queue.
+ * <br>
+ * All methods are synchronized, since activity end times may be rescheduled by parallel within-day
+ * replanning.
+ */
+/*package*/ final class ActivityEndsQueue {
+
+	private static final class Entry {
+		private final MobsimAgent agent;
+		private double activityEndTime;
+		private int position;
+
+		private Entry(final MobsimAgent agent, final double activityEndTime) {
+			this.agent = agent;
+			this.activityEndTime = activityEndTime;
+		}
+	}
+
+	private Entry[] heap = new Entry[500];
+	private int size = 0;
+	private final Map<MobsimAgent, Entry> entries = new IdentityHashMap<>();
+
+	/**
+	 * Adds the agent to the queue, or changes its activity end time if it is already contained.
+	 */
+	/*package*/ synchronized void add(final MobsimAgent agent, final double activityEndTime) {
+		Entry entry = this.entries.get(agent);
+		if (entry != null) {
+			update(entry, activityEndTime);
+			return;
+		}
+		entry = new Entry(agent, activityEndTime);
+		this.entries.put(agent, entry);
+		if (this.size == this.heap.length) {
+			this.heap = Arrays.copyOf(this.heap, 2 * this.heap.length);
+		}
+		siftUp(this.size++, entry);
+	}
+
+	/**
+	 * Changes the activity end time of the agent.
+	 *
+	 * @return <code>false</code> if the agent is not contained in the queue.
+	 */
+	/*package*/ synchronized boolean update(final MobsimAgent agent, final double activityEndTime) {
+		Entry entry = this.entries.get(agent);
+		if (entry == null) {
+			return false;
+		}
+		update(entry, activityEndTime);
+		return true;
+	}
+
+	/**
+	 * @return <code>false</code> if the agent is not contained in the queue.
+	 */
+	/*package*/ synchronized boolean remove(final MobsimAgent agent) {
+		Entry entry = this.entries.remove(agent);
+		if (entry == null) {
+			return false;
+		}
+		Entry last = this.heap[--this.size];
+		this.heap[this.size] = null;
+		if (last != entry) {
+			siftUp(entry.position, last);
+			if (last.position == entry.position) {
+				siftDown(entry.position, last);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the earliest activity end time, or {@link Double#POSITIVE_INFINITY} if the queue is empty.
+	 */
+	/*package*/ synchronized double getNextActivityEndTime() {
+		return this.size == 0 ? Double.POSITIVE_INFINITY : this.heap[0].activityEndTime;
+	}
+
+	/**
+	 * Removes the agent with the earliest activity end time, if its activity ends not after the given time.
+	 *
+	 * @return the removed agent, or <code>null</code> if there is none whose activity ends until <code>time</code>.
+	 */
+	/*package*/ synchronized MobsimAgent pollUntil(final double time) {
+		if (this.size == 0 || this.heap[0].activityEndTime > time) {
+			return null;
+		}
+		Entry head = this.heap[0];
+		this.entries.remove(head.agent);
+		Entry last = this.heap[--this.size];
+		this.heap[this.size] = null;
+		if (this.size > 0) {
+			siftDown(0, last);
+		}
+		return head.agent;
+	}
+
+	/*package*/ synchronized int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the agents whose activity end time is neither infinite nor undefined, in no particular order.
+	 */
+	/*package*/ synchronized List<MobsimAgent> getAgentsWithFiniteActivityEndTime() {
+		List<MobsimAgent> agents = new ArrayList<>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			double time = this.heap[i].activityEndTime;
+			if (time != Double.POSITIVE_INFINITY && time != Time.UNDEFINED_TIME) {
+				agents.add(this.heap[i].agent);
+			}
+		}
+		return agents;
+	}
+
+	/*package*/ synchronized void clear() {
+		Arrays.fill(this.heap, 0, this.size, null);
+		this.size = 0;
+		this.entries.clear();
+	}
+
+	private void update(final Entry entry, final double activityEndTime) {
+		double oldTime = entry.activityEndTime;
+		entry.activityEndTime = activityEndTime;
+		if (activityEndTime < oldTime) {
+			siftUp(entry.position, entry);
+		} else {
+			siftDown(entry.position, entry);
+		}
+	}
+
+	private void siftUp(int position, final Entry entry) {
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (compare(this.heap[parent], entry) <= 0) {
+				break;
+			}
+			set(position, this.heap[parent]);
+			position = parent;
+		}
+		set(position, entry);
+	}
+
+	private void siftDown(int position, final Entry entry) {
+		int half = this.size >>> 1;
+		while (position < half) {
+			int child = 2 * position + 1;
+			int right = child + 1;
+			if (right < this.size && compare(this.heap[right], this.heap[child]) < 0) {
+				child = right;
+			}
+			if (compare(entry, this.heap[child]) <= 0) {
+				break;
+			}
+			set(position, this.heap[child]);
+			position = child;
+		}
+		set(position, entry);
+	}
+
+	private void set(final int position, final Entry entry) {
+		this.heap[position] = entry;
+		entry.position = position;
+	}
+
+	private static int compare(final Entry e0, final Entry e1) {
+		int cmp = Double.compare(e0.activityEndTime, e1.activityEndTime);
+		if (cmp == 0) {
+			// Both depart at the same time -> let the one with the larger id be first (=smaller)
+			//
+			// yy We are not sure what the above comment line is supposed to say.  Presumably, it is supposed
+			// to say that the agent with the larger ID should be "smaller" one in the comparison.
+			// In practice, it seems
+			// that something like "emob_9" is before "emob_8", and something like "emob_10" before "emob_1".
+			// It is unclear why this convention is supposed to be helpful.
+			// kai & dominik, jul'12
+			//
+			return e1.agent.getId().compareTo(e0.agent.getId());
+		}
+		return cmp;
+	}
+
+}
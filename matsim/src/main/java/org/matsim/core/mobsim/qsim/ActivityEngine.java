@@ -19,11 +19,6 @@
 
 package org.matsim.core.mobsim.qsim;
 
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.Queue;
-import java.util.concurrent.PriorityBlockingQueue;
-
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.network.Link;
@@ -33,11 +28,11 @@ import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.qsim.interfaces.ActivityHandler;
 import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
-import org.matsim.core.utils.misc.Time;
+import org.matsim.core.mobsim.qsim.interfaces.NextEventTimeAware;
 
 import javax.inject.Inject;
 
-public class ActivityEngine implements MobsimEngine, ActivityHandler {
+public class ActivityEngine implements MobsimEngine, ActivityHandler, NextEventTimeAware {
 
 	private EventsManager eventsManager;
 	private AgentCounter agentCounter;
@@ -52,51 +47,13 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 		this.agentCounter = agentCounter;
 	}
 
-	/**
-	 * Agents cannot be added directly to the activityEndsList since that would
-	 * not be thread-safe when within-day replanning is used. There, an agent's
-	 * activity end time can be modified. As a result, the agent is located at
-	 * the wrong position in the activityEndsList until it is updated by using
-	 * rescheduleActivityEnd(...). However, if another agent is added to the list
-	 * in the mean time, it might be inserted at the wrong position.
-	 * cdobler, apr'12
-	 */
-	private static class AgentEntry {
-		public AgentEntry(MobsimAgent agent, double activityEndTime) {
-			this.agent = agent;
-			this.activityEndTime = activityEndTime;
-		}
-		final MobsimAgent agent;
-		final double activityEndTime;
-	}
-
 	private InternalInterface internalInterface;
 	
 	/**
-	 * This list needs to be a "blocking" queue since this is needed for
-	 * thread-safety in the parallel qsim. cdobler, oct'10
+	 * The queue stores the activity end time of each agent, since the agent's activity end time can be modified by
+	 * within-day replanning. The agent keeps its position in the queue until rescheduleActivityEnd(...) is called.
 	 */
-	private final Queue<AgentEntry> activityEndsList = new PriorityBlockingQueue<>(500, new Comparator<AgentEntry>() {
-
-		@Override
-		public int compare(AgentEntry arg0, AgentEntry arg1) {
-			int cmp = Double.compare(arg0.activityEndTime, arg1.activityEndTime);
-			if (cmp == 0) {
-				// Both depart at the same time -> let the one with the larger id be first (=smaller)
-				//
-				// yy We are not sure what the above comment line is supposed to say.  Presumably, it is supposed
-				// to say that the agent with the larger ID should be "smaller" one in the comparison.
-				// In practice, it seems
-				// that something like "emob_9" is before "emob_8", and something like "emob_10" before "emob_1".
-				// It is unclear why this convention is supposed to be helpful.
-				// kai & dominik, jul'12
-				//
-				return arg1.agent.getId().compareTo(arg0.agent.getId());
-			}
-			return cmp;
-		}
-
-	});
+	private final ActivityEndsQueue activityEndsList = new ActivityEndsQueue();
 	
 	// See handleActivity for the reason for this.
 	private boolean beforeFirstSimStep = true;
@@ -109,27 +66,26 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 	@Override
 	public void doSimStep(double time) {
 		beforeFirstSimStep = false;
-		while (activityEndsList.peek() != null) {
-			if (activityEndsList.peek().activityEndTime <= time) {
-				MobsimAgent agent = activityEndsList.poll().agent;
-				unregisterAgentAtActivityLocation(agent);
-				agent.endActivityAndComputeNextState(time);
-				internalInterface.arrangeNextAgentState(agent);
-			} else {
-				return;
-			}
+		MobsimAgent agent;
+		while ((agent = activityEndsList.pollUntil(time)) != null) {
+			unregisterAgentAtActivityLocation(agent);
+			agent.endActivityAndComputeNextState(time);
+			internalInterface.arrangeNextAgentState(agent);
 		}
 	}
 
+	@Override
+	public double getNextEventTime(double now) {
+		return activityEndsList.getNextActivityEndTime();
+	}
+
 	@Override
 	public void afterSim() {
 		double now = this.internalInterface.getMobsim().getSimTimer().getTimeOfDay();
-		for (AgentEntry entry : activityEndsList) {
-			if (entry.activityEndTime!=Double.POSITIVE_INFINITY && entry.activityEndTime!=Time.UNDEFINED_TIME) {
-				// since we are at an activity, it is not plausible to assume that the agents know mode or destination
-				// link id.  Thus generating the event with ``null'' in the corresponding entries.  kai, mar'12
-				eventsManager.processEvent(new PersonStuckEvent(now, entry.agent.getId(), null, null));
-			}
+		for (MobsimAgent agent : activityEndsList.getAgentsWithFiniteActivityEndTime()) {
+			// since we are at an activity, it is not plausible to assume that the agents know mode or destination
+			// link id.  Thus generating the event with ``null'' in the corresponding entries.  kai, mar'12
+			eventsManager.processEvent(new PersonStuckEvent(now, agent.getId(), null, null));
 		}
 		activityEndsList.clear();
 	}
@@ -163,7 +119,7 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 			internalInterface.arrangeNextAgentState(agent) ;
 		} else {
 			// The agent commences an activity on this link.
-			activityEndsList.add(new AgentEntry(agent, agent.getActivityEndTime()));
+			activityEndsList.add(agent, agent.getActivityEndTime());
 			internalInterface.registerAdditionalAgentOnLink(agent);
 		}
 		// Why beforeFirstSimStep matters:
@@ -189,44 +145,30 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 	 */
 	void rescheduleActivityEnd(final MobsimAgent agent) {
 		double newActivityEndTime = agent.getActivityEndTime();
-		AgentEntry oldEntry = removeAgentFromQueue(agent);
 
 		// The intention in the following is that an agent that is no longer alive has an activity end time of infinity.  The number of
 		// alive agents is only modified when an activity end time is changed between a finite time and infinite.  kai, jun'11
-		if (oldEntry == null) {
-			if (newActivityEndTime == Double.POSITIVE_INFINITY) {
-				// agent was de-activated and still should be de-activated - nothing to do here
+		if (newActivityEndTime == Double.POSITIVE_INFINITY) {
+			if (activityEndsList.remove(agent)) {
+				/*
+				 * After the re-planning the agent's current activity has changed to its last activity.
+				 * Therefore the agent is de-activated. cdobler, oct'11
+				 */
+				unregisterAgentAtActivityLocation(agent);
+				internalInterface.getMobsim().getAgentCounter().decLiving();
 			} else {
-				// re-activate the agent
-				activityEndsList.add(new AgentEntry(agent, newActivityEndTime));
-				internalInterface.registerAdditionalAgentOnLink(agent);
-				((org.matsim.core.mobsim.qsim.AgentCounter) internalInterface.getMobsim().getAgentCounter()).incLiving();
+				// agent was de-activated and still should be de-activated - nothing to do here
 			}
-		} else if (newActivityEndTime == Double.POSITIVE_INFINITY) {
-			/*
-			 * After the re-planning the agent's current activity has changed to its last activity.
-			 * Therefore the agent is de-activated. cdobler, oct'11
-			 */
-			unregisterAgentAtActivityLocation(agent);
-			internalInterface.getMobsim().getAgentCounter().decLiving();
-		} else {
+		} else if (activityEndsList.update(agent, newActivityEndTime)) {
 			/*
 			 *  The activity is just rescheduled during the day, so we keep the agent active. cdobler, oct'11
 			 */
-			activityEndsList.add(new AgentEntry(agent, newActivityEndTime));
-		}
-	}
-
-	private AgentEntry removeAgentFromQueue(MobsimAgent agent) {
-		Iterator<AgentEntry> iterator = activityEndsList.iterator();
-		while (iterator.hasNext()) {
-			AgentEntry entry = iterator.next();
-			if (entry.agent == agent) {
-				iterator.remove();
-				return entry;
-			}
+		} else {
+			// re-activate the agent
+			activityEndsList.add(agent, newActivityEndTime);
+			internalInterface.registerAdditionalAgentOnLink(agent);
+			((org.matsim.core.mobsim.qsim.AgentCounter) internalInterface.getMobsim().getAgentCounter()).incLiving();
 		}
-		return null;
 	}
 
 	private void unregisterAgentAtActivityLocation(final MobsimAgent agent) {
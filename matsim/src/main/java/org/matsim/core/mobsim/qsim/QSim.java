@@ -56,6 +56,7 @@ import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.interfaces.Netsim;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNetwork;
+import org.matsim.core.mobsim.qsim.interfaces.NextEventTimeAware;
 import org.matsim.core.mobsim.qsim.pt.TransitQSimEngine;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QNetsimEngine;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QVehicle;
@@ -121,6 +122,7 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 
 	private final Date realWorldStarttime = new Date();
 	private double stopTime = 100 * 3600;
+	private boolean skippingIdleTimeSteps = false;
 	private final MobsimListenerManager listenerManager;
 	private final Scenario scenario;
 	private final List<ActivityHandler> activityHandlers = new ArrayList<>();
@@ -267,6 +269,22 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 		for (MobsimEngine mobsimEngine : this.mobsimEngines) {
 			mobsimEngine.onPrepareSim();
 		}
+
+		this.skippingIdleTimeSteps = this.scenario.getConfig().qsim().isSkippingIdleTimeSteps();
+		if (this.skippingIdleTimeSteps) {
+			if (this.withindayEngine != null) {
+				// within-day replanning may change the state of the agents at any time
+				log.warn("idle time steps are not skipped since within-day replanning is used.");
+				this.skippingIdleTimeSteps = false;
+			}
+			for (MobsimEngine mobsimEngine : this.mobsimEngines) {
+				if (!(mobsimEngine instanceof NextEventTimeAware)) {
+					log.warn("idle time steps are not skipped since " + mobsimEngine.getClass().getName() + " does not implement "
+							+ NextEventTimeAware.class.getSimpleName() + ".");
+					this.skippingIdleTimeSteps = false;
+				}
+			}
+		}
 	}
 
 	private void createAgents() {
@@ -385,6 +403,9 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 
 		if (doContinue) {
 			this.simTimer.incrementTime();
+			if (this.skippingIdleTimeSteps) {
+				this.skipIdleTimeSteps();
+			}
 		}
 		
 		if (analyzeRunTimes) this.qSimInternalTime += System.nanoTime() - this.startTime;
@@ -392,6 +413,31 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 		return doContinue;
 	}
 
+	/**
+	 * Moves the sim timer forward to the first time step in which any of the engines has something to do.  The time
+	 * steps stay on the same grid as without skipping, and the end of the simulation is never skipped.
+	 */
+	private void skipIdleTimeSteps() {
+		final double stepSize = this.simTimer.getSimTimestepSize();
+		final double now = this.simTimer.getTimeOfDay();
+		double nextEventTime = Double.POSITIVE_INFINITY;
+		for (MobsimEngine mobsimEngine : this.mobsimEngines) {
+			nextEventTime = Math.min(nextEventTime, ((NextEventTimeAware) mobsimEngine).getNextEventTime(now));
+			if (nextEventTime <= now) {
+				return;
+			}
+		}
+		nextEventTime = Math.min(nextEventTime, this.stopTime);
+		if (nextEventTime >= Double.MAX_VALUE) {
+			// no end time and nothing scheduled: keep the old behavior
+			return;
+		}
+		double skippedTimeSteps = Math.ceil((nextEventTime - now) / stepSize);
+		if (skippedTimeSteps > 0) {
+			this.simTimer.setTime(now + skippedTimeSteps * stepSize);
+		}
+	}
+
 	public void insertAgentIntoMobsim(final MobsimAgent agent) {
 		if (this.agents.containsKey(agent.getId())) {
 			throw new RuntimeException("Agent with same Id (" + agent.getId().toString() + ") already in mobsim; aborting ... ") ;
@@ -495,7 +541,7 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 	private void printSimLog(final double time) {
 		if (time >= this.infoTime) {
 			//		if(true){
-			this.infoTime += INFO_PERIOD;
+			this.infoTime = (Math.floor(time / INFO_PERIOD) + 1) * INFO_PERIOD; // time steps may have been skipped
 			Date endtime = new Date();
 			long diffreal = (endtime.getTime() - this.realWorldStarttime
 					.getTime()) / 1000;
@@ -0,0 +1,39 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NextEventTimeAware.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.interfaces;
+
+/**
+ * A {@link MobsimEngine} that knows when it will have something to do next.  If all engines of the QSim implement
+ * this interface, the QSim may skip the time steps in which none of them has anything to do
+ * (see {@link org.matsim.core.config.groups.QSimConfigGroup#isSkippingIdleTimeSteps()}).
+ */
+public interface NextEventTimeAware {
+
+	/**
+	 * Called after the engine's doSimStep(now).
+	 *
+	 * @return the earliest time at which the engine's doSimStep(...) may change anything, i.e. a time <code>&lt;= now</code>
+	 * if the engine needs to be called in every time step, or <code>Double.POSITIVE_INFINITY</code> if nothing is scheduled.
+	 * Returning a time that is too early is always safe.
+	 */
+	double getNextEventTime(double now);
+
+}
@@ -73,6 +73,13 @@ abstract class QLaneI implements Identifiable<Lane> {
 
 	abstract boolean doSimStep();
 
+	/**
+	 * @see QLinkI#getEarliestNextEventTime(double)
+	 */
+	double getEarliestNextEventTime( double now ) {
+		return now ;
+	}
+
 	abstract void clearVehicles();
 
 	abstract Collection<MobsimVehicle> getAllVehicles();
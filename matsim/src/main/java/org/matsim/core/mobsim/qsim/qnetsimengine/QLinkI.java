@@ -52,6 +52,12 @@ abstract class QLinkI implements NetsimLink, TimeVariantLink {
 	// registerAdditionalAgentOnLink( MobsimAgent agent, String reason ) ;
 	
 
+	/**
+	 * Number of time steps in which this link was simulated; only counted by the work stealing mode of the
+	 * {@link QNetsimEngine}, which uses it to estimate how expensive the link is.
+	 */
+	/*package*/ int simulatedTimeSteps = 0 ;
+
 	abstract QNode getToNode() ;
 
 	/**
@@ -132,6 +138,14 @@ abstract class QLinkI implements NetsimLink, TimeVariantLink {
 	 */
 	abstract boolean doSimStep();
 
+	/**
+	 * @return the earliest time at which {@link #doSimStep()} may change anything on this link, or a time <code>&lt;= now</code> if
+	 * the link needs to be simulated in every time step (which is the default for links that do not know better).
+	 */
+	double getEarliestNextEventTime( double now ) {
+		return now ;
+	}
+
 	/**
 	 * Seems ok as public interface function. kai, aug'15 
 	 */
@@ -129,6 +129,19 @@ public final class QLinkImpl extends AbstractQLink implements SignalizeableItem
 	}
 
 
+	@Override
+	double getEarliestNextEventTime( double now ) {
+		if ( !this.getWaitingList().isEmpty() ) {
+			return now ;
+		}
+		double time = qlane.getEarliestNextEventTime(now) ;
+		QVehicle transitVehicle = this.getTransitQLink().getTransitVehicleStopQueue().peek() ;
+		if ( transitVehicle != null ) {
+			time = Math.min( time, transitVehicle.getEarliestLinkExitTime() ) ;
+		}
+		return time ;
+	}
+
 	/**
 	 * Move as many waiting cars to the link as it is possible
 	 */
@@ -22,14 +22,18 @@ package org.matsim.core.mobsim.qsim.qnetsimengine;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.ThreadFactory;
@@ -42,11 +46,13 @@ import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.QSimConfigGroup.LinkDynamics;
+import org.matsim.core.config.groups.QSimConfigGroup.NetworkPartitioning;
 import org.matsim.core.config.groups.QSimConfigGroup.SnapshotStyle;
 import org.matsim.core.config.groups.QSimConfigGroup.StarttimeInterpretation;
 import org.matsim.core.config.groups.QSimConfigGroup.VehicleBehavior;
@@ -60,6 +66,8 @@ import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNetwork;
+import org.matsim.core.mobsim.qsim.interfaces.NextEventTimeAware;
+import org.matsim.core.network.algorithms.NetworkPartitioner;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vis.snapshotwriters.SnapshotLinkWidthCalculator;
@@ -71,7 +79,7 @@ import org.matsim.vis.snapshotwriters.SnapshotLinkWidthCalculator;
  * @author dgrether
  * @author dstrippgen
  */
-public class QNetsimEngine implements MobsimEngine {
+public class QNetsimEngine implements MobsimEngine, NextEventTimeAware {
 	public interface NetsimInternalInterface {
 
 		QNetwork getNetsimNetwork();
@@ -129,6 +137,24 @@ public class QNetsimEngine implements MobsimEngine {
 	private ExecutorService pool;
 
 	private final boolean usingThreadpool;
+
+	/*
+	 * Work stealing mode: the net elements are split into many more runners than there are threads. The runners
+	 * are executed by a ForkJoinPool, i.e. idle threads steal runners from busy ones. In addition, the net elements 
+	 * are re-distributed among the runners in regular intervals, based on how often they were simulated. This avoids 
+	 * that a single runner (e.g. the one containing most of the downtown links) becomes the bottleneck.
+	 * The nodes have their own random number generators in the multi-threaded case, but the order in which the
+	 * vehicles are moved and the events are thrown still depends on the runners (see MATSIM-404). Thus the results
+	 * differ from the ones of the mode with one runner per thread. They are the same in every run, though, as the
+	 * re-distribution does not depend on measured run times.
+	 */
+	private final boolean usingWorkStealing;
+	private static final int RUNNERS_PER_THREAD = 8;
+	private static final double REBALANCING_INTERVAL = 900.;
+	private double nextRebalancingTime = Double.NEGATIVE_INFINITY;
+	private List<List<QNode>> nodesPerRunner;
+
+	private final NetworkPartitioning networkPartitioning;
 	
 	// for detailed run time analysis - used in combination with QSim.analyzeRunTimes
 	public static int numObservedTimeSteps = 24*3600;
@@ -150,6 +176,11 @@ public class QNetsimEngine implements MobsimEngine {
 		final Config config = sim.getScenario().getConfig();
 		final QSimConfigGroup qsimConfigGroup = config.qsim();
 		this.usingThreadpool = qsimConfigGroup.isUsingThreadpool();
+		this.usingWorkStealing = qsimConfigGroup.isUsingWorkStealing() && this.usingThreadpool;
+		this.networkPartitioning = qsimConfigGroup.getNetworkPartitioning();
+		if (qsimConfigGroup.isUsingWorkStealing() && !this.usingThreadpool) {
+			log.warn("Work stealing is only available together with the thread pool. Using the fixed runners instead.");
+		}
 
 
 		// configuring the car departure hander (including the vehicle behavior)
@@ -281,6 +312,16 @@ public class QNetsimEngine implements MobsimEngine {
 		this.printSimLog(time);
 	}
 
+	@Override
+	public double getNextEventTime(final double now) {
+		double time = Double.POSITIVE_INFINITY;
+		for (QNetsimEngineRunner engine : this.engines) {
+			time = Math.min(time, engine.getEarliestNextEventTime(now));
+			if (time <= now) return time;
+		}
+		return time;
+	}
+
 	/*
 	 * The Threads are waiting at the startBarrier.
 	 * We trigger them by reaching this Barrier. Now the
@@ -340,6 +381,15 @@ public class QNetsimEngine implements MobsimEngine {
 			} catch (ExecutionException e) {
 				throw new RuntimeException(e.getCause());
 			}
+			// the cost based re-balancing ignores the topology, thus it would destroy a graph partitioning
+			if (this.usingWorkStealing && this.networkPartitioning == NetworkPartitioning.roundRobin 
+					&& time >= this.nextRebalancingTime) {
+				// the first call only initializes the interval since the net elements have not been counted yet
+				if (this.nextRebalancingTime != Double.NEGATIVE_INFINITY) {
+					rebalanceNetElements();
+				}
+				this.nextRebalancingTime = time + REBALANCING_INTERVAL;
+			}
 		} else {
 			this.startBarrier.arriveAndAwaitAdvance();
 			this.endBarrier.arriveAndAwaitAdvance();
@@ -436,9 +486,15 @@ public class QNetsimEngine implements MobsimEngine {
 			// The number of runners should be larger than the number of threads, yes,
 			// but see MATSIM-404 - Simulation result still depends on the number of runners.
 //			numOfRunners *= 10 ;
-			this.pool = Executors.newFixedThreadPool(
-					this.numOfThreads,
-					new NamedThreadFactory());
+			if (this.usingWorkStealing) {
+				// This changes the results compared to one runner per thread, see MATSIM-404 above.
+				numOfRunners *= RUNNERS_PER_THREAD ;
+				this.pool = new ForkJoinPool(this.numOfThreads);
+			} else {
+				this.pool = Executors.newFixedThreadPool(
+						this.numOfThreads,
+						new NamedThreadFactory());
+			}
 		}
 
 		// setup threads
@@ -446,6 +502,7 @@ public class QNetsimEngine implements MobsimEngine {
 			QNetsimEngineRunner engine ;
 			if (this.usingThreadpool) {
 				engine = new QNetsimEngineRunner();
+				engine.setMeasuringCosts(this.usingWorkStealing);
 			} else {
 				engine = new QNetsimEngineRunner(this.startBarrier, separationBarrier, endBarrier);
 				Thread thread = new Thread(engine);
@@ -475,10 +532,21 @@ public class QNetsimEngine implements MobsimEngine {
 		int nodes[] = new int[numOfRunners];
 		int links[] = new int[numOfRunners];
 
+		this.nodesPerRunner = new ArrayList<>();
+		for (int i = 0; i < numOfRunners; i++) {
+			this.nodesPerRunner.add(new ArrayList<QNode>());
+		}
+
+		Map<Id<Node>, Integer> partitions = null;
+		if (this.networkPartitioning == NetworkPartitioning.graphPartitioning) {
+			partitions = new NetworkPartitioner(this.numOfRunners).run(network.getNetwork());
+		}
+
 		int roundRobin = 0;
 		for (QNode node : network.getNetsimNodes().values()) {
-			int i = roundRobin % this.numOfRunners;
+			int i = partitions == null ? roundRobin % this.numOfRunners : partitions.get(node.getNode().getId());
 			node.setNetElementActivationRegistry(this.engines.get(i));
+			this.nodesPerRunner.get(i).add(node);
 			nodes[i]++;
 
 			// set activator for out links
@@ -513,6 +581,102 @@ public class QNetsimEngine implements MobsimEngine {
 		this.linksToActivateInitially.clear();
 	}
 
+	/*
+	 * Re-distributes the nodes (together with their out links) among the runners such that the estimated run
+	 * times of the runners are balanced. The cost of a node is estimated by the number of time steps in which it and
+	 * its out links were active since the last re-distribution. Unlike measured run times, these counts are the same in
+	 * every run, so the assignment and thus the results are reproducible. The nodes are then assigned
+	 * greedily, most expensive first, to the runner with the lowest estimated run time. Must only be called
+	 * between two time steps.
+	 */
+	private void rebalanceNetElements() {
+		final List<QNode> allNodes = new ArrayList<>();
+		final Map<QNode, Double> estimatedCosts = new IdentityHashMap<>();
+		for (int i = 0; i < this.numOfRunners; i++) {
+			for (QNode node : this.nodesPerRunner.get(i)) {
+				estimatedCosts.put(node, (double) getSimulatedTimeSteps(node));
+				allNodes.add(node);
+			}
+		}
+
+		// stable sort, i.e. nodes with equal costs keep their order which makes the assignment reproducible
+		Collections.sort(allNodes, new Comparator<QNode>() {
+			@Override
+			public int compare(QNode o1, QNode o2) {
+				return Double.compare(estimatedCosts.get(o2), estimatedCosts.get(o1));
+			}
+		});
+
+		final double[] loads = new double[this.numOfRunners];
+		PriorityQueue<Integer> runnersByLoad = new PriorityQueue<>(this.numOfRunners, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				int cmp = Double.compare(loads[o1], loads[o2]);
+				if (cmp != 0) return cmp;
+				cmp = Integer.compare(nodesPerRunner.get(o1).size(), nodesPerRunner.get(o2).size());
+				if (cmp != 0) return cmp;
+				return Integer.compare(o1, o2);
+			}
+		});
+
+		// collect the currently active elements; they are registered at their new runners below
+		List<QNode> activeNodes = new ArrayList<>();
+		List<QLinkI> activeLinks = new ArrayList<>();
+		for (QNetsimEngineRunner runner : this.engines) {
+			activeNodes.addAll(runner.removeActiveNodes());
+			activeLinks.addAll(runner.removeActiveLinks());
+		}
+
+		for (int i = 0; i < this.numOfRunners; i++) {
+			this.nodesPerRunner.get(i).clear();
+			runnersByLoad.add(i);
+		}
+
+		Map<QNode, QNetsimEngineRunner> runnerOfNode = new IdentityHashMap<>();
+		for (QNode node : allNodes) {
+			int i = runnersByLoad.poll();
+			QNetsimEngineRunner runner = this.engines.get(i);
+			node.setNetElementActivationRegistry(runner);
+			for (Link outLink : node.getNode().getOutLinks().values()) {
+				AbstractQLink qLink = (AbstractQLink) network.getNetsimLink(outLink.getId());
+				qLink.setNetElementActivationRegistry(runner);
+				qLink.simulatedTimeSteps = 0;
+			}
+			node.simulatedTimeSteps = 0;
+			runnerOfNode.put(node, runner);
+			this.nodesPerRunner.get(i).add(node);
+			loads[i] += estimatedCosts.get(node);
+			runnersByLoad.add(i);
+		}
+
+		for (QNode node : activeNodes) {
+			runnerOfNode.get(node).registerNodeAsActive(node);
+		}
+		for (QLinkI link : activeLinks) {
+			QNode fromNode = network.getNetsimNodes().get(link.getLink().getFromNode().getId());
+			runnerOfNode.get(fromNode).registerLinkAsActive(link);
+		}
+
+		if (log.isDebugEnabled()) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = 0.;
+			for (double load : loads) {
+				min = Math.min(min, load);
+				max = Math.max(max, load);
+			}
+			log.debug("Re-distributed net elements among " + this.numOfRunners + " runners; simulated time steps per runner between " 
+					+ min + " and " + max + ".");
+		}
+	}
+
+	private long getSimulatedTimeSteps(QNode node) {
+		long steps = node.simulatedTimeSteps;
+		for (Link outLink : node.getNode().getOutLinks().values()) {
+			steps += network.getNetsimLink(outLink.getId()).simulatedTimeSteps;
+		}
+		return steps;
+	}
+
 	public void printEngineRunTimes() {
 		if (!QSim.analyzeRunTimes) return;
 		
@@ -78,6 +78,13 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 
 	/*package*/ long[] runTimes;
 	private long startTime = 0;
+
+	/*
+	 * Only used by the work stealing mode of the QNetsimEngine: the nodes and links count how often
+	 * they were simulated. Based on this, the engine re-distributes them among the runners. The counts
+	 * do not depend on the wall-clock time, so the re-distribution is the same in every run.
+	 */
+	private boolean measuringCosts = false;
 	{	
 		if (QSim.analyzeRunTimes) runTimes = new long[QNetsimEngine.numObservedTimeSteps];
 		else runTimes = null;
@@ -172,6 +179,7 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		while (simNodes.hasNext()) {
 			node = simNodes.next();
 			remainsActive = node.doSimStep(time);
+			if (this.measuringCosts) node.simulatedTimeSteps++;
 			if (!remainsActive) simNodes.remove();
 		}
 		this.lockNodes = false;
@@ -185,6 +193,7 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			link = simLinks.next();
 
 			remainsActive = link.doSimStep();
+			if (this.measuringCosts) link.simulatedTimeSteps++;
 
 			if (!remainsActive) simLinks.remove();
 		}
@@ -229,7 +238,42 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		return this.nodesQueue.size();
 	}
 
+	/*
+	 * Must only be called between two time steps.  Active nodes need to be simulated in every
+	 * time step, active links only when the first vehicle (or hole) may leave them.
+	 */
+	/*package*/ double getEarliestNextEventTime(double now) {
+		if (!this.nodesQueue.isEmpty()) return now;
+		double time = Double.POSITIVE_INFINITY;
+		for (QLinkI link : this.linksList) {
+			time = Math.min(time, link.getEarliestNextEventTime(now));
+			if (time <= now) return time;
+		}
+		return time;
+	}
+
 	public void setMovingNodes(boolean movingNodes) {
 		this.movingNodes = movingNodes;
 	}
+
+	/*package*/ void setMeasuringCosts(boolean measuringCosts) {
+		this.measuringCosts = measuringCosts;
+	}
+
+	/*
+	 * The following two methods are used to move active net elements to another runner. They must
+	 * only be called between two time steps, i.e. while no runner is moving nodes or links.
+	 * The elements stay active, i.e. their "active" flags are not touched.
+	 */
+	/*package*/ List<QNode> removeActiveNodes() {
+		List<QNode> nodes = new ArrayList<>(this.nodesQueue);
+		this.nodesQueue.clear();
+		return nodes;
+	}
+
+	/*package*/ List<QLinkI> removeActiveLinks() {
+		List<QLinkI> links = new ArrayList<>(this.linksList);
+		this.linksList.clear();
+		return links;
+	}
 }
\ No newline at end of file
@@ -79,6 +79,12 @@ public class QNode implements NetsimNode {
 
 	private final Random random;
 	private final NetsimEngineContext context;
+
+	/*
+	 * Number of time steps in which this node was simulated; only counted by the work stealing mode 
+	 * of the QNetsimEngine, which uses it to estimate how expensive the node is.
+	 */
+	/*package*/ int simulatedTimeSteps = 0;
 	private final NetsimInternalInterface netsimEngine;
 
 	private QNode(final Node n, NetsimEngineContext context, NetsimInternalInterface netsimEngine2) {
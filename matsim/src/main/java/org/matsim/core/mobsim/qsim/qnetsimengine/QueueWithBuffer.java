@@ -37,6 +37,7 @@ import org.matsim.core.mobsim.qsim.qnetsimengine.QLinkImpl.LaneFactory;
 import org.matsim.core.mobsim.qsim.qnetsimengine.linkspeedcalculator.*;
 import org.matsim.core.mobsim.qsim.qnetsimengine.vehicleq.*;
 import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.utils.collections.RingBufferQueue;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.lanes.data.Lane;
 import org.matsim.vehicles.Vehicle;
@@ -129,7 +130,7 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 	private double flowCapacityPerTimeStep;
 	private double remainingHolesStorageCapacity = 0.0 ;
 
-	private final Queue<QueueWithBuffer.Hole> holes = new LinkedList<>();
+	private final RingBufferQueue<QueueWithBuffer.Hole> holes = new RingBufferQueue<>();
 
 	private double freespeedTravelTime = Double.NaN;
 	/** the last time-step the front-most vehicle in the buffer was moved. Used for detecting dead-locks. */
@@ -145,7 +146,7 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 	/**
 	 * Holds all vehicles that are ready to cross the outgoing intersection
 	 */
-	private final Queue<QVehicle> buffer = new LinkedList<>() ;
+	private final RingBufferQueue<QVehicle> buffer = new RingBufferQueue<>() ;
 	/**
 	 * null if the link is not signalized
 	 */
@@ -154,6 +155,7 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 	private final Id<Lane> id;
 	private static int spaceCapWarningCount = 0;
 	final static double HOLE_SPEED_KM_H = 15.0;
+	private final static int MAX_INITIAL_QUEUE_CAPACITY = 32 ;
 
 	private final double length ;
 	private double unscaledFlowCapacity_s = Double.NaN ;
@@ -188,6 +190,16 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 		}
 		this.calculateFlowCapacity();
 		this.calculateStorageCapacity();
+
+		// Size the queues from the storage capacity so that they normally do not need to grow (and allocate) during the 
+		// simulation.  Capped since otherwise long links would hold large, mostly empty arrays. 
+		int initialQueueCapacity = (int) Math.min( Math.ceil( this.storageCapacity ), MAX_INITIAL_QUEUE_CAPACITY ) ;
+		if ( this.vehQueue instanceof FIFOVehicleQ ) {
+			((FIFOVehicleQ) this.vehQueue).ensureCapacity( initialQueueCapacity );
+		}
+		if ( context.qsimConfig.getTrafficDynamics() != TrafficDynamics.queue ) {
+			this.holes.ensureCapacity( initialQueueCapacity );
+		}
 		
         if ( context.qsimConfig.getTrafficDynamics() != TrafficDynamics.queue ) {
 			remainingHolesStorageCapacity = this.storageCapacity;
@@ -378,6 +390,25 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 		return true ;
 	}
 
+	@Override
+	final double getEarliestNextEventTime( double now ) {
+		if ( !context.qsimConfig.isUsingFastCapacityUpdate() // flow capacity is accumulated in every time step
+				|| context.qsimConfig.getLinkDynamics()==LinkDynamics.SeepageQ
+				|| qSignalizedItem != null
+				|| !this.isNotOfferingVehicle() ) { // the node needs to move the buffer
+			return now ;
+		}
+		double time = Double.POSITIVE_INFINITY ;
+		QVehicle veh = this.vehQueue.peek() ;
+		if ( veh != null ) {
+			time = veh.getEarliestLinkExitTime() ;
+		}
+		if ( !this.holes.isEmpty() ) {
+			time = Math.min( time, this.holes.peek().getEarliestLinkExitTime() ) ;
+		}
+		return time ;
+	}
+
 	private void processArrivalOfHoles() {
 		double now = context.getSimTimer().getTimeOfDay() ;
 		while ( this.holes.size()>0 && this.holes.peek().getEarliestLinkExitTime() < now ) {
@@ -20,13 +20,30 @@ package org.matsim.core.mobsim.qsim.qnetsimengine.vehicleq;
 
 import java.util.AbstractQueue;
 import java.util.Iterator;
-import java.util.LinkedList;
 
 import org.matsim.core.mobsim.qsim.qnetsimengine.QVehicle;
+import org.matsim.core.utils.collections.RingBufferQueue;
 
 public final class FIFOVehicleQ extends AbstractQueue<QVehicle> implements VehicleQ<QVehicle>  {
 	
-	private final LinkedList<QVehicle> vehicleQueue = new LinkedList<>();
+	// (was a LinkedList, which allocates a node for every vehicle entering the link.  The ring buffer only allocates
+	// when it needs to grow.)
+	private final RingBufferQueue<QVehicle> vehicleQueue ;
+
+	public FIFOVehicleQ() {
+		this.vehicleQueue = new RingBufferQueue<>() ;
+	}
+
+	public FIFOVehicleQ( int initialCapacity ) {
+		this.vehicleQueue = new RingBufferQueue<>( initialCapacity ) ;
+	}
+
+	/**
+	 * Makes sure that the queue can hold at least the given number of vehicles without allocating memory.
+	 */
+	public void ensureCapacity( int minCapacity ) {
+		vehicleQueue.ensureCapacity( minCapacity ) ;
+	}
 
 	@Override
 	public boolean offer(QVehicle e) {
@@ -53,6 +70,21 @@ public final class FIFOVehicleQ extends AbstractQueue<QVehicle> implements Vehic
 		return vehicleQueue.size();
 	}
 
+	@Override
+	public boolean isEmpty() {
+		return vehicleQueue.isEmpty();
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return vehicleQueue.remove(o);
+	}
+
+	@Override
+	public void clear() {
+		vehicleQueue.clear();
+	}
+
 	@Override
 	public void addFirst(QVehicle e) {
 		vehicleQueue.addFirst(e);
@@ -0,0 +1,427 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network.algorithms;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Splits the nodes of a network into a given number of partitions of (approximately) equal weight such that
+ * as few links as possible connect nodes of different partitions.
+ * <br>
+ * The implementation follows the multilevel k-way scheme known from METIS: the graph is coarsened by
+ * repeatedly collapsing heavy-edge matchings, the coarsest graph is partitioned by greedy graph growing,
+ * and the partitioning is projected back level by level, applying a greedy boundary refinement at each level.
+ * The links are treated as undirected edges.
+ * <br>
+ * By default, a node is weighted by the lane-kilometers of its out-links, since this is what the
+ * {@link org.matsim.core.mobsim.qsim.qnetsimengine.QNetsimEngine} assigns together with a node.
+ * The result is deterministic for a given network, weights and number of partitions.
+ */
+public final class NetworkPartitioner {
+
+	private static final Logger log = Logger.getLogger(NetworkPartitioner.class);
+
+	private static final int COARSEST_GRAPH_SIZE_PER_PARTITION = 30;
+	private static final int REFINEMENT_PASSES = 8;
+	private static final long SEED = 4711;
+
+	private final int numberOfPartitions;
+	private double allowedImbalance = 0.03;
+
+	public NetworkPartitioner(final int numberOfPartitions) {
+		if (numberOfPartitions < 1) {
+			throw new IllegalArgumentException("The number of partitions must be positive, but is " + numberOfPartitions);
+		}
+		this.numberOfPartitions = numberOfPartitions;
+	}
+
+	/**
+	 * @param allowedImbalance the relative amount by which the weight of a partition may exceed the average
+	 * partition weight, e.g. 0.03 for 3%.
+	 */
+	public void setAllowedImbalance(final double allowedImbalance) {
+		this.allowedImbalance = allowedImbalance;
+	}
+
+	/**
+	 * Partitions the network, weighting each node by the lane-kilometers of its out-links.
+	 *
+	 * @return the partition (from 0 to numberOfPartitions - 1) of each node of the network
+	 */
+	public Map<Id<Node>, Integer> run(final Network network) {
+		Map<Id<Node>, Double> nodeWeights = new HashMap<>();
+		for (Node node : network.getNodes().values()) {
+			double laneKm = 0.;
+			for (Link link : node.getOutLinks().values()) {
+				laneKm += link.getNumberOfLanes() * link.getLength() / 1000.;
+			}
+			nodeWeights.put(node.getId(), laneKm);
+		}
+		return run(network, nodeWeights);
+	}
+
+	/**
+	 * Partitions the network using the given node weights, e.g. historical loads. Nodes without weight
+	 * are weighted with zero.
+	 *
+	 * @return the partition (from 0 to numberOfPartitions - 1) of each node of the network
+	 */
+	public Map<Id<Node>, Integer> run(final Network network, final Map<Id<Node>, Double> nodeWeights) {
+		List<Id<Node>> nodeIds = new ArrayList<>(network.getNodes().keySet());
+		Collections.sort(nodeIds);
+		Map<Id<Node>, Integer> indices = new HashMap<>();
+		for (int i = 0; i < nodeIds.size(); i++) {
+			indices.put(nodeIds.get(i), i);
+		}
+
+		Graph graph = createGraph(network, nodeIds, indices, nodeWeights);
+		int[] partition = partition(graph);
+
+		Map<Id<Node>, Integer> result = new HashMap<>();
+		for (int i = 0; i < nodeIds.size(); i++) {
+			result.put(nodeIds.get(i), partition[i]);
+		}
+
+		log.info("Partitioned " + graph.n + " nodes into " + this.numberOfPartitions + " partitions; "
+				+ graph.getEdgeCut(partition) + " of " + graph.getTotalEdgeWeight() + " links are cut.");
+		return result;
+	}
+
+	/*package*/ int[] partition(final Graph graph) {
+		if (graph.n == 0) return new int[0];
+		if (this.numberOfPartitions == 1) return new int[graph.n];
+
+		// coarsening
+		List<Graph> levels = new ArrayList<>();
+		List<int[]> coarseMaps = new ArrayList<>();
+		Random random = new Random(SEED);
+		Graph current = graph;
+		levels.add(current);
+		double maxVertexWeight = 1.5 * Math.max(current.getTotalVertexWeight(), 1.) / (COARSEST_GRAPH_SIZE_PER_PARTITION * this.numberOfPartitions);
+		while (current.n > COARSEST_GRAPH_SIZE_PER_PARTITION * this.numberOfPartitions) {
+			int[] coarseMap = new int[current.n];
+			Graph coarser = current.coarsen(coarseMap, maxVertexWeight, random);
+			if (coarser.n > 0.95 * current.n) break; // the matching does not make much progress any more
+			levels.add(coarser);
+			coarseMaps.add(coarseMap);
+			current = coarser;
+		}
+
+		// initial partitioning
+		int[] partition = growInitialPartitions(current);
+		refine(current, partition);
+
+		// uncoarsening
+		for (int level = levels.size() - 2; level >= 0; level--) {
+			Graph finer = levels.get(level);
+			int[] coarseMap = coarseMaps.get(level);
+			int[] finerPartition = new int[finer.n];
+			for (int v = 0; v < finer.n; v++) {
+				finerPartition[v] = partition[coarseMap[v]];
+			}
+			partition = finerPartition;
+			refine(finer, partition);
+		}
+		return partition;
+	}
+
+	/*
+	 * Greedy graph growing: starting from an unassigned vertex, a partition is grown in breadth-first order
+	 * until it has reached its share of the remaining weight.
+	 */
+	private int[] growInitialPartitions(final Graph graph) {
+		int[] partition = new int[graph.n];
+		Arrays.fill(partition, -1);
+		double remainingWeight = graph.getTotalVertexWeight();
+		int nextSeed = 0;
+		for (int p = 0; p < this.numberOfPartitions - 1; p++) {
+			double target = remainingWeight / (this.numberOfPartitions - p);
+			double weight = 0.;
+			ArrayDeque<Integer> queue = new ArrayDeque<>();
+			while (weight < target) {
+				if (queue.isEmpty()) {
+					while (nextSeed < graph.n && partition[nextSeed] != -1) nextSeed++;
+					if (nextSeed == graph.n) break;
+					partition[nextSeed] = p;
+					weight += graph.vertexWeights[nextSeed];
+					queue.add(nextSeed);
+					continue;
+				}
+				int v = queue.poll();
+				for (int e = graph.xadj[v]; e < graph.xadj[v + 1] && weight < target; e++) {
+					int u = graph.adjncy[e];
+					if (partition[u] == -1) {
+						partition[u] = p;
+						weight += graph.vertexWeights[u];
+						queue.add(u);
+					}
+				}
+			}
+			remainingWeight -= weight;
+		}
+		for (int v = 0; v < graph.n; v++) {
+			if (partition[v] == -1) partition[v] = this.numberOfPartitions - 1;
+		}
+		return partition;
+	}
+
+	/*
+	 * Greedy boundary refinement: vertices are moved to the neighboring partition they are most strongly
+	 * connected to, as long as this reduces the cut without violating the balance constraint, or if it
+	 * reduces the weight of an overweight partition.
+	 */
+	private void refine(final Graph graph, final int[] partition) {
+		int k = this.numberOfPartitions;
+		double[] partitionWeights = new double[k];
+		double maxVertexWeight = 0.;
+		for (int v = 0; v < graph.n; v++) {
+			partitionWeights[partition[v]] += graph.vertexWeights[v];
+			maxVertexWeight = Math.max(maxVertexWeight, graph.vertexWeights[v]);
+		}
+		double maxPartitionWeight = Math.max((1. + this.allowedImbalance) * graph.getTotalVertexWeight() / k,
+				graph.getTotalVertexWeight() / k + maxVertexWeight);
+
+		int[] connectivity = new int[k];
+		int[] touched = new int[k];
+		for (int pass = 0; pass < REFINEMENT_PASSES; pass++) {
+			int moves = 0;
+			for (int v = 0; v < graph.n; v++) {
+				int own = partition[v];
+				int nTouched = 0;
+				for (int e = graph.xadj[v]; e < graph.xadj[v + 1]; e++) {
+					int p = partition[graph.adjncy[e]];
+					if (connectivity[p] == 0) touched[nTouched++] = p;
+					connectivity[p] += graph.adjwgt[e];
+				}
+				double w = graph.vertexWeights[v];
+				int best = -1;
+				int bestGain = Integer.MIN_VALUE;
+				for (int i = 0; i < nTouched; i++) {
+					int p = touched[i];
+					if (p == own) continue;
+					int gain = connectivity[p] - connectivity[own];
+					boolean fits = partitionWeights[p] + w <= maxPartitionWeight;
+					boolean balances = partitionWeights[own] > maxPartitionWeight && partitionWeights[p] + w < partitionWeights[own];
+					boolean improves = (gain > 0 && fits)
+							|| (gain == 0 && fits && partitionWeights[p] + w < partitionWeights[own])
+							|| balances;
+					if (improves && (gain > bestGain || (gain == bestGain && partitionWeights[p] < partitionWeights[best]))) {
+						best = p;
+						bestGain = gain;
+					}
+				}
+				for (int i = 0; i < nTouched; i++) {
+					connectivity[touched[i]] = 0;
+				}
+				if (best != -1) {
+					partition[v] = best;
+					partitionWeights[own] -= w;
+					partitionWeights[best] += w;
+					moves++;
+				}
+			}
+			if (moves == 0) break;
+		}
+	}
+
+	private static Graph createGraph(final Network network, final List<Id<Node>> nodeIds, final Map<Id<Node>, Integer> indices,
+			final Map<Id<Node>, Double> nodeWeights) {
+		int n = nodeIds.size();
+		List<Map<Integer, Integer>> neighbors = new ArrayList<>(n);
+		double[] vertexWeights = new double[n];
+		double totalWeight = 0.;
+		for (int v = 0; v < n; v++) {
+			neighbors.add(new HashMap<Integer, Integer>());
+			Double weight = nodeWeights.get(nodeIds.get(v));
+			vertexWeights[v] = weight == null ? 0. : weight;
+			totalWeight += vertexWeights[v];
+		}
+		if (totalWeight <= 0.) {
+			// nothing to balance by, thus balance the number of nodes
+			Arrays.fill(vertexWeights, 1.);
+		}
+		for (Link link : network.getLinks().values()) {
+			int from = indices.get(link.getFromNode().getId());
+			int to = indices.get(link.getToNode().getId());
+			if (from == to) continue;
+			addEdgeWeight(neighbors.get(from), to, 1);
+			addEdgeWeight(neighbors.get(to), from, 1);
+		}
+		int[] xadj = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			xadj[v + 1] = xadj[v] + neighbors.get(v).size();
+		}
+		int[] adjncy = new int[xadj[n]];
+		int[] adjwgt = new int[xadj[n]];
+		for (int v = 0; v < n; v++) {
+			List<Integer> sorted = new ArrayList<>(neighbors.get(v).keySet());
+			Collections.sort(sorted);
+			int e = xadj[v];
+			for (Integer u : sorted) {
+				adjncy[e] = u;
+				adjwgt[e] = neighbors.get(v).get(u);
+				e++;
+			}
+		}
+		return new Graph(n, xadj, adjncy, adjwgt, vertexWeights);
+	}
+
+	private static void addEdgeWeight(final Map<Integer, Integer> neighbors, final int neighbor, final int weight) {
+		Integer old = neighbors.get(neighbor);
+		neighbors.put(neighbor, old == null ? weight : old + weight);
+	}
+
+	/**
+	 * An undirected graph in compressed sparse row format.
+	 */
+	/*package*/ static final class Graph {
+		final int n;
+		final int[] xadj;
+		final int[] adjncy;
+		final int[] adjwgt;
+		final double[] vertexWeights;
+
+		/*package*/ Graph(final int n, final int[] xadj, final int[] adjncy, final int[] adjwgt, final double[] vertexWeights) {
+			this.n = n;
+			this.xadj = xadj;
+			this.adjncy = adjncy;
+			this.adjwgt = adjwgt;
+			this.vertexWeights = vertexWeights;
+		}
+
+		double getTotalVertexWeight() {
+			double sum = 0.;
+			for (double w : this.vertexWeights) sum += w;
+			return sum;
+		}
+
+		int getTotalEdgeWeight() {
+			int sum = 0;
+			for (int w : this.adjwgt) sum += w;
+			return sum / 2;
+		}
+
+		int getEdgeCut(final int[] partition) {
+			int cut = 0;
+			for (int v = 0; v < this.n; v++) {
+				for (int e = this.xadj[v]; e < this.xadj[v + 1]; e++) {
+					if (partition[v] != partition[this.adjncy[e]]) cut += this.adjwgt[e];
+				}
+			}
+			return cut / 2;
+		}
+
+		/*
+		 * Heavy edge matching: the vertices are visited in random order and matched with the unmatched
+		 * neighbor they share the heaviest edge with.
+		 */
+		Graph coarsen(final int[] coarseMap, final double maxVertexWeight, final Random random) {
+			int[] order = new int[this.n];
+			for (int v = 0; v < this.n; v++) order[v] = v;
+			for (int i = this.n - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int tmp = order[i];
+				order[i] = order[j];
+				order[j] = tmp;
+			}
+
+			int[] match = new int[this.n];
+			Arrays.fill(match, -1);
+			for (int v : order) {
+				if (match[v] != -1) continue;
+				int best = v;
+				int bestWeight = -1;
+				for (int e = this.xadj[v]; e < this.xadj[v + 1]; e++) {
+					int u = this.adjncy[e];
+					if (match[u] == -1 && this.adjwgt[e] > bestWeight
+							&& this.vertexWeights[v] + this.vertexWeights[u] <= maxVertexWeight) {
+						best = u;
+						bestWeight = this.adjwgt[e];
+					}
+				}
+				match[v] = best;
+				match[best] = v;
+			}
+
+			int coarseN = 0;
+			Arrays.fill(coarseMap, -1);
+			for (int v = 0; v < this.n; v++) {
+				if (coarseMap[v] == -1) {
+					coarseMap[v] = coarseN;
+					coarseMap[match[v]] = coarseN;
+					coarseN++;
+				}
+			}
+
+			double[] coarseVertexWeights = new double[coarseN];
+			for (int v = 0; v < this.n; v++) {
+				coarseVertexWeights[coarseMap[v]] += this.vertexWeights[v];
+			}
+
+			// merge the adjacency lists of matched vertices; marker[u] holds the position of u in the current list
+			int[] coarseXadj = new int[coarseN + 1];
+			int[] coarseAdjncy = new int[this.adjncy.length];
+			int[] coarseAdjwgt = new int[this.adjncy.length];
+			int[] marker = new int[coarseN];
+			Arrays.fill(marker, -1);
+			int[] representatives = new int[coarseN];
+			Arrays.fill(representatives, -1);
+			for (int v = 0; v < this.n; v++) {
+				if (representatives[coarseMap[v]] == -1) representatives[coarseMap[v]] = v;
+			}
+			int pos = 0;
+			for (int c = 0; c < coarseN; c++) {
+				int v = representatives[c];
+				int start = pos;
+				int[] members = match[v] == v ? new int[] { v } : new int[] { v, match[v] };
+				for (int member : members) {
+					for (int e = this.xadj[member]; e < this.xadj[member + 1]; e++) {
+						int cu = coarseMap[this.adjncy[e]];
+						if (cu == c) continue;
+						if (marker[cu] >= start) {
+							coarseAdjwgt[marker[cu]] += this.adjwgt[e];
+						} else {
+							marker[cu] = pos;
+							coarseAdjncy[pos] = cu;
+							coarseAdjwgt[pos] = this.adjwgt[e];
+							pos++;
+						}
+					}
+				}
+				coarseXadj[c + 1] = pos;
+			}
+			return new Graph(coarseN, coarseXadj, Arrays.copyOf(coarseAdjncy, pos), Arrays.copyOf(coarseAdjwgt, pos), coarseVertexWeights);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedActivity.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+
+/**
+ * An activity of a {@link PackedPlan}.
+ */
+/*package*/ final class PackedActivity extends PackedPlanElement implements Activity {
+
+	/*package*/ PackedActivity(final PackedPlan plan, final int index) {
+		super(plan, index);
+	}
+
+	@Override
+	public String getType() {
+		return store().getString(getInt(PlanStore.ACT_TYPE));
+	}
+
+	@Override
+	public void setType(final String type) {
+		setInt(PlanStore.ACT_TYPE, store().intern(type));
+	}
+
+	@Override
+	public Coord getCoord() {
+		PackedPlan.Location loc = getLocation();
+		return loc.store.getCoord(getAddress(loc));
+	}
+
+	@Override
+	public void setCoord(final Coord coord) {
+		if (coord != null && coord.hasZ()) {
+			throw new UnsupportedOperationException("Coordinates with z values cannot be stored in a packed plan.");
+		}
+		PackedPlan.Location loc = getLocation();
+		loc.store.setCoord(getAddress(loc), coord);
+	}
+
+	@Override
+	public Id<Link> getLinkId() {
+		return store().linkIds.get(getInt(PlanStore.ACT_LINK));
+	}
+
+	@Override
+	public void setLinkId(final Id<Link> id) {
+		setInt(PlanStore.ACT_LINK, store().linkIds.index(id));
+	}
+
+	@Override
+	public Id<ActivityFacility> getFacilityId() {
+		return store().facilityIds.get(getInt(PlanStore.ACT_FACILITY));
+	}
+
+	@Override
+	public void setFacilityId(final Id<ActivityFacility> id) {
+		setInt(PlanStore.ACT_FACILITY, store().facilityIds.index(id));
+	}
+
+	@Override
+	public double getStartTime() {
+		return getFloat(PlanStore.ACT_START_TIME);
+	}
+
+	@Override
+	public void setStartTime(final double seconds) {
+		setFloat(PlanStore.ACT_START_TIME, seconds);
+	}
+
+	@Override
+	public double getEndTime() {
+		return getFloat(PlanStore.ACT_END_TIME);
+	}
+
+	@Override
+	public void setEndTime(final double seconds) {
+		setFloat(PlanStore.ACT_END_TIME, seconds);
+	}
+
+	@Override
+	public double getMaximumDuration() {
+		return getFloat(PlanStore.ACT_MAX_DURATION);
+	}
+
+	@Override
+	public void setMaximumDuration(final double seconds) {
+		setFloat(PlanStore.ACT_MAX_DURATION, seconds);
+	}
+
+	@Override
+	public String toString() {
+		return "[type=" + this.getType() + "]" +
+				"[coord=" + this.getCoord() + "]" +
+				"[linkId=" + this.getLinkId() + "]" +
+				"[startTime=" + Time.writeTime(this.getStartTime()) + "]" +
+				"[endTime=" + Time.writeTime(this.getEndTime()) + "]" +
+				"[duration=" + Time.writeTime(this.getMaximumDuration()) + "]" +
+				"[facilityId=" + this.getFacilityId() + "]" ;
+	}
+
+}
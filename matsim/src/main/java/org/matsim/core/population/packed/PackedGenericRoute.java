@@ -0,0 +1,61 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedGenericRoute.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import org.matsim.api.core.v01.population.Route;
+
+/**
+ * A generic route of a leg of a {@link PackedPlan}. The description of the route cannot be changed.
+ */
+/*package*/ final class PackedGenericRoute extends PackedRoute {
+
+	/*package*/ PackedGenericRoute(final PackedPlan plan, final int index) {
+		super(plan, index);
+	}
+
+	@Override
+	public String getRouteDescription() {
+		PackedPlan.Location loc = getLocation();
+		long address = getAddress(loc);
+		int length = loc.store.getInt(address, PlanStore.GENERIC_ROUTE_DESCRIPTION_LENGTH);
+		return length < 0 ? null : loc.store.getChars(address, PlanStore.GENERIC_ROUTE_DESCRIPTION, length);
+	}
+
+	@Override
+	public void setRouteDescription(final String routeDescription) {
+		throw new UnsupportedOperationException("The description of a route of a packed plan cannot be changed. Modify a copy of the plan instead.");
+	}
+
+	@Override
+	public String getRouteType() {
+		return "generic"; // the same as GenericRouteImpl
+	}
+
+	@Override
+	public Route clone() {
+		Route route = store().routeFactories.createRoute(Route.class, getStartLinkId(), getEndLinkId());
+		route.setRouteDescription(getRouteDescription());
+		route.setDistance(getDistance());
+		route.setTravelTime(getTravelTime());
+		return route;
+	}
+
+}
@@ -0,0 +1,97 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedLeg.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.utils.misc.Time;
+
+/**
+ * A leg of a {@link PackedPlan}. The route of the leg cannot be replaced.
+ */
+/*package*/ final class PackedLeg extends PackedPlanElement implements Leg {
+
+	private final Route route;
+
+	/*package*/ PackedLeg(final PackedPlan plan, final int index) {
+		super(plan, index);
+		switch (getInt(PlanStore.LEG_ROUTE_KIND)) {
+		case PlanStore.ROUTE_NETWORK:
+			this.route = new PackedNetworkRoute(plan, index);
+			break;
+		case PlanStore.ROUTE_GENERIC:
+			this.route = new PackedGenericRoute(plan, index);
+			break;
+		default:
+			this.route = null;
+		}
+	}
+
+	@Override
+	public String getMode() {
+		return store().getString(getInt(PlanStore.LEG_MODE));
+	}
+
+	@Override
+	public void setMode(final String mode) {
+		setInt(PlanStore.LEG_MODE, store().intern(mode));
+	}
+
+	@Override
+	public Route getRoute() {
+		return this.route;
+	}
+
+	@Override
+	public void setRoute(final Route route) {
+		throw new UnsupportedOperationException("The route of a leg of a packed plan cannot be replaced. Modify a copy of the plan instead.");
+	}
+
+	@Override
+	public double getDepartureTime() {
+		return getFloat(PlanStore.LEG_DEPARTURE_TIME);
+	}
+
+	@Override
+	public void setDepartureTime(final double seconds) {
+		setFloat(PlanStore.LEG_DEPARTURE_TIME, seconds);
+	}
+
+	@Override
+	public double getTravelTime() {
+		return getFloat(PlanStore.LEG_TRAVEL_TIME);
+	}
+
+	@Override
+	public void setTravelTime(final double seconds) {
+		setFloat(PlanStore.LEG_TRAVEL_TIME, seconds);
+	}
+
+	@Override
+	public String toString() {
+		return "[mode=" + this.getMode() + "]" +
+				"[depTime=" + Time.writeTime(this.getDepartureTime()) + "]" +
+				"[travTime=" + Time.writeTime(this.getTravelTime()) + "]" +
+				"[arrTime=" + Time.writeTime(this.getDepartureTime() + this.getTravelTime()) + "]" +
+				"[route=" + this.getRoute() + "]";
+	}
+
+}
@@ -0,0 +1,123 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedNetworkRoute.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * A network route of a leg of a {@link PackedPlan}. The links of the route cannot be changed; copies and
+ * sub-routes are created by the route factory for {@link NetworkRoute}s.
+ */
+/*package*/ final class PackedNetworkRoute extends PackedRoute implements NetworkRoute {
+
+	/*package*/ PackedNetworkRoute(final PackedPlan plan, final int index) {
+		super(plan, index);
+	}
+
+	@Override
+	public List<Id<Link>> getLinkIds() {
+		final int size = getInt(PlanStore.NETWORK_ROUTE_LINK_COUNT);
+		return new AbstractList<Id<Link>>() {
+			@Override
+			public Id<Link> get(final int i) {
+				if (i < 0 || i >= size) {
+					throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+				}
+				return store().linkIds.get(getInt(PlanStore.NETWORK_ROUTE_LINKS + i));
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	@Override
+	public void setLinkIds(final Id<Link> startLinkId, final List<Id<Link>> linkIds, final Id<Link> endLinkId) {
+		throw new UnsupportedOperationException("The links of a route of a packed plan cannot be changed. Modify a copy of the plan instead.");
+	}
+
+	@Override
+	public NetworkRoute getSubRoute(final Id<Link> fromLinkId, final Id<Link> toLinkId) {
+		return clone().getSubRoute(fromLinkId, toLinkId);
+	}
+
+	@Override
+	public double getTravelCost() {
+		return getFloat(PlanStore.NETWORK_ROUTE_TRAVEL_COST);
+	}
+
+	@Override
+	public void setTravelCost(final double travelCost) {
+		setFloat(PlanStore.NETWORK_ROUTE_TRAVEL_COST, travelCost);
+	}
+
+	@Override
+	public Id<Vehicle> getVehicleId() {
+		return store().vehicleIds.get(getInt(PlanStore.NETWORK_ROUTE_VEHICLE));
+	}
+
+	@Override
+	public void setVehicleId(final Id<Vehicle> vehicleId) {
+		setInt(PlanStore.NETWORK_ROUTE_VEHICLE, store().vehicleIds.index(vehicleId));
+	}
+
+	@Override
+	public String getRouteDescription() {
+		return clone().getRouteDescription();
+	}
+
+	@Override
+	public void setRouteDescription(final String routeDescription) {
+		throw new UnsupportedOperationException("The links of a route of a packed plan cannot be changed. Modify a copy of the plan instead.");
+	}
+
+	@Override
+	public String getRouteType() {
+		return "links"; // the same as LinkNetworkRouteImpl, so the route is read back as a network route
+	}
+
+	@Override
+	public NetworkRoute clone() {
+		NetworkRoute route = store().routeFactories.createRoute(NetworkRoute.class, getStartLinkId(), getEndLinkId());
+		route.setLinkIds(getStartLinkId(), getLinkIds(), getEndLinkId());
+		route.setDistance(getDistance());
+		route.setTravelTime(getTravelTime());
+		route.setTravelCost(getTravelCost());
+		route.setVehicleId(getVehicleId());
+		return route;
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() +
+				" linkIds=" + this.getLinkIds() +
+				" travelCost=" + this.getTravelCost();
+	}
+
+}
@@ -0,0 +1,252 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedPlan.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Customizable;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.scenario.CustomizableUtils;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
+
+/**
+ * A plan whose elements are stored in a {@link PlanStore}. The plan elements are lightweight views on the
+ * record of the plan. Each view is created when its element is accessed the first time, and then kept with
+ * the plan, so the same element is always returned as the same object.
+ * <br>
+ * The attributes of the plan and its elements (e.g. times, link ids, the travel cost and vehicle of a
+ * network route) can be changed, but the structure of the plan cannot: elements cannot be added or removed,
+ * routes cannot be replaced, and the links of network routes cannot be changed. To modify the structure of
+ * a plan, modify a copy of it, as the replanning does anyway.
+ */
+public final class PackedPlan implements Plan {
+
+	/**
+	 * The store and address of the record of a plan. Both are replaced at once when the record is moved to
+	 * another store, so a reader never combines the address of one store with another store.
+	 */
+	/*package*/ static final class Location {
+		/*package*/ final PlanStore store;
+		/*package*/ final long address;
+
+		/*package*/ Location(final PlanStore store, final long address) {
+			this.store = store;
+			this.address = address;
+		}
+	}
+
+	private volatile Location location;
+	private final PlanElementList planElements;
+	private volatile PackedPlanElement[] views = null;
+
+	private Person person;
+	private Double score;
+	private String type;
+	private Customizable customizableDelegate = null;
+	private Attributes attributes = null;
+	private Attributes[] elementAttributes = null;
+
+	/*package*/ PackedPlan(final PlanStore store, final long address, final Plan plan) {
+		this.location = new Location(store, address);
+		this.planElements = new PlanElementList(store.getInt(address, PlanStore.PLAN_ELEMENT_COUNT));
+		this.person = plan.getPerson();
+		this.score = plan.getScore();
+		this.type = plan.getType();
+		if (!plan.getCustomAttributes().isEmpty()) {
+			getCustomAttributes().putAll(plan.getCustomAttributes());
+		}
+		if (!plan.getAttributes().isEmpty()) {
+			AttributesUtils.copyTo(plan.getAttributes(), getAttributes());
+		}
+		List<PlanElement> elements = plan.getPlanElements();
+		for (int i = 0; i < elements.size(); i++) {
+			if (!elements.get(i).getAttributes().isEmpty()) {
+				AttributesUtils.copyTo(elements.get(i).getAttributes(), getElementAttributes(i));
+			}
+		}
+	}
+
+	/*package*/ Location getLocation() {
+		return this.location;
+	}
+
+	/**
+	 * Copies the record of this plan to the given store. Changes made to the plan while it is moved may be lost,
+	 * so plans must only be moved between iterations.
+	 */
+	/*package*/ void moveTo(final PlanStore newStore) {
+		Location old = this.location;
+		this.location = new Location(newStore, newStore.copy(old.store, old.address));
+	}
+
+	/*package*/ int getLength() {
+		Location loc = this.location;
+		return loc.store.getInt(loc.address, PlanStore.PLAN_LENGTH);
+	}
+
+	/*package*/ static long getElementAddress(final Location loc, final int index) {
+		return loc.address + loc.store.getInt(loc.address, PlanStore.PLAN_ELEMENT_OFFSETS + index);
+	}
+
+	/*package*/ Attributes getElementAttributes(final int index) {
+		if (this.elementAttributes == null) {
+			this.elementAttributes = new Attributes[this.planElements.size];
+		}
+		if (this.elementAttributes[index] == null) {
+			this.elementAttributes[index] = new Attributes();
+		}
+		return this.elementAttributes[index];
+	}
+
+	@Override
+	public List<PlanElement> getPlanElements() {
+		return this.planElements;
+	}
+
+	private PackedPlanElement getPlanElement(final int index) {
+		PackedPlanElement[] views = this.views;
+		if (views != null && views[index] != null) {
+			// the fields of the views are final, so they can be read without synchronization
+			return views[index];
+		}
+		return createPlanElement(index);
+	}
+
+	private synchronized PackedPlanElement createPlanElement(final int index) {
+		if (this.views == null) {
+			this.views = new PackedPlanElement[this.planElements.size];
+		}
+		PackedPlanElement view = this.views[index];
+		if (view == null) {
+			Location loc = this.location;
+			if (loc.store.getInt(getElementAddress(loc, index), PlanStore.TAG) == PlanStore.TAG_ACTIVITY) {
+				view = new PackedActivity(this, index);
+			} else {
+				view = new PackedLeg(this, index);
+			}
+			this.views[index] = view;
+		}
+		return view;
+	}
+
+	private final class PlanElementList extends AbstractList<PlanElement> {
+		private final int size;
+
+		PlanElementList(final int size) {
+			this.size = size;
+		}
+
+		@Override
+		public PlanElement get(final int index) {
+			if (index < 0 || index >= this.size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+			}
+			return getPlanElement(index);
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+	}
+
+	@Override
+	public void addLeg(final Leg leg) {
+		throw new UnsupportedOperationException("The elements of a packed plan cannot be changed. Modify a copy of the plan instead.");
+	}
+
+	@Override
+	public void addActivity(final Activity act) {
+		throw new UnsupportedOperationException("The elements of a packed plan cannot be changed. Modify a copy of the plan instead.");
+	}
+
+	@Override
+	public Person getPerson() {
+		return this.person;
+	}
+
+	@Override
+	public void setPerson(final Person person) {
+		this.person = person;
+	}
+
+	@Override
+	public Double getScore() {
+		return this.score;
+	}
+
+	@Override
+	public void setScore(final Double score) {
+		this.score = score;
+	}
+
+	@Override
+	public String getType() {
+		return this.type;
+	}
+
+	@Override
+	public void setType(final String type) {
+		this.type = type;
+	}
+
+	@Override
+	public Map<String, Object> getCustomAttributes() {
+		if (this.customizableDelegate == null) {
+			this.customizableDelegate = CustomizableUtils.createCustomizable();
+		}
+		return this.customizableDelegate.getCustomAttributes();
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		if (this.attributes == null) {
+			this.attributes = new Attributes();
+		}
+		return this.attributes;
+	}
+
+	@Override
+	public String toString() {
+		String scoreString = "undefined";
+		if (this.getScore() != null) {
+			scoreString = this.getScore().toString();
+		}
+		String personIdString = "undefined" ;
+		if ( this.getPerson() != null ) {
+			personIdString = this.getPerson().getId().toString() ;
+		}
+
+		return "[score=" + scoreString + "]" +
+				"[nof_acts_legs=" + getPlanElements().size() + "]" +
+				"[type=" + this.type + "]" +
+				"[personId=" + personIdString + "]" +
+				"[packed]";
+	}
+
+}
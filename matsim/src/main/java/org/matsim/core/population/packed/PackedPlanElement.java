@@ -0,0 +1,83 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedPlanElement.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * A view on an element of a {@link PackedPlan}. The plan keeps one view per element, so views can be compared
+ * by identity. The address of the element is looked up on each access, as the record of the plan may be
+ * moved to another store.
+ */
+/*package*/ abstract class PackedPlanElement implements PlanElement {
+
+	/*package*/ final PackedPlan plan;
+	/*package*/ final int index;
+
+	/*package*/ PackedPlanElement(final PackedPlan plan, final int index) {
+		this.plan = plan;
+		this.index = index;
+	}
+
+	/**
+	 * @return the store of the plan, for its interned strings and ids, which are shared by all stores the plan
+	 * is moved to.
+	 */
+	/*package*/ final PlanStore store() {
+		return this.plan.getLocation().store;
+	}
+
+	/*package*/ final PackedPlan.Location getLocation() {
+		return this.plan.getLocation();
+	}
+
+	/*package*/ final long getAddress(final PackedPlan.Location loc) {
+		return PackedPlan.getElementAddress(loc, this.index);
+	}
+
+	/*package*/ final int getInt(final int field) {
+		PackedPlan.Location loc = this.plan.getLocation();
+		return loc.store.getInt(PackedPlan.getElementAddress(loc, this.index), field);
+	}
+
+	/*package*/ final void setInt(final int field, final int value) {
+		PackedPlan.Location loc = this.plan.getLocation();
+		loc.store.setInt(PackedPlan.getElementAddress(loc, this.index), field, value);
+	}
+
+	/*package*/ final double getFloat(final int field) {
+		PackedPlan.Location loc = this.plan.getLocation();
+		return loc.store.getFloat(PackedPlan.getElementAddress(loc, this.index), field);
+	}
+
+	/*package*/ final void setFloat(final int field, final double value) {
+		PackedPlan.Location loc = this.plan.getLocation();
+		loc.store.setFloat(PackedPlan.getElementAddress(loc, this.index), field, value);
+	}
+
+	@Override
+	public final Attributes getAttributes() {
+		return this.plan.getElementAttributes(this.index);
+	}
+
+
+}
@@ -0,0 +1,133 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedRoute.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Route;
+
+/**
+ * The route of a leg of a {@link PackedPlan}. Like the plan elements, the route of a leg is always the same
+ * object. Copies of the route are created with the {@link org.matsim.core.population.routes.RouteFactories}
+ * of the store, so they are of the same class as the other routes of the population.
+ */
+/*package*/ abstract class PackedRoute implements Route {
+
+	/*package*/ final PackedPlan plan;
+	/*package*/ final int index;
+
+	/*package*/ PackedRoute(final PackedPlan plan, final int index) {
+		this.plan = plan;
+		this.index = index;
+	}
+
+	/**
+	 * @return the store of the plan, for its interned strings and ids, which are shared by all stores the plan
+	 * is moved to.
+	 */
+	/*package*/ final PlanStore store() {
+		return this.plan.getLocation().store;
+	}
+
+	/*package*/ final PackedPlan.Location getLocation() {
+		return this.plan.getLocation();
+	}
+
+	/*package*/ final long getAddress(final PackedPlan.Location loc) {
+		return PackedPlan.getElementAddress(loc, this.index);
+	}
+
+	/*package*/ final int getInt(final int field) {
+		PackedPlan.Location loc = this.plan.getLocation();
+		return loc.store.getInt(PackedPlan.getElementAddress(loc, this.index), field);
+	}
+
+	/*package*/ final void setInt(final int field, final int value) {
+		PackedPlan.Location loc = this.plan.getLocation();
+		loc.store.setInt(PackedPlan.getElementAddress(loc, this.index), field, value);
+	}
+
+	/*package*/ final double getFloat(final int field) {
+		PackedPlan.Location loc = this.plan.getLocation();
+		return loc.store.getFloat(PackedPlan.getElementAddress(loc, this.index), field);
+	}
+
+	/*package*/ final void setFloat(final int field, final double value) {
+		PackedPlan.Location loc = this.plan.getLocation();
+		loc.store.setFloat(PackedPlan.getElementAddress(loc, this.index), field, value);
+	}
+
+	@Override
+	public final double getDistance() {
+		return getFloat(PlanStore.ROUTE_DISTANCE);
+	}
+
+	@Override
+	public final void setDistance(final double distance) {
+		setFloat(PlanStore.ROUTE_DISTANCE, distance);
+	}
+
+	@Override
+	public final double getTravelTime() {
+		return getFloat(PlanStore.ROUTE_TRAVEL_TIME);
+	}
+
+	@Override
+	public final void setTravelTime(final double travelTime) {
+		setFloat(PlanStore.ROUTE_TRAVEL_TIME, travelTime);
+	}
+
+	@Override
+	public final Id<Link> getStartLinkId() {
+		return store().linkIds.get(getInt(PlanStore.ROUTE_START_LINK));
+	}
+
+	@Override
+	public final void setStartLinkId(final Id<Link> linkId) {
+		setInt(PlanStore.ROUTE_START_LINK, store().linkIds.index(linkId));
+	}
+
+	@Override
+	public final Id<Link> getEndLinkId() {
+		return store().linkIds.get(getInt(PlanStore.ROUTE_END_LINK));
+	}
+
+	@Override
+	public final void setEndLinkId(final Id<Link> linkId) {
+		setInt(PlanStore.ROUTE_END_LINK, store().linkIds.index(linkId));
+	}
+
+	/**
+	 * @return a copy of this route, which is not stored in the plan store.
+	 */
+	@Override
+	public abstract Route clone();
+
+
+	@Override
+	public String toString() {
+		return " startLinkId=" + getStartLinkId() +
+				" endLinkId=" + getEndLinkId() +
+				" travTime=" + getTravelTime() +
+				" dist=" + getDistance();
+	}
+
+}
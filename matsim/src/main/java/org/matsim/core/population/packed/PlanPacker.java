@@ -0,0 +1,109 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PlanPacker.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.listener.IterationEndsListener;
+
+import com.google.inject.Inject;
+
+/**
+ * Packs the plans of all persons into a {@link PlanStore} at the end of each iteration, i.e. after the
+ * plans were scored. The plans which were created by the replanning of the iteration are packed, the
+ * plans which are already packed are kept.
+ * <br>
+ * As the space of removed plans is not reclaimed by the store, the packed plans are moved to a new
+ * store once less than half of the store is used by them.
+ */
+/*package*/ final class PlanPacker implements IterationEndsListener {
+
+	private final static Logger log = Logger.getLogger(PlanPacker.class);
+
+	private final Population population;
+	private PlanStore store;
+
+	@Inject
+	/*package*/ PlanPacker(final Population population, final PlansConfigGroup plansConfigGroup) {
+		this.population = population;
+		this.store = new PlanStore(plansConfigGroup.getPlanStorage() == PlansConfigGroup.PlanStorage.packedOffHeap,
+				population.getFactory().getRouteFactories());
+	}
+
+	@Override
+	public void notifyIterationEnds(final IterationEndsEvent event) {
+		run();
+	}
+
+	/*package*/ void run() {
+		long used = 0;
+		int packed = 0;
+		int total = 0;
+		for (Person person : this.population.getPersons().values()) {
+			@SuppressWarnings("unchecked")
+			List<Plan> plans = (List<Plan>) person.getPlans();
+			// (replace the plans in place, so their order is kept)
+			for (int i = 0; i < plans.size(); i++) {
+				Plan plan = plans.get(i);
+				total++;
+				if (!(plan instanceof PackedPlan)) {
+					Plan packedPlan = this.store.pack(plan);
+					if (packedPlan != plan) {
+						plans.set(i, packedPlan);
+						if (person.getSelectedPlan() == plan) {
+							person.setSelectedPlan(packedPlan);
+						}
+						plan = packedPlan;
+					}
+				}
+				if (plan instanceof PackedPlan) {
+					used += ((PackedPlan) plan).getLength();
+					packed++;
+				}
+			}
+		}
+		log.info(packed + " of " + total + " plans are packed, using " + used + " of " + this.store.getSize() + " ints of the plan store.");
+
+		if (2 * used < this.store.getSize() && this.store.getSize() > PlanStore.CHUNK_SIZE) {
+			compact();
+		}
+	}
+
+	/*package*/ void compact() {
+		PlanStore newStore = new PlanStore(this.store);
+		for (Person person : this.population.getPersons().values()) {
+			for (Plan plan : person.getPlans()) {
+				if (plan instanceof PackedPlan) {
+					((PackedPlan) plan).moveTo(newStore);
+				}
+			}
+		}
+		log.info("moved the packed plans to a new plan store of " + newStore.getSize() + " ints.");
+		this.store = newStore;
+	}
+
+}
@@ -0,0 +1,436 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PlanStore.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.CompressedNetworkRouteImpl;
+import org.matsim.core.population.routes.DeltaEncodedNetworkRouteImpl;
+import org.matsim.core.population.routes.GenericRouteImpl;
+import org.matsim.core.population.routes.LinkNetworkRouteImpl;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Stores plans as records of packed <code>int</code>s, which are accessed through the {@link PackedPlan}s
+ * returned by {@link #pack(Plan)}.
+ * <br>
+ * The records are stored in chunks of {@value #CHUNK_SIZE} ints, either on the heap or off-heap in direct
+ * buffers. Activity types, modes and route descriptions are interned, ids are stored by their index
+ * ({@link Id#index()}), and times, distances and costs are stored as <code>float</code>s. Thus, times in
+ * whole seconds are stored exactly, while distances and costs are rounded to about 7 significant digits.
+ * <br>
+ * A record of a plan looks as follows:
+ * <pre>
+ * plan:       length, elementCount, offset of each element
+ * activity:   ACTIVITY, type, link, facility, x (2 ints), y (2 ints), startTime, endTime, maximumDuration
+ * leg:        LEG, mode, departureTime, travelTime, routeKind
+ *             [, startLink, endLink, distance, travelTime
+ *             [, travelCost, vehicle, linkCount, link...]     (network routes)
+ *             [, descriptionLength, description...]           (generic routes, two chars per int)
+ * </pre>
+ * Records are never freed. The space of plans which are no longer used can only be reclaimed by moving
+ * the plans which are still used to a new store, see {@link PlanPacker}.
+ * <br>
+ * Packing plans is not thread-safe, but reading packed plans is.
+ */
+public final class PlanStore {
+
+	/*package*/ static final int CHUNK_SIZE = 1 << 20;
+
+	/*package*/ static final int PLAN_LENGTH = 0;
+	/*package*/ static final int PLAN_ELEMENT_COUNT = 1;
+	/*package*/ static final int PLAN_ELEMENT_OFFSETS = 2;
+
+	/*package*/ static final int TAG = 0;
+	/*package*/ static final int TAG_ACTIVITY = 0;
+	/*package*/ static final int TAG_LEG = 1;
+
+	/*package*/ static final int ACT_TYPE = 1;
+	/*package*/ static final int ACT_LINK = 2;
+	/*package*/ static final int ACT_FACILITY = 3;
+	/*package*/ static final int ACT_X = 4;
+	/*package*/ static final int ACT_Y = 6;
+	/*package*/ static final int ACT_START_TIME = 8;
+	/*package*/ static final int ACT_END_TIME = 9;
+	/*package*/ static final int ACT_MAX_DURATION = 10;
+	private static final int ACT_LENGTH = 11;
+
+	/*package*/ static final int LEG_MODE = 1;
+	/*package*/ static final int LEG_DEPARTURE_TIME = 2;
+	/*package*/ static final int LEG_TRAVEL_TIME = 3;
+	/*package*/ static final int LEG_ROUTE_KIND = 4;
+	private static final int LEG_LENGTH = 5;
+
+	/*package*/ static final int ROUTE_NONE = 0;
+	/*package*/ static final int ROUTE_NETWORK = 1;
+	/*package*/ static final int ROUTE_GENERIC = 2;
+
+	/*package*/ static final int ROUTE_START_LINK = 5;
+	/*package*/ static final int ROUTE_END_LINK = 6;
+	/*package*/ static final int ROUTE_DISTANCE = 7;
+	/*package*/ static final int ROUTE_TRAVEL_TIME = 8;
+	private static final int ROUTE_LENGTH = 4;
+
+	/*package*/ static final int NETWORK_ROUTE_TRAVEL_COST = 9;
+	/*package*/ static final int NETWORK_ROUTE_VEHICLE = 10;
+	/*package*/ static final int NETWORK_ROUTE_LINK_COUNT = 11;
+	/*package*/ static final int NETWORK_ROUTE_LINKS = 12;
+
+	/*package*/ static final int GENERIC_ROUTE_DESCRIPTION_LENGTH = 9;
+	/*package*/ static final int GENERIC_ROUTE_DESCRIPTION = 10;
+
+	private static final Class<?> PLAN_CLASS = PopulationUtils.createPlan().getClass();
+	private static final Class<?> ACTIVITY_CLASS = PopulationUtils.createActivityFromLinkId("", null).getClass();
+	private static final Class<?> LEG_CLASS = PopulationUtils.createLeg("").getClass();
+
+	private final boolean offHeap;
+	private final List<IntBuffer> chunks = new ArrayList<>();
+	private int position = CHUNK_SIZE;
+	private long size = 0;
+
+	private final List<String> strings;
+	private final Map<String, Integer> stringIndices;
+	/*package*/ final IdTable<Link> linkIds;
+	/*package*/ final IdTable<ActivityFacility> facilityIds;
+	/*package*/ final IdTable<Vehicle> vehicleIds;
+	/*package*/ final RouteFactories routeFactories;
+
+	/**
+	 * @param offHeap whether the records are stored in direct buffers outside of the java heap.
+	 */
+	public PlanStore(final boolean offHeap) {
+		this(offHeap, new RouteFactories());
+	}
+
+	/**
+	 * @param offHeap whether the records are stored in direct buffers outside of the java heap.
+	 * @param routeFactories used to create copies of the routes of packed plans, usually the ones of the population.
+	 */
+	public PlanStore(final boolean offHeap, final RouteFactories routeFactories) {
+		this.offHeap = offHeap;
+		this.routeFactories = routeFactories;
+		this.strings = new ArrayList<>();
+		this.stringIndices = new HashMap<>();
+		this.linkIds = new IdTable<>();
+		this.facilityIds = new IdTable<>();
+		this.vehicleIds = new IdTable<>();
+	}
+
+	/**
+	 * Creates an empty store which shares the interned strings and ids of the given store, so records can
+	 * be copied from the given store without modification.
+	 */
+	/*package*/ PlanStore(final PlanStore store) {
+		this.offHeap = store.offHeap;
+		this.strings = store.strings;
+		this.stringIndices = store.stringIndices;
+		this.linkIds = store.linkIds;
+		this.facilityIds = store.facilityIds;
+		this.vehicleIds = store.vehicleIds;
+		this.routeFactories = store.routeFactories;
+	}
+
+	/**
+	 * @return the number of ints used by the records of this store.
+	 */
+	public long getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Stores the plan in this store.
+	 * <br>
+	 * Only plans of the default implementation, consisting of activities and legs of the default
+	 * implementation, can be stored. Furthermore, routes must be either network routes or generic routes,
+	 * and coordinates must not have a z value. Other plans are returned unchanged.
+	 *
+	 * @return the packed plan, or the given plan if it cannot be stored.
+	 */
+	public Plan pack(final Plan plan) {
+		if (!isPackable(plan)) {
+			return plan;
+		}
+		List<PlanElement> elements = plan.getPlanElements();
+		int length = PLAN_ELEMENT_OFFSETS + elements.size();
+		for (PlanElement pe : elements) {
+			length += getLength(pe);
+		}
+		if (length > CHUNK_SIZE) {
+			return plan;
+		}
+		long address = allocate(length);
+		setInt(address, PLAN_LENGTH, length);
+		setInt(address, PLAN_ELEMENT_COUNT, elements.size());
+		int offset = PLAN_ELEMENT_OFFSETS + elements.size();
+		for (int i = 0; i < elements.size(); i++) {
+			setInt(address, PLAN_ELEMENT_OFFSETS + i, offset);
+			PlanElement pe = elements.get(i);
+			if (pe instanceof Activity) {
+				writeActivity(address + offset, (Activity) pe);
+			} else {
+				writeLeg(address + offset, (Leg) pe);
+			}
+			offset += getLength(pe);
+		}
+		return new PackedPlan(this, address, plan);
+	}
+
+	private static boolean isPackable(final Plan plan) {
+		if (plan.getClass() != PLAN_CLASS) {
+			return false;
+		}
+		for (PlanElement pe : plan.getPlanElements()) {
+			if (pe.getClass() == ACTIVITY_CLASS) {
+				Coord coord = ((Activity) pe).getCoord();
+				if (coord != null && coord.hasZ()) {
+					return false;
+				}
+			} else if (pe.getClass() == LEG_CLASS) {
+				Route route = ((Leg) pe).getRoute();
+				if (route != null && getRouteKind(route) == ROUTE_NONE) {
+					return false;
+				}
+			} else {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int getRouteKind(final Route route) {
+		if (route instanceof LinkNetworkRouteImpl || route instanceof CompressedNetworkRouteImpl || route instanceof DeltaEncodedNetworkRouteImpl) {
+			return ROUTE_NETWORK;
+		}
+		if (route.getClass() == GenericRouteImpl.class) {
+			return ROUTE_GENERIC;
+		}
+		return ROUTE_NONE;
+	}
+
+	private static int getLength(final PlanElement pe) {
+		if (pe instanceof Activity) {
+			return ACT_LENGTH;
+		}
+		Route route = ((Leg) pe).getRoute();
+		if (route == null) {
+			return LEG_LENGTH;
+		}
+		if (route instanceof NetworkRoute) {
+			return LEG_LENGTH + ROUTE_LENGTH + 3 + ((NetworkRoute) route).getLinkIds().size();
+		}
+		String description = route.getRouteDescription();
+		return LEG_LENGTH + ROUTE_LENGTH + 1 + (description == null ? 0 : (description.length() + 1) / 2);
+	}
+
+	private void writeActivity(final long address, final Activity act) {
+		setInt(address, TAG, TAG_ACTIVITY);
+		setInt(address, ACT_TYPE, intern(act.getType()));
+		setInt(address, ACT_LINK, this.linkIds.index(act.getLinkId()));
+		setInt(address, ACT_FACILITY, this.facilityIds.index(act.getFacilityId()));
+		setCoord(address, act.getCoord());
+		setFloat(address, ACT_START_TIME, act.getStartTime());
+		setFloat(address, ACT_END_TIME, act.getEndTime());
+		setFloat(address, ACT_MAX_DURATION, act.getMaximumDuration());
+	}
+
+	private void writeLeg(final long address, final Leg leg) {
+		setInt(address, TAG, TAG_LEG);
+		setInt(address, LEG_MODE, intern(leg.getMode()));
+		setFloat(address, LEG_DEPARTURE_TIME, leg.getDepartureTime());
+		setFloat(address, LEG_TRAVEL_TIME, leg.getTravelTime());
+		Route route = leg.getRoute();
+		if (route == null) {
+			setInt(address, LEG_ROUTE_KIND, ROUTE_NONE);
+			return;
+		}
+		setInt(address, ROUTE_START_LINK, this.linkIds.index(route.getStartLinkId()));
+		setInt(address, ROUTE_END_LINK, this.linkIds.index(route.getEndLinkId()));
+		setFloat(address, ROUTE_DISTANCE, route.getDistance());
+		setFloat(address, ROUTE_TRAVEL_TIME, route.getTravelTime());
+		if (route instanceof NetworkRoute) {
+			NetworkRoute networkRoute = (NetworkRoute) route;
+			setInt(address, LEG_ROUTE_KIND, ROUTE_NETWORK);
+			setFloat(address, NETWORK_ROUTE_TRAVEL_COST, networkRoute.getTravelCost());
+			setInt(address, NETWORK_ROUTE_VEHICLE, this.vehicleIds.index(networkRoute.getVehicleId()));
+			List<Id<Link>> links = networkRoute.getLinkIds();
+			setInt(address, NETWORK_ROUTE_LINK_COUNT, links.size());
+			for (int i = 0; i < links.size(); i++) {
+				setInt(address, NETWORK_ROUTE_LINKS + i, this.linkIds.index(links.get(i)));
+			}
+		} else {
+			setInt(address, LEG_ROUTE_KIND, ROUTE_GENERIC);
+			String description = route.getRouteDescription();
+			if (description == null) {
+				setInt(address, GENERIC_ROUTE_DESCRIPTION_LENGTH, -1);
+				return;
+			}
+			setInt(address, GENERIC_ROUTE_DESCRIPTION_LENGTH, description.length());
+			for (int i = 0; i < description.length(); i += 2) {
+				int chars = description.charAt(i) << 16;
+				if (i + 1 < description.length()) {
+					chars |= description.charAt(i + 1);
+				}
+				setInt(address, GENERIC_ROUTE_DESCRIPTION + i / 2, chars);
+			}
+		}
+	}
+
+	/**
+	 * Copies the record of a plan of the given store into this store, which must share the interned
+	 * strings and ids with the given store.
+	 *
+	 * @return the address of the copy
+	 */
+	/*package*/ long copy(final PlanStore store, final long address) {
+		int length = store.getInt(address, PLAN_LENGTH);
+		long copy = allocate(length);
+		for (int i = 0; i < length; i++) {
+			setInt(copy, i, store.getInt(address, i));
+		}
+		return copy;
+	}
+
+	// low-level access
+
+	private long allocate(final int length) {
+		if (this.position + length > CHUNK_SIZE) {
+			this.chunks.add(this.offHeap ?
+					ByteBuffer.allocateDirect(CHUNK_SIZE * 4).order(ByteOrder.nativeOrder()).asIntBuffer() :
+					IntBuffer.allocate(CHUNK_SIZE));
+			this.position = 0;
+		}
+		long address = ((long) (this.chunks.size() - 1) << 32) | this.position;
+		this.position += length;
+		this.size += length;
+		return address;
+	}
+
+	/*package*/ int getInt(final long address, final int offset) {
+		return this.chunks.get((int) (address >>> 32)).get((int) address + offset);
+	}
+
+	/*package*/ void setInt(final long address, final int offset, final int value) {
+		this.chunks.get((int) (address >>> 32)).put((int) address + offset, value);
+	}
+
+	/*package*/ double getFloat(final long address, final int offset) {
+		return Float.intBitsToFloat(getInt(address, offset));
+	}
+
+	/*package*/ void setFloat(final long address, final int offset, final double value) {
+		setInt(address, offset, Float.floatToRawIntBits((float) value));
+	}
+
+	/*package*/ double getDouble(final long address, final int offset) {
+		long bits = ((long) getInt(address, offset) << 32) | (getInt(address, offset + 1) & 0xffffffffL);
+		return Double.longBitsToDouble(bits);
+	}
+
+	/*package*/ void setDouble(final long address, final int offset, final double value) {
+		long bits = Double.doubleToRawLongBits(value);
+		setInt(address, offset, (int) (bits >>> 32));
+		setInt(address, offset + 1, (int) bits);
+	}
+
+	/**
+	 * Coordinates are stored as two doubles, <code>null</code> as NaN.
+	 */
+	/*package*/ Coord getCoord(final long address) {
+		double x = getDouble(address, ACT_X);
+		return Double.isNaN(x) ? null : new Coord(x, getDouble(address, ACT_Y));
+	}
+
+	/*package*/ void setCoord(final long address, final Coord coord) {
+		setDouble(address, ACT_X, coord == null ? Double.NaN : coord.getX());
+		setDouble(address, ACT_Y, coord == null ? Double.NaN : coord.getY());
+	}
+
+	/*package*/ String getString(final int index) {
+		return index < 0 ? null : this.strings.get(index);
+	}
+
+	/*package*/ int intern(final String string) {
+		if (string == null) {
+			return -1;
+		}
+		Integer index = this.stringIndices.get(string);
+		if (index == null) {
+			index = this.strings.size();
+			this.strings.add(string);
+			this.stringIndices.put(string, index);
+		}
+		return index;
+	}
+
+	/*package*/ String getChars(final long address, final int offset, final int length) {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			int value = getInt(address, offset + i / 2);
+			chars[i] = (char) (i % 2 == 0 ? value >>> 16 : value & 0xffff);
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * The ids of one type, by their index.
+	 */
+	/*package*/ static final class IdTable<T> {
+
+		@SuppressWarnings("unchecked")
+		private Id<T>[] ids = (Id<T>[]) new Id<?>[16];
+
+		/*package*/ int index(final Id<T> id) {
+			if (id == null) {
+				return -1;
+			}
+			int index = id.index();
+			if (index >= this.ids.length) {
+				this.ids = Arrays.copyOf(this.ids, Math.max(index + 1, 2 * this.ids.length));
+			}
+			this.ids[index] = id;
+			return index;
+		}
+
+		/*package*/ Id<T> get(final int index) {
+			return index < 0 ? null : this.ids[index];
+		}
+	}
+
+}
@@ -0,0 +1,221 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * DeltaEncodedNetworkRouteImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.LinkSequenceStore.LinkSequence;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Implementation of {@link NetworkRoute} which stores its links in a {@link LinkSequenceStore}: the links
+ * are delta-encoded, and equal sequences of links are shared by all routes of the same store. As the
+ * encoded links are immutable, cloning a route does not copy them.
+ * <br>
+ * The links returned by {@link #getLinkIds()} are decoded on access. Accessing them in order, as the
+ * mobsim does, is cheap, as the list of links remembers the position of the link accessed last. The list
+ * is created once per sequence of links and then returned by each call to {@link #getLinkIds()}. The position
+ * is guarded by the list, so the links of the same route can be accessed from several threads at the same time.
+ */
+public final class DeltaEncodedNetworkRouteImpl extends AbstractRoute implements NetworkRoute, Cloneable {
+
+	private final LinkSequenceStore store;
+	private LinkSequence links = LinkSequence.EMPTY;
+	private double travelCost = Double.NaN;
+	private Id<Vehicle> vehicleId = null;
+	/** created on first access, possibly by another thread than the one which set the links */
+	private volatile LinkIds linkIds = null;
+
+	public DeltaEncodedNetworkRouteImpl(final Id<Link> startLinkId, final Id<Link> endLinkId, final LinkSequenceStore store) {
+		super(startLinkId, endLinkId);
+		this.store = store;
+	}
+
+	@Override
+	public DeltaEncodedNetworkRouteImpl clone() {
+		DeltaEncodedNetworkRouteImpl cloned = (DeltaEncodedNetworkRouteImpl) super.clone();
+		cloned.linkIds = null;
+		return cloned;
+	}
+
+	@Override
+	public List<Id<Link>> getLinkIds() {
+		LinkIds linkIds = this.linkIds;
+		if (linkIds == null) {
+			linkIds = new LinkIds(this.links);
+			this.linkIds = linkIds;
+		}
+		return linkIds;
+	}
+
+	@Override
+	public NetworkRoute getSubRoute(final Id<Link> fromLinkId, final Id<Link> toLinkId) {
+		NetworkRoute subRoute = new LinkNetworkRouteImpl(getStartLinkId(), new ArrayList<>(getLinkIds()), getEndLinkId()).getSubRoute(fromLinkId, toLinkId);
+		DeltaEncodedNetworkRouteImpl ret = new DeltaEncodedNetworkRouteImpl(fromLinkId, toLinkId, this.store);
+		ret.setLinkIds(fromLinkId, subRoute.getLinkIds(), toLinkId);
+		return ret;
+	}
+
+	@Override
+	public double getTravelCost() {
+		return this.travelCost;
+	}
+
+	@Override
+	public void setTravelCost(final double travelCost) {
+		this.travelCost = travelCost;
+	}
+
+	@Override
+	public void setLinkIds(final Id<Link> startLinkId, final List<Id<Link>> linkIds, final Id<Link> endLinkId) {
+		setStartLinkId(startLinkId);
+		setEndLinkId(endLinkId);
+		this.links = this.store.intern(linkIds);
+		this.linkIds = null;
+	}
+
+	@Override
+	public Id<Vehicle> getVehicleId() {
+		return this.vehicleId;
+	}
+
+	@Override
+	public void setVehicleId(final Id<Vehicle> vehicleId) {
+		this.vehicleId = vehicleId;
+	}
+
+	@Override
+	public String getRouteDescription() {
+		StringBuilder desc = new StringBuilder(100);
+		desc.append(this.getStartLinkId().toString());
+		List<Id<Link>> linkIds = this.getLinkIds();
+		for (Id<Link> linkId : linkIds) {
+			desc.append(" ");
+			desc.append(linkId.toString());
+		}
+		// If the start links equals the end link additionally check if its is a round trip.
+		if (!this.getEndLinkId().equals(this.getStartLinkId()) || linkIds.size() > 0) {
+			desc.append(" ");
+			desc.append(this.getEndLinkId().toString());
+		}
+		return desc.toString();
+	}
+
+	@Override
+	public void setRouteDescription(final String routeDescription) {
+		List<Id<Link>> linkIds = NetworkUtils.getLinkIds(routeDescription);
+		Id<Link> startLinkId = getStartLinkId();
+		Id<Link> endLinkId = getEndLinkId();
+		if (linkIds.size() > 0) {
+			startLinkId = linkIds.remove(0);
+		}
+		if (linkIds.size() > 0) {
+			endLinkId = linkIds.remove(linkIds.size() - 1);
+		}
+		this.setLinkIds(startLinkId, linkIds, endLinkId);
+	}
+
+	@Override
+	public String getRouteType() {
+		return LinkNetworkRouteImpl.ROUTE_TYPE;
+	}
+
+	@Override
+	public String toString() {
+		String str = super.toString();
+		str += " linkIds=" + this.getLinkIds() ;
+		str += " travelCost=" + this.getTravelCost() ;
+		return str ;
+	}
+
+	private final class LinkIds extends AbstractList<Id<Link>> {
+
+		private final LinkSequence links;
+		/** the index of the link decoded last, or -1. Guarded by this list, as is {@link #cursorDecoded}. */
+		private int cursorIndex = -1;
+		/** the link decoded last, and the offset of the next one, as returned by {@link LinkSequence#decode} */
+		private long cursorDecoded = 0;
+
+		LinkIds(final LinkSequence links) {
+			this.links = links;
+		}
+
+		@Override
+		public synchronized Id<Link> get(final int index) {
+			if (index < 0 || index >= this.links.size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.links.size);
+			}
+			if (this.cursorIndex > index) {
+				this.cursorIndex = -1;
+				this.cursorDecoded = 0;
+			}
+			while (this.cursorIndex < index) {
+				this.cursorDecoded = this.links.decode((int) (this.cursorDecoded >>> 32), (int) this.cursorDecoded);
+				this.cursorIndex++;
+			}
+			return DeltaEncodedNetworkRouteImpl.this.store.getLinkId((int) this.cursorDecoded);
+		}
+
+		@Override
+		public int size() {
+			return this.links.size;
+		}
+
+		@Override
+		public Iterator<Id<Link>> iterator() {
+			return new Iterator<Id<Link>>() {
+				private int i = 0;
+				private int linkIndex = 0;
+				private int offset = 0;
+
+				@Override
+				public boolean hasNext() {
+					return this.i < LinkIds.this.links.size;
+				}
+
+				@Override
+				public Id<Link> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					long decoded = LinkIds.this.links.decode(this.offset, this.linkIndex);
+					this.linkIndex = (int) decoded;
+					this.offset = (int) (decoded >>> 32);
+					this.i++;
+					return DeltaEncodedNetworkRouteImpl.this.store.getLinkId(this.linkIndex);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+}
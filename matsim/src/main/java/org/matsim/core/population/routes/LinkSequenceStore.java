@@ -0,0 +1,162 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LinkSequenceStore.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+
+/**
+ * Stores the links of {@link DeltaEncodedNetworkRouteImpl}s. Each sequence of links is encoded as the
+ * differences between the indices ({@link Id#index()}) of subsequent links, written as variable-length
+ * integers, which typically needs one to three bytes per link.
+ * <br>
+ * Equal sequences of links are stored only once (hash-consing): routes with the same links, e.g. the
+ * routes of the different plans of an agent, or of agents traveling between the same locations, share
+ * the same encoded sequence. Sequences which are no longer used by any route are garbage collected.
+ * <br>
+ * This class is thread-safe.
+ */
+public final class LinkSequenceStore {
+
+	private final Map<LinkSequence, WeakReference<LinkSequence>> sequences = new WeakHashMap<>();
+	@SuppressWarnings("unchecked")
+	private volatile Id<Link>[] linkIds = (Id<Link>[]) new Id<?>[0];
+
+	/**
+	 * @return the number of distinct sequences of links currently stored.
+	 */
+	public synchronized int getNumberOfSequences() {
+		return this.sequences.size();
+	}
+
+	/*package*/ LinkSequence intern(final List<Id<Link>> links) {
+		if (links == null || links.isEmpty()) {
+			return LinkSequence.EMPTY;
+		}
+		LinkSequence sequence = LinkSequence.encode(links);
+		synchronized (this) {
+			WeakReference<LinkSequence> ref = this.sequences.get(sequence);
+			LinkSequence existing = ref == null ? null : ref.get();
+			if (existing != null) {
+				return existing;
+			}
+			registerLinkIds(links);
+			this.sequences.put(sequence, new WeakReference<>(sequence));
+			return sequence;
+		}
+	}
+
+	private void registerLinkIds(final List<Id<Link>> links) {
+		Id<Link>[] ids = this.linkIds;
+		for (Id<Link> linkId : links) {
+			int index = linkId.index();
+			if (index >= ids.length) {
+				ids = Arrays.copyOf(ids, Math.max(index + 1, 2 * ids.length));
+			}
+			ids[index] = linkId;
+		}
+		this.linkIds = ids;
+	}
+
+	/*package*/ Id<Link> getLinkId(final int index) {
+		return this.linkIds[index];
+	}
+
+	/**
+	 * An immutable, encoded sequence of links. Two sequences are equal if they contain the same links.
+	 */
+	/*package*/ static final class LinkSequence {
+
+		/*package*/ static final LinkSequence EMPTY = new LinkSequence(new byte[0], 0);
+
+		/*package*/ final byte[] data;
+		/*package*/ final int size;
+		private final int hash;
+
+		private LinkSequence(final byte[] data, final int size) {
+			this.data = data;
+			this.size = size;
+			this.hash = 31 * Arrays.hashCode(data) + size;
+		}
+
+		/*package*/ static LinkSequence encode(final List<Id<Link>> links) {
+			byte[] data = new byte[links.size() * 2];
+			int length = 0;
+			int previous = 0;
+			for (Id<Link> linkId : links) {
+				int index = linkId.index();
+				int delta = index - previous;
+				int value = (delta << 1) ^ (delta >> 31); // zig-zag, so small negative deltas need few bytes as well
+				if (length + 5 > data.length) {
+					data = Arrays.copyOf(data, Math.max(length + 5, 2 * data.length));
+				}
+				while ((value & ~0x7f) != 0) {
+					data[length++] = (byte) ((value & 0x7f) | 0x80);
+					value >>>= 7;
+				}
+				data[length++] = (byte) value;
+				previous = index;
+			}
+			return new LinkSequence(Arrays.copyOf(data, length), links.size());
+		}
+
+		/**
+		 * Decodes the link index at the given offset, which follows a link with the given index.
+		 *
+		 * @return the decoded index in the lower 32 bits and the offset of the next link in the upper 32 bits
+		 */
+		/*package*/ long decode(final int offset, final int previous) {
+			int value = 0;
+			int shift = 0;
+			int position = offset;
+			byte b;
+			do {
+				b = this.data[position++];
+				value |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			int index = previous + ((value >>> 1) ^ -(value & 1));
+			return ((long) position << 32) | (index & 0xffffffffL);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof LinkSequence)) {
+				return false;
+			}
+			LinkSequence other = (LinkSequence) obj;
+			return this.hash == other.hash && this.size == other.size && Arrays.equals(this.data, other.data);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+	}
+
+}
@@ -24,13 +24,17 @@ import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.replanning.PlanStrategyModule;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.gbl.MatsimRandom;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.utils.misc.Counter;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -50,6 +54,13 @@ import java.util.concurrent.atomic.AtomicReference;
  * "fast threads"), it helps building reproducible runs.  Additionally, as the threads are only
  * started after all to-be-handled plans are added, we can use unsynchronized data structures.
  * <p></p>
+ * If a batch size larger than 0 is set (see {@link GlobalConfigGroup#getReplanningBatchSize()}), the plans are
+ * not distributed in advance. Instead, the threads take batches of plans from a shared queue until all plans are
+ * handled, so fast threads handle more plans than slow ones.  To keep the runs reproducible, the random number
+ * generators which the algorithm instances obtained from {@link MatsimRandom#getLocalInstance()} while being
+ * created are re-initialized before each plan, using the iteration, the class of the module and the id of the
+ * person of the plan. Algorithms drawing random numbers from other sources are not reproducible in this mode.
+ * <p></p>
  * Design comments/questions:<ul>
  * <li> As a consequence of the design, the instances that getPlanAlgoInstance() returns, need to be thread-safe.  kai, dec'12
  * For an example with discussions, see {@link tutorial.programming.multiThreadedPlanStrategy.RunWithMultithreadedModule}
@@ -59,8 +70,10 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 abstract public class AbstractMultithreadedModule implements PlanStrategyModule {
 	private final int numOfThreads;
+	private int batchSize;
 
 	private PlanAlgoThread[] algothreads = null;
+	private List<Plan> sharedPlans = null;
 	private Thread[] threads = null;
 	private PlanAlgorithm directAlgo = null;
 	private String name = null;
@@ -84,10 +97,30 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 	public AbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
 		this.numOfThreads = globalConfigGroup.getNumberOfThreads();
+		this.batchSize = globalConfigGroup.getReplanningBatchSize();
 	}
 
 	public AbstractMultithreadedModule(final int numOfThreads) {
 		this.numOfThreads = numOfThreads;
+		this.batchSize = 0;
+	}
+
+	/**
+	 * Sets the number of plans the threads take at once from the shared queue, or 0 to distribute the plans
+	 * equally to the threads in advance. Must not be called between prepareReplanning() and finishReplanning().
+	 */
+	public final void setBatchSize(final int batchSize) {
+		if (this.threads != null) {
+			throw new IllegalStateException("The batch size cannot be changed during replanning.");
+		}
+		if (batchSize < 0) {
+			throw new IllegalArgumentException("The batch size must not be negative: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	public final int getBatchSize() {
+		return this.batchSize;
 	}
 	
 	protected void beforePrepareReplanningHook(@SuppressWarnings("unused") ReplanningContext replanningContextTmp) {
@@ -118,7 +151,11 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	@Override
 	public final void handlePlan(final Plan plan) {
 		if (this.directAlgo == null) {
-			this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
+			if (this.sharedPlans != null) {
+				this.sharedPlans.add(plan);
+			} else {
+				this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
+			}
 			this.count++;
 		} else {
 			this.directAlgo.run(plan);
@@ -161,6 +198,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		}
 		// reset
 		this.algothreads = null;
+		this.sharedPlans = null;
 		this.threads = null;
 		this.replanningContext = null;
 		this.count = 0;
@@ -176,16 +214,41 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		this.hadException.set(null);
 		this.threads = new Thread[this.numOfThreads];
 		this.algothreads = new PlanAlgoThread[this.numOfThreads];
+		AtomicInteger nextPlan = null;
+		if (this.batchSize > 0) {
+			this.sharedPlans = new ArrayList<>();
+			nextPlan = new AtomicInteger(0);
+		}
 
 		Counter counter = null;
 		// setup threads
 		for (int i = 0; i < this.numOfThreads; i++) {
-			PlanAlgorithm algo = getPlanAlgoInstance();
-			if (i == 0) {
-				this.name = algo.getClass().getSimpleName();
-				counter = new Counter("[" + this.name + "] handled plan # ");
+			PlanAlgoThread algothread;
+			if (this.sharedPlans != null) {
+				MatsimRandom.startRecordingLocalInstances();
+				PlanAlgorithm algo;
+				List<Random> randoms;
+				try {
+					algo = getPlanAlgoInstance();
+				} finally {
+					randoms = MatsimRandom.stopRecordingLocalInstances();
+				}
+				if (i == 0) {
+					this.name = algo.getClass().getSimpleName();
+					counter = new Counter("[" + this.name + "] handled plan # ");
+				}
+				int iteration = this.replanningContext == null ? 0 : this.replanningContext.getIteration();
+				// the class name, as other modules handling the same plans in the same iteration must get other random numbers
+				long salt = hash(getClass().getName());
+				algothread = new BatchPlanAlgoThread(algo, counter, this.sharedPlans, nextPlan, this.batchSize, randoms, mix(salt + iteration));
+			} else {
+				PlanAlgorithm algo = getPlanAlgoInstance();
+				if (i == 0) {
+					this.name = algo.getClass().getSimpleName();
+					counter = new Counter("[" + this.name + "] handled plan # ");
+				}
+				algothread = new PlanAlgoThread(algo, counter);
 			}
-			PlanAlgoThread algothread = new PlanAlgoThread(algo, counter);
 			Thread thread = new Thread(algothread, this.name + "." + i);
 			thread.setUncaughtExceptionHandler(this.exceptionHandler);
 			this.threads[i] = thread;
@@ -193,6 +256,29 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		}
 	}
 
+	/**
+	 * @return a 64 bit FNV-1a hash of the characters of the string, which does not depend on the JVM, unlike
+	 * {@link Object#hashCode()}, and collides far less often than {@link String#hashCode()}.
+	 */
+	/*package*/ static long hash(final CharSequence str) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < str.length(); i++) {
+			hash ^= str.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * The finalizer of SplitMix64, so keys which only differ in a few bits result in unrelated seeds.
+	 */
+	/*package*/ static long mix(final long key) {
+		long z = key;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
 	/* package (for a test) */ final int getNumOfThreads() {
 		return numOfThreads;
 	}
@@ -213,11 +299,11 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 	}
 
-	private final static class PlanAlgoThread implements Runnable {
+	private static class PlanAlgoThread implements Runnable {
 
-		private final PlanAlgorithm planAlgo;
+		/*package*/ final PlanAlgorithm planAlgo;
 		private final List<Plan> plans = new LinkedList<>();
-		private final Counter counter;
+		/*package*/ final Counter counter;
 
 		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter) {
 			this.planAlgo = algo;
@@ -236,4 +322,60 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 			}
 		}
 	}
+
+	/**
+	 * Takes batches of plans from a list shared by all threads, the next plan to take being given by a shared index.
+	 */
+	private final static class BatchPlanAlgoThread extends PlanAlgoThread {
+
+		private final List<Plan> sharedPlans;
+		private final AtomicInteger nextPlan;
+		private final int batchSize;
+		private final List<Random> randoms;
+		private final long moduleKey;
+
+		/**
+		 * @param moduleKey the same for all threads of the module in an iteration
+		 */
+		public BatchPlanAlgoThread(final PlanAlgorithm algo, final Counter counter, final List<Plan> sharedPlans,
+				final AtomicInteger nextPlan, final int batchSize, final List<Random> randoms, final long moduleKey) {
+			super(algo, counter);
+			this.sharedPlans = sharedPlans;
+			this.nextPlan = nextPlan;
+			this.batchSize = batchSize;
+			this.randoms = randoms;
+			this.moduleKey = moduleKey;
+		}
+
+		@Override
+		public void addPlanToThread(final Plan plan) {
+			throw new UnsupportedOperationException("The plans are taken from the shared list.");
+		}
+
+		@Override
+		public void run() {
+			int size = this.sharedPlans.size();
+			int start;
+			while ((start = this.nextPlan.getAndAdd(this.batchSize)) < size) {
+				int end = Math.min(start + this.batchSize, size);
+				for (int p = start; p < end; p++) {
+					Plan plan = this.sharedPlans.get(p);
+					resetRandoms(plan, p);
+					this.planAlgo.run(plan);
+					this.counter.incCounter();
+				}
+			}
+		}
+
+		private void resetRandoms(final Plan plan, final int index) {
+			if (this.randoms.isEmpty()) {
+				return;
+			}
+			// the plans are added in the same order in each run, so the index can be used if the plan has no person
+			long key = mix(this.moduleKey ^ (plan.getPerson() == null ? index : hash(plan.getPerson().getId().toString())));
+			for (int i = 0; i < this.randoms.size(); i++) {
+				MatsimRandom.resetLocalInstance(this.randoms.get(i), mix(key + i));
+			}
+		}
+	}
 }
@@ -54,7 +54,7 @@ public class ChangeLegMode extends AbstractMultithreadedModule {
 	private boolean ignoreCarAvailability;
 
 	public ChangeLegMode(final GlobalConfigGroup globalConfigGroup, ChangeModeConfigGroup changeLegModeConfigGroup) {
-		super(globalConfigGroup.getNumberOfThreads());
+		super(globalConfigGroup);
 		this.availableModes = changeLegModeConfigGroup.getModes();
 		this.ignoreCarAvailability = changeLegModeConfigGroup.getIgnoreCarAvailability();
 	}
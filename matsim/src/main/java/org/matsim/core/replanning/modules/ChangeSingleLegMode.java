@@ -53,7 +53,7 @@ public class ChangeSingleLegMode extends AbstractMultithreadedModule {
 	private boolean ignoreCarAvailability = true;
 
 	public ChangeSingleLegMode(final GlobalConfigGroup globalConfigGroup, ChangeModeConfigGroup changeLegModeConfigGroup) {
-		super(globalConfigGroup.getNumberOfThreads());
+		super(globalConfigGroup);
 		this.availableModes = changeLegModeConfigGroup.getModes();
 		this.ignoreCarAvailability = changeLegModeConfigGroup.getIgnoreCarAvailability();
 	}
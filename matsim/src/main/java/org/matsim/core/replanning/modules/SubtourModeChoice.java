@@ -64,6 +64,7 @@ public class SubtourModeChoice extends AbstractMultithreadedModule {
 				subtourModeChoiceConfigGroup.getModes(),
 				subtourModeChoiceConfigGroup.getChainBasedModes(),
 				subtourModeChoiceConfigGroup.considerCarAvailability(), tripRouterProvider);
+		setBatchSize(globalConfigGroup.getReplanningBatchSize());
 	}
 
 	public SubtourModeChoice(
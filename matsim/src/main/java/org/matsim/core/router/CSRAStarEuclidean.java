@@ -0,0 +1,66 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CSRAStarEuclidean.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Implementation of {@link AStarEuclidean} on a {@link CSRRoutingGraph}. The graph must have been
+ * created with a {@link org.matsim.core.router.util.PreProcessEuclidean}.
+ *
+ * <h2>Important note</h2>
+ * This class is NOT thread-safe!
+ *
+ * @see CSRDijkstra
+ */
+public class CSRAStarEuclidean extends CSRDijkstra {
+
+	protected final double overdoFactor;
+	/*package*/ int toNode = -1;
+
+	public CSRAStarEuclidean(final CSRRoutingGraph graph, final TravelDisutility costFunction, final TravelTime timeFunction,
+			final double overdoFactor) {
+		super(graph, costFunction, timeFunction);
+		this.overdoFactor = overdoFactor;
+	}
+
+	@Override
+	protected void initializeSearch(final int from, final int to) {
+		this.toNode = to;
+	}
+
+	@Override
+	protected double getPriority(final int n, final double cost) {
+		return cost + estimateRemainingTravelCost(n, this.toNode);
+	}
+
+	/**
+	 * @return a lower bound of the travel cost from node <code>n</code> to node <code>to</code>,
+	 * multiplied with the overdo factor.
+	 */
+	protected double estimateRemainingTravelCost(final int n, final int to) {
+		double dx = this.graph.x[n] - this.graph.x[to];
+		double dy = this.graph.y[n] - this.graph.y[to];
+		return Math.sqrt(dx * dx + dy * dy) * this.graph.minTravelCostPerLength * this.overdoFactor;
+	}
+
+}
@@ -0,0 +1,152 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CSRAStarLandmarks.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Implementation of {@link AStarLandmarks} on a {@link CSRRoutingGraph}. The graph must have been
+ * created with a {@link org.matsim.core.router.util.PreProcessLandmarks}.
+ * <br>
+ * As in {@link AStarLandmarks}, the search starts with the two landmarks which give the best estimate
+ * for the start node, and regularly checks whether another landmark would give a better estimate.
+ *
+ * <h2>Important note</h2>
+ * This class is NOT thread-safe!
+ *
+ * @see CSRDijkstra
+ */
+public class CSRAStarLandmarks extends CSRAStarEuclidean {
+
+	/*package*/ static final int controlInterval = 40;
+
+	private final int[] activeLandmarks;
+	private int activeLandmarkCount = 0;
+	private int controlCounter = 0;
+
+	public CSRAStarLandmarks(final CSRRoutingGraph graph, final TravelDisutility costFunction, final TravelTime timeFunction,
+			final double overdoFactor) {
+		super(graph, costFunction, timeFunction, overdoFactor);
+		this.activeLandmarks = new int[graph.landmarkCount];
+	}
+
+	@Override
+	protected void initializeSearch(final int from, final int to) {
+		super.initializeSearch(from, to);
+		this.controlCounter = 0;
+		// the landmarks with the best estimates, in descending order
+		int count = Math.min(2, this.graph.landmarkCount);
+		double[] estimates = new double[count];
+		this.activeLandmarkCount = 0;
+		for (int i = 0; i < this.graph.landmarkCount; i++) {
+			double estimate = estimateRemainingTravelCost(from, to, i);
+			int k = this.activeLandmarkCount;
+			while (k > 0 && estimates[k - 1] < estimate) {
+				if (k < count) {
+					estimates[k] = estimates[k - 1];
+					this.activeLandmarks[k] = this.activeLandmarks[k - 1];
+				}
+				k--;
+			}
+			if (k < count) {
+				estimates[k] = estimate;
+				this.activeLandmarks[k] = i;
+				if (this.activeLandmarkCount < count) {
+					this.activeLandmarkCount++;
+				}
+			}
+		}
+	}
+
+	@Override
+	protected void relaxNode(final int n, final int to) {
+		this.controlCounter++;
+		if (this.controlCounter == controlInterval) {
+			if (checkToAddLandmark(n, to)) {
+				updatePendingNodes();
+			}
+			this.controlCounter = 0;
+		}
+		super.relaxNode(n, to);
+	}
+
+	/**
+	 * Activates the landmark with the best estimate for node <code>n</code>, if it is better than the
+	 * estimate of the currently active landmarks.
+	 */
+	private boolean checkToAddLandmark(final int n, final int to) {
+		double bestEstimate = estimateRemainingTravelCost(n, to);
+		int bestIndex = -1;
+		for (int i = 0; i < this.graph.landmarkCount; i++) {
+			double estimate = estimateRemainingTravelCost(n, to, i);
+			if (estimate > bestEstimate) {
+				bestIndex = i;
+				bestEstimate = estimate;
+			}
+		}
+		if (bestIndex < 0) {
+			return false;
+		}
+		this.activeLandmarks[this.activeLandmarkCount++] = bestIndex;
+		return true;
+	}
+
+	/**
+	 * The estimates only increase with an additional landmark, so the priorities of the pending
+	 * nodes are updated where they increase.
+	 */
+	private void updatePendingNodes() {
+		for (int n : this.pendingNodes.toArray()) {
+			double priority = getPriority(n, this.cost[n]);
+			if (priority > this.pendingNodes.getCost(n)) {
+				this.pendingNodes.update(n, priority);
+			}
+		}
+	}
+
+	@Override
+	protected double estimateRemainingTravelCost(final int n, final int to) {
+		double travCost = 0;
+		for (int i = 0; i < this.activeLandmarkCount; i++) {
+			double tmpTravCost = estimateRemainingTravelCost(n, to, this.activeLandmarks[i]);
+			if (tmpTravCost > travCost) {
+				travCost = tmpTravCost;
+			}
+		}
+		return Math.max(travCost, super.estimateRemainingTravelCost(n, to));
+	}
+
+	private double estimateRemainingTravelCost(final int n, final int to, final int landmark) {
+		int landmarkCount = this.graph.landmarkCount;
+		double[] min = this.graph.minLandmarkCost;
+		double[] max = this.graph.maxLandmarkCost;
+		double tmpTravCost = min[n * landmarkCount + landmark] - max[to * landmarkCount + landmark];
+		if (tmpTravCost < 0) {
+			tmpTravCost = min[to * landmarkCount + landmark] - max[n * landmarkCount + landmark];
+			if (tmpTravCost <= 0) {
+				return 0;
+			}
+		}
+		return tmpTravCost * this.overdoFactor;
+	}
+
+}
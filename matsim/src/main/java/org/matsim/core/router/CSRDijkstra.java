@@ -0,0 +1,249 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CSRDijkstra.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.priorityqueue.IntBinaryMinHeap;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Implementation of {@link Dijkstra} on a {@link CSRRoutingGraph}.
+ * <br>
+ * The graph only contains read-only arrays and can be shared by all routers. The state of the search
+ * is stored by each router in plain arrays, indexed by the index of the node in the graph: the cost,
+ * time and previous link of each node, and the id of the search in which these values were set. Thus,
+ * no objects are created per node, and the arrays do not have to be reset before a search.
+ * <br>
+ * The paths found are the same as the ones of {@link Dijkstra}: the cost and time of a link are
+ * calculated for the time when the link is entered, and dead ends are pruned if the graph was created
+ * with pre-processing data.
+ *
+ * <h2>Important note</h2>
+ * This class is NOT thread-safe!
+ *
+ * @see FastRouterType#CSR
+ */
+public class CSRDijkstra implements LeastCostPathCalculator {
+
+	private final static Logger log = Logger.getLogger(CSRDijkstra.class);
+
+	/*package*/ final CSRRoutingGraph graph;
+	protected final TravelDisutility costFunction;
+	protected final TravelTime timeFunction;
+
+	/*package*/ final double[] cost;
+	/*package*/ final double[] time;
+	/** the index of the link by which each node is reached, or -1 for the start node */
+	/*package*/ final int[] previousLink;
+	/** the iteration in which the values of each node were set, the values of other iterations are invalid */
+	private final int[] visited;
+	private int iterationId = 0;
+	/*package*/ final IntBinaryMinHeap pendingNodes;
+
+	private String[] modeRestriction = null;
+
+	private int deadEndEntryNode = -1;
+	private Person person = null;
+	private Vehicle vehicle = null;
+
+	public CSRDijkstra(final CSRRoutingGraph graph, final TravelDisutility costFunction, final TravelTime timeFunction) {
+		this.graph = graph;
+		this.costFunction = costFunction;
+		this.timeFunction = timeFunction;
+		int nodeCount = graph.nodes.length;
+		this.cost = new double[nodeCount];
+		this.time = new double[nodeCount];
+		this.previousLink = new int[nodeCount];
+		this.visited = new int[nodeCount];
+		this.pendingNodes = new IntBinaryMinHeap(nodeCount);
+	}
+
+	/**
+	 * Restricts the search to links which allow at least one of the given modes, like
+	 * {@link Dijkstra#setModeRestriction(Set)} does.
+	 *
+	 * @deprecated Use a filtered network instead which only contains the links you want.
+	 */
+	@Deprecated
+	public void setModeRestriction(final Set<String> modeRestriction) {
+		if (modeRestriction == null) {
+			this.modeRestriction = null;
+		} else {
+			this.modeRestriction = modeRestriction.toArray(new String[modeRestriction.size()]);
+		}
+	}
+
+	@Override
+	public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double startTime, final Person person, final Vehicle vehicle) {
+		int from = getIndex(fromNode);
+		int to = getIndex(toNode);
+		augmentIterationId();
+		this.person = person;
+		this.vehicle = vehicle;
+		this.deadEndEntryNode = this.graph.deadEndEntryNode == null ? -1 : this.graph.deadEndEntryNode[to];
+
+		initializeSearch(from, to);
+		this.visited[from] = this.iterationId;
+		this.cost[from] = 0.0;
+		this.time[from] = startTime;
+		this.previousLink[from] = -1;
+		this.pendingNodes.add(from, getPriority(from, 0.0));
+
+		boolean found = false;
+		while (!this.pendingNodes.isEmpty()) {
+			int n = this.pendingNodes.poll();
+			if (n == to) {
+				found = true;
+				break;
+			}
+			relaxNode(n, to);
+		}
+		this.pendingNodes.clear();
+		this.person = null;
+		this.vehicle = null;
+
+		if (!found) {
+			log.warn("No route was found from node " + fromNode.getId() + " to node " + toNode.getId());
+			return null;
+		}
+		return constructPath(from, to, startTime);
+	}
+
+	private int getIndex(final Node node) {
+		int n = this.graph.getIndex(node);
+		if (n < 0) {
+			throw new IllegalArgumentException("The nodes passed as parameters are not part of the network stored by "+
+					getClass().getSimpleName() + ": the validity of the results cannot be guaranteed. Aborting!");
+		}
+		return n;
+	}
+
+	private void augmentIterationId() {
+		if (this.iterationId == Integer.MAX_VALUE) {
+			Arrays.fill(this.visited, 0);
+			this.iterationId = 0;
+		}
+		this.iterationId++;
+	}
+
+	/**
+	 * Called before the start node is added to the pending nodes.
+	 */
+	protected void initializeSearch(final int from, final int to) {
+	}
+
+	/**
+	 * @return the priority of the node in the pending nodes, given its cost.
+	 */
+	protected double getPriority(final int n, final double cost) {
+		return cost;
+	}
+
+	protected void relaxNode(final int n, final int to) {
+		int[] firstOutLink = this.graph.firstOutLink;
+		int[] linkToNode = this.graph.linkToNode;
+		int[] deadEnds = this.graph.deadEndEntryNode;
+		double currTime = this.time[n];
+		double currCost = this.cost[n];
+		for (int l = firstOutLink[n], end = firstOutLink[n + 1]; l < end; l++) {
+			int m = linkToNode[l];
+			if (deadEnds != null && deadEnds[m] >= 0 && deadEnds[n] < 0 && deadEnds[m] != this.deadEndEntryNode) {
+				// m is in a dead end which does not contain the to-node
+				continue;
+			}
+			Link link = this.graph.links[l];
+			if (!canPassLink(link)) {
+				continue;
+			}
+			double totalCost = currCost + this.costFunction.getLinkTravelDisutility(link, currTime, this.person, this.vehicle);
+			if (this.visited[m] == this.iterationId && totalCost >= this.cost[m]) {
+				continue;
+			}
+			double travelTime = this.timeFunction.getLinkTravelTime(link, currTime, this.person, this.vehicle);
+			boolean isNew = this.visited[m] != this.iterationId;
+			this.visited[m] = this.iterationId;
+			this.cost[m] = totalCost;
+			this.time[m] = currTime + travelTime;
+			this.previousLink[m] = l;
+			if (isNew) {
+				this.pendingNodes.add(m, getPriority(m, totalCost));
+			} else if (this.pendingNodes.contains(m)) {
+				this.pendingNodes.update(m, getPriority(m, totalCost));
+			} else {
+				// only possible if the estimate of A* is not consistent
+				this.pendingNodes.add(m, getPriority(m, totalCost));
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the link can be passed with respect to a possible mode restriction set
+	 *
+	 * @see #setModeRestriction(Set)
+	 */
+	protected boolean canPassLink(final Link link) {
+		if (this.modeRestriction == null) {
+			return true;
+		}
+		for (String mode : this.modeRestriction) {
+			if (link.getAllowedModes().contains(mode)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return <code>true</code> if the values of the node were set in the current search.
+	 */
+	/*package*/ final boolean isVisited(final int n) {
+		return this.visited[n] == this.iterationId;
+	}
+
+	private Path constructPath(final int from, final int to, final double startTime) {
+		List<Node> nodes = new ArrayList<>();
+		List<Link> links = new ArrayList<>();
+		nodes.add(this.graph.nodes[to]);
+		for (int l = this.previousLink[to]; l >= 0; ) {
+			Link link = this.graph.links[l];
+			links.add(link);
+			nodes.add(link.getFromNode());
+			int n = this.graph.getIndex(link.getFromNode());
+			l = n == from ? -1 : this.previousLink[n];
+		}
+		Collections.reverse(nodes);
+		Collections.reverse(links);
+		return new Path(nodes, links, this.time[to] - startTime, this.cost[to]);
+	}
+
+}
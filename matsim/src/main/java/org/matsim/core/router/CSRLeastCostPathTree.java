@@ -0,0 +1,263 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CSRLeastCostPathTree.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.priorityqueue.IntBinaryMinHeap;
+import org.matsim.core.router.util.LeastCostPathTreeCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Implementation of {@link LeastCostPathTreeCalculator} on a {@link CSRRoutingGraph}, using Dijkstra's
+ * algorithm. As in {@link CSRDijkstra}, the state of the search is kept in plain arrays, so a
+ * search only touches the nodes it actually visits. The pre-processing data of the graph is not used.
+ *
+ * <h2>Important note</h2>
+ * This class is NOT thread-safe! Use one instance per thread, all instances can share the same graph.
+ *
+ * @see ManyToManyPathCalculator
+ */
+public class CSRLeastCostPathTree implements LeastCostPathTreeCalculator {
+
+	private final static Logger log = Logger.getLogger(CSRLeastCostPathTree.class);
+
+	private final CSRRoutingGraph graph;
+	private final TravelDisutility costFunction;
+	private final TravelTime timeFunction;
+
+	private final double[] cost;
+	private final double[] time;
+	/** the index of the link between each node and its predecessor in the tree, or -1 for the root */
+	private final int[] treeLink;
+	private final int[] visited;
+	private final int[] settled;
+	private final int[] target;
+	private int iterationId = 0;
+	private final IntBinaryMinHeap pendingNodes;
+
+	private int root = -1;
+	private double rootTime;
+	private boolean forward = true;
+
+	public CSRLeastCostPathTree(final CSRRoutingGraph graph, final TravelDisutility costFunction, final TravelTime timeFunction) {
+		this.graph = graph;
+		this.costFunction = costFunction;
+		this.timeFunction = timeFunction;
+		int nodeCount = graph.nodes.length;
+		this.cost = new double[nodeCount];
+		this.time = new double[nodeCount];
+		this.treeLink = new int[nodeCount];
+		this.visited = new int[nodeCount];
+		this.settled = new int[nodeCount];
+		this.target = new int[nodeCount];
+		this.pendingNodes = new IntBinaryMinHeap(nodeCount);
+	}
+
+	@Override
+	public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double startTime, final Person person, final Vehicle vehicle) {
+		calcLeastCostPathTree(fromNode, startTime, Collections.singleton(toNode), person, vehicle);
+		Path path = getPath(toNode);
+		if (path == null) {
+			log.warn("No route was found from node " + fromNode.getId() + " to node " + toNode.getId());
+		}
+		return path;
+	}
+
+	@Override
+	public void calcLeastCostPathTree(final Node fromNode, final double startTime, final Collection<? extends Node> toNodes,
+			final Person person, final Vehicle vehicle) {
+		search(fromNode, startTime, toNodes, person, vehicle, true);
+	}
+
+	@Override
+	public void calcLeastCostPathTreeBackwards(final Node toNode, final double arrivalTime, final Collection<? extends Node> fromNodes,
+			final Person person, final Vehicle vehicle) {
+		search(toNode, arrivalTime, fromNodes, person, vehicle, false);
+	}
+
+	private void search(final Node rootNode, final double startTime, final Collection<? extends Node> targetNodes,
+			final Person person, final Vehicle vehicle, final boolean isForward) {
+		int r = getIndex(rootNode);
+		augmentIterationId();
+		this.root = r;
+		this.rootTime = startTime;
+		this.forward = isForward;
+
+		int remainingTargets = Integer.MAX_VALUE;
+		if (targetNodes != null) {
+			remainingTargets = 0;
+			for (Node node : targetNodes) {
+				int n = getIndex(node);
+				if (this.target[n] != this.iterationId) {
+					this.target[n] = this.iterationId;
+					remainingTargets++;
+				}
+			}
+		}
+
+		this.visited[r] = this.iterationId;
+		this.cost[r] = 0.0;
+		this.time[r] = startTime;
+		this.treeLink[r] = -1;
+		this.pendingNodes.add(r, 0.0);
+
+		while (remainingTargets > 0 && !this.pendingNodes.isEmpty()) {
+			int n = this.pendingNodes.poll();
+			this.settled[n] = this.iterationId;
+			if (this.target[n] == this.iterationId) {
+				remainingTargets--;
+			}
+			if (isForward) {
+				relaxOutLinks(n, person, vehicle);
+			} else {
+				relaxInLinks(n, person, vehicle);
+			}
+		}
+		this.pendingNodes.clear();
+	}
+
+	private void relaxOutLinks(final int n, final Person person, final Vehicle vehicle) {
+		double currTime = this.time[n];
+		double currCost = this.cost[n];
+		int[] linkToNode = this.graph.linkToNode;
+		for (int l = this.graph.firstOutLink[n], end = this.graph.firstOutLink[n + 1]; l < end; l++) {
+			int m = linkToNode[l];
+			if (this.settled[m] == this.iterationId) {
+				continue;
+			}
+			Link link = this.graph.links[l];
+			double totalCost = currCost + this.costFunction.getLinkTravelDisutility(link, currTime, person, vehicle);
+			if (this.visited[m] == this.iterationId && totalCost >= this.cost[m]) {
+				continue;
+			}
+			double travelTime = this.timeFunction.getLinkTravelTime(link, currTime, person, vehicle);
+			visitNode(m, l, totalCost, currTime + travelTime);
+		}
+	}
+
+	private void relaxInLinks(final int n, final Person person, final Vehicle vehicle) {
+		double currTime = this.time[n];
+		double currCost = this.cost[n];
+		int[] inLink = this.graph.inLink;
+		int[] linkFromNode = this.graph.linkFromNode;
+		for (int i = this.graph.firstInLink[n], end = this.graph.firstInLink[n + 1]; i < end; i++) {
+			int l = inLink[i];
+			int m = linkFromNode[l];
+			if (this.settled[m] == this.iterationId) {
+				continue;
+			}
+			Link link = this.graph.links[l];
+			double totalCost = currCost + this.costFunction.getLinkTravelDisutility(link, currTime, person, vehicle);
+			if (this.visited[m] == this.iterationId && totalCost >= this.cost[m]) {
+				continue;
+			}
+			double travelTime = this.timeFunction.getLinkTravelTime(link, currTime, person, vehicle);
+			visitNode(m, l, totalCost, currTime - travelTime);
+		}
+	}
+
+	private void visitNode(final int n, final int link, final double totalCost, final double nodeTime) {
+		boolean isNew = this.visited[n] != this.iterationId;
+		this.visited[n] = this.iterationId;
+		this.cost[n] = totalCost;
+		this.time[n] = nodeTime;
+		this.treeLink[n] = link;
+		if (isNew) {
+			this.pendingNodes.add(n, totalCost);
+		} else {
+			this.pendingNodes.update(n, totalCost);
+		}
+	}
+
+	private void augmentIterationId() {
+		if (this.iterationId == Integer.MAX_VALUE) {
+			Arrays.fill(this.visited, 0);
+			Arrays.fill(this.settled, 0);
+			Arrays.fill(this.target, 0);
+			this.iterationId = 0;
+		}
+		this.iterationId++;
+	}
+
+	private int getIndex(final Node node) {
+		int n = this.graph.getIndex(node);
+		if (n < 0) {
+			throw new IllegalArgumentException("The nodes passed as parameters are not part of the network stored by "+
+					getClass().getSimpleName() + ": the validity of the results cannot be guaranteed. Aborting!");
+		}
+		return n;
+	}
+
+	@Override
+	public boolean isReached(final Node node) {
+		int n = this.graph.getIndex(node);
+		return n >= 0 && this.settled[n] == this.iterationId;
+	}
+
+	@Override
+	public double getCost(final Node node) {
+		return isReached(node) ? this.cost[this.graph.getIndex(node)] : Double.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public double getTime(final Node node) {
+		return isReached(node) ? this.time[this.graph.getIndex(node)] : Double.NaN;
+	}
+
+	@Override
+	public Path getPath(final Node node) {
+		if (!isReached(node)) {
+			return null;
+		}
+		int n = this.graph.getIndex(node);
+		List<Node> nodes = new ArrayList<>();
+		List<Link> links = new ArrayList<>();
+		nodes.add(node);
+		// follow the tree links from the node to the root
+		for (int v = n; v != this.root; ) {
+			int l = this.treeLink[v];
+			links.add(this.graph.links[l]);
+			v = this.forward ? this.graph.linkFromNode[l] : this.graph.linkToNode[l];
+			nodes.add(this.graph.nodes[v]);
+		}
+		double travelTime;
+		if (this.forward) {
+			Collections.reverse(nodes);
+			Collections.reverse(links);
+			travelTime = this.time[n] - this.rootTime;
+		} else {
+			travelTime = this.rootTime - this.time[n];
+		}
+		return new Path(nodes, links, travelTime, this.cost[n]);
+	}
+
+}
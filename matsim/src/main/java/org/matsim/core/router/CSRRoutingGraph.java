@@ -0,0 +1,177 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CSRRoutingGraph.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.util.PreProcessDijkstra;
+import org.matsim.core.router.util.PreProcessEuclidean;
+import org.matsim.core.router.util.PreProcessLandmarks;
+
+/**
+ * The network in compressed sparse row format, used by the routers of type {@link FastRouterType#CSR}.
+ * <br>
+ * Nodes and links are referenced by their index. The out-links of node <code>n</code> are the links
+ * <code>firstOutLink[n] ... firstOutLink[n+1]-1</code>, in the same order as returned by
+ * {@link Node#getOutLinks()}. Likewise, the in-links of node <code>n</code> are the links
+ * <code>inLink[firstInLink[n]] ... inLink[firstInLink[n+1]-1]</code>. Next to the topology, the
+ * data of the pre-processing (dead ends, landmarks) is stored in plain arrays.
+ * <br>
+ * A graph is never modified after it is created, so one graph can be shared by all routers of
+ * all threads. The state of a search is kept by each router, see {@link CSRDijkstra}.
+ */
+public final class CSRRoutingGraph {
+
+	private final static Logger log = Logger.getLogger(CSRRoutingGraph.class);
+
+	/*package*/ final Network network;
+	/*package*/ final Node[] nodes;
+	/*package*/ final Link[] links;
+	/*package*/ final int[] firstOutLink;
+	/*package*/ final int[] linkFromNode;
+	/*package*/ final int[] linkToNode;
+	/*package*/ final int[] firstInLink;
+	/*package*/ final int[] inLink;
+	/*package*/ final double[] x;
+	/*package*/ final double[] y;
+	private final int[] indexByNodeIndex;
+
+	/** the dead end entry node of each node, or -1. <code>null</code> if dead ends are not pruned. */
+	/*package*/ final int[] deadEndEntryNode;
+
+	/*package*/ final double minTravelCostPerLength;
+
+	/*package*/ final int landmarkCount;
+	/**
+	 * the smaller and the larger of the travel costs from and to each landmark, at
+	 * <code>node * landmarkCount + landmark</code>.
+	 */
+	/*package*/ final double[] minLandmarkCost;
+	/*package*/ final double[] maxLandmarkCost;
+
+	/**
+	 * @param preProcessData optional, <code>null</code> if neither dead ends should be pruned nor A* should be used.
+	 * A {@link PreProcessEuclidean} or {@link PreProcessLandmarks} must have been run on the same network.
+	 */
+	public CSRRoutingGraph(final Network network, final PreProcessDijkstra preProcessData) {
+		this.network = network;
+		int nodeCount = network.getNodes().size();
+		this.nodes = network.getNodes().values().toArray(new Node[nodeCount]);
+		this.indexByNodeIndex = new int[Id.getNumberOfIds(Node.class)];
+		Arrays.fill(this.indexByNodeIndex, -1);
+		for (int n = 0; n < nodeCount; n++) {
+			this.indexByNodeIndex[this.nodes[n].getId().index()] = n;
+		}
+
+		this.links = new Link[network.getLinks().size()];
+		this.linkFromNode = new int[this.links.length];
+		this.linkToNode = new int[this.links.length];
+		this.firstOutLink = new int[nodeCount + 1];
+		this.x = new double[nodeCount];
+		this.y = new double[nodeCount];
+		int l = 0;
+		for (int n = 0; n < nodeCount; n++) {
+			this.firstOutLink[n] = l;
+			this.x[n] = this.nodes[n].getCoord().getX();
+			this.y[n] = this.nodes[n].getCoord().getY();
+			for (Link link : this.nodes[n].getOutLinks().values()) {
+				this.links[l] = link;
+				this.linkFromNode[l] = n;
+				this.linkToNode[l] = getIndex(link.getToNode());
+				l++;
+			}
+		}
+		this.firstOutLink[nodeCount] = l;
+
+		this.firstInLink = new int[nodeCount + 1];
+		for (int k = 0; k < this.links.length; k++) {
+			this.firstInLink[this.linkToNode[k] + 1]++;
+		}
+		for (int n = 0; n < nodeCount; n++) {
+			this.firstInLink[n + 1] += this.firstInLink[n];
+		}
+		this.inLink = new int[this.links.length];
+		int[] next = Arrays.copyOf(this.firstInLink, nodeCount);
+		for (int k = 0; k < this.links.length; k++) {
+			this.inLink[next[this.linkToNode[k]]++] = k;
+		}
+
+		if (preProcessData != null && preProcessData.containsData()) {
+			this.deadEndEntryNode = new int[nodeCount];
+			for (int n = 0; n < nodeCount; n++) {
+				Node entryNode = preProcessData.getNodeData(this.nodes[n]).getDeadEndEntryNode();
+				this.deadEndEntryNode[n] = entryNode == null ? -1 : getIndex(entryNode);
+			}
+		} else {
+			if (preProcessData != null) {
+				log.warn("The preprocessing data provided to " + getClass().getSimpleName() + " contains no data! Please execute its run(...) method first!");
+				log.warn("Running without dead-end pruning.");
+			}
+			this.deadEndEntryNode = null;
+		}
+
+		if (preProcessData instanceof PreProcessEuclidean) {
+			this.minTravelCostPerLength = ((PreProcessEuclidean) preProcessData).getMinTravelCostPerLength();
+		} else {
+			this.minTravelCostPerLength = 0.0;
+		}
+
+		if (preProcessData instanceof PreProcessLandmarks) {
+			PreProcessLandmarks landmarksData = (PreProcessLandmarks) preProcessData;
+			this.landmarkCount = landmarksData.getLandmarks().length;
+			this.minLandmarkCost = new double[nodeCount * this.landmarkCount];
+			this.maxLandmarkCost = new double[nodeCount * this.landmarkCount];
+			for (int n = 0; n < nodeCount; n++) {
+				PreProcessLandmarks.LandmarksData nodeData = landmarksData.getNodeData(this.nodes[n]);
+				for (int i = 0; i < this.landmarkCount; i++) {
+					this.minLandmarkCost[n * this.landmarkCount + i] = nodeData.getMinLandmarkTravelTime(i);
+					this.maxLandmarkCost[n * this.landmarkCount + i] = nodeData.getMaxLandmarkTravelTime(i);
+				}
+			}
+		} else {
+			this.landmarkCount = 0;
+			this.minLandmarkCost = null;
+			this.maxLandmarkCost = null;
+		}
+	}
+
+	/**
+	 * @return the index of the node, or -1 if the node is not part of the network of this graph.
+	 */
+	/*package*/ int getIndex(final Node node) {
+		int index = node.getId().index();
+		if (index >= this.indexByNodeIndex.length) {
+			return -1;
+		}
+		int n = this.indexByNodeIndex[index];
+		return (n >= 0 && this.nodes[n] == node) ? n : -1;
+	}
+
+	public Network getNetwork() {
+		return this.network;
+	}
+
+}
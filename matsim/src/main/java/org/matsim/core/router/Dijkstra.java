@@ -28,12 +28,12 @@ import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.router.priorityqueue.WrappedBinaryMinHeap;
 import org.matsim.core.router.util.*;
+import org.matsim.core.utils.collections.IdMap;
 import org.matsim.core.utils.collections.RouterPriorityQueue;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.vehicles.Vehicle;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Set;
 
 
@@ -96,7 +96,7 @@ public class Dijkstra implements LeastCostPathCalculator {
 	 */
 	protected final TravelTime timeFunction;
 
-	final HashMap<Id<Node>, DijkstraNodeData> nodeData;
+	final IdMap<Node, DijkstraNodeData> nodeData;
 
 	/**
 	 * Provides an unique id (loop number) for each routing request, so we don't
@@ -164,7 +164,7 @@ public class Dijkstra implements LeastCostPathCalculator {
 		this.timeFunction = timeFunction;
 		this.preProcessData = preProcessData;
 
-		this.nodeData = new HashMap<>((int)(network.getNodes().size() * 1.1), 0.95f);
+		this.nodeData = new IdMap<>(Node.class);
 
 		if (preProcessData != null) {
 			if (!preProcessData.containsData()) {
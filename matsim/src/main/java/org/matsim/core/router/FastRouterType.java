@@ -23,10 +23,14 @@ package org.matsim.core.router;
 /**
  * Type Pointer is no longer supported. For now we still keep it here so we
  * can throw an exception if somebody tries to us it. 
+ * <br>
+ * Type CSR uses a {@link CSRRoutingGraph}, which stores the network in plain
+ * arrays shared by all routers, and routers which keep their state in plain
+ * arrays instead of node data objects.
  * 
  * @author cdobler
  */
 public enum FastRouterType {
-	ARRAY, POINTER
+	ARRAY, POINTER, CSR
 }
 
@@ -25,6 +25,7 @@ package org.matsim.core.router;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.controler.AbstractModule;
+import org.matsim.core.router.ch.ContractionHierarchiesFactory;
 import org.matsim.core.router.util.*;
 
 public class LeastCostPathCalculatorModule extends AbstractModule {
@@ -44,6 +45,17 @@ public class LeastCostPathCalculatorModule extends AbstractModule {
             bind(LeastCostPathCalculatorFactory.class).to(FastDijkstraFactory.class);
         } else if (config.controler().getRoutingAlgorithmType().equals(ControlerConfigGroup.RoutingAlgorithmType.FastAStarLandmarks)) {
             bind(LeastCostPathCalculatorFactory.class).to(FastAStarLandmarksFactory.class);
+        } else if (config.controler().getRoutingAlgorithmType().equals(ControlerConfigGroup.RoutingAlgorithmType.ContractionHierarchies)) {
+            if (config.plansCalcRoute().getRoutingRandomness() != 0.0) {
+                // the weights of the hierarchy are computed without person, so the randomizing travel disutility does not work with it.
+                // The config consistency check warns about this.
+                bind(LeastCostPathCalculatorFactory.class).to(DijkstraFactory.class);
+            } else {
+                bind(LeastCostPathCalculatorFactory.class).to(ContractionHierarchiesFactory.class);
+                bind(SharingLeastCostPathCalculatorFactory.class).to(ContractionHierarchiesFactory.class);
+                // the weights of the hierarchy have to be re-computed with the travel times of each iteration
+                addControlerListenerBinding().to(ContractionHierarchiesFactory.class);
+            }
         }
     }
 
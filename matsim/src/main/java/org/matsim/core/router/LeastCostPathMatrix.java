@@ -0,0 +1,86 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LeastCostPathMatrix.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * The costs and travel times of the least cost paths between a list of origins and a list of
+ * destinations, as calculated by {@link ManyToManyPathCalculator}. Origins and destinations are
+ * referenced by their position in the lists.
+ */
+public final class LeastCostPathMatrix {
+
+	private final List<Node> fromNodes;
+	private final List<Node> toNodes;
+	private final double[] costs;
+	private final double[] travelTimes;
+
+	/** the largest array most JVMs can allocate */
+	private static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+	/*package*/ LeastCostPathMatrix(final List<Node> fromNodes, final List<Node> toNodes) {
+		long size = (long) fromNodes.size() * toNodes.size();
+		if (size > MAX_SIZE) {
+			throw new IllegalArgumentException("A matrix of " + fromNodes.size() + " origins and " + toNodes.size()
+					+ " destinations has more than " + MAX_SIZE + " cells. Split the origins or the destinations into several matrices.");
+		}
+		this.fromNodes = Collections.unmodifiableList(fromNodes);
+		this.toNodes = Collections.unmodifiableList(toNodes);
+		this.costs = new double[(int) size];
+		this.travelTimes = new double[this.costs.length];
+		Arrays.fill(this.costs, Double.POSITIVE_INFINITY);
+		Arrays.fill(this.travelTimes, Double.POSITIVE_INFINITY);
+	}
+
+	/*package*/ void set(final int fromIndex, final int toIndex, final double cost, final double travelTime) {
+		int i = fromIndex * this.toNodes.size() + toIndex;
+		this.costs[i] = cost;
+		this.travelTimes[i] = travelTime;
+	}
+
+	public List<Node> getFromNodes() {
+		return this.fromNodes;
+	}
+
+	public List<Node> getToNodes() {
+		return this.toNodes;
+	}
+
+	/**
+	 * @return the cost of the least cost path, or {@link Double#POSITIVE_INFINITY} if there is no path.
+	 */
+	public double getCost(final int fromIndex, final int toIndex) {
+		return this.costs[fromIndex * this.toNodes.size() + toIndex];
+	}
+
+	/**
+	 * @return the travel time of the least cost path, or {@link Double#POSITIVE_INFINITY} if there is no path.
+	 */
+	public double getTravelTime(final int fromIndex, final int toIndex) {
+		return this.travelTimes[fromIndex * this.toNodes.size() + toIndex];
+	}
+
+}
@@ -0,0 +1,209 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ManyToManyPathCalculator.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.LeastCostPathTreeCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Calculates the costs and travel times of the least cost paths between many origins and many
+ * destinations. One tree search is run per origin (or per destination, when searching backwards),
+ * which stops as soon as all destinations are reached. The searches are distributed over the
+ * given number of threads, each thread with its own {@link CSRLeastCostPathTree} on a shared
+ * {@link CSRRoutingGraph}.
+ * <br>
+ * The threads are taken from an executor which is either given by the caller, or created by the
+ * calculator when it is needed first, and then used for all further matrices. An executor created
+ * by the calculator has daemon threads and is released by {@link #shutdown()}.
+ * <br>
+ * If more than one thread is used, the travel disutility and travel time must be thread-safe.
+ */
+public final class ManyToManyPathCalculator {
+
+	private final CSRRoutingGraph graph;
+	private final TravelDisutility costFunction;
+	private final TravelTime timeFunction;
+	private final int numberOfThreads;
+	/** set if the executor is given by the caller, and otherwise created when it is needed first */
+	private ExecutorService executor;
+	private final boolean ownsExecutor;
+
+	public ManyToManyPathCalculator(final Network network, final TravelDisutility costFunction, final TravelTime timeFunction,
+			final int numberOfThreads) {
+		this(new CSRRoutingGraph(network, null), costFunction, timeFunction, numberOfThreads);
+	}
+
+	public ManyToManyPathCalculator(final CSRRoutingGraph graph, final TravelDisutility costFunction, final TravelTime timeFunction,
+			final int numberOfThreads) {
+		this(graph, costFunction, timeFunction, null, numberOfThreads);
+	}
+
+	/**
+	 * @param executor runs the searches; it is not shut down by the calculator. If <code>null</code>, the calculator
+	 * creates its own executor.
+	 * @param numberOfThreads the number of searches which run at the same time, at most the number of threads
+	 * of the executor.
+	 */
+	public ManyToManyPathCalculator(final CSRRoutingGraph graph, final TravelDisutility costFunction, final TravelTime timeFunction,
+			final ExecutorService executor, final int numberOfThreads) {
+		this.graph = graph;
+		this.costFunction = costFunction;
+		this.timeFunction = timeFunction;
+		this.executor = executor;
+		this.ownsExecutor = executor == null;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	/**
+	 * Stops the threads of the executor the calculator created itself, if any. Matrices which are
+	 * calculated afterwards get a new executor.
+	 */
+	public synchronized void shutdown() {
+		if (this.ownsExecutor && this.executor != null) {
+			this.executor.shutdown();
+			this.executor = null;
+		}
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (this.executor == null) {
+			this.executor = Executors.newFixedThreadPool(this.numberOfThreads, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger(0);
+
+				@Override
+				public Thread newThread(final Runnable r) {
+					Thread thread = new Thread(r, "ManyToManyPathCalculator." + this.count.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return this.executor;
+	}
+
+	/**
+	 * @return a new tree calculator on the same graph, e.g. for one-to-all searches. The calculator
+	 * must only be used by one thread.
+	 */
+	public LeastCostPathTreeCalculator createTreeCalculator() {
+		return new CSRLeastCostPathTree(this.graph, this.costFunction, this.timeFunction);
+	}
+
+	/**
+	 * Calculates the least cost paths from each of the <code>fromNodes</code> to each of the
+	 * <code>toNodes</code>, all starting at <code>departureTime</code>.
+	 */
+	public LeastCostPathMatrix calcLeastCostPathMatrix(final List<Node> fromNodes, final List<Node> toNodes,
+			final double departureTime, final Person person, final Vehicle vehicle) {
+		final LeastCostPathMatrix matrix = new LeastCostPathMatrix(fromNodes, toNodes);
+		run(fromNodes.size(), new TreeTask() {
+			@Override
+			public void run(final LeastCostPathTreeCalculator tree, final int i) {
+				tree.calcLeastCostPathTree(fromNodes.get(i), departureTime, toNodes, person, vehicle);
+				for (int j = 0; j < toNodes.size(); j++) {
+					Node toNode = toNodes.get(j);
+					if (tree.isReached(toNode)) {
+						matrix.set(i, j, tree.getCost(toNode), tree.getTime(toNode) - departureTime);
+					}
+				}
+			}
+		});
+		return matrix;
+	}
+
+	/**
+	 * Calculates the least cost paths from each of the <code>fromNodes</code> to each of the
+	 * <code>toNodes</code>, all arriving at <code>arrivalTime</code>. The searches run backwards
+	 * from each of the destinations, see
+	 * {@link LeastCostPathTreeCalculator#calcLeastCostPathTreeBackwards(Node, double, java.util.Collection, Person, Vehicle)}.
+	 */
+	public LeastCostPathMatrix calcLeastCostPathMatrixBackwards(final List<Node> fromNodes, final List<Node> toNodes,
+			final double arrivalTime, final Person person, final Vehicle vehicle) {
+		final LeastCostPathMatrix matrix = new LeastCostPathMatrix(fromNodes, toNodes);
+		run(toNodes.size(), new TreeTask() {
+			@Override
+			public void run(final LeastCostPathTreeCalculator tree, final int j) {
+				tree.calcLeastCostPathTreeBackwards(toNodes.get(j), arrivalTime, fromNodes, person, vehicle);
+				for (int i = 0; i < fromNodes.size(); i++) {
+					Node fromNode = fromNodes.get(i);
+					if (tree.isReached(fromNode)) {
+						matrix.set(i, j, tree.getCost(fromNode), arrivalTime - tree.getTime(fromNode));
+					}
+				}
+			}
+		});
+		return matrix;
+	}
+
+	private interface TreeTask {
+		void run(LeastCostPathTreeCalculator tree, int index);
+	}
+
+	private void run(final int count, final TreeTask task) {
+		int threads = Math.min(this.numberOfThreads, count);
+		if (threads <= 1) {
+			LeastCostPathTreeCalculator tree = createTreeCalculator();
+			for (int i = 0; i < count; i++) {
+				task.run(tree, i);
+			}
+			return;
+		}
+		final AtomicInteger next = new AtomicInteger(0);
+		List<Callable<Object>> workers = new ArrayList<>(threads);
+		for (int t = 0; t < threads; t++) {
+			workers.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					LeastCostPathTreeCalculator tree = createTreeCalculator();
+					for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+						task.run(tree, i);
+					}
+					return null;
+				}
+			});
+		}
+		try {
+			for (Future<Object> future : getExecutor().invokeAll(workers)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+}
@@ -8,6 +8,8 @@ import org.matsim.core.network.algorithms.TransportModeNetworkFilter;
 import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.SharingLeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
 import javax.inject.Inject;
@@ -39,6 +41,12 @@ public class NetworkRouting implements Provider<RoutingModule> {
 	@Inject
     LeastCostPathCalculatorFactory leastCostPathCalculatorFactory;
 
+	@com.google.inject.Inject(optional = true)
+	SharingLeastCostPathCalculatorFactory sharingLeastCostPathCalculatorFactory;
+
+	@Inject
+	RouteCache routeCache;
+
 	public NetworkRouting(String mode) {
 		this.mode = mode;
 	}
@@ -70,11 +78,26 @@ public class NetworkRouting implements Provider<RoutingModule> {
 		if (travelTime == null) {
 			throw new RuntimeException("No TravelTime bound for mode "+mode+".");
 		}
-		LeastCostPathCalculator routeAlgo =
-				leastCostPathCalculatorFactory.createPathCalculator(
-						filteredNetwork,
-						travelDisutilityFactory.createTravelDisutility(travelTime),
-						travelTime);
+		TravelDisutility travelDisutility = travelDisutilityFactory.createTravelDisutility(travelTime);
+		LeastCostPathCalculator routeAlgo;
+		if (sharingLeastCostPathCalculatorFactory == leastCostPathCalculatorFactory) {
+			// e.g. contraction hierarchies: the weights of the hierarchy are computed once per disutility factory, not for each
+			// thread. Only if the bound LeastCostPathCalculatorFactory has not been replaced by another one.
+			routeAlgo = sharingLeastCostPathCalculatorFactory.createPathCalculator(
+					filteredNetwork,
+					travelDisutilityFactory,
+					travelDisutility,
+					travelTime);
+		} else {
+			routeAlgo = leastCostPathCalculatorFactory.createPathCalculator(
+					filteredNetwork,
+					travelDisutility,
+					travelTime);
+		}
+		if (routeCache.isEnabled()) {
+			// the cache is keyed by mode and disutility factory, as the travel disutility objects differ per router, but compute the same costs
+			routeAlgo = routeCache.createCachingPathCalculator(routeAlgo, mode, travelDisutilityFactory, travelDisutility, travelTime);
+		}
 
 		if ( plansCalcRouteConfigGroup.isInsertingAccessEgressWalk() ) {
 			return DefaultRoutingModules.createAccessEgressNetworkRouter(mode, populationFactory, filteredNetwork, routeAlgo,
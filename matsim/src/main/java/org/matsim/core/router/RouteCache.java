@@ -0,0 +1,278 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RouteCache.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.router;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.config.groups.PlansCalcRouteConfigGroup;
+import org.matsim.core.controler.events.BeforeMobsimEvent;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Caches the paths found by {@link LeastCostPathCalculator}s, so that trips with the same start and end node,
+ * the same mode and a departure time in the same time bin are only routed once.
+ * <br>
+ * The cache is shared by the routers of all threads. It is cleared at the start of each iteration, so that
+ * the paths are found with the travel times of the last iteration. As the travel times change while the
+ * mobsim runs, the cache is cleared again before the mobsim and not used until the next iteration starts,
+ * i.e. within-day replanning always calculates the paths with the current travel times. Code which changes
+ * the travel times otherwise must call {@link #invalidate()}. The cache is bounded: if it is full, the
+ * paths of further trips are calculated but not stored until the next iteration.
+ * <br>
+ * The paths are always found for the start of the time bin, also if they are not cached, and then get the travel
+ * time and cost for the departure time of each trip. So a trip gets the same links and nodes no matter which trip of
+ * the time bin was routed first and whether the cache was full, i.e. the results do not depend on the order in which
+ * the threads route the trips. As the path is shared, the travel disutility must not depend on the person. The cache
+ * is therefore disabled if the routing randomness of the default travel disutility is not 0.
+ *
+ * @see ControlerConfigGroup#getRouteCacheSize()
+ */
+@Singleton
+public final class RouteCache implements IterationStartsListener, BeforeMobsimListener {
+
+	private final static Logger log = Logger.getLogger(RouteCache.class);
+
+	private final int maxSize;
+	private final double timeBinSize;
+	private final ConcurrentMap<Key, Path> paths = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	/** set while the mobsim runs, as the travel times then change all the time */
+	private volatile boolean suspended = false;
+
+	@Inject
+	RouteCache(final ControlerConfigGroup controlerConfig, final PlansCalcRouteConfigGroup routeConfig) {
+		this(getMaxSize(controlerConfig, routeConfig), controlerConfig.getRouteCacheTimeBinSize());
+	}
+
+	private static int getMaxSize(final ControlerConfigGroup controlerConfig, final PlansCalcRouteConfigGroup routeConfig) {
+		if (controlerConfig.getRouteCacheSize() > 0 && routeConfig.getRoutingRandomness() != 0.0) {
+			log.info("the route cache is disabled, as the routing randomness is " + routeConfig.getRoutingRandomness() + ".");
+			return 0;
+		}
+		return controlerConfig.getRouteCacheSize();
+	}
+
+	/**
+	 * @param maxSize the maximum number of paths which are cached, 0 to disable the cache.
+	 * @param timeBinSize the duration of the time bins, in seconds.
+	 */
+	public RouteCache(final int maxSize, final double timeBinSize) {
+		if (timeBinSize <= 0.0) {
+			throw new IllegalArgumentException("The time bin size must be positive, but is " + timeBinSize);
+		}
+		this.maxSize = maxSize;
+		this.timeBinSize = timeBinSize;
+	}
+
+	public boolean isEnabled() {
+		return this.maxSize > 0;
+	}
+
+	/**
+	 * @param mode the mode the paths are found for.
+	 * @param disutilityFingerprint identifies the travel disutility of the router, e.g. the factory which created it.
+	 * Paths are only shared by routers with the same mode and the same fingerprint object.
+	 * @param travelCosts the travel disutility of the router, used to calculate the cost of cached paths.
+	 * @param travelTimes the travel times of the router, used to calculate the travel time of cached paths.
+	 * @return a router which returns the cached paths, and otherwise asks the given router and caches its paths.
+	 * The returned router is not thread-safe if the given one is not.
+	 */
+	public LeastCostPathCalculator createCachingPathCalculator(final LeastCostPathCalculator delegate, final String mode,
+			final Object disutilityFingerprint, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		return new CachingLeastCostPathCalculator(delegate, mode, disutilityFingerprint, travelCosts, travelTimes);
+	}
+
+	/**
+	 * Removes all paths, they are calculated again with the current travel times when they are needed the
+	 * next time. The hit and miss counts are reset as well.
+	 */
+	public void invalidate() {
+		this.paths.clear();
+		this.hits.set(0);
+		this.misses.set(0);
+	}
+
+	@Override
+	public void notifyIterationStarts(final IterationStartsEvent event) {
+		if (isEnabled() && (this.hits.get() > 0 || this.misses.get() > 0)) {
+			log.info("route cache: " + this.hits.get() + " hits, " + this.misses.get() + " misses, hit rate " + getHitRate()
+					+ ", " + this.paths.size() + " paths cached.");
+		}
+		invalidate();
+		this.suspended = false;
+	}
+
+	@Override
+	public void notifyBeforeMobsim(final BeforeMobsimEvent event) {
+		invalidate();
+		this.suspended = true;
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	/**
+	 * @return the share of the requests since the last invalidation which were answered from the cache, or 0
+	 * if there were no requests.
+	 */
+	public double getHitRate() {
+		long h = this.hits.get();
+		long total = h + this.misses.get();
+		return total == 0 ? 0.0 : (double) h / total;
+	}
+
+	public int size() {
+		return this.paths.size();
+	}
+
+	private Path getPath(final CachingLeastCostPathCalculator router, final Key key, final Node fromNode, final Node toNode,
+			final double startTime, final Person person, final Vehicle vehicle) {
+		Path path = this.paths.get(key);
+		if (path != null) {
+			this.hits.incrementAndGet();
+			return router.withCurrentTimeAndCost(path, startTime, person, vehicle);
+		}
+		this.misses.incrementAndGet();
+		path = router.delegate.calcLeastCostPath(fromNode, toNode, key.timeBin * this.timeBinSize, person, vehicle);
+		if (path == null) {
+			return null;
+		}
+		// the path is handed out to several trips, which must not change it
+		path = new Path(Collections.unmodifiableList(path.nodes), Collections.unmodifiableList(path.links), path.travelTime, path.travelCost);
+		if (this.paths.size() < this.maxSize) {
+			Path existing = this.paths.putIfAbsent(key, path);
+			if (existing != null) {
+				path = existing;
+			}
+		}
+		return router.withCurrentTimeAndCost(path, startTime, person, vehicle);
+	}
+
+	private final class CachingLeastCostPathCalculator implements LeastCostPathCalculator {
+
+		private final LeastCostPathCalculator delegate;
+		private final String mode;
+		private final Object disutilityFingerprint;
+		private final TravelDisutility travelCosts;
+		private final TravelTime travelTimes;
+
+		CachingLeastCostPathCalculator(final LeastCostPathCalculator delegate, final String mode, final Object disutilityFingerprint,
+				final TravelDisutility travelCosts, final TravelTime travelTimes) {
+			this.delegate = delegate;
+			this.mode = mode;
+			this.disutilityFingerprint = disutilityFingerprint;
+			this.travelCosts = travelCosts;
+			this.travelTimes = travelTimes;
+		}
+
+		@Override
+		public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double starttime, final Person person, final Vehicle vehicle) {
+			if (!isEnabled() || RouteCache.this.suspended || Double.isInfinite(starttime) || Double.isNaN(starttime)) {
+				return this.delegate.calcLeastCostPath(fromNode, toNode, starttime, person, vehicle);
+			}
+			int timeBin = (int) Math.floor(starttime / RouteCache.this.timeBinSize);
+			Key key = new Key(fromNode, toNode, timeBin, this.mode, this.disutilityFingerprint);
+			return getPath(this, key, fromNode, toNode, starttime, person, vehicle);
+		}
+
+		/**
+		 * @return the links and nodes of the cached path, with the travel time and cost when departing at the given time,
+		 * calculated in the same way as {@link Dijkstra} does.
+		 */
+		/*package*/ Path withCurrentTimeAndCost(final Path path, final double starttime, final Person person, final Vehicle vehicle) {
+			double time = starttime;
+			double cost = 0.0;
+			for (Link link : path.links) {
+				cost += this.travelCosts.getLinkTravelDisutility(link, time, person, vehicle);
+				time += this.travelTimes.getLinkTravelTime(link, time, person, vehicle);
+			}
+			return new Path(path.nodes, path.links, time - starttime, cost);
+		}
+
+	}
+
+	private static final class Key {
+
+		private final Node fromNode;
+		private final Node toNode;
+		private final int timeBin;
+		private final String mode;
+		private final Object disutilityFingerprint;
+		private final int hashCode;
+
+		Key(final Node fromNode, final Node toNode, final int timeBin, final String mode, final Object disutilityFingerprint) {
+			this.fromNode = fromNode;
+			this.toNode = toNode;
+			this.timeBin = timeBin;
+			this.mode = mode;
+			this.disutilityFingerprint = disutilityFingerprint;
+			int h = System.identityHashCode(fromNode);
+			h = 31 * h + System.identityHashCode(toNode);
+			h = 31 * h + timeBin;
+			h = 31 * h + (mode == null ? 0 : mode.hashCode());
+			h = 31 * h + System.identityHashCode(disutilityFingerprint);
+			this.hashCode = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return this.fromNode == other.fromNode && this.toNode == other.toNode && this.timeBin == other.timeBin
+					&& (this.mode == null ? other.mode == null : this.mode.equals(other.mode))
+					&& this.disutilityFingerprint == other.disutilityFingerprint;
+		}
+
+	}
+
+}
@@ -0,0 +1,337 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CHGraph.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.ch;
+
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * The metric-independent part of a customizable contraction hierarchy: the order of the nodes and the
+ * (undirected) edges of the hierarchy, including all shortcuts.
+ * <br>
+ * The nodes are ordered by a geometric nested dissection: the network is recursively split at the median
+ * of the longer side of its bounding box, and the nodes separating the two halves are contracted last.
+ * All shortcuts which result from contracting the nodes in this order are added, regardless of any link
+ * weights. Thus the hierarchy stays valid for every metric, and only the weights of its edges need to be
+ * re-computed when the travel times change (see {@link CHMetric}).
+ * <br>
+ * Nodes are referenced by their rank in the order, edges by their index. Each edge is stored with its
+ * lower ranked node, sorted by the rank of the higher node.
+ */
+/*package*/ final class CHGraph {
+
+	private final static Logger log = Logger.getLogger(CHGraph.class);
+
+	private static final int MIN_PART_SIZE = 16;
+
+	/*package*/ final Network network;
+	/*package*/ final Node[] nodes;
+	/*package*/ final Link[] links;
+	private final int[] rankByNodeIndex;
+
+	/**
+	 * the parent of each node in the elimination tree, or -1 for the root(s). The higher ranked nodes of
+	 * all edges of a node are all ancestors of the node in this tree.
+	 */
+	/*package*/ final int[] parent;
+	/*package*/ final int[] firstEdge;
+	/*package*/ final int[] edgeLow;
+	/*package*/ final int[] edgeHigh;
+
+	/** the edge of each link, or -1 for loops */
+	/*package*/ final int[] linkEdge;
+	/** <code>true</code> if the link leads from the lower to the higher node of its edge */
+	/*package*/ final boolean[] linkUpward;
+
+	/*package*/ CHGraph(final Network network) {
+		long start = System.currentTimeMillis();
+		this.network = network;
+		int nodeCount = network.getNodes().size();
+		Node[] nodesByIndex = network.getNodes().values().toArray(new Node[nodeCount]);
+		this.links = network.getLinks().values().toArray(new Link[network.getLinks().size()]);
+
+		int[] indexByNodeIndex = new int[Id.getNumberOfIds(Node.class)];
+		Arrays.fill(indexByNodeIndex, -1);
+		for (int i = 0; i < nodeCount; i++) {
+			indexByNodeIndex[nodesByIndex[i].getId().index()] = i;
+		}
+		int[][] neighbors = collectNeighbors(nodesByIndex, indexByNodeIndex);
+
+		int[] order = new NestedDissection(nodesByIndex, neighbors).run();
+		this.nodes = new Node[nodeCount];
+		int[] rank = new int[nodeCount];
+		for (int r = 0; r < nodeCount; r++) {
+			this.nodes[r] = nodesByIndex[order[r]];
+			rank[order[r]] = r;
+		}
+		this.rankByNodeIndex = indexByNodeIndex;
+		for (int i = 0; i < this.rankByNodeIndex.length; i++) {
+			if (this.rankByNodeIndex[i] >= 0) {
+				this.rankByNodeIndex[i] = rank[this.rankByNodeIndex[i]];
+			}
+		}
+
+		// contract the nodes in their order, and add the fill-in of each node to its parent in the elimination tree
+		int[][] upper = new int[nodeCount][];
+		int[] upperSize = new int[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			int r = rank[i];
+			int[] list = new int[neighbors[i].length];
+			int size = 0;
+			for (int neighbor : neighbors[i]) {
+				if (rank[neighbor] > r) {
+					list[size++] = rank[neighbor];
+				}
+			}
+			upper[r] = list;
+			upperSize[r] = size;
+		}
+		this.parent = new int[nodeCount];
+		this.firstEdge = new int[nodeCount + 1];
+		int edgeCount = 0;
+		for (int r = 0; r < nodeCount; r++) {
+			int[] list = upper[r];
+			Arrays.sort(list, 0, upperSize[r]);
+			int size = 0;
+			for (int k = 0; k < upperSize[r]; k++) {
+				if (size == 0 || list[size - 1] != list[k]) {
+					list[size++] = list[k];
+				}
+			}
+			upper[r] = Arrays.copyOf(list, size);
+			upperSize[r] = size;
+			this.firstEdge[r] = edgeCount;
+			edgeCount += size;
+			if (size == 0) {
+				this.parent[r] = -1;
+			} else {
+				int p = list[0];
+				this.parent[r] = p;
+				int required = upperSize[p] + size - 1;
+				if (upper[p].length < required) {
+					upper[p] = Arrays.copyOf(upper[p], Math.max(required, 2 * upper[p].length));
+				}
+				System.arraycopy(list, 1, upper[p], upperSize[p], size - 1);
+				upperSize[p] = required;
+			}
+		}
+		this.firstEdge[nodeCount] = edgeCount;
+		this.edgeLow = new int[edgeCount];
+		this.edgeHigh = new int[edgeCount];
+		for (int r = 0; r < nodeCount; r++) {
+			int e = this.firstEdge[r];
+			for (int high : upper[r]) {
+				this.edgeLow[e] = r;
+				this.edgeHigh[e] = high;
+				e++;
+			}
+			upper[r] = null;
+		}
+
+		this.linkEdge = new int[this.links.length];
+		this.linkUpward = new boolean[this.links.length];
+		for (int i = 0; i < this.links.length; i++) {
+			int from = getRank(this.links[i].getFromNode());
+			int to = getRank(this.links[i].getToNode());
+			if (from == to) {
+				this.linkEdge[i] = -1;
+			} else {
+				this.linkUpward[i] = from < to;
+				this.linkEdge[i] = findEdge(Math.min(from, to), Math.max(from, to));
+			}
+		}
+		log.info("Built contraction hierarchy with " + nodeCount + " nodes and " + edgeCount + " edges for "
+				+ this.links.length + " links in " + (System.currentTimeMillis() - start) / 1000.0 + " seconds.");
+	}
+
+	/**
+	 * @return the rank of the node, or -1 if the node is not part of the network of this graph.
+	 */
+	/*package*/ int getRank(final Node node) {
+		int index = node.getId().index();
+		if (index >= this.rankByNodeIndex.length) {
+			return -1;
+		}
+		int rank = this.rankByNodeIndex[index];
+		return (rank >= 0 && this.nodes[rank] == node) ? rank : -1;
+	}
+
+	/*package*/ int getEdgeCount() {
+		return this.edgeLow.length;
+	}
+
+	/**
+	 * @return the index of the edge between the two nodes, <code>low &lt; high</code>. All edges which
+	 * close a triangle with two edges of a common lower node exist.
+	 */
+	/*package*/ int findEdge(final int low, final int high) {
+		int e = Arrays.binarySearch(this.edgeHigh, this.firstEdge[low], this.firstEdge[low + 1], high);
+		if (e < 0) {
+			throw new IllegalStateException("There is no edge from node " + low + " to " + high + " in the contraction hierarchy.");
+		}
+		return e;
+	}
+
+	private static int[][] collectNeighbors(final Node[] nodes, final int[] indexByNodeIndex) {
+		int[][] neighbors = new int[nodes.length][];
+		for (int i = 0; i < nodes.length; i++) {
+			Node node = nodes[i];
+			int[] list = new int[node.getOutLinks().size() + node.getInLinks().size()];
+			int size = 0;
+			for (Link link : node.getOutLinks().values()) {
+				size = addNeighbor(list, size, i, link.getToNode(), indexByNodeIndex);
+			}
+			for (Link link : node.getInLinks().values()) {
+				size = addNeighbor(list, size, i, link.getFromNode(), indexByNodeIndex);
+			}
+			neighbors[i] = Arrays.copyOf(list, size);
+		}
+		return neighbors;
+	}
+
+	private static int addNeighbor(final int[] list, final int size, final int self, final Node node, final int[] indexByNodeIndex) {
+		int index = node.getId().index() < indexByNodeIndex.length ? indexByNodeIndex[node.getId().index()] : -1;
+		if (index < 0 || index == self) {
+			return size;
+		}
+		list[size] = index;
+		return size + 1;
+	}
+
+	/**
+	 * Orders the nodes such that the nodes of a separator come after the nodes of both parts they separate.
+	 */
+	private static final class NestedDissection {
+		private final int[][] neighbors;
+		private final double[] x;
+		private final double[] y;
+		private final int[] nodes;
+		private final int[] order;
+		private final int[] mark;
+		private int stamp = 0;
+		private int nextRank = 0;
+
+		NestedDissection(final Node[] nodes, final int[][] neighbors) {
+			this.neighbors = neighbors;
+			this.x = new double[nodes.length];
+			this.y = new double[nodes.length];
+			this.nodes = new int[nodes.length];
+			for (int i = 0; i < nodes.length; i++) {
+				this.x[i] = nodes[i].getCoord().getX();
+				this.y[i] = nodes[i].getCoord().getY();
+				this.nodes[i] = i;
+			}
+			this.order = new int[nodes.length];
+			this.mark = new int[nodes.length];
+		}
+
+		int[] run() {
+			dissect(0, this.nodes.length);
+			return this.order;
+		}
+
+		private void dissect(final int from, final int to) {
+			if (to - from <= MIN_PART_SIZE) {
+				for (int i = from; i < to; i++) {
+					this.order[this.nextRank++] = this.nodes[i];
+				}
+				return;
+			}
+			double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				int n = this.nodes[i];
+				minX = Math.min(minX, this.x[n]);
+				maxX = Math.max(maxX, this.x[n]);
+				minY = Math.min(minY, this.y[n]);
+				maxY = Math.max(maxY, this.y[n]);
+			}
+			int middle = (from + to) >>> 1;
+			select(from, to, middle, (maxX - minX) >= (maxY - minY) ? this.x : this.y);
+
+			// the separator consists of the nodes of the first part with neighbors in the second part
+			int partStamp = ++this.stamp;
+			for (int i = middle; i < to; i++) {
+				this.mark[this.nodes[i]] = partStamp;
+			}
+			int separatorStart = middle;
+			for (int i = middle - 1; i >= from; i--) {
+				int n = this.nodes[i];
+				for (int neighbor : this.neighbors[n]) {
+					if (this.mark[neighbor] == partStamp) {
+						separatorStart--;
+						this.nodes[i] = this.nodes[separatorStart];
+						this.nodes[separatorStart] = n;
+						break;
+					}
+				}
+			}
+
+			dissect(from, separatorStart);
+			dissect(middle, to);
+			for (int i = separatorStart; i < middle; i++) {
+				this.order[this.nextRank++] = this.nodes[i];
+			}
+		}
+
+		/**
+		 * Partially sorts <code>nodes[from, to)</code> by the given coordinate, such that <code>nodes[k]</code>
+		 * is the median, all nodes before have smaller or equal, and all nodes after larger or equal coordinates.
+		 */
+		private void select(int from, int to, final int k, final double[] coord) {
+			int[] a = this.nodes;
+			to--;
+			while (from < to) {
+				double pivot = coord[a[(from + to) >>> 1]];
+				int i = from;
+				int j = to;
+				while (i <= j) {
+					while (coord[a[i]] < pivot) {
+						i++;
+					}
+					while (coord[a[j]] > pivot) {
+						j--;
+					}
+					if (i <= j) {
+						int tmp = a[i];
+						a[i] = a[j];
+						a[j] = tmp;
+						i++;
+						j--;
+					}
+				}
+				if (k <= j) {
+					to = j;
+				} else if (k >= i) {
+					from = i;
+				} else {
+					return;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CHMetric.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.ch;
+
+import java.util.Arrays;
+
+import org.matsim.core.router.util.TravelDisutility;
+
+/**
+ * The weights of the edges of a {@link CHGraph} for one metric, i.e. for the link costs at one point in time.
+ * <br>
+ * For each edge, the costs are stored in both directions, <em>upward</em> from the lower to the higher ranked
+ * node and <em>downward</em>. Next to the cost, the way how this cost is achieved is stored: either the
+ * middle node of the shortcut (&gt;= 0), or the original link as <code>-(linkIndex + 1)</code>.
+ */
+/*package*/ final class CHMetric {
+
+	/*package*/ final float[] upCost;
+	/*package*/ final float[] downCost;
+	/*package*/ final int[] upVia;
+	/*package*/ final int[] downVia;
+
+	/**
+	 * Computes the weights of all edges with the costs of the links at the given time (customization).
+	 * As the costs of a hierarchy must be the same for all persons, the travel disutility is asked
+	 * without person and vehicle.
+	 */
+	/*package*/ CHMetric(final CHGraph graph, final TravelDisutility travelCosts, final double time) {
+		int edgeCount = graph.getEdgeCount();
+		this.upCost = new float[edgeCount];
+		this.downCost = new float[edgeCount];
+		this.upVia = new int[edgeCount];
+		this.downVia = new int[edgeCount];
+		Arrays.fill(this.upCost, Float.POSITIVE_INFINITY);
+		Arrays.fill(this.downCost, Float.POSITIVE_INFINITY);
+
+		for (int i = 0; i < graph.links.length; i++) {
+			int e = graph.linkEdge[i];
+			if (e < 0) {
+				continue;
+			}
+			float cost = (float) travelCosts.getLinkTravelDisutility(graph.links[i], time, null, null);
+			if (graph.linkUpward[i]) {
+				if (cost < this.upCost[e]) {
+					this.upCost[e] = cost;
+					this.upVia[e] = -(i + 1);
+				}
+			} else if (cost < this.downCost[e]) {
+				this.downCost[e] = cost;
+				this.downVia[e] = -(i + 1);
+			}
+		}
+
+		// relax the lower triangles of each edge, from the lowest ranked node upwards
+		int[] firstEdge = graph.firstEdge;
+		int[] edgeHigh = graph.edgeHigh;
+		for (int v = 0; v < graph.nodes.length; v++) {
+			for (int a = firstEdge[v]; a < firstEdge[v + 1]; a++) {
+				int u = edgeHigh[a];
+				float uToV = this.downCost[a];
+				float vToU = this.upCost[a];
+				if (uToV == Float.POSITIVE_INFINITY && vToU == Float.POSITIVE_INFINITY) {
+					continue;
+				}
+				int e = firstEdge[u];
+				for (int b = a + 1; b < firstEdge[v + 1]; b++) {
+					int w = edgeHigh[b];
+					// the edges of u and v are both sorted, and the edge from u to w must exist
+					while (edgeHigh[e] != w) {
+						e++;
+					}
+					float cost = uToV + this.upCost[b];
+					if (cost < this.upCost[e]) {
+						this.upCost[e] = cost;
+						this.upVia[e] = v;
+					}
+					cost = this.downCost[b] + vToU;
+					if (cost < this.downCost[e]) {
+						this.downCost[e] = cost;
+						this.downVia[e] = v;
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CHMetrics.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.ch;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.matsim.core.router.util.TravelDisutility;
+
+/**
+ * One {@link CHMetric} per time bin. The metric of a time bin is only computed when it is requested for the
+ * first time, as this is relatively expensive. This class is thread-safe, so the metrics can be shared by
+ * all routers of the same hierarchy, travel times and travel disutility.
+ */
+/*package*/ final class CHMetrics {
+
+	/*package*/ final CHGraph graph;
+	private final double timeBinSize;
+	private final AtomicReferenceArray<CHMetric> metrics;
+
+	/*package*/ CHMetrics(final CHGraph graph, final double timeBinSize, final int numberOfTimeBins) {
+		this.graph = graph;
+		this.timeBinSize = timeBinSize;
+		this.metrics = new AtomicReferenceArray<>(numberOfTimeBins);
+	}
+
+	/**
+	 * @return the metric of the time bin which contains the given time. Times after the last time bin
+	 * belong to the last time bin.
+	 */
+	/*package*/ CHMetric getMetric(final double time, final TravelDisutility travelCosts) {
+		int bin = (int) (Math.max(0.0, time) / this.timeBinSize);
+		if (bin >= this.metrics.length()) {
+			bin = this.metrics.length() - 1;
+		}
+		CHMetric metric = this.metrics.get(bin);
+		if (metric == null) {
+			synchronized (this) {
+				metric = this.metrics.get(bin);
+				if (metric == null) {
+					metric = new CHMetric(this.graph, travelCosts, bin * this.timeBinSize);
+					this.metrics.set(bin, metric);
+				}
+			}
+		}
+		return metric;
+	}
+
+	/*package*/ void reset() {
+		for (int i = 0; i < this.metrics.length(); i++) {
+			this.metrics.set(i, null);
+		}
+	}
+
+}
@@ -0,0 +1,231 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchies.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.ch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Finds least cost paths with a customizable contraction hierarchy. Use {@link ContractionHierarchiesFactory}
+ * to create instances.
+ * <br>
+ * A query only looks at the ancestors of the from- and the to-node in the elimination tree of the hierarchy,
+ * which are usually a few hundred nodes, independent of the distance between the two nodes. The path is
+ * searched with the link costs of the time bin in which the trip starts. The travel time and cost of the
+ * returned path are then calculated link by link with the actual travel times and costs, in the same way
+ * as {@link org.matsim.core.router.Dijkstra} does.
+ *
+ * <h2>Important note</h2>
+ * This class is NOT thread-safe!
+ */
+public class ContractionHierarchies implements LeastCostPathCalculator {
+
+	private final static Logger log = Logger.getLogger(ContractionHierarchies.class);
+
+	private final CHGraph graph;
+	private final CHMetrics metrics;
+	private final TravelDisutility travelCosts;
+	private final TravelTime travelTimes;
+
+	private final double[] forwardCost;
+	private final double[] backwardCost;
+	private final int[] forwardEdge;
+	private final int[] backwardEdge;
+	private int[] stack = new int[64];
+
+	/*package*/ ContractionHierarchies(final CHMetrics metrics, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		this.graph = metrics.graph;
+		this.metrics = metrics;
+		this.travelCosts = travelCosts;
+		this.travelTimes = travelTimes;
+		int nodeCount = this.graph.nodes.length;
+		this.forwardCost = new double[nodeCount];
+		this.backwardCost = new double[nodeCount];
+		this.forwardEdge = new int[nodeCount];
+		this.backwardEdge = new int[nodeCount];
+		Arrays.fill(this.forwardCost, Double.POSITIVE_INFINITY);
+		Arrays.fill(this.backwardCost, Double.POSITIVE_INFINITY);
+	}
+
+	@Override
+	public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double startTime, final Person person, final Vehicle vehicle) {
+		int from = this.graph.getRank(fromNode);
+		int to = this.graph.getRank(toNode);
+		if (from < 0 || to < 0) {
+			throw new IllegalArgumentException("The nodes passed as parameters are not part of the network stored by "+
+					getClass().getSimpleName() + ": the validity of the results cannot be guaranteed. Aborting!");
+		}
+		CHMetric metric = this.metrics.getMetric(startTime, this.travelCosts);
+		int[] parent = this.graph.parent;
+		int[] firstEdge = this.graph.firstEdge;
+		int[] edgeHigh = this.graph.edgeHigh;
+
+		// all nodes reachable upwards from a node are its ancestors, so they can simply be relaxed in this order
+		this.forwardCost[from] = 0.0;
+		for (int v = from; v >= 0; v = parent[v]) {
+			double cost = this.forwardCost[v];
+			if (cost == Double.POSITIVE_INFINITY) {
+				continue;
+			}
+			for (int e = firstEdge[v]; e < firstEdge[v + 1]; e++) {
+				double newCost = cost + metric.upCost[e];
+				if (newCost < this.forwardCost[edgeHigh[e]]) {
+					this.forwardCost[edgeHigh[e]] = newCost;
+					this.forwardEdge[edgeHigh[e]] = e;
+				}
+			}
+		}
+		this.backwardCost[to] = 0.0;
+		for (int v = to; v >= 0; v = parent[v]) {
+			double cost = this.backwardCost[v];
+			if (cost == Double.POSITIVE_INFINITY) {
+				continue;
+			}
+			for (int e = firstEdge[v]; e < firstEdge[v + 1]; e++) {
+				double newCost = cost + metric.downCost[e];
+				if (newCost < this.backwardCost[edgeHigh[e]]) {
+					this.backwardCost[edgeHigh[e]] = newCost;
+					this.backwardEdge[edgeHigh[e]] = e;
+				}
+			}
+		}
+
+		int meetingNode = -1;
+		double bestCost = Double.POSITIVE_INFINITY;
+		for (int v = from; v >= 0; v = parent[v]) {
+			double cost = this.forwardCost[v] + this.backwardCost[v];
+			if (cost < bestCost) {
+				bestCost = cost;
+				meetingNode = v;
+			}
+		}
+
+		List<Link> links = null;
+		if (meetingNode >= 0) {
+			links = unpackPath(metric, from, to, meetingNode);
+		}
+
+		for (int v = from; v >= 0; v = parent[v]) {
+			this.forwardCost[v] = Double.POSITIVE_INFINITY;
+		}
+		for (int v = to; v >= 0; v = parent[v]) {
+			this.backwardCost[v] = Double.POSITIVE_INFINITY;
+		}
+
+		if (links == null) {
+			log.warn("No route was found from node " + fromNode.getId() + " to node " + toNode.getId());
+			return null;
+		}
+		return createPath(fromNode, links, startTime, person, vehicle);
+	}
+
+	private List<Link> unpackPath(final CHMetric metric, final int from, final int to, final int meetingNode) {
+		int[] edgeLow = this.graph.edgeLow;
+		List<Link> links = new ArrayList<>();
+		// the edges of the path in the hierarchy: upward from the from-node to the meeting node, then downward to the to-node
+		int upwardEdges = 0;
+		for (int v = meetingNode; v != from; v = edgeLow[this.forwardEdge[v]]) {
+			upwardEdges++;
+		}
+		int downwardEdges = 0;
+		for (int v = meetingNode; v != to; v = edgeLow[this.backwardEdge[v]]) {
+			downwardEdges++;
+		}
+		int[] edges = new int[upwardEdges + downwardEdges];
+		int k = upwardEdges - 1;
+		for (int v = meetingNode; v != from; v = edgeLow[this.forwardEdge[v]]) {
+			edges[k--] = upward(this.forwardEdge[v]);
+		}
+		k = upwardEdges;
+		for (int v = meetingNode; v != to; v = edgeLow[this.backwardEdge[v]]) {
+			edges[k++] = downward(this.backwardEdge[v]);
+		}
+
+		// unpack the shortcuts recursively, the stack contains the remaining edges in reverse order
+		int size = 0;
+		for (int i = edges.length - 1; i >= 0; i--) {
+			size = push(size, edges[i]);
+		}
+		while (size > 0) {
+			int entry = this.stack[--size];
+			int e = entry >>> 1;
+			boolean up = (entry & 1) == 0;
+			int via = up ? metric.upVia[e] : metric.downVia[e];
+			if (via < 0) {
+				links.add(this.graph.links[-via - 1]);
+			} else {
+				int low = this.graph.edgeLow[e];
+				int high = this.graph.edgeHigh[e];
+				int lowEdge = this.graph.findEdge(via, low);
+				int highEdge = this.graph.findEdge(via, high);
+				// the shortcut low -> high consists of low -> via (downward) and via -> high (upward), pushed in reverse order
+				if (up) {
+					size = push(size, upward(highEdge));
+					size = push(size, downward(lowEdge));
+				} else {
+					size = push(size, upward(lowEdge));
+					size = push(size, downward(highEdge));
+				}
+			}
+		}
+		return links;
+	}
+
+	private Path createPath(final Node fromNode, final List<Link> links, final double startTime, final Person person, final Vehicle vehicle) {
+		List<Node> nodes = new ArrayList<>(links.size() + 1);
+		nodes.add(fromNode);
+		double time = startTime;
+		double cost = 0.0;
+		for (Link link : links) {
+			nodes.add(link.getToNode());
+			cost += this.travelCosts.getLinkTravelDisutility(link, time, person, vehicle);
+			time += this.travelTimes.getLinkTravelTime(link, time, person, vehicle);
+		}
+		return new Path(nodes, links, time - startTime, cost);
+	}
+
+	private int push(final int size, final int entry) {
+		if (size == this.stack.length) {
+			this.stack = Arrays.copyOf(this.stack, 2 * size);
+		}
+		this.stack[size] = entry;
+		return size + 1;
+	}
+
+	private static int upward(final int edge) {
+		return edge << 1;
+	}
+
+	private static int downward(final int edge) {
+		return (edge << 1) | 1;
+	}
+
+}
@@ -0,0 +1,179 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchiesFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.ch;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.SharingLeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Creates {@link ContractionHierarchies} routers.
+ * <br>
+ * The hierarchy of a network is built when the first router for this network is requested. It is kept as long as
+ * routers for the network are requested in each iteration. The
+ * weights of the hierarchy are computed per time bin, and per {@link TravelTime} and travel disutility, when
+ * they are needed for the first time. They are then shared by all routers of the same network, travel times
+ * and travel disutility. The travel disutility is identified by its {@link TravelDisutilityFactory} if the
+ * router is created with {@link #createPathCalculator(Network, TravelDisutilityFactory, TravelDisutility, TravelTime)},
+ * as {@link org.matsim.core.router.NetworkRouting} does, so that the routers of all threads and iterations share
+ * the weights although each of them gets its own travel disutility object. Otherwise, it is identified by the
+ * {@link TravelDisutility} object. The weights are discarded at the start of each iteration, so that all routers,
+ * including the ones created earlier, use the travel times of the last iteration.
+ * <br>
+ * The weights are computed without person and vehicle. Thus the travel disutility must not depend on the person.
+ * With a routing randomness other than 0, {@link org.matsim.core.router.LeastCostPathCalculatorModule} binds
+ * Dijkstra instead of this factory.
+ */
+@Singleton
+public class ContractionHierarchiesFactory implements SharingLeastCostPathCalculatorFactory, IterationStartsListener {
+
+	public static final double DEFAULT_TIME_BIN_SIZE = 3600.0;
+	public static final double DEFAULT_MAX_TIME = 30 * 3600.0;
+
+	private final double timeBinSize;
+	private final int numberOfTimeBins;
+	private final Map<Network, CHGraph> graphs = new HashMap<>();
+	/** the networks for which routers were requested since the last reset */
+	private final Set<Network> usedNetworks = new HashSet<>();
+	private final Map<MetricsKey, CHMetrics> metrics = new HashMap<>();
+
+	@Inject
+	public ContractionHierarchiesFactory() {
+		this(DEFAULT_TIME_BIN_SIZE, DEFAULT_MAX_TIME);
+	}
+
+	/**
+	 * @param timeBinSize the duration for which the same link costs are used to find the paths. Each time
+	 * bin requires an additional set of weights for all edges of the hierarchy.
+	 * @param maxTime trips starting later than this use the link costs of the last time bin.
+	 */
+	public ContractionHierarchiesFactory(final double timeBinSize, final double maxTime) {
+		this.timeBinSize = timeBinSize;
+		this.numberOfTimeBins = (int) (maxTime / timeBinSize) + 1;
+	}
+
+	@Override
+	public LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		return createPathCalculator(network, (Object) travelCosts, travelCosts, travelTimes);
+	}
+
+	/**
+	 * Creates a router which shares its weights with all routers of the same network, travel times and travel
+	 * disutility factory.
+	 */
+	@Override
+	public LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutilityFactory travelCostsFactory,
+			final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		return createPathCalculator(network, (Object) travelCostsFactory, travelCosts, travelTimes);
+	}
+
+	private synchronized LeastCostPathCalculator createPathCalculator(final Network network, final Object disutilityFingerprint,
+			final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		CHGraph graph = this.graphs.get(network);
+		if (graph == null) {
+			graph = new CHGraph(network);
+			this.graphs.put(network, graph);
+		}
+		this.usedNetworks.add(network);
+		MetricsKey key = new MetricsKey(graph, travelTimes, disutilityFingerprint);
+		CHMetrics graphMetrics = this.metrics.get(key);
+		if (graphMetrics == null) {
+			graphMetrics = new CHMetrics(graph, this.timeBinSize, this.numberOfTimeBins);
+			this.metrics.put(key, graphMetrics);
+		}
+		return new ContractionHierarchies(graphMetrics, travelCosts, travelTimes);
+	}
+
+	/*package*/ synchronized int getNumberOfMetrics() {
+		return this.metrics.size();
+	}
+
+	/*package*/ synchronized int getNumberOfGraphs() {
+		return this.graphs.size();
+	}
+
+	/**
+	 * Discards all weights, they are computed again with the current travel times when the routers
+	 * need them the next time. Must not be called while routers are in use.
+	 * <br>
+	 * Routers created afterwards get new weights, so that the travel disutility objects of routers
+	 * which are no longer used are not kept. The hierarchies of networks for which no router was
+	 * requested since the last reset are discarded as well.
+	 */
+	public synchronized void resetMetrics() {
+		for (CHMetrics graphMetrics : this.metrics.values()) {
+			graphMetrics.reset();
+		}
+		this.metrics.clear();
+		this.graphs.keySet().retainAll(this.usedNetworks);
+		this.usedNetworks.clear();
+	}
+
+	@Override
+	public void notifyIterationStarts(final IterationStartsEvent event) {
+		resetMetrics();
+	}
+
+	/**
+	 * Identifies the weights by the objects which are used to compute them. The travel disutility is
+	 * identified by its factory, or by the travel disutility object itself.
+	 */
+	private static final class MetricsKey {
+		private final CHGraph graph;
+		private final TravelTime travelTimes;
+		private final Object travelCosts;
+
+		MetricsKey(final CHGraph graph, final TravelTime travelTimes, final Object travelCosts) {
+			this.graph = graph;
+			this.travelTimes = travelTimes;
+			this.travelCosts = travelCosts;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof MetricsKey)) {
+				return false;
+			}
+			MetricsKey other = (MetricsKey) obj;
+			return this.graph == other.graph && this.travelTimes == other.travelTimes && this.travelCosts == other.travelCosts;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * System.identityHashCode(this.graph) + System.identityHashCode(this.travelTimes))
+					+ System.identityHashCode(this.travelCosts);
+		}
+	}
+
+}
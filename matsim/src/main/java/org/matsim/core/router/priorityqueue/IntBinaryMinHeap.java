@@ -0,0 +1,177 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IntBinaryMinHeap.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.priorityqueue;
+
+import java.util.Arrays;
+
+/**
+ * A binary min heap of the integers <code>0 ... maxSize-1</code>, e.g. the indices of the nodes of a
+ * network. In contrast to {@link BinaryMinHeap}, no objects are required for the elements, and the
+ * position of each element is stored in a plain array.
+ * <br>
+ * Each element can be contained at most once.
+ */
+public final class IntBinaryMinHeap {
+
+	private final int[] data;
+	private final double[] costs;
+	/** the position of each element in the data array, or -1 if the element is not contained */
+	private final int[] positions;
+	private int size = 0;
+
+	public IntBinaryMinHeap(final int maxSize) {
+		this.data = new int[maxSize];
+		this.costs = new double[maxSize];
+		this.positions = new int[maxSize];
+		Arrays.fill(this.positions, -1);
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public boolean contains(final int value) {
+		return this.positions[value] >= 0;
+	}
+
+	/**
+	 * Removes all elements. Only the entries of the contained elements are cleared, so this is cheap
+	 * for a heap which contains only few elements.
+	 */
+	public void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.positions[this.data[i]] = -1;
+		}
+		this.size = 0;
+	}
+
+	/**
+	 * Adds the value to the heap. The value must not be contained in the heap yet.
+	 */
+	public void add(final int value, final double cost) {
+		if (this.positions[value] >= 0) {
+			throw new IllegalArgumentException("The value " + value + " is already contained in the heap.");
+		}
+		siftUp(this.size++, value, cost);
+	}
+
+	/**
+	 * Changes the cost of a value which is contained in the heap. The new cost may be smaller or larger
+	 * than the old one.
+	 */
+	public void update(final int value, final double cost) {
+		int index = this.positions[value];
+		if (index < 0) {
+			throw new IllegalArgumentException("The value " + value + " is not contained in the heap.");
+		}
+		if (cost < this.costs[index]) {
+			siftUp(index, value, cost);
+		} else {
+			siftDown(index, value, cost);
+		}
+	}
+
+	/**
+	 * @return the cost of the value, which must be contained in the heap.
+	 */
+	public double getCost(final int value) {
+		return this.costs[this.positions[value]];
+	}
+
+	/**
+	 * @return the value with the lowest cost, or -1 if the heap is empty.
+	 */
+	public int peek() {
+		return this.size == 0 ? -1 : this.data[0];
+	}
+
+	/**
+	 * Removes the value with the lowest cost from the heap.
+	 *
+	 * @return the removed value, or -1 if the heap is empty.
+	 */
+	public int poll() {
+		if (this.size == 0) {
+			return -1;
+		}
+		int head = this.data[0];
+		this.positions[head] = -1;
+		this.size--;
+		if (this.size > 0) {
+			siftDown(0, this.data[this.size], this.costs[this.size]);
+		}
+		return head;
+	}
+
+	/**
+	 * @return a copy of the values currently contained in the heap, in no particular order.
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(this.data, this.size);
+	}
+
+	private void siftUp(int index, final int value, final double cost) {
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (this.costs[parent] <= cost) {
+				break;
+			}
+			move(parent, index);
+			index = parent;
+		}
+		set(index, value, cost);
+	}
+
+	private void siftDown(int index, final int value, final double cost) {
+		int half = this.size >>> 1;
+		while (index < half) {
+			int child = 2 * index + 1;
+			int right = child + 1;
+			if (right < this.size && this.costs[right] < this.costs[child]) {
+				child = right;
+			}
+			if (cost <= this.costs[child]) {
+				break;
+			}
+			move(child, index);
+			index = child;
+		}
+		set(index, value, cost);
+	}
+
+	private void move(final int from, final int to) {
+		int value = this.data[from];
+		this.data[to] = value;
+		this.costs[to] = this.costs[from];
+		this.positions[value] = to;
+	}
+
+	private void set(final int index, final int value, final double cost) {
+		this.data[index] = value;
+		this.costs[index] = cost;
+		this.positions[value] = index;
+	}
+
+}
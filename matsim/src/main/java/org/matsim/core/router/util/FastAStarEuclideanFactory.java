@@ -22,6 +22,8 @@ package org.matsim.core.router.util;
 
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.router.ArrayFastRouterDelegateFactory;
+import org.matsim.core.router.CSRAStarEuclidean;
+import org.matsim.core.router.CSRRoutingGraph;
 import org.matsim.core.router.FastAStarEuclidean;
 import org.matsim.core.router.FastRouterDelegateFactory;
 import org.matsim.core.router.FastRouterType;
@@ -37,12 +39,13 @@ public class FastAStarEuclideanFactory implements LeastCostPathCalculatorFactory
 	private final PreProcessEuclidean preProcessData;
 	private final RoutingNetworkFactory routingNetworkFactory;
 	private final Map<Network, RoutingNetwork> routingNetworks;
+	private final Map<Network, CSRRoutingGraph> graphs = new HashMap<>();
 
 	public FastAStarEuclideanFactory(Network network, final TravelDisutility fsttc) {
 		this(network, fsttc, FastRouterType.ARRAY);		
 	}
 
-	private FastAStarEuclideanFactory(Network network, final TravelDisutility fsttc,
+	public FastAStarEuclideanFactory(Network network, final TravelDisutility fsttc,
 			FastRouterType fastRouterType) {
 		this.preProcessData = new PreProcessEuclidean(fsttc);
 		this.preProcessData.run(network);
@@ -56,6 +59,9 @@ public class FastAStarEuclideanFactory implements LeastCostPathCalculatorFactory
 		case POINTER:
 			throw new RuntimeException("PointerRoutingNetworks are no longer supported. "
 					+ "Use ArrayRoutingNetworks instead. Aborting!");
+		case CSR:
+			this.routingNetworkFactory = null;
+			break;
 		default:
 			throw new RuntimeException("Undefined FastRouterType: " + fastRouterType);
 		}
@@ -64,6 +70,9 @@ public class FastAStarEuclideanFactory implements LeastCostPathCalculatorFactory
 	@Override
 	public LeastCostPathCalculator createPathCalculator(Network network,
 			TravelDisutility travelCosts, TravelTime travelTimes) {
+		if (this.routingNetworkFactory == null) {
+			return new CSRAStarEuclidean(getGraph(network), travelCosts, travelTimes, 1);
+		}
 	
 		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
 		if (routingNetwork == null) {
@@ -75,4 +84,13 @@ public class FastAStarEuclideanFactory implements LeastCostPathCalculatorFactory
 		return new FastAStarEuclidean(routingNetwork, this.preProcessData, travelCosts, travelTimes, 1,
 			fastRouterFactory);
 	}
+
+	private synchronized CSRRoutingGraph getGraph(final Network network) {
+		CSRRoutingGraph graph = this.graphs.get(network);
+		if (graph == null) {
+			graph = new CSRRoutingGraph(network, this.preProcessData);
+			this.graphs.put(network, graph);
+		}
+		return graph;
+	}
 }
\ No newline at end of file
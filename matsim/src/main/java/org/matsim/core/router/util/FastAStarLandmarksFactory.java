@@ -23,7 +23,10 @@ package org.matsim.core.router.util;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.config.Config;
+import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.router.ArrayFastRouterDelegateFactory;
+import org.matsim.core.router.CSRAStarLandmarks;
+import org.matsim.core.router.CSRRoutingGraph;
 import org.matsim.core.router.FastAStarLandmarks;
 import org.matsim.core.router.FastRouterDelegateFactory;
 import org.matsim.core.router.FastRouterType;
@@ -43,21 +46,32 @@ public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory
 	private final PreProcessLandmarks preProcessData;
 	private final RoutingNetworkFactory routingNetworkFactory;
 	private final Map<Network, RoutingNetwork> routingNetworks;
+	private final Map<Network, CSRRoutingGraph> graphs = new HashMap<>();
 
 	@Inject
 	FastAStarLandmarksFactory(Network network, Config config, Map<String,TravelTime> travelTime, Map<String,TravelDisutilityFactory> fsttc) {
 		//TODO: No guarantee that these are the same travel times for which the router is later requested.
-		this(network, fsttc.get(TransportMode.car).createTravelDisutility(travelTime.get(TransportMode.car)), FastRouterType.ARRAY);
+		this(preProcess(network, fsttc.get(TransportMode.car).createTravelDisutility(travelTime.get(TransportMode.car)),
+				config.global().getNumberOfThreads(), config.controler().getLandmarksCacheFile()), config.controler().getFastRouterType());
 	}
 
 	public FastAStarLandmarksFactory(Network network, final TravelDisutility fsttc) {
-		this(network, fsttc, FastRouterType.ARRAY);
+		this(network, fsttc, new GlobalConfigGroup(), FastRouterType.ARRAY);
 	}
 
-	private FastAStarLandmarksFactory(Network network, final TravelDisutility fsttc,
+	/**
+	 * @param globalConfigGroup provides the number of threads used to calculate the landmarks.
+	 */
+	public FastAStarLandmarksFactory(Network network, final TravelDisutility fsttc, GlobalConfigGroup globalConfigGroup,
 			FastRouterType fastRouterType) {
-		this.preProcessData = new PreProcessLandmarks(fsttc);
-		this.preProcessData.run(network);
+		this(preProcess(network, fsttc, globalConfigGroup.getNumberOfThreads(), null), fastRouterType);
+	}
+
+	/**
+	 * @param preProcessData must already have been run on the networks for which routers are requested.
+	 */
+	public FastAStarLandmarksFactory(final PreProcessLandmarks preProcessData, final FastRouterType fastRouterType) {
+		this.preProcessData = preProcessData;
 		
 		this.routingNetworks = new HashMap<>();
 		
@@ -68,6 +82,9 @@ public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory
 		case POINTER:
 			throw new RuntimeException("PointerRoutingNetworks are no longer supported. "
 					+ "Use ArrayRoutingNetworks instead. Aborting!");
+		case CSR:
+			this.routingNetworkFactory = null;
+			break;
 		default:
 			throw new RuntimeException("Undefined FastRouterType: " + fastRouterType);
 		}
@@ -76,6 +93,9 @@ public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory
 	@Override
 	public LeastCostPathCalculator createPathCalculator(Network network,
 			TravelDisutility travelCosts, TravelTime travelTimes) {
+		if (this.routingNetworkFactory == null) {
+			return new CSRAStarLandmarks(getGraph(network), travelCosts, travelTimes, 1);
+		}
 		
 		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
 		if (routingNetwork == null) {
@@ -87,4 +107,22 @@ public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory
 		return new FastAStarLandmarks(routingNetwork, this.preProcessData, travelCosts, travelTimes, 1,
 				fastRouterFactory);
 	}
+
+	private static PreProcessLandmarks preProcess(final Network network, final TravelDisutility fsttc,
+			final int numberOfThreads, final String cacheFile) {
+		PreProcessLandmarks preProcessData = new PreProcessLandmarks(fsttc);
+		preProcessData.setNumberOfThreads(numberOfThreads);
+		preProcessData.setCacheFile(cacheFile);
+		preProcessData.run(network);
+		return preProcessData;
+	}
+
+	private synchronized CSRRoutingGraph getGraph(final Network network) {
+		CSRRoutingGraph graph = this.graphs.get(network);
+		if (graph == null) {
+			graph = new CSRRoutingGraph(network, this.preProcessData);
+			this.graphs.put(network, graph);
+		}
+		return graph;
+	}
 }
\ No newline at end of file
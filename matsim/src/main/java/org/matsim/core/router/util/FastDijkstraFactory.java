@@ -21,7 +21,10 @@
 package org.matsim.core.router.util;
 
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.router.ArrayFastRouterDelegateFactory;
+import org.matsim.core.router.CSRDijkstra;
+import org.matsim.core.router.CSRRoutingGraph;
 import org.matsim.core.router.FastDijkstra;
 import org.matsim.core.router.FastRouterDelegateFactory;
 import org.matsim.core.router.FastRouterType;
@@ -37,17 +40,22 @@ public class FastDijkstraFactory implements LeastCostPathCalculatorFactory {
 	private final PreProcessDijkstra preProcessData;
 	private final RoutingNetworkFactory routingNetworkFactory;
 	private final Map<Network, RoutingNetwork> routingNetworks;
+	private final Map<Network, CSRRoutingGraph> graphs = new HashMap<>();
 
-	@Inject
 	public FastDijkstraFactory() {
 		this(null, FastRouterType.ARRAY);
 	}
 
+	@Inject
+	FastDijkstraFactory(final ControlerConfigGroup controlerConfigGroup) {
+		this(null, controlerConfigGroup.getFastRouterType());
+	}
+
     public FastDijkstraFactory(final PreProcessDijkstra preProcessData) {
 		this(preProcessData, FastRouterType.ARRAY);
 	}
 
-	private FastDijkstraFactory(final PreProcessDijkstra preProcessData, FastRouterType fastRouterType) {
+	public FastDijkstraFactory(final PreProcessDijkstra preProcessData, final FastRouterType fastRouterType) {
 		this.preProcessData = preProcessData;
 		
 		this.routingNetworks = new HashMap<Network, RoutingNetwork>();
@@ -59,6 +67,9 @@ public class FastDijkstraFactory implements LeastCostPathCalculatorFactory {
 		case POINTER:
 			throw new RuntimeException("PointerRoutingNetworks are no longer supported. "
 					+ "Use ArrayRoutingNetworks instead. Aborting!");
+		case CSR:
+			this.routingNetworkFactory = null;
+			break;
 		default:
 			throw new RuntimeException("Undefined FastRouterType: " + fastRouterType);
 		}
@@ -66,6 +77,9 @@ public class FastDijkstraFactory implements LeastCostPathCalculatorFactory {
 
 	@Override
 	public LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		if (this.routingNetworkFactory == null) {
+			return new CSRDijkstra(getGraph(network), travelCosts, travelTimes);
+		}
 			
 		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
 		if (routingNetwork == null) {
@@ -76,4 +90,13 @@ public class FastDijkstraFactory implements LeastCostPathCalculatorFactory {
 		
 		return new FastDijkstra(routingNetwork, travelCosts, travelTimes, preProcessData, fastRouterFactory);
 	}
+
+	private synchronized CSRRoutingGraph getGraph(final Network network) {
+		CSRRoutingGraph graph = this.graphs.get(network);
+		if (graph == null) {
+			graph = new CSRRoutingGraph(network, this.preProcessData);
+			this.graphs.put(network, graph);
+		}
+		return graph;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,304 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LandmarksTables.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.priorityqueue.IntBinaryMinHeap;
+
+/**
+ * The travel costs between all nodes and the landmarks, as used by {@link PreProcessLandmarks}.
+ * <br>
+ * The costs are calculated on a copy of the network in plain arrays, with one Dijkstra search from and
+ * one to each landmark, which run in parallel. The tables can be stored in a binary file, together with
+ * a hash of the network's nodes and links and the link costs they were calculated with. A stored table
+ * is only used again for the same network, and if no link got cheaper since: the costs from and to the
+ * landmarks then are still lower bounds, so the estimates of A* stay valid.
+ */
+/*package*/ final class LandmarksTables {
+
+	private static final Logger log = Logger.getLogger(LandmarksTables.class);
+
+	private static final long MAGIC = 0x4d4154534c4d524bL; // "MATSLMRK"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 8 + 4 + 8 + 4 + 4 + 4;
+
+	/*package*/ final int[] landmarks;
+	/** the smaller and the larger of the costs from and to each landmark, at <code>node * landmarkCount + landmark</code> */
+	/*package*/ final double[] minCost;
+	/*package*/ final double[] maxCost;
+
+	private LandmarksTables(final int[] landmarks, final double[] minCost, final double[] maxCost) {
+		this.landmarks = landmarks;
+		this.minCost = minCost;
+		this.maxCost = maxCost;
+	}
+
+	/**
+	 * The network in compressed sparse row format, with the minimum travel disutility of each link.
+	 */
+	/*package*/ static final class Graph {
+		/*package*/ final Node[] nodes;
+		private final int[] indexByNodeIndex;
+		private final double[] linkCost;
+		private final int[] firstOutLink;
+		private final int[] outNode;
+		private final double[] outCost;
+		private final int[] firstInLink;
+		private final int[] inNode;
+		private final double[] inCost;
+		private final long hash;
+
+		/*package*/ Graph(final Network network, final TravelDisutility costFunction) {
+			this.nodes = network.getNodes().values().toArray(new Node[network.getNodes().size()]);
+			this.indexByNodeIndex = new int[Id.getNumberOfIds(Node.class)];
+			Arrays.fill(this.indexByNodeIndex, -1);
+			long h = 17;
+			for (int n = 0; n < this.nodes.length; n++) {
+				this.indexByNodeIndex[this.nodes[n].getId().index()] = n;
+				h = 31 * h + this.nodes[n].getId().toString().hashCode();
+			}
+			int linkCount = network.getLinks().size();
+			this.linkCost = new double[linkCount];
+			int[] from = new int[linkCount];
+			int[] to = new int[linkCount];
+			int l = 0;
+			for (Link link : network.getLinks().values()) {
+				from[l] = getIndex(link.getFromNode());
+				to[l] = getIndex(link.getToNode());
+				this.linkCost[l] = costFunction.getLinkMinimumTravelDisutility(link);
+				h = 31 * h + link.getId().toString().hashCode();
+				h = 31 * h + from[l];
+				h = 31 * h + to[l];
+				l++;
+			}
+			this.hash = h;
+			this.firstOutLink = new int[this.nodes.length + 1];
+			this.outNode = new int[linkCount];
+			this.outCost = new double[linkCount];
+			fill(from, to, this.firstOutLink, this.outNode, this.outCost);
+			this.firstInLink = new int[this.nodes.length + 1];
+			this.inNode = new int[linkCount];
+			this.inCost = new double[linkCount];
+			fill(to, from, this.firstInLink, this.inNode, this.inCost);
+		}
+
+		private void fill(final int[] from, final int[] to, final int[] first, final int[] node, final double[] cost) {
+			for (int l = 0; l < from.length; l++) {
+				first[from[l] + 1]++;
+			}
+			for (int n = 0; n < this.nodes.length; n++) {
+				first[n + 1] += first[n];
+			}
+			int[] next = Arrays.copyOf(first, this.nodes.length);
+			for (int l = 0; l < from.length; l++) {
+				int i = next[from[l]]++;
+				node[i] = to[l];
+				cost[i] = this.linkCost[l];
+			}
+		}
+
+		/*package*/ int getIndex(final Node node) {
+			return this.indexByNodeIndex[node.getId().index()];
+		}
+
+		/**
+		 * @return the least costs from (<code>forward</code>) or to the given node to or from all other nodes.
+		 */
+		private double[] calcCosts(final int root, final boolean forward) {
+			int[] first = forward ? this.firstOutLink : this.firstInLink;
+			int[] node = forward ? this.outNode : this.inNode;
+			double[] linkCosts = forward ? this.outCost : this.inCost;
+			double[] costs = new double[this.nodes.length];
+			Arrays.fill(costs, Double.POSITIVE_INFINITY);
+			IntBinaryMinHeap pendingNodes = new IntBinaryMinHeap(this.nodes.length);
+			costs[root] = 0.0;
+			pendingNodes.add(root, 0.0);
+			while (!pendingNodes.isEmpty()) {
+				int n = pendingNodes.poll();
+				double cost = costs[n];
+				for (int i = first[n]; i < first[n + 1]; i++) {
+					int m = node[i];
+					double newCost = cost + linkCosts[i];
+					if (newCost < costs[m]) {
+						if (costs[m] == Double.POSITIVE_INFINITY) {
+							pendingNodes.add(m, newCost);
+						} else {
+							pendingNodes.update(m, newCost);
+						}
+						costs[m] = newCost;
+					}
+				}
+			}
+			return costs;
+		}
+	}
+
+	/**
+	 * Calculates the costs from and to the landmarks, with one search per landmark and direction.
+	 */
+	/*package*/ static LandmarksTables calculate(final Graph graph, final int[] landmarks, final int numberOfThreads) {
+		final int landmarkCount = landmarks.length;
+		final double[][] fromLandmark = new double[landmarkCount][];
+		final double[][] toLandmark = new double[landmarkCount][];
+		List<Callable<Object>> tasks = new ArrayList<>(2 * landmarkCount);
+		for (int i = 0; i < landmarkCount; i++) {
+			final int landmark = i;
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					fromLandmark[landmark] = graph.calcCosts(landmarks[landmark], true);
+					return null;
+				}
+			});
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					toLandmark[landmark] = graph.calcCosts(landmarks[landmark], false);
+					return null;
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(numberOfThreads, tasks.size())));
+		try {
+			for (Future<Object> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+
+		int nodeCount = graph.nodes.length;
+		double[] minCost = new double[nodeCount * landmarkCount];
+		double[] maxCost = new double[nodeCount * landmarkCount];
+		for (int n = 0; n < nodeCount; n++) {
+			for (int i = 0; i < landmarkCount; i++) {
+				double from = fromLandmark[i][n];
+				double to = toLandmark[i][n];
+				minCost[n * landmarkCount + i] = Math.min(from, to);
+				maxCost[n * landmarkCount + i] = Math.max(from, to);
+			}
+		}
+		return new LandmarksTables(landmarks.clone(), minCost, maxCost);
+	}
+
+	/**
+	 * Reads the tables from the file, which is mapped into memory for this.
+	 *
+	 * @return the tables, or <code>null</code> if the file does not fit the network, the number of
+	 * landmarks, or the current link costs.
+	 */
+	/*package*/ static LandmarksTables read(final File file, final Graph graph, final int landmarkCount) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			int nodeCount = graph.nodes.length;
+			int linkCount = graph.linkCost.length;
+			if (channel.size() != HEADER_SIZE + 4L * landmarkCount + 8L * linkCount + 16L * nodeCount * landmarkCount) {
+				log.info("The landmarks file " + file + " does not match the network or the number of landmarks.");
+				return null;
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + 4L * landmarkCount);
+			if (header.getLong() != MAGIC || header.getInt() != VERSION) {
+				log.info("The file " + file + " is not a landmarks file of this version.");
+				return null;
+			}
+			if (header.getLong() != graph.hash || header.getInt() != nodeCount || header.getInt() != linkCount
+					|| header.getInt() != landmarkCount) {
+				log.info("The landmarks file " + file + " does not match the network or the number of landmarks.");
+				return null;
+			}
+			int[] landmarks = new int[landmarkCount];
+			header.asIntBuffer().get(landmarks);
+
+			long position = HEADER_SIZE + 4L * landmarkCount;
+			DoubleBuffer linkCosts = channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * linkCount).asDoubleBuffer();
+			for (int l = 0; l < linkCount; l++) {
+				if (graph.linkCost[l] < linkCosts.get(l)) {
+					log.info("The landmarks file " + file + " was calculated with higher link costs than the current ones.");
+					return null;
+				}
+			}
+			position += 8L * linkCount;
+			double[] minCost = new double[nodeCount * landmarkCount];
+			double[] maxCost = new double[nodeCount * landmarkCount];
+			channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * minCost.length).asDoubleBuffer().get(minCost);
+			position += 8L * minCost.length;
+			channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * maxCost.length).asDoubleBuffer().get(maxCost);
+			return new LandmarksTables(landmarks, minCost, maxCost);
+		}
+	}
+
+	/**
+	 * Writes the tables to the file. The file is first written under a temporary name and then renamed,
+	 * so other processes never see an incomplete file.
+	 */
+	/*package*/ void write(final File file, final Graph graph) throws IOException {
+		File tmpFile = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16))) {
+			out.writeLong(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(graph.hash);
+			out.writeInt(graph.nodes.length);
+			out.writeInt(graph.linkCost.length);
+			out.writeInt(this.landmarks.length);
+			for (int landmark : this.landmarks) {
+				out.writeInt(landmark);
+			}
+			for (double cost : graph.linkCost) {
+				out.writeDouble(cost);
+			}
+			for (double cost : this.minCost) {
+				out.writeDouble(cost);
+			}
+			for (double cost : this.maxCost) {
+				out.writeDouble(cost);
+			}
+		}
+		Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+}
@@ -0,0 +1,80 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LeastCostPathTreeCalculator.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.util.Collection;
+
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Calculates the least cost paths from one node to many nodes, or from many nodes to one node, with
+ * a single search. This is much faster than calculating the paths one by one, e.g. for accessibility
+ * computations, location choice or cost matrices.
+ * <br>
+ * The results of a search can be queried until the next search is started.
+ */
+public interface LeastCostPathTreeCalculator extends LeastCostPathCalculator {
+
+	/**
+	 * Calculates the least cost paths from <code>fromNode</code>, starting at <code>startTime</code>.
+	 *
+	 * @param toNodes the search stops as soon as the paths to all these nodes are known. If
+	 * <code>null</code>, the paths to all nodes of the network are calculated.
+	 */
+	public void calcLeastCostPathTree(Node fromNode, double startTime, Collection<? extends Node> toNodes, Person person, Vehicle vehicle);
+
+	/**
+	 * Calculates the least cost paths to <code>toNode</code>, arriving at <code>arrivalTime</code>.
+	 * The cost and travel time of each link are those for the time when the link is left, as the time
+	 * when the link is entered is not known when searching backwards.
+	 *
+	 * @param fromNodes the search stops as soon as the paths from all these nodes are known. If
+	 * <code>null</code>, the paths from all nodes of the network are calculated.
+	 */
+	public void calcLeastCostPathTreeBackwards(Node toNode, double arrivalTime, Collection<? extends Node> fromNodes, Person person, Vehicle vehicle);
+
+	/**
+	 * @return <code>true</code> if the least cost path between the node and the root of the last search is known.
+	 */
+	public boolean isReached(Node node);
+
+	/**
+	 * @return the cost of the least cost path between the node and the root of the last search, or
+	 * {@link Double#POSITIVE_INFINITY} if the node was not reached.
+	 */
+	public double getCost(Node node);
+
+	/**
+	 * @return the time of the node on the least cost path between the node and the root of the last search,
+	 * i.e. the arrival time for a forward search and the departure time for a backward search. Undefined if
+	 * the node was not reached.
+	 */
+	public double getTime(Node node);
+
+	/**
+	 * @return the least cost path between the node and the root of the last search, in the direction
+	 * of travel, or <code>null</code> if the node was not reached.
+	 */
+	public Path getPath(Node node);
+
+}
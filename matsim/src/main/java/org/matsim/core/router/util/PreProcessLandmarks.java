@@ -21,18 +21,12 @@
 package org.matsim.core.router.util;
 
 import org.apache.log4j.Logger;
-import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
-import org.matsim.core.api.internal.MatsimComparator;
 
 import java.awt.geom.Rectangle2D;
-import java.util.Comparator;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * Pre-processes a given network, gathering information which can be used by
@@ -53,6 +47,8 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 	
 	private int numberOfThreads = 8;
 
+	private String cacheFile = null;
+
 	private static final Logger log = Logger.getLogger(PreProcessLandmarks.class);
 
 	public PreProcessLandmarks(final TravelDisutility costFunction) {
@@ -82,6 +78,18 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 	public void setNumberOfThreads(int numberOfThreads) {
 		this.numberOfThreads = numberOfThreads;
 	}
+
+	/**
+	 * Sets a file in which the landmarks and the distances to/from them are stored. If the file exists
+	 * and was written for the same network and number of landmarks, and with link costs which are not
+	 * higher than the current ones, the landmarks are read from the file instead of calculating them.
+	 * Otherwise, the landmarks are calculated and written to the file.
+	 *
+	 * @param cacheFile the file, or <code>null</code> to always calculate the landmarks (default).
+	 */
+	public void setCacheFile(final String cacheFile) {
+		this.cacheFile = cacheFile;
+	}
 	
 	/**
 	 * @param costFunction
@@ -108,128 +116,58 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 	@Override
 	public void run(final Network network) {
 		super.run(network);
-		
-		log.info("Putting landmarks on network...");
-		long now = System.currentTimeMillis();
-		landmarks = landmarker.identifyLandmarks( landmarkCount , network );
-		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
 
-		log.info("Initializing landmarks data");
-		for (Node node : network.getNodes().values()) {
-			this.nodeData.put(node, new LandmarksData(this.landmarkCount));
-		}
-		
-		int nOfThreads = this.numberOfThreads;
-		if (nOfThreads > this.landmarks.length) {
-			nOfThreads = this.landmarks.length;
-		}
-		if (nOfThreads < 2) {
-			nOfThreads = 2; // always use at least two threads
-		}
- 		log.info("Calculating distance from each node to each of the " + this.landmarkCount + " landmarks using " + nOfThreads + " threads...");
-		now = System.currentTimeMillis();
-
-		
-		ExecutorService executor = Executors.newFixedThreadPool(nOfThreads);
-		for (int i = 0; i < this.landmarks.length; i++) {
-			executor.execute(new Calculator(i, this.landmarks[i], this.nodeData, this.costFunction));
-		}
-		executor.shutdown();
-		while (!executor.isTerminated()) {
-			log.info("wait for landmarks Calculator to finish...");
+		long now = System.currentTimeMillis();
+		LandmarksTables.Graph graph = new LandmarksTables.Graph(network, this.costFunction);
+		LandmarksTables tables = null;
+		File file = this.cacheFile == null ? null : new File(this.cacheFile);
+		if (file != null && file.exists()) {
 			try {
-				executor.awaitTermination(10, TimeUnit.MINUTES);
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
+				tables = LandmarksTables.read(file, graph, this.landmarkCount);
+			} catch (IOException e) {
+				log.warn("Could not read the landmarks file " + file + ", the landmarks are calculated again.", e);
 			}
-		}
-
-		for (Node node : network.getNodes().values()) {
-			LandmarksData r = getNodeData(node);
-			r.updateMinMaxTravelTimes();
-		}
-
-		for (Node node : network.getNodes().values()) {
-			LandmarksData r = getNodeData(node);
-			for (int i = 0; i < this.landmarks.length; i++) {
-				if (r.getMinLandmarkTravelTime(i) > r.getMaxLandmarkTravelTime(i)) {
-					log.info("Min > max for node " + node.getId() + " and landmark " + i);
-				}
+			if (tables != null) {
+				log.info("Read landmarks from " + file + " in " + (System.currentTimeMillis() - now) + " ms");
 			}
 		}
 
-		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
-	}
+		if (tables == null) {
+			log.info("Putting landmarks on network...");
+			Node[] landmarkNodes = landmarker.identifyLandmarks( landmarkCount , network );
+			log.info("done in " + (System.currentTimeMillis() - now) + " ms");
 
-	private static class Calculator implements Runnable {
-		
-		private final int landmarkIdx;
-		private final Node landmark;
-		private final Map<Node, DeadEndData> nodeData;
-		private final TravelDisutility costFunction;
-		
-		public Calculator(final int landmarkIdx, final Node landmark, final Map<Node, DeadEndData> nodeData, final TravelDisutility costFunction) {
-			this.landmarkIdx = landmarkIdx;
-			this.landmark = landmark;
-			this.nodeData = nodeData;
-			this.costFunction = costFunction;
-		}
-		
-		@Override
-		public void run() {
-			expandLandmarkFrom();
-			expandLandmarkTo();
-		}
-	
-		private void expandLandmarkFrom() {
-			LandmarksFromTravelTimeComparator comparator = new LandmarksFromTravelTimeComparator(this.nodeData, this.landmarkIdx);
-			PriorityQueue<Node> pendingNodes = new PriorityQueue<>(100, comparator);
-			LandmarksData role = (LandmarksData) this.nodeData.get(this.landmark);
-			role.setToLandmarkTravelTime(this.landmarkIdx, 0.0);
-			role.setFromLandmarkTravelTime(this.landmarkIdx, 0.0);
-			pendingNodes.add(this.landmark);
-			while (!pendingNodes.isEmpty()) {
-				Node node = pendingNodes.poll();
-				double fromTravTime = ((LandmarksData) this.nodeData.get(node)).getFromLandmarkTravelTime(this.landmarkIdx);
-				LandmarksData role2;
-				for (Link l : node.getOutLinks().values()) {
-					Node n;
-					n = l.getToNode();
-					double linkTravTime = this.costFunction.getLinkMinimumTravelDisutility(l);
-					role2 = (LandmarksData) this.nodeData.get(n);
-					double totalTravelTime = fromTravTime + linkTravTime;
-					if (role2.getFromLandmarkTravelTime(this.landmarkIdx) > totalTravelTime) {
-						role2.setFromLandmarkTravelTime(this.landmarkIdx, totalTravelTime);
-						pendingNodes.add(n);
-					}
+			int[] landmarkIndices = new int[landmarkNodes.length];
+			for (int i = 0; i < landmarkNodes.length; i++) {
+				landmarkIndices[i] = graph.getIndex(landmarkNodes[i]);
+			}
+			log.info("Calculating distance from each node to each of the " + landmarkNodes.length + " landmarks using " + this.numberOfThreads + " threads...");
+			now = System.currentTimeMillis();
+			tables = LandmarksTables.calculate(graph, landmarkIndices, this.numberOfThreads);
+			log.info("done in " + (System.currentTimeMillis() - now) + " ms");
+
+			if (file != null) {
+				try {
+					tables.write(file, graph);
+					log.info("Wrote landmarks to " + file);
+				} catch (IOException e) {
+					log.warn("Could not write the landmarks file " + file, e);
 				}
 			}
 		}
 
-		private void expandLandmarkTo() {
-			LandmarksToTravelTimeComparator comparator = new LandmarksToTravelTimeComparator(this.nodeData, this.landmarkIdx);
-			PriorityQueue<Node> pendingNodes = new PriorityQueue<>(100, comparator);
-			LandmarksData role = (LandmarksData) this.nodeData.get(this.landmark);
-			role.setToLandmarkTravelTime(this.landmarkIdx, 0.0);
-			role.setFromLandmarkTravelTime(this.landmarkIdx, 0.0);
-			pendingNodes.add(this.landmark);
-			while (!pendingNodes.isEmpty()) {
-				Node node = pendingNodes.poll();
-				double toTravTime = ((LandmarksData) this.nodeData.get(node)).getToLandmarkTravelTime(this.landmarkIdx);
-				LandmarksData role2;
-				for (Link l : node.getInLinks().values()) {
-					Node n = l.getFromNode();
-					double linkTravTime = this.costFunction.getLinkMinimumTravelDisutility(l);
-					role2 = (LandmarksData) this.nodeData.get(n);
-					double totalTravelTime = toTravTime + linkTravTime;
-					if (role2.getToLandmarkTravelTime(this.landmarkIdx) > totalTravelTime) {
-						role2.setToLandmarkTravelTime(this.landmarkIdx, totalTravelTime);
-						pendingNodes.add(n);
-					}
-				}
+		int count = tables.landmarks.length;
+		this.landmarks = new Node[count];
+		for (int i = 0; i < count; i++) {
+			this.landmarks[i] = graph.nodes[tables.landmarks[i]];
+		}
+		for (int n = 0; n < graph.nodes.length; n++) {
+			LandmarksData r = new LandmarksData(this.landmarkCount);
+			for (int i = 0; i < count; i++) {
+				r.setMinMaxLandmarkTravelTime(i, tables.minCost[n * count + i], tables.maxCost[n * count + i]);
 			}
+			this.nodeData.put(graph.nodes[n], r);
 		}
-	
 	}
 
 	public Node[] getLandmarks() {
@@ -281,6 +219,15 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 			return this.landmarkTravelTime1[landmarkIndex];
 		}
 
+		/**
+		 * Sets the smaller and the larger of the travel times from and to the landmark, as returned by
+		 * {@link #getMinLandmarkTravelTime(int)} and {@link #getMaxLandmarkTravelTime(int)}.
+		 */
+		void setMinMaxLandmarkTravelTime(final int landmarkIndex, final double minTravelTime, final double maxTravelTime) {
+			this.landmarkTravelTime1[landmarkIndex] = minTravelTime;
+			this.landmarkTravelTime2[landmarkIndex] = maxTravelTime;
+		}
+
 		void updateMinMaxTravelTimes() {
 			for (int i = 0; i < this.landmarkTravelTime1.length; i++) {
 				setTravelTimes(i, this.landmarkTravelTime2[i], this.landmarkTravelTime1[i]);
@@ -307,66 +254,4 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		}
 	}
 
-    /**
-	 * Sorts the Nodes ascending according to their ToLandmarkTravelTime.
-	 *
-	 * @author lnicolas
-	 * @author mrieser
-	 */
-	private static class LandmarksToTravelTimeComparator implements Comparator<Node>, MatsimComparator {
-		private final Map<Node, DeadEndData> roleData;
-		private final int landmarkIndex;
-
-		protected LandmarksToTravelTimeComparator(final Map<Node, DeadEndData> roleData, final int landmarkIndex) {
-			this.roleData = roleData;
-			this.landmarkIndex = landmarkIndex;
-		}
-
-		@Override
-		public int compare(final Node n1, final Node n2) {
-
-			double c1 = ((LandmarksData) this.roleData.get(n1)).getToLandmarkTravelTime(this.landmarkIndex);
-			double c2 = ((LandmarksData) this.roleData.get(n2)).getToLandmarkTravelTime(this.landmarkIndex);
-
-			if (c1 < c2) {
-				return -1;
-			}
-			if (c1 > c2) {
-				return +1;
-			}
-			return n1.getId().compareTo(n2.getId());
-		}
-	}
-
-	/**
-	 * Sorts the Nodes ascending according to their FromLandmarkTravelTime.
-	 *
-	 * @author lnicolas
-	 * @author mrieser
-	 */
-	private static class LandmarksFromTravelTimeComparator implements Comparator<Node>, MatsimComparator {
-		private final Map<Node, DeadEndData> roleData;
-		private final int landmarkIndex;
-		
-		protected LandmarksFromTravelTimeComparator(final Map<Node, DeadEndData> roleData, final int landmarkIndex) {
-			this.roleData = roleData;
-			this.landmarkIndex = landmarkIndex;
-		}
-		
-		@Override
-		public int compare(final Node n1, final Node n2) {
-			
-			double c1 = ((LandmarksData) this.roleData.get(n1)).getFromLandmarkTravelTime(this.landmarkIndex);
-			double c2 = ((LandmarksData) this.roleData.get(n2)).getFromLandmarkTravelTime(this.landmarkIndex);
-			
-			if (c1 < c2) {
-				return -1;
-			}
-			if (c1 > c2) {
-				return +1;
-			}
-			return n1.getId().compareTo(n2.getId());
-		}
-	}
-	
 }
@@ -0,0 +1,44 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SharingLeastCostPathCalculatorFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+
+/**
+ * A {@link LeastCostPathCalculatorFactory} whose routers share data which is computed from the link costs, e.g. the
+ * weights of a contraction hierarchy. Routers can only share such data if they compute the same link costs, but each
+ * router gets its own {@link TravelDisutility} object, as these are not thread-safe. So the routers are created for
+ * the {@link TravelDisutilityFactory} of their travel disutility.
+ * <br>
+ * If a factory of this kind is bound in addition to the {@link LeastCostPathCalculatorFactory}, the network routing
+ * modules use it to create their routers.
+ */
+public interface SharingLeastCostPathCalculatorFactory extends LeastCostPathCalculatorFactory {
+
+	/**
+	 * @param travelCostsFactory all travel disutility objects of this factory must compute the same link costs.
+	 * @param travelCosts the travel disutility of the router, created by the given factory.
+	 */
+	public LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutilityFactory travelCostsFactory,
+			final TravelDisutility travelCosts, final TravelTime travelTimes);
+
+}
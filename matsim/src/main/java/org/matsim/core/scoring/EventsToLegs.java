@@ -147,10 +147,14 @@ TeleportationArrivalEventHandler, TransitDriverStartsEventHandler, PersonEntersV
 
 	@Inject
 	EventsToLegs(Network network, EventsManager eventsManager) {
-		this.network = network;
+		this(network);
 		eventsManager.addHandler(this);
 	}
 
+	/*package*/ EventsToLegs(Network network) {
+		this.network = network;
+	}
+
 
 
 	public EventsToLegs(Scenario scenario) {
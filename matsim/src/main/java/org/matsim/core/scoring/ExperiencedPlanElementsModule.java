@@ -1,15 +1,14 @@
 package org.matsim.core.scoring;
 
+import com.google.inject.Singleton;
 import org.matsim.core.controler.AbstractModule;
-import org.matsim.core.controler.events.AfterMobsimEvent;
-import org.matsim.core.controler.listener.AfterMobsimListener;
-
-import javax.inject.Inject;
 
 public class ExperiencedPlanElementsModule extends AbstractModule {
 	@Override
 	public void install() {
-		bind(EventsToActivities.class).asEagerSingleton();
-		bind(EventsToLegs.class).asEagerSingleton();
+		// Not eager: the global instances handle the events of all persons, which is a bottleneck if the scoring is split
+		// among several event handlers. They are only created if someone asks for them.
+		bind(EventsToActivities.class).in(Singleton.class);
+		bind(EventsToLegs.class).in(Singleton.class);
 	}
 }
@@ -13,6 +13,8 @@ import org.matsim.core.population.PopulationUtils;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.inject.Provider;
+
 class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLegs.LegHandler, EventsToActivities.ActivityHandler {
 
 	private final static Logger log = Logger.getLogger(ExperiencedPlansServiceImpl.class);
@@ -24,7 +26,7 @@ class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLe
 	private final Map<Id<Person>, Plan> agentRecords = new HashMap<>();
 
 	@Inject
-	ExperiencedPlansServiceImpl(ControlerListenerManager controlerListenerManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs) {
+	ExperiencedPlansServiceImpl(ControlerListenerManager controlerListenerManager) {
 		controlerListenerManager.addControlerListener(new IterationStartsListener() {
 			@Override
 			public void notifyIterationStarts(IterationStartsEvent event) {
@@ -33,31 +35,47 @@ class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLe
 				}
 			}
 		});
-		eventsToActivities.addActivityHandler(this);
-		eventsToLegs.addLegHandler(this);
+	}
+
+	@Inject
+	void registerHandlers(Provider<EventsToActivities> eventsToActivities, Provider<EventsToLegs> eventsToLegs) {
+		// Called after the fields are injected. If there is scoring, take the legs and activities from there, so that the
+		// events are not processed twice, and not by the global instances if the scoring is split among several event handlers.
+		if (scoringFunctionsForPopulation != null) {
+			scoringFunctionsForPopulation.addActivityHandler(this);
+			scoringFunctionsForPopulation.addLegHandler(this);
+		} else {
+			eventsToActivities.get().addActivityHandler(this);
+			eventsToLegs.get().addLegHandler(this);
+		}
 	}
 
 	@Override
-	synchronized public void handleLeg(PersonExperiencedLeg o) {
+	public void handleLeg(PersonExperiencedLeg o) {
 		// Has to be synchronized because the thing which sends Legs and the thing which sends Activities can run
 		// on different threads. Will go away when/if we get a more Actor or Reactive Streams like event infrastructure.
+		// Synchronized on the plan only, as the legs and activities of different persons may be sent by different threads
+		// at the same time. The map itself is only changed at the start of the iteration.
 		Id<Person> agentId = o.getAgentId();
 		Leg leg = o.getLeg();
 		Plan plan = agentRecords.get(agentId);
 		if (plan != null) {
-			plan.addLeg(leg);
+			synchronized (plan) {
+				plan.addLeg(leg);
+			}
 		}
 	}
 
 	@Override
-	synchronized public void handleActivity(PersonExperiencedActivity o) {
-		// Has to be synchronized because the thing which sends Legs and the thing which sends Activities can run
-		// on different threads. Will go away when/if we get a more Actor or Reactive Streams like event infrastructure.
+	public void handleActivity(PersonExperiencedActivity o) {
+		// See handleLeg.
 		Id<Person> agentId = o.getAgentId();
 		Activity activity = o.getActivity();
 		Plan plan = agentRecords.get(agentId);
 		if (plan != null) {
-			agentRecords.get(agentId).addActivity(activity);
+			synchronized (plan) {
+				plan.addActivity(activity);
+			}
 		}
 	}
 
@@ -26,32 +26,59 @@ import gnu.trove.iterator.TDoubleIterator;
 import gnu.trove.list.array.TDoubleArrayList;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
 import org.matsim.api.core.v01.events.PersonMoneyEvent;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.*;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.internal.HasPersonId;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
 import org.matsim.core.config.groups.PlansConfigGroup;
 import org.matsim.core.controler.ControlerListenerManager;
+import org.matsim.core.controler.events.AfterMobsimEvent;
 import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.AfterMobsimListener;
 import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.collections.IdMap;
+import org.matsim.core.utils.collections.IdSet;
 import org.matsim.core.utils.io.IOUtils;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.vehicles.Vehicle;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.inject.Provider;
+
 /**
  * This class helps EventsToScore by keeping ScoringFunctions for the entire Population - one per Person -, and dispatching Activities
  * and Legs to the ScoringFunctions. It also gives out the ScoringFunctions, so they can be given other events by EventsToScore.
  * It is not independently useful. Please do not make public.
+ * <p></p>
+ * If more than one event handler is configured ({@link PlanCalcScoreConfigGroup#getNumberOfEventHandlers()}), the persons
+ * are split among several handlers by the index of their id. Each handler has its own {@link EventsToActivities} and
+ * {@link EventsToLegs}, and only changes the scoring functions of its own persons, so the handlers can be run in different
+ * threads by a parallel events manager without locking, and the events of each person are still handled in order.
+ * The scoring functions are then also finished in parallel.
  * 
  * @author michaz
  *
@@ -73,14 +100,23 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 	 * should be faster and reduce the memory overhead.
 	 *
 	 * cdobler, nov'15
+	 *
+	 * The scoring functions are looked up for every event, thus they are stored in an IdMap, which uses the index
+	 * of the person ids instead of hashing.
 	 */
-	private final Map<Id<Person>, ScoringFunction> agentScorers = new HashMap<>();
+	private final Map<Id<Person>, ScoringFunction> agentScorers = new IdMap<>(Person.class);
 	private final Map<Id<Person>, TDoubleCollection> partialScores = new LinkedHashMap<>();
 	private final AtomicReference<Throwable> exception = new AtomicReference<>();
 
+	/** the handlers among which the persons are split, or <code>null</code> if all events are handled by this instance */
+	private final EventHandlerPartition[] partitions;
+	/** the global instances, only used if the persons are not split among several handlers */
+	private final EventsToActivities eventsToActivities;
+	private final EventsToLegs eventsToLegs;
+
 	@Inject
-	ScoringFunctionsForPopulation(ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
-								  PlansConfigGroup plansConfigGroup, Network network, Population population, ScoringFunctionFactory scoringFunctionFactory) {
+	ScoringFunctionsForPopulation(ControlerListenerManager controlerListenerManager, EventsManager eventsManager, Provider<EventsToActivities> eventsToActivities, Provider<EventsToLegs> eventsToLegs,
+								  PlansConfigGroup plansConfigGroup, PlanCalcScoreConfigGroup planCalcScoreConfigGroup, Network network, Population population, ScoringFunctionFactory scoringFunctionFactory) {
 		controlerListenerManager.addControlerListener(new IterationStartsListener() {
 			@Override
 			public void notifyIterationStarts(IterationStartsEvent event) {
@@ -91,21 +127,98 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 		this.network = network;
 		this.population = population;
 		this.scoringFunctionFactory = scoringFunctionFactory;
-		eventsManager.addHandler(this);
-		eventsToActivities.addActivityHandler(this);
-		eventsToLegs.addLegHandler(this);
+		int numberOfEventHandlers = planCalcScoreConfigGroup.getNumberOfEventHandlers();
+		if (numberOfEventHandlers > 1) {
+			this.partitions = new EventHandlerPartition[numberOfEventHandlers];
+			for (int i = 0; i < numberOfEventHandlers; i++) {
+				this.partitions[i] = new EventHandlerPartition(i);
+				eventsManager.addHandler(this.partitions[i]);
+			}
+			controlerListenerManager.addControlerListener(new AfterMobsimListener() {
+				@Override
+				public void notifyAfterMobsim(AfterMobsimEvent event) {
+					for (EventHandlerPartition partition : partitions) {
+						partition.eventsToActivities.finish();
+					}
+				}
+			});
+			this.eventsToActivities = null;
+			this.eventsToLegs = null;
+		} else {
+			this.partitions = null;
+			// The global instances are only created here, as they handle the events of all persons in one thread.
+			// They are created before this is added as a handler, so that legs and activities are handled before the event itself.
+			this.eventsToActivities = eventsToActivities.get();
+			this.eventsToLegs = eventsToLegs.get();
+			eventsManager.addHandler(this);
+			this.eventsToActivities.addActivityHandler(this);
+			this.eventsToLegs.addLegHandler(this);
+		}
+	}
+
+	/**
+	 * Passes the transit schedule to the {@link EventsToLegs} of the partitions, which need it to create the routes of transit
+	 * legs. The global instance gets it injected itself.
+	 */
+	@Inject(optional = true)
+	void setTransitSchedule(TransitSchedule transitSchedule) {
+		if (this.partitions != null) {
+			for (EventHandlerPartition partition : this.partitions) {
+				partition.eventsToLegs.setTransitSchedule(transitSchedule);
+			}
+		}
+	}
+
+	/**
+	 * Registers a handler for the activities of all persons. If the persons are split among several event handlers,
+	 * the handler is called by all of them, possibly in parallel, but the activities and legs of each person come from
+	 * the same thread.
+	 */
+	void addActivityHandler(EventsToActivities.ActivityHandler handler) {
+		if (this.partitions == null) {
+			this.eventsToActivities.addActivityHandler(handler);
+		} else {
+			for (EventHandlerPartition partition : this.partitions) {
+				partition.eventsToActivities.addActivityHandler(handler);
+			}
+		}
+	}
+
+	/**
+	 * Registers a handler for the legs of all persons, see {@link #addActivityHandler(EventsToActivities.ActivityHandler)}.
+	 */
+	void addLegHandler(EventsToLegs.LegHandler handler) {
+		if (this.partitions == null) {
+			this.eventsToLegs.addLegHandler(handler);
+		} else {
+			for (EventHandlerPartition partition : this.partitions) {
+				partition.eventsToLegs.addLegHandler(handler);
+			}
+		}
 	}
 
 	private void init() {
+		if (this.partitions != null) {
+			for (EventHandlerPartition partition : this.partitions) {
+				partition.persons.clear();
+			}
+		}
 		for (Person person : population.getPersons().values()) {
 			ScoringFunction data = scoringFunctionFactory.createNewScoringFunction(person);
 			this.agentScorers.put(person.getId(), data);
 			this.partialScores.put(person.getId(), new TDoubleArrayList());
+			if (this.partitions != null) {
+				this.partitions[person.getId().index() % this.partitions.length].persons.add(person.getId());
+			}
 		}
 	}
 
 	@Override
 	synchronized public void handleEvent(Event o) {
+		handlePersonEvent(o);
+	}
+
+	private void handlePersonEvent(Event o) {
 		// this is for the stuff that is directly based on events.
 		// note that this passes on _all_ person events, even those which are aggregated into legs and activities.
 		// for the time being, not all PersonEvents may "implement HasPersonId".
@@ -127,6 +240,10 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 
 	@Override
 	synchronized public void handleLeg(PersonExperiencedLeg o) {
+		scoreLeg(o);
+	}
+
+	private void scoreLeg(PersonExperiencedLeg o) {
 		Id<Person> agentId = o.getAgentId();
 		Leg leg = o.getLeg();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
@@ -139,6 +256,10 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 
 	@Override
 	synchronized public void handleActivity(PersonExperiencedActivity o) {
+		scoreActivity(o);
+	}
+
+	private void scoreActivity(PersonExperiencedActivity o) {
 		Id<Person> agentId = o.getAgentId();
 		Activity activity = o.getActivity();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
@@ -165,6 +286,50 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 
 	public void finishScoringFunctions() {
 		// Rethrow an exception in a scoring function (user code) if there was one.
+		rethrowException();
+		if (this.partitions != null) {
+			finishScoringFunctionsInParallel();
+			return;
+		}
+		for (ScoringFunction sf : this.agentScorers.values()) {
+			sf.finish();
+		}
+		for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
+			entry.getValue().add(this.getScoringFunctionForAgent(entry.getKey()).getScore());
+		}
+	}
+
+	private void finishScoringFunctionsInParallel() {
+		Thread[] threads = new Thread[this.partitions.length];
+		for (int i = 0; i < this.partitions.length; i++) {
+			final EventHandlerPartition partition = this.partitions[i];
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (Id<Person> personId : partition.persons) {
+							ScoringFunction sf = getScoringFunctionForAgent(personId);
+							sf.finish();
+							partialScores.get(personId).add(sf.getScore());
+						}
+					} catch (Throwable t) {
+						exception.compareAndSet(null, t);
+					}
+				}
+			}, "ScoringFunctionsFinisher." + i);
+			threads[i].start();
+		}
+		try {
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		rethrowException();
+	}
+
+	private void rethrowException() {
 		Throwable throwable = exception.get();
 		if (throwable != null) {
 			if (throwable instanceof RuntimeException) {
@@ -173,12 +338,6 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 				throw new RuntimeException(throwable);
 			}
 		}
-		for (ScoringFunction sf : this.agentScorers.values()) {
-			sf.finish();
-		}
-		for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
-			entry.getValue().add(this.getScoringFunctionForAgent(entry.getKey()).getScore());
-		}
 	}
 
 	public void writePartialScores(String iterationFilename) {
@@ -201,4 +360,80 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 	public void reset(int iteration) {
 
 	}
+
+	/**
+	 * Handles the events of the persons whose id index modulo the number of partitions equals the index of this partition.
+	 * Events without a person are passed to {@link EventsToLegs} if they are needed there, i.e. link enter events of the
+	 * vehicles of the own persons, and the transit events which all partitions need to know the lines of the transit vehicles.
+	 */
+	private final class EventHandlerPartition implements BasicEventHandler, EventsToLegs.LegHandler, EventsToActivities.ActivityHandler {
+
+		private final int index;
+		private final EventsToActivities eventsToActivities = new EventsToActivities();
+		private final EventsToLegs eventsToLegs = new EventsToLegs(network);
+		/** the vehicles currently driven by the own persons */
+		private final IdSet<Vehicle> vehicles = new IdSet<>(Vehicle.class);
+		private final List<Id<Person>> persons = new ArrayList<>();
+
+		EventHandlerPartition(final int index) {
+			this.index = index;
+			this.eventsToActivities.addActivityHandler(this);
+			this.eventsToLegs.addLegHandler(this);
+		}
+
+		@Override
+		public void handleEvent(Event event) {
+			if (event instanceof HasPersonId) {
+				if (((HasPersonId) event).getPersonId().index() % partitions.length != this.index) {
+					return;
+				}
+				// as in the single-handler case, legs and activities are handled before the event itself
+				if (event instanceof ActivityEndEvent) {
+					this.eventsToActivities.handleEvent((ActivityEndEvent) event);
+				} else if (event instanceof ActivityStartEvent) {
+					this.eventsToActivities.handleEvent((ActivityStartEvent) event);
+				} else if (event instanceof PersonDepartureEvent) {
+					this.eventsToLegs.handleEvent((PersonDepartureEvent) event);
+				} else if (event instanceof PersonArrivalEvent) {
+					this.eventsToLegs.handleEvent((PersonArrivalEvent) event);
+				} else if (event instanceof PersonEntersVehicleEvent) {
+					this.eventsToLegs.handleEvent((PersonEntersVehicleEvent) event);
+				} else if (event instanceof TeleportationArrivalEvent) {
+					this.eventsToLegs.handleEvent((TeleportationArrivalEvent) event);
+				} else if (event instanceof VehicleEntersTrafficEvent) {
+					this.vehicles.add(((VehicleEntersTrafficEvent) event).getVehicleId());
+					this.eventsToLegs.handleEvent((VehicleEntersTrafficEvent) event);
+				} else if (event instanceof VehicleLeavesTrafficEvent) {
+					this.vehicles.remove(((VehicleLeavesTrafficEvent) event).getVehicleId());
+					this.eventsToLegs.handleEvent((VehicleLeavesTrafficEvent) event);
+				}
+				handlePersonEvent(event);
+			} else if (event instanceof LinkEnterEvent) {
+				if (this.vehicles.contains(((LinkEnterEvent) event).getVehicleId())) {
+					this.eventsToLegs.handleEvent((LinkEnterEvent) event);
+				}
+			} else if (event instanceof TransitDriverStartsEvent) {
+				this.eventsToLegs.handleEvent((TransitDriverStartsEvent) event);
+			} else if (event instanceof VehicleArrivesAtFacilityEvent) {
+				this.eventsToLegs.handleEvent((VehicleArrivesAtFacilityEvent) event);
+			}
+		}
+
+		@Override
+		public void handleLeg(PersonExperiencedLeg leg) {
+			scoreLeg(leg);
+		}
+
+		@Override
+		public void handleActivity(PersonExperiencedActivity activity) {
+			scoreActivity(activity);
+		}
+
+		@Override
+		public void reset(int iteration) {
+			this.eventsToActivities.reset(iteration);
+			this.eventsToLegs.reset(iteration);
+			this.vehicles.clear();
+		}
+	}
 }
\ No newline at end of file
@@ -21,63 +21,72 @@
 package org.matsim.core.trafficmonitoring;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
-import org.matsim.core.router.priorityqueue.HasIndex;
 import org.matsim.core.trafficmonitoring.TravelTimeCalculator.DataContainer;
 
 /**
  *  Uses an array to store DataContainer object for the TravelTimeCalculator.
- *  It is tried to get a DataContainer's position in the array is taken from the
- *  the Link, which is possible if routing networks are used (there, link implement
- *  the HasIndex interface).
+ *  A DataContainer's position in the array is given by the index of the link's id
+ *  (see {@link Id#index()}), which works for both the event handler part (where only
+ *  link ids are available) and the travel time part of the TravelTimeCalculator.
  *  
- *  If regular network are used, calls are forwarded to a MapBasedDataContainerProvider,
- *  which represents the lookup approach used so far.
+ *  The array is sized by the largest index of the network's links. Links with a larger
+ *  index are forwarded to a MapBasedDataContainerProvider, which represents the lookup
+ *  approach used so far.
+ *  
+ *  The event handler part and the routers may look up DataContainers concurrently, so
+ *  the array is an AtomicReferenceArray, and a DataContainer is only stored if no other
+ *  thread has stored one for the same link before.
  *  
  * @author cdobler
  */
 public class ArrayBasedDataContainerProvider implements DataContainerProvider {
 
-	private final DataContainer[] arrayLinkData;
+	private final AtomicReferenceArray<DataContainer> arrayLinkData;
 	private final DataContainerProvider delegate;
 	
 	public ArrayBasedDataContainerProvider(Map<Id<Link>, DataContainer> linkData, TravelTimeDataFactory ttDataFactory,
 			Network network) {
-		this.arrayLinkData = new DataContainer[network.getLinks().size()];
+		int maxIndex = -1;
+		for (Id<Link> linkId : network.getLinks().keySet()) {
+			maxIndex = Math.max(maxIndex, linkId.index());
+		}
+		this.arrayLinkData = new AtomicReferenceArray<>(maxIndex + 1);
 		this.delegate = new MapBasedDataContainerProvider(linkData, ttDataFactory);
 	}
 	
 	/*
 	 * This method is called from the EventHandler part of the TravelTimeCalculator.
-	 * There, only link ids are available. We cannot optimize this. 
 	 */
 	@Override
 	public DataContainer getTravelTimeData(final Id<Link> linkId, final boolean createIfMissing) {
-		return this.delegate.getTravelTimeData(linkId, createIfMissing);
+		int index = linkId.index();
+		if (index < this.arrayLinkData.length()) {
+			DataContainer data = this.arrayLinkData.get(index);
+			if (data == null) {
+				data = this.delegate.getTravelTimeData(linkId, createIfMissing);
+				if (data != null && !this.arrayLinkData.compareAndSet(index, null, data)) {
+					data = this.arrayLinkData.get(index);
+				}
+			}
+			return data;
+		} else {
+			return this.delegate.getTravelTimeData(linkId, createIfMissing);
+		}
 	}
 	
 	/*
 	 * This method is called from the TravelTime part of the TravelTimeCalculator.
-	 * There, links are available. we can optimize this by using an array instead of a map.
 	 * 
 	 *  Probably pre-initialize all DataContainers to avoid the null-check?
 	 */
 	@Override
 	public DataContainer getTravelTimeData(Link link, boolean createIfMissing) {
-		if (link instanceof HasIndex) {
-			int index = ((HasIndex) link).getArrayIndex();
-			DataContainer data = this.arrayLinkData[index];
-			if (data == null) {
-				data = this.delegate.getTravelTimeData(link, createIfMissing);
-				this.arrayLinkData[index] = data;
-			}
-			return data;
-		} else {
-			return this.delegate.getTravelTimeData(link, createIfMissing);
-		}
+		return this.getTravelTimeData(link.getId(), createIfMissing);
 	}
 	
 }
\ No newline at end of file
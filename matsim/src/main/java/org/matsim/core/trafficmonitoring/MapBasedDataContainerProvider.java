@@ -40,8 +40,14 @@ public class MapBasedDataContainerProvider implements DataContainerProvider {
 	public DataContainer getTravelTimeData(final Id<Link> linkId, final boolean createIfMissing) {
 		DataContainer data = this.linkData.get(linkId);
 		if ((null == data) && createIfMissing) {
-			data = new DataContainer(this.ttDataFactory.createTravelTimeData(linkId));
-			this.linkData.put(linkId, data);
+			// several threads may ask for the same missing link at the same time, only one container must be created
+			synchronized (this.linkData) {
+				data = this.linkData.get(linkId);
+				if (null == data) {
+					data = new DataContainer(this.ttDataFactory.createTravelTimeData(linkId));
+					this.linkData.put(linkId, data);
+				}
+			}
 		}
 		return data;
 	}
@@ -19,7 +19,11 @@
  * *********************************************************************** */
 package org.matsim.core.trafficmonitoring;
 
-import java.util.HashSet;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -45,10 +49,12 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.events.handler.EventHandler;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.collections.CollectionUtils;
 import org.matsim.core.utils.collections.Tuple;
+import org.matsim.core.utils.io.UncheckedIOException;
 import org.matsim.vehicles.Vehicle;
 
 /**
@@ -83,11 +89,10 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 
 	private Map<Tuple<Id<Link>, Id<Link>>, DataContainer> linkToLinkData;
 
-	private final DataContainerProvider dataContainerProvider;
-	
-	private final Map<Id<Vehicle>, LinkEnterEvent> linkEnterEvents;
+	private DataContainerProvider dataContainerProvider;
+
+	private final Network network;
 
-	private final Set<Id<Vehicle>> vehiclesToIgnore;
 	private final Set<String> analyzedModes;
 
 	private final boolean filterAnalyzedModes;
@@ -97,7 +102,11 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 	private final boolean calculateLinkToLinkTravelTimes;
 
 	private TravelTimeDataFactory ttDataFactory = null;
-	
+
+	private TravelTimeDataFactory linkToLinkTtDataFactory = null;
+
+	private EventHandlerPartition[] partitions;
+
 	@Inject private QSimConfigGroup qsimConfig ;
 
 	public static TravelTimeCalculator create(Network network, TravelTimeCalculatorConfigGroup group) {
@@ -115,9 +124,13 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 			case TravelTimeCalculatorHashMap:
 				calculator.setTravelTimeDataFactory(new TravelTimeDataHashMapFactory(network));
 				break;
+			case TravelTimeCalculatorFlatArray:
+				calculator.setTravelTimeDataFactory(new TravelTimeDataFlatArrayFactory(network, calculator.numSlots));
+				break;
 			default:
 				throw new RuntimeException(config.getTravelTimeCalculatorType() + " is unknown!");
 		}
+		calculator.setNumberOfEventHandlers(config.getNumberOfEventHandlers());
 
 		AbstractTravelTimeAggregator travelTimeAggregator;
 		switch( config.getTravelTimeAggregatorType() ) {
@@ -132,6 +145,16 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		}
 		calculator.setTravelTimeAggregator(travelTimeAggregator);
 
+		if (config.getInputTravelTimesFile() != null && calculator.calculateLinkTravelTimes) {
+			File file = new File(config.getInputTravelTimesFile());
+			try {
+				calculator.initTravelTimes(TravelTimeSnapshot.read(file));
+				log.info("Initialized the link travel times from " + file);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
 		TravelTimeGetter travelTimeGetter;
 		switch( config.getTravelTimeGetterType() ) {
 			case "average":
@@ -151,8 +174,10 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 	TravelTimeCalculator(TravelTimeCalculatorConfigGroup ttconfigGroup, EventsManager eventsManager, Network network) {
 		// this injected constructor is not used when getSeparateModes is true
 		this(network, ttconfigGroup.getTraveltimeBinSize(), ttconfigGroup.getMaxTime(), ttconfigGroup.isCalculateLinkTravelTimes(), ttconfigGroup.isCalculateLinkToLinkTravelTimes(), ttconfigGroup.isFilterModes(), CollectionUtils.stringToSet(ttconfigGroup.getAnalyzedModes()));
-		eventsManager.addHandler(this);
 		configure(this, ttconfigGroup, network);
+		for (EventHandler handler : getEventHandlers()) {
+			eventsManager.addHandler(handler);
+		}
 	}
 
 	public TravelTimeCalculator(final Network network, TravelTimeCalculatorConfigGroup ttconfigGroup) {
@@ -165,6 +190,7 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 
 	TravelTimeCalculator(final Network network, final int timeslice, final int maxTime,
 								boolean calculateLinkTravelTimes, boolean calculateLinkToLinkTravelTimes, boolean filterModes, Set<String> analyzedModes) {
+		this.network = network;
 		this.calculateLinkTravelTimes = calculateLinkTravelTimes;
 		this.calculateLinkToLinkTravelTimes = calculateLinkToLinkTravelTimes;
 		this.filterAnalyzedModes = filterModes;
@@ -172,118 +198,97 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		this.timeSlice = timeslice;
 		this.numSlots = TimeBinUtils.getTimeBinCount(maxTime, timeslice);
 		this.aggregator = new OptimisticTravelTimeAggregator(this.numSlots, this.timeSlice);
-		this.ttDataFactory = new TravelTimeDataArrayFactory(network, this.numSlots);
-		if (this.calculateLinkTravelTimes){
-			this.linkData = new ConcurrentHashMap<>((int) (network.getLinks().size() * 1.4));
-
-			/*
-			 * So far, link data objects were stored in a HashMap. This lookup strategy is used
-			 * by a MapBasedDataContainerProvider.
-			 * When ArrayRoutingNetworks are used (as the FastRouter implementations do), the
-			 * getArrayIndex() methods from the RoutingLinks can be used to lookup the link
-			 * data objects in an array. This approach is implemented by the ArrayBasedDataContainerProvider.
-			 * Using a ArrayBasedDataContainerProvider instead of a MapBasedDataContainerProvider
-			 * increases the routing performance by 20-30%.
-			 * cdobler, oct'13
-			 */
-			//		this.dataContainerProvider = new MapBasedDataContainerProvider(linkData, ttDataFactory);
-			this.dataContainerProvider = new ArrayBasedDataContainerProvider(linkData, ttDataFactory, network);
-		} else this.dataContainerProvider = null;
 		if (this.calculateLinkToLinkTravelTimes){
 			// assume that every link has 2 outgoing links as default
 			this.linkToLinkData = new ConcurrentHashMap<>((int) (network.getLinks().size() * 1.4 * 2));
 		}
-		this.linkEnterEvents = new ConcurrentHashMap<>();
+		setTravelTimeDataFactory(new TravelTimeDataArrayFactory(network, this.numSlots));
+		setNumberOfEventHandlers(1);
 
-		// if we just look at one mode, we need to ignore all vehicles with a different mode. However, the info re the mode is only in
-		// the vehicleEntersTraffic event.  So we need to memorize the ignored vehicles from there ...
-		this.vehiclesToIgnore = new HashSet<>();
+		this.reset(0);
 
+	}
 
-		this.reset(0);
+	/**
+	 * Splits the processing of the events into the given number of event handlers, see
+	 * {@link #getEventHandlers()}. Each handler processes the events of the links whose
+	 * id index modulo the number of handlers is equal to the number of the handler. As
+	 * the handlers write to the data of different links, they may run in parallel, e.g.
+	 * when they are added to a parallel events manager.
+	 * <br>
+	 * Must be called before any events are handled. Only one handler is possible if link
+	 * to link travel times are calculated, as these combine the events of two links.
+	 */
+	public void setNumberOfEventHandlers(final int numberOfEventHandlers) {
+		if (numberOfEventHandlers < 1) {
+			throw new IllegalArgumentException("The number of event handlers must be at least 1, but is " + numberOfEventHandlers);
+		}
+		if (numberOfEventHandlers > 1 && this.calculateLinkToLinkTravelTimes) {
+			throw new IllegalArgumentException("Link to link travel times can only be calculated with a single event handler.");
+		}
+		this.partitions = new EventHandlerPartition[numberOfEventHandlers];
+		for (int i = 0; i < numberOfEventHandlers; i++) {
+			this.partitions[i] = new EventHandlerPartition(i, numberOfEventHandlers);
+		}
+	}
 
+	/**
+	 * @return the event handlers which have to be added to the events manager in order to collect the
+	 * travel times. If there is only one, this is the calculator itself.
+	 */
+	public List<EventHandler> getEventHandlers() {
+		if (this.partitions.length == 1) {
+			return Collections.<EventHandler>singletonList(this);
+		}
+		return Collections.<EventHandler>unmodifiableList(Arrays.asList(this.partitions));
 	}
 
 	@Override
 	public void handleEvent(final LinkEnterEvent e) {
-		/* if only some modes are analyzed, we check whether the vehicles
-		 * performs a trip with one of those modes. if not, we skip the event. */
-		if (filterAnalyzedModes && vehiclesToIgnore.contains(e.getVehicleId())) return;
-
-		LinkEnterEvent oldEvent = this.linkEnterEvents.remove(e.getVehicleId());
-		if ((oldEvent != null) && this.calculateLinkToLinkTravelTimes) {
-			Tuple<Id<Link>, Id<Link>> fromToLink = new Tuple<>(oldEvent.getLinkId(), e.getLinkId());
-			DataContainer data = getLinkToLinkTravelTimeData(fromToLink, true);
-			this.aggregator.addTravelTime(data.ttData, oldEvent.getTime(), e.getTime());
-			data.needsConsolidation = true;
-		}
-		this.linkEnterEvents.put(e.getVehicleId(), e);
+		for (EventHandlerPartition partition : this.partitions) {
+			partition.handleEvent(e);
+		}
 	}
 
 	@Override
 	public void handleEvent(final LinkLeaveEvent e) {
-		if (this.calculateLinkTravelTimes) {
-			LinkEnterEvent oldEvent = this.linkEnterEvents.get(e.getVehicleId());
-			if (oldEvent != null) {
-				DataContainer data = this.dataContainerProvider.getTravelTimeData(e.getLinkId(), true);
-				this.aggregator.addTravelTime(data.ttData, oldEvent.getTime(), e.getTime());
-				data.needsConsolidation = true;
-			}
+		for (EventHandlerPartition partition : this.partitions) {
+			partition.handleEvent(e);
 		}
 	}
 
 	@Override
 	public void handleEvent(VehicleEntersTrafficEvent event) {
-		/* if filtering transport modes is enabled and the vehicles
-		 * starts a leg on a non analyzed transport mode, add the vehicle 
-		 * to the filtered vehicles set. */
-		if (filterAnalyzedModes && !analyzedModes.contains(event.getNetworkMode())) { 
-			this.vehiclesToIgnore.add(event.getVehicleId());
+		for (EventHandlerPartition partition : this.partitions) {
+			partition.handleEvent(event);
 		}
 	}
 
 	@Override
 	public void handleEvent(final VehicleLeavesTrafficEvent event) {
-		/* remove EnterEvents from list when a vehicle arrives.
-		 * otherwise, the activity duration would counted as travel time, when the
-		 * vehicle departs again and leaves the link! */
-		this.linkEnterEvents.remove(event.getVehicleId());
-
-		// try to remove vehicles from set with filtered vehicles
-		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
+		for (EventHandlerPartition partition : this.partitions) {
+			partition.handleEvent(event);
+		}
 	}
 
 	@Override
 	public void handleEvent(VehicleArrivesAtFacilityEvent event) {
-		/* remove EnterEvents from list when a bus stops on a link.
-		 * otherwise, the stop time would counted as travel time, when the
-		 * bus departs again and leaves the link! */
-		this.linkEnterEvents.remove(event.getVehicleId());
+		for (EventHandlerPartition partition : this.partitions) {
+			partition.handleEvent(event);
+		}
 	}
 
 	@Override
 	public void handleEvent(VehicleAbortsEvent event) {
-		LinkEnterEvent e = this.linkEnterEvents.remove(event.getVehicleId());
-		if (e != null) {
-			DataContainer data = this.dataContainerProvider.getTravelTimeData(e.getLinkId(), true);
-			data.needsConsolidation = true;
-			this.aggregator.addStuckEventTravelTime(data.ttData, e.getTime(), event.getTime());
-			if (this.calculateLinkToLinkTravelTimes 
-					&& event.getTime() < qsimConfig.getEndTime() // we think that this only makes problems when the abort is not just because of mobsim end time. kai&theresa, jan'17 
-					){
-				log.error(ERROR_STUCK_AND_LINKTOLINK);
-				throw new IllegalStateException(ERROR_STUCK_AND_LINKTOLINK);
-			}
+		for (EventHandlerPartition partition : this.partitions) {
+			partition.handleEvent(event);
 		}
-
-		// try to remove vehicle from set with filtered vehicles
-		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
 	}
 
 	private DataContainer getLinkToLinkTravelTimeData(Tuple<Id<Link>, Id<Link>> fromLinkToLink, final boolean createIfMissing) {
 		DataContainer data = this.linkToLinkData.get(fromLinkToLink);
 		if ((null == data) && createIfMissing) {
-			data = new DataContainer(this.ttDataFactory.createTravelTimeData(fromLinkToLink.getFirst()));
+			data = new DataContainer(this.linkToLinkTtDataFactory.createTravelTimeData(fromLinkToLink.getFirst()));
 			this.linkToLinkData.put(fromLinkToLink, data);
 		}
 		return data;
@@ -313,8 +318,34 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		return this.aggregator.getTravelTime(data.ttData, time);
 	}
 
+	/**
+	 * Sets the link travel times of all time bins to the given ones, e.g. to the ones of a previous run read by
+	 * {@link TravelTimeSnapshot#read(java.io.File)}. They are used until the calculator is reset, i.e. until the
+	 * events of the first iteration are collected.
+	 */
+	public void initTravelTimes(final TravelTime travelTimes) {
+		if (!this.calculateLinkTravelTimes) {
+			throw new IllegalStateException("No link travel time is available " +
+					"if calculation is switched off by config option!");
+		}
+		for (Link link : this.network.getLinks().values()) {
+			DataContainer data = this.dataContainerProvider.getTravelTimeData(link.getId(), true);
+			for (int i = 0; i < this.numSlots; i++) {
+				data.ttData.setTravelTime(i, travelTimes.getLinkTravelTime(link, i * this.timeSlice, null, null));
+			}
+			data.needsConsolidation = false;
+		}
+	}
+
 	@Override
 	public void reset(int iteration) {
+		resetData();
+		for (EventHandlerPartition partition : this.partitions) {
+			partition.resetVehicles();
+		}
+	}
+
+	private void resetData() {
 		if (this.calculateLinkTravelTimes) {
 			for (DataContainer data : this.linkData.values()){
 				data.ttData.resetTravelTimes();
@@ -327,12 +358,36 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 				data.needsConsolidation = false;
 			}
 		}
-		this.linkEnterEvents.clear();
-		this.vehiclesToIgnore.clear();
 	}
 
+	/**
+	 * Sets the factory for the travel time data of the links. Must be called before any events are handled,
+	 * as the data collected so far is discarded.
+	 */
 	public void setTravelTimeDataFactory(final TravelTimeDataFactory factory) {
 		this.ttDataFactory = factory;
+		// the flat array factory only provides one travel time data per link
+		this.linkToLinkTtDataFactory = factory instanceof TravelTimeDataFlatArrayFactory ?
+				new TravelTimeDataArrayFactory(this.network, this.numSlots) : factory;
+		if (this.calculateLinkTravelTimes){
+			this.linkData = new ConcurrentHashMap<>((int) (this.network.getLinks().size() * 1.4));
+
+			/*
+			 * So far, link data objects were stored in a HashMap. This lookup strategy is used
+			 * by a MapBasedDataContainerProvider.
+			 * When ArrayRoutingNetworks are used (as the FastRouter implementations do), the
+			 * getArrayIndex() methods from the RoutingLinks can be used to lookup the link
+			 * data objects in an array. This approach is implemented by the ArrayBasedDataContainerProvider.
+			 * Using a ArrayBasedDataContainerProvider instead of a MapBasedDataContainerProvider
+			 * increases the routing performance by 20-30%.
+			 * cdobler, oct'13
+			 */
+			//		this.dataContainerProvider = new MapBasedDataContainerProvider(linkData, ttDataFactory);
+			this.dataContainerProvider = new ArrayBasedDataContainerProvider(this.linkData, factory, this.network);
+		}
+		if (this.calculateLinkToLinkTravelTimes){
+			this.linkToLinkData.clear();
+		}
 	}
 
 	public void setTravelTimeAggregator(final AbstractTravelTimeAggregator aggregator) {
@@ -434,4 +489,145 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		};
 	}
 
+	/**
+	 * Processes the events of the links whose id index modulo <code>numberOfPartitions</code> is
+	 * <code>partition</code>. The link enter times are stored in plain arrays, indexed by the index
+	 * of the vehicle id (see {@link Id#index()}), which grow if vehicles are created during the
+	 * simulation.
+	 */
+	private final class EventHandlerPartition implements LinkEnterEventHandler, LinkLeaveEventHandler,
+		VehicleEntersTrafficEventHandler, VehicleLeavesTrafficEventHandler, VehicleArrivesAtFacilityEventHandler,
+		VehicleAbortsEventHandler {
+
+		private final int partition;
+		private final int numberOfPartitions;
+
+		/** the link each vehicle entered last, or <code>null</code> if the vehicle is not on a link of this partition */
+		private Id<Link>[] enteredLink;
+		private double[] enterTime;
+		/** if only some modes are analyzed, the vehicles which currently perform a trip with another mode */
+		private boolean[] ignored;
+
+		@SuppressWarnings("unchecked")
+		EventHandlerPartition(final int partition, final int numberOfPartitions) {
+			this.partition = partition;
+			this.numberOfPartitions = numberOfPartitions;
+			int size = Math.max(16, Id.getNumberOfIds(Vehicle.class));
+			this.enteredLink = new Id[size];
+			this.enterTime = new double[size];
+			this.ignored = new boolean[size];
+		}
+
+		private boolean isResponsible(final Id<Link> linkId) {
+			return this.numberOfPartitions == 1 || linkId.index() % this.numberOfPartitions == this.partition;
+		}
+
+		private int getIndex(final Id<Vehicle> vehicleId) {
+			int index = vehicleId.index();
+			if (index >= this.enteredLink.length) {
+				int size = Math.max(index + 1, 2 * this.enteredLink.length);
+				this.enteredLink = Arrays.copyOf(this.enteredLink, size);
+				this.enterTime = Arrays.copyOf(this.enterTime, size);
+				this.ignored = Arrays.copyOf(this.ignored, size);
+			}
+			return index;
+		}
+
+		@Override
+		public void handleEvent(final LinkEnterEvent e) {
+			int v = getIndex(e.getVehicleId());
+			/* if only some modes are analyzed, we check whether the vehicles
+			 * performs a trip with one of those modes. if not, we skip the event. */
+			if (filterAnalyzedModes && this.ignored[v]) return;
+
+			if (!isResponsible(e.getLinkId())) {
+				this.enteredLink[v] = null;
+				return;
+			}
+			Id<Link> oldLinkId = this.enteredLink[v];
+			if ((oldLinkId != null) && calculateLinkToLinkTravelTimes) {
+				Tuple<Id<Link>, Id<Link>> fromToLink = new Tuple<>(oldLinkId, e.getLinkId());
+				DataContainer data = getLinkToLinkTravelTimeData(fromToLink, true);
+				aggregator.addTravelTime(data.ttData, this.enterTime[v], e.getTime());
+				data.needsConsolidation = true;
+			}
+			this.enteredLink[v] = e.getLinkId();
+			this.enterTime[v] = e.getTime();
+		}
+
+		@Override
+		public void handleEvent(final LinkLeaveEvent e) {
+			if (calculateLinkTravelTimes && isResponsible(e.getLinkId())) {
+				int v = getIndex(e.getVehicleId());
+				if (this.enteredLink[v] != null) {
+					DataContainer data = dataContainerProvider.getTravelTimeData(e.getLinkId(), true);
+					aggregator.addTravelTime(data.ttData, this.enterTime[v], e.getTime());
+					data.needsConsolidation = true;
+				}
+			}
+		}
+
+		@Override
+		public void handleEvent(VehicleEntersTrafficEvent event) {
+			/* if filtering transport modes is enabled and the vehicles
+			 * starts a leg on a non analyzed transport mode, add the vehicle
+			 * to the filtered vehicles. */
+			if (filterAnalyzedModes && !analyzedModes.contains(event.getNetworkMode())) {
+				this.ignored[getIndex(event.getVehicleId())] = true;
+			}
+		}
+
+		@Override
+		public void handleEvent(final VehicleLeavesTrafficEvent event) {
+			/* remove the link enter time when a vehicle arrives.
+			 * otherwise, the activity duration would counted as travel time, when the
+			 * vehicle departs again and leaves the link! */
+			int v = getIndex(event.getVehicleId());
+			this.enteredLink[v] = null;
+			this.ignored[v] = false;
+		}
+
+		@Override
+		public void handleEvent(VehicleArrivesAtFacilityEvent event) {
+			/* remove the link enter time when a bus stops on a link.
+			 * otherwise, the stop time would counted as travel time, when the
+			 * bus departs again and leaves the link! */
+			this.enteredLink[getIndex(event.getVehicleId())] = null;
+		}
+
+		@Override
+		public void handleEvent(VehicleAbortsEvent event) {
+			int v = getIndex(event.getVehicleId());
+			Id<Link> linkId = this.enteredLink[v];
+			if (linkId != null) {
+				this.enteredLink[v] = null;
+				DataContainer data = dataContainerProvider.getTravelTimeData(linkId, true);
+				data.needsConsolidation = true;
+				aggregator.addStuckEventTravelTime(data.ttData, this.enterTime[v], event.getTime());
+				if (calculateLinkToLinkTravelTimes
+						&& event.getTime() < qsimConfig.getEndTime() // we think that this only makes problems when the abort is not just because of mobsim end time. kai&theresa, jan'17
+						){
+					log.error(ERROR_STUCK_AND_LINKTOLINK);
+					throw new IllegalStateException(ERROR_STUCK_AND_LINKTOLINK);
+				}
+			}
+			this.ignored[v] = false;
+		}
+
+		@Override
+		public void reset(int iteration) {
+			resetVehicles();
+			if (this.partition == 0) {
+				// the calculator itself is not added to the events manager in this case
+				resetData();
+			}
+		}
+
+		private void resetVehicles() {
+			Arrays.fill(this.enteredLink, null);
+			Arrays.fill(this.ignored, false);
+		}
+
+	}
+
 }
@@ -31,6 +31,7 @@ import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
 import org.matsim.core.controler.AbstractModule;
+import org.matsim.core.events.handler.EventHandler;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.collections.CollectionUtils;
@@ -79,6 +80,9 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 			if (getConfig().travelTimeCalculator().isCalculateLinkToLinkTravelTimes()) {
 				bind(LinkToLinkTravelTime.class).toProvider(ObservedLinkToLinkTravelTimes.class);
 			}
+			if (getConfig().travelTimeCalculator().isCalculateLinkTravelTimes() && getConfig().travelTimeCalculator().getWriteTravelTimesInterval() > 0) {
+				addControlerListenerBinding().to(TravelTimeSnapshotWriter.class);
+			}
 		}
 	}
 
@@ -98,8 +102,11 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 		public TravelTimeCalculator get() {
 			TravelTimeCalculator calculator = new TravelTimeCalculator(network, config.getTraveltimeBinSize(), config.getMaxTime(), 
 					config.isCalculateLinkTravelTimes(), config.isCalculateLinkToLinkTravelTimes(), true, CollectionUtils.stringToSet(mode));
-			eventsManager.addHandler(calculator);
-			return TravelTimeCalculator.configure(calculator, config, network);
+			TravelTimeCalculator.configure(calculator, config, network);
+			for (EventHandler handler : calculator.getEventHandlers()) {
+				eventsManager.addHandler(handler);
+			}
+			return calculator;
 		}
 	}
 
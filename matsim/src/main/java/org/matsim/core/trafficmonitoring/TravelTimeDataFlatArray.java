@@ -0,0 +1,90 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TravelTimeDataFlatArray.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.trafficmonitoring;
+
+import org.matsim.api.core.v01.network.Link;
+
+/**
+ * The travel time data of one link, stored in the flat arrays of a {@link TravelTimeDataFlatArrayFactory}.
+ * Behaves exactly like {@link TravelTimeDataArray}.
+ */
+/*package*/ final class TravelTimeDataFlatArray implements TravelTimeData {
+
+	private final double[] timeSum;
+	private final int[] timeCnt;
+	private final double[] travelTimes;
+	private final int offset;
+	private final int numSlots;
+	private final Link link;
+
+	/*package*/ TravelTimeDataFlatArray(final TravelTimeDataFlatArrayFactory factory, final Link link, final int offset) {
+		this.timeSum = factory.timeSum;
+		this.timeCnt = factory.timeCnt;
+		this.travelTimes = factory.travelTimes;
+		this.offset = offset;
+		this.numSlots = factory.numSlots;
+		this.link = link;
+		// the arrays of the factory are initialized empty, and several views on the same link must not clear each other's data
+	}
+
+	@Override
+	public void resetTravelTimes() {
+		for (int i = this.offset, end = this.offset + this.numSlots; i < end; i++) {
+			this.timeSum[i] = 0.0;
+			this.timeCnt[i] = 0;
+			this.travelTimes[i] = -1.0;
+		}
+	}
+
+	@Override
+	public void setTravelTime(final int timeSlot, final double traveltime) {
+		int i = this.offset + timeSlot;
+		this.timeSum[i] = traveltime;
+		this.timeCnt[i] = 1;
+		this.travelTimes[i] = traveltime;
+	}
+
+	@Override
+	public void addTravelTime(final int timeSlot, final double traveltime) {
+		int i = this.offset + timeSlot;
+		this.timeSum[i] += traveltime;
+		this.timeCnt[i]++;
+		this.travelTimes[i] = -1.0;
+	}
+
+	@Override
+	public double getTravelTime(final int timeSlot, final double now) {
+		int i = this.offset + timeSlot;
+		double ttime = this.travelTimes[i];
+		if (ttime >= 0.0) return ttime; // negative values are invalid.
+
+		int cnt = this.timeCnt[i];
+		if (cnt == 0) {
+			ttime = this.link.getLength() / this.link.getFreespeed(now);
+		} else {
+			ttime = this.timeSum[i] / cnt;
+		}
+		this.travelTimes[i] = ttime;
+		return ttime;
+	}
+
+}
@@ -0,0 +1,79 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TravelTimeDataFlatArrayFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.trafficmonitoring;
+
+import java.util.Arrays;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+/**
+ * Stores the travel time data of all links of the network in three flat arrays, instead of
+ * three arrays per link as {@link TravelTimeDataArrayFactory} does. The data of a link is found
+ * at <code>linkIndex * numSlots ... (linkIndex + 1) * numSlots - 1</code>, where the link index
+ * is the position of the link in the network. The {@link TravelTimeData} objects handed out by this
+ * factory are only views on these arrays.
+ * <br>
+ * All memory is allocated when the factory is created, also for links which are never used. Links
+ * which are not part of the network get their own {@link TravelTimeDataArray}.
+ */
+public class TravelTimeDataFlatArrayFactory implements TravelTimeDataFactory {
+
+	private final Network network;
+	/*package*/ final int numSlots;
+	private final int[] indexByLinkIdIndex;
+	/*package*/ final double[] timeSum;
+	/*package*/ final int[] timeCnt;
+	/*package*/ final double[] travelTimes;
+
+	public TravelTimeDataFlatArrayFactory(final Network network, final int numSlots) {
+		this.network = network;
+		this.numSlots = numSlots;
+		this.indexByLinkIdIndex = new int[Id.getNumberOfIds(Link.class)];
+		Arrays.fill(this.indexByLinkIdIndex, -1);
+		int linkCount = 0;
+		for (Link link : network.getLinks().values()) {
+			this.indexByLinkIdIndex[link.getId().index()] = linkCount++;
+		}
+		long size = (long) linkCount * numSlots;
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Cannot store " + numSlots + " time slots for each of the " + linkCount
+					+ " links in one array. Use a larger travel time bin size or another TravelTimeDataFactory.");
+		}
+		this.timeSum = new double[(int) size];
+		this.timeCnt = new int[(int) size];
+		this.travelTimes = new double[(int) size];
+		Arrays.fill(this.travelTimes, -1.0);
+	}
+
+	@Override
+	public TravelTimeData createTravelTimeData(final Id<Link> linkId) {
+		Link link = this.network.getLinks().get(linkId);
+		int index = linkId.index();
+		if (index < this.indexByLinkIdIndex.length && this.indexByLinkIdIndex[index] >= 0) {
+			return new TravelTimeDataFlatArray(this, link, this.indexByLinkIdIndex[index] * this.numSlots);
+		}
+		return new TravelTimeDataArray(link, this.numSlots);
+	}
+
+}
@@ -0,0 +1,161 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TravelTimeSnapshot.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.trafficmonitoring;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * The link travel times of all links of a network in time bins of equal size, stored in a binary file.
+ * The file is mapped into memory when it is read, so only the parts of it which are actually used are
+ * loaded, and several processes can share it.
+ * <br>
+ * The file format is, in big-endian byte order:
+ * <ul>
+ * <li>the magic number <code>0x4d4154535454534e</code> ("MATSTTSN") as long, and the version as int</li>
+ * <li>the size of a time bin in seconds, the number of time bins, and the number of links, as int</li>
+ * <li>for each link, the length of its id in bytes as int, followed by the UTF-8 encoded id</li>
+ * <li>the travel times in seconds as float, at <code>link * numberOfTimeBins + timeBin</code></li>
+ * </ul>
+ * Times after the last time bin belong to the last time bin. Links which are not contained in the file are
+ * traversed with free speed.
+ */
+public final class TravelTimeSnapshot implements TravelTime {
+
+	private static final long MAGIC = 0x4d4154535454534eL; // "MATSTTSN"
+	private static final int VERSION = 1;
+
+	private final int timeBinSize;
+	private final int numberOfTimeBins;
+	private final int[] rowByLinkIndex;
+	private final FloatBuffer travelTimes;
+
+	private TravelTimeSnapshot(final int timeBinSize, final int numberOfTimeBins, final int[] rowByLinkIndex, final FloatBuffer travelTimes) {
+		this.timeBinSize = timeBinSize;
+		this.numberOfTimeBins = numberOfTimeBins;
+		this.rowByLinkIndex = rowByLinkIndex;
+		this.travelTimes = travelTimes;
+	}
+
+	@Override
+	public double getLinkTravelTime(final Link link, final double time, final Person person, final Vehicle vehicle) {
+		int index = link.getId().index();
+		int row = index < this.rowByLinkIndex.length ? this.rowByLinkIndex[index] : -1;
+		if (row < 0) {
+			return link.getLength() / link.getFreespeed(time);
+		}
+		int bin = (int) (Math.max(0.0, time) / this.timeBinSize);
+		if (bin >= this.numberOfTimeBins) {
+			bin = this.numberOfTimeBins - 1;
+		}
+		return this.travelTimes.get(row * this.numberOfTimeBins + bin);
+	}
+
+	public int getTimeBinSize() {
+		return this.timeBinSize;
+	}
+
+	public int getNumberOfTimeBins() {
+		return this.numberOfTimeBins;
+	}
+
+	/**
+	 * Maps the file into memory. The travel times are only read from the file when they are requested.
+	 */
+	public static TravelTimeSnapshot read(final File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("The travel time file " + file + " is too large.");
+			}
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getLong() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("The file " + file + " is not a travel time file of this version.");
+			}
+			int timeBinSize = buffer.getInt();
+			int numberOfTimeBins = buffer.getInt();
+			int linkCount = buffer.getInt();
+			int[] linkIndices = new int[linkCount];
+			for (int l = 0; l < linkCount; l++) {
+				byte[] id = new byte[buffer.getInt()];
+				buffer.get(id);
+				linkIndices[l] = Id.createLinkId(new String(id, StandardCharsets.UTF_8)).index();
+			}
+			int[] rowByLinkIndex = new int[Id.getNumberOfIds(Link.class)];
+			Arrays.fill(rowByLinkIndex, -1);
+			for (int l = 0; l < linkCount; l++) {
+				rowByLinkIndex[linkIndices[l]] = l;
+			}
+			if (buffer.remaining() != 4L * linkCount * numberOfTimeBins) {
+				throw new IOException("The travel time file " + file + " is incomplete.");
+			}
+			// the mapping stays valid after the channel is closed
+			return new TravelTimeSnapshot(timeBinSize, numberOfTimeBins, rowByLinkIndex, buffer.slice().asFloatBuffer());
+		}
+	}
+
+	/**
+	 * Writes the travel times of all links of the network at the start of each time bin to the file. The file
+	 * is first written under a temporary name and then renamed, so other processes never see an incomplete file.
+	 */
+	public static void write(final File file, final Network network, final TravelTime travelTime, final int timeBinSize,
+			final int numberOfTimeBins) throws IOException {
+		Link[] links = network.getLinks().values().toArray(new Link[network.getLinks().size()]);
+		File tmpFile = new File(file.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16))) {
+			out.writeLong(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(timeBinSize);
+			out.writeInt(numberOfTimeBins);
+			out.writeInt(links.length);
+			for (Link link : links) {
+				byte[] id = link.getId().toString().getBytes(StandardCharsets.UTF_8);
+				out.writeInt(id.length);
+				out.write(id);
+			}
+			for (Link link : links) {
+				for (int bin = 0; bin < numberOfTimeBins; bin++) {
+					out.writeFloat((float) travelTime.getLinkTravelTime(link, bin * timeBinSize, null, null));
+				}
+			}
+		}
+		Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+}
@@ -0,0 +1,76 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TravelTimeSnapshotWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.trafficmonitoring;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes the travel times collected by the {@link TravelTimeCalculator} as {@link TravelTimeSnapshot} at the end of
+ * every <code>writeTravelTimesInterval</code>-th iteration, and to the output directory at the end of the last iteration.
+ */
+final class TravelTimeSnapshotWriter implements IterationEndsListener {
+
+	private static final Logger log = Logger.getLogger(TravelTimeSnapshotWriter.class);
+
+	/*package*/ static final String FILENAME = "linkTravelTimes.bin";
+
+	@Inject private TravelTimeCalculatorConfigGroup travelTimeCalculatorConfigGroup;
+	@Inject private ControlerConfigGroup controlerConfigGroup;
+	@Inject private TravelTimeCalculator travelTimeCalculator;
+	@Inject private Network network;
+	@Inject private OutputDirectoryHierarchy controlerIO;
+
+	@Override
+	public void notifyIterationEnds(IterationEndsEvent event) {
+		int iteration = event.getIteration();
+		int interval = this.travelTimeCalculatorConfigGroup.getWriteTravelTimesInterval();
+		if (interval > 0 && iteration % interval == 0) {
+			write(this.controlerIO.getIterationFilename(iteration, FILENAME));
+		}
+		if (iteration == this.controlerConfigGroup.getLastIteration()) {
+			write(this.controlerIO.getOutputFilename("output_" + FILENAME));
+		}
+	}
+
+	private void write(final String filename) {
+		try {
+			TravelTimeSnapshot.write(new File(filename), this.network, this.travelTimeCalculator.getLinkTravelTimes(),
+					this.travelTimeCalculator.getTimeSlice(), this.travelTimeCalculator.getNumSlots());
+			log.info("Wrote link travel times to " + filename);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,277 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdMap.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.matsim.api.core.v01.Id;
+
+/**
+ * A map with {@link Id}s as keys, which stores the keys and values in arrays at the position given by {@link Id#index()}.
+ * Looking up a value thus does not need to compute any hash codes, and the map does not need any entry objects.
+ * The map is most efficient if most of the ids of a type are used as keys, e.g. for data per link or per person.
+ * <br>
+ * The entries are iterated in the order of the ids' indices, i.e. in the order in which the ids were created.
+ * <br>
+ * Does not permit <code>null</code> values. Not thread-safe.
+ */
+public final class IdMap<T, V> extends AbstractMap<Id<T>, V> {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private Id<?>[] keys;
+	private Object[] values;
+	private int size = 0;
+	private int modCount = 0;
+	private Set<Map.Entry<Id<T>, V>> entrySet = null;
+
+	/**
+	 * Creates a map which can hold all ids of the given type created so far without growing.
+	 */
+	public IdMap(final Class<T> idClass) {
+		this(Id.getNumberOfIds(idClass));
+	}
+
+	public IdMap(final int initialCapacity) {
+		int capacity = Math.max(initialCapacity, MIN_CAPACITY);
+		this.keys = new Id<?>[capacity];
+		this.values = new Object[capacity];
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return get(key) != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(final Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : (V) this.values[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(final Id<T> key, final V value) {
+		if (value == null) {
+			throw new NullPointerException("null values are not supported.");
+		}
+		int index = key.index();
+		if (index >= this.values.length) {
+			int capacity = Math.max(index + 1, this.values.length * 2);
+			this.keys = Arrays.copyOf(this.keys, capacity);
+			this.values = Arrays.copyOf(this.values, capacity);
+		} else if (this.keys[index] != null && !this.keys[index].equals(key)) {
+			throw new IllegalArgumentException("the id " + key + " has the same index as the key " + this.keys[index]
+					+ ". Probably, the ids are of different types.");
+		}
+		V oldValue = (V) this.values[index];
+		this.keys[index] = key;
+		this.values[index] = value;
+		if (oldValue == null) {
+			this.size++;
+			this.modCount++;
+		}
+		return oldValue;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V remove(final Object key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+		V oldValue = (V) this.values[index];
+		removeIndex(index);
+		return oldValue;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.keys, null);
+		Arrays.fill(this.values, null);
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Set<Map.Entry<Id<T>, V>> entrySet() {
+		if (this.entrySet == null) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	/**
+	 * @return the position of the key in the arrays, or <code>-1</code> if the key is not contained.  Also compares the
+	 * keys as ids of different types may have the same index.
+	 */
+	private int indexOf(final Object key) {
+		if (key instanceof Id) {
+			int index = ((Id<?>) key).index();
+			if (index < this.keys.length) {
+				Id<?> storedKey = this.keys[index];
+				if (storedKey != null && (storedKey == key || storedKey.equals(key))) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private void removeIndex(final int index) {
+		this.keys[index] = null;
+		this.values[index] = null;
+		this.size--;
+		this.modCount++;
+	}
+
+	private final class EntrySet extends AbstractSet<Map.Entry<Id<T>, V>> {
+		@Override
+		public Iterator<Map.Entry<Id<T>, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return IdMap.this.size;
+		}
+
+		@Override
+		public void clear() {
+			IdMap.this.clear();
+		}
+	}
+
+	private final class EntryIterator implements Iterator<Map.Entry<Id<T>, V>> {
+		private int next = -1;
+		private int lastReturned = -1;
+		private int expectedModCount = IdMap.this.modCount;
+
+		EntryIterator() {
+			advance();
+		}
+
+		private void advance() {
+			do {
+				this.next++;
+			} while (this.next < IdMap.this.values.length && IdMap.this.values[this.next] == null);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next < IdMap.this.values.length;
+		}
+
+		@Override
+		public Map.Entry<Id<T>, V> next() {
+			if (this.expectedModCount != IdMap.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (this.next >= IdMap.this.values.length) {
+				throw new NoSuchElementException();
+			}
+			this.lastReturned = this.next;
+			advance();
+			return new Entry(this.lastReturned);
+		}
+
+		@Override
+		public void remove() {
+			if (this.lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			if (this.expectedModCount != IdMap.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeIndex(this.lastReturned);
+			this.lastReturned = -1;
+			this.expectedModCount = IdMap.this.modCount;
+		}
+	}
+
+	private final class Entry implements Map.Entry<Id<T>, V> {
+		private final int index;
+
+		Entry(final int index) {
+			this.index = index;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Id<T> getKey() {
+			return (Id<T>) IdMap.this.keys[this.index];
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V getValue() {
+			return (V) IdMap.this.values[this.index];
+		}
+
+		@Override
+		public V setValue(final V value) {
+			if (value == null) {
+				throw new NullPointerException("null values are not supported.");
+			}
+			V oldValue = getValue();
+			IdMap.this.values[this.index] = value;
+			return oldValue;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return getKey().equals(e.getKey()) && getValue().equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ getValue().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+}
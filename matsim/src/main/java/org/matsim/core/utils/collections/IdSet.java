@@ -0,0 +1,137 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdSet.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.matsim.api.core.v01.Id;
+
+/**
+ * A set of {@link Id}s, which stores for every id index (see {@link Id#index()}) only one bit whether the id is contained.
+ * <br>
+ * The ids are iterated in the order of their indices, i.e. in the order in which they were created.
+ * All ids must be of the type given in the constructor (ids of other types with the same index would be considered equal).
+ * <br>
+ * Not thread-safe.
+ */
+public final class IdSet<T> extends AbstractSet<Id<T>> {
+
+	private final Class<T> idClass;
+	private final BitSet bits;
+	private int size = 0;
+	private int modCount = 0;
+
+	public IdSet(final Class<T> idClass) {
+		this.idClass = idClass;
+		this.bits = new BitSet(Id.getNumberOfIds(idClass));
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public boolean contains(final Object o) {
+		return (o instanceof Id) && this.bits.get(((Id<?>) o).index());
+	}
+
+	@Override
+	public boolean add(final Id<T> id) {
+		int index = id.index();
+		if (this.bits.get(index)) {
+			return false;
+		}
+		this.bits.set(index);
+		this.size++;
+		this.modCount++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(final Object o) {
+		if (contains(o)) {
+			this.bits.clear(((Id<?>) o).index());
+			this.size--;
+			this.modCount++;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		this.bits.clear();
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Iterator<Id<T>> iterator() {
+		return new Iterator<Id<T>>() {
+			private int next = IdSet.this.bits.nextSetBit(0);
+			private int lastReturned = -1;
+			private int expectedModCount = IdSet.this.modCount;
+
+			@Override
+			public boolean hasNext() {
+				return this.next >= 0;
+			}
+
+			@Override
+			public Id<T> next() {
+				if (this.expectedModCount != IdSet.this.modCount) {
+					throw new ConcurrentModificationException();
+				}
+				if (this.next < 0) {
+					throw new NoSuchElementException();
+				}
+				this.lastReturned = this.next;
+				this.next = IdSet.this.bits.nextSetBit(this.next + 1);
+				return Id.get(this.lastReturned, IdSet.this.idClass);
+			}
+
+			@Override
+			public void remove() {
+				if (this.lastReturned < 0) {
+					throw new IllegalStateException();
+				}
+				if (this.expectedModCount != IdSet.this.modCount) {
+					throw new ConcurrentModificationException();
+				}
+				IdSet.this.bits.clear(this.lastReturned);
+				IdSet.this.size--;
+				IdSet.this.modCount++;
+				this.lastReturned = -1;
+				this.expectedModCount = IdSet.this.modCount;
+			}
+		};
+	}
+}
@@ -0,0 +1,234 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RingBufferQueue.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.AbstractQueue;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A FIFO queue backed by a circular array. In contrast to a {@link java.util.LinkedList}, adding an element
+ * does not allocate any memory as long as the capacity of the array is sufficient; if it is not, the array
+ * is doubled. The array never shrinks, i.e. after a short warm-up phase, a queue which is used over and over
+ * again (as the queues of the links in the mobsim) does not produce any garbage.
+ * <br>
+ * Removing the first element (e.g. by {@link #poll()}, or by {@link #remove(Object)} if the object is
+ * the first element) is <code>O(1)</code>, removing any other element is <code>O(n)</code>.
+ * <br>
+ * Does not permit <code>null</code> elements. Not thread-safe.
+ */
+public final class RingBufferQueue<E> extends AbstractQueue<E> {
+
+	private static final int DEFAULT_CAPACITY = 4;
+
+	private Object[] elements;
+	/** the capacity is always a power of two, thus the positions can be wrapped using this mask */
+	private int mask;
+	private int head = 0;
+	private int size = 0;
+	private int modCount = 0;
+
+	public RingBufferQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public RingBufferQueue(final int initialCapacity) {
+		int capacity = powerOfTwoCapacity(initialCapacity);
+		this.elements = new Object[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Makes sure that the queue can hold at least the given number of elements without growing.
+	 */
+	public void ensureCapacity(final int minCapacity) {
+		if (minCapacity > this.elements.length) {
+			resize(powerOfTwoCapacity(minCapacity));
+		}
+	}
+
+	@Override
+	public boolean offer(final E e) {
+		if (e == null) {
+			throw new NullPointerException();
+		}
+		if (this.size == this.elements.length) {
+			resize(this.elements.length * 2);
+		}
+		this.elements[(this.head + this.size) & this.mask] = e;
+		this.size++;
+		this.modCount++;
+		return true;
+	}
+
+	/**
+	 * Inserts the element in front of all other elements.
+	 */
+	public void addFirst(final E e) {
+		if (e == null) {
+			throw new NullPointerException();
+		}
+		if (this.size == this.elements.length) {
+			resize(this.elements.length * 2);
+		}
+		this.head = (this.head - 1) & this.mask;
+		this.elements[this.head] = e;
+		this.size++;
+		this.modCount++;
+	}
+
+	@Override
+	public E poll() {
+		if (this.size == 0) {
+			return null;
+		}
+		@SuppressWarnings("unchecked")
+		E e = (E) this.elements[this.head];
+		this.elements[this.head] = null;
+		this.head = (this.head + 1) & this.mask;
+		this.size--;
+		this.modCount++;
+		return e;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E peek() {
+		return this.size == 0 ? null : (E) this.elements[this.head];
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public boolean remove(final Object o) {
+		if (o == null) {
+			return false;
+		}
+		for (int i = 0; i < this.size; i++) {
+			if (o.equals(this.elements[(this.head + i) & this.mask])) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.elements[(this.head + i) & this.mask] = null;
+		}
+		this.head = 0;
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Itr();
+	}
+
+	/**
+	 * Removes the element at the given position (relative to the head of the queue) by moving
+	 * all following elements one position towards the head.
+	 */
+	private void removeAt(final int index) {
+		if (index == 0) {
+			poll();
+			return;
+		}
+		for (int i = index; i < this.size - 1; i++) {
+			this.elements[(this.head + i) & this.mask] = this.elements[(this.head + i + 1) & this.mask];
+		}
+		this.elements[(this.head + this.size - 1) & this.mask] = null;
+		this.size--;
+		this.modCount++;
+	}
+
+	private void resize(final int newCapacity) {
+		Object[] newElements = new Object[newCapacity];
+		for (int i = 0; i < this.size; i++) {
+			newElements[i] = this.elements[(this.head + i) & this.mask];
+		}
+		this.elements = newElements;
+		this.mask = newCapacity - 1;
+		this.head = 0;
+	}
+
+	private static int powerOfTwoCapacity(final int minCapacity) {
+		if (minCapacity > (1 << 30)) {
+			throw new IllegalArgumentException("capacity too large: " + minCapacity);
+		}
+		int capacity = 1;
+		while (capacity < minCapacity) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private final class Itr implements Iterator<E> {
+		private int next = 0;
+		private int lastReturned = -1;
+		private int expectedModCount = RingBufferQueue.this.modCount;
+
+		@Override
+		public boolean hasNext() {
+			return this.next < RingBufferQueue.this.size;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E next() {
+			if (this.expectedModCount != RingBufferQueue.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (this.next >= RingBufferQueue.this.size) {
+				throw new NoSuchElementException();
+			}
+			this.lastReturned = this.next;
+			this.next++;
+			return (E) RingBufferQueue.this.elements[(RingBufferQueue.this.head + this.lastReturned) & RingBufferQueue.this.mask];
+		}
+
+		@Override
+		public void remove() {
+			if (this.lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			if (this.expectedModCount != RingBufferQueue.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(this.lastReturned);
+			this.next = this.lastReturned;
+			this.lastReturned = -1;
+			this.expectedModCount = RingBufferQueue.this.modCount;
+		}
+	}
+}
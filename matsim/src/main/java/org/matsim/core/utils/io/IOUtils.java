@@ -259,7 +259,7 @@ public class IOUtils {
 				if (append && f.exists() && (f.length() > 0)) {
 					throw new IllegalArgumentException("Appending to an existing gzip-compressed file is not supported.");
 				}
-				return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(filename, append)), charset));
+				return new BufferedWriter(new OutputStreamWriter(createGzipOutputStream(new FileOutputStream(filename, append)), charset));
 			}
 			return new BufferedWriter(new OutputStreamWriter(new FileOutputStream (filename, append), charset));
 		} catch (IOException e) {
@@ -586,6 +586,17 @@ public class IOUtils {
 		}
 	}
 
+	/**
+	 * Uses {@link ParallelGZIPOutputStream} if more than one core is available, as compression is usually
+	 * the bottleneck when writing large compressed files.
+	 */
+	private static OutputStream createGzipOutputStream(final OutputStream out) throws IOException {
+		if (Runtime.getRuntime().availableProcessors() > 1) {
+			return new ParallelGZIPOutputStream(out);
+		}
+		return new GZIPOutputStream(out);
+	}
+
 	public static InputStream getInputStream(URL url) throws UncheckedIOException {
 		try {
 			if (url.getFile().endsWith(".gz")) {
@@ -613,7 +624,7 @@ public class IOUtils {
 		}
 		try {
 			if (filename.toLowerCase(Locale.ROOT).endsWith(GZ)) {
-				return new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(filename)));
+				return new BufferedOutputStream(createGzipOutputStream(new FileOutputStream(filename)));
 			} else {
 				return new BufferedOutputStream(new FileOutputStream (filename));
 			}
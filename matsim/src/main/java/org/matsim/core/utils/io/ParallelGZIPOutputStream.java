@@ -0,0 +1,285 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelGZIPOutputStream.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A drop-in replacement for {@link java.util.zip.GZIPOutputStream} which compresses the data on multiple
+ * threads, similar to <a href="http://zlib.net/pigz/">pigz</a>.
+ * <br>
+ * The data is split into blocks of {@value #BLOCK_SIZE} bytes, which are deflated independently of each
+ * other by a thread pool shared by all instances. Each block uses the last 32 kB of the preceding block
+ * as preset dictionary and ends with a sync flush, so the compressed blocks can simply be concatenated.
+ * The result is one ordinary gzip member which can be read by any gzip implementation, and the compression
+ * ratio is practically the same as with single-threaded compression.
+ * <br>
+ * Writing stays in the calling thread, only the compressed blocks are written to the underlying stream
+ * in order. Small outputs which fit into a single block are compressed in the calling thread at the end,
+ * so they do not pay for any thread hand-over.
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+	/*package*/ static final int BLOCK_SIZE = 128 * 1024;
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final byte[] HEADER = {
+			(byte) 0x1f, (byte) 0x8b, // magic
+			Deflater.DEFLATED, // compression method
+			0, // flags
+			0, 0, 0, 0, // modification time
+			0, // extra flags
+			0 // operating system
+	};
+
+	private static final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+		@Override
+		protected Deflater initialValue() {
+			return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		}
+	};
+
+	private final int maxPendingBlocks;
+	private final ArrayDeque<Future<ByteArrayOutputStream>> pending = new ArrayDeque<>();
+	private final CRC32 crc = new CRC32();
+	private long totalLength = 0;
+
+	private byte[] buffer = new byte[BLOCK_SIZE];
+	private int count = 0;
+	private byte[] previousBlock = null;
+	private boolean closed = false;
+
+	public ParallelGZIPOutputStream(final OutputStream out) throws IOException {
+		super(out);
+		// keep enough blocks in flight that all threads have work, but limit the memory used by slow writers
+		this.maxPendingBlocks = 2 * ThreadPoolHolder.NUMBER_OF_THREADS;
+		out.write(HEADER);
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		ensureOpen();
+		this.buffer[this.count++] = (byte) b;
+		if (this.count == BLOCK_SIZE) {
+			submitBlock(false);
+		}
+	}
+
+	@Override
+	public void write(final byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		while (len > 0) {
+			int n = Math.min(len, BLOCK_SIZE - this.count);
+			System.arraycopy(b, off, this.buffer, this.count, n);
+			this.count += n;
+			off += n;
+			len -= n;
+			if (this.count == BLOCK_SIZE) {
+				submitBlock(false);
+			}
+		}
+	}
+
+	/**
+	 * Writes all blocks which have been compressed so far to the underlying stream and flushes it.
+	 * Data which does not yet fill a complete block is not compressed, as this would reduce the
+	 * compression ratio. This is the same behavior as that of {@link java.util.zip.GZIPOutputStream#flush()}.
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		while (!this.pending.isEmpty()) {
+			writeFirstPendingBlock();
+		}
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		try {
+			submitBlock(true);
+			while (!this.pending.isEmpty()) {
+				writeFirstPendingBlock();
+			}
+			writeIntLE((int) this.crc.getValue());
+			writeIntLE((int) this.totalLength);
+		} finally {
+			this.closed = true;
+			for (Future<ByteArrayOutputStream> future : this.pending) {
+				future.cancel(false);
+			}
+			this.pending.clear();
+			this.out.close();
+		}
+	}
+
+	private void submitBlock(final boolean last) throws IOException {
+		this.crc.update(this.buffer, 0, this.count);
+		this.totalLength += this.count;
+		BlockCompressor task = new BlockCompressor(this.buffer, this.count, this.previousBlock, last);
+		if (last && this.pending.isEmpty()) {
+			this.pending.add(new CompletedFuture(task.call()));
+		} else {
+			this.pending.add(ThreadPoolHolder.EXECUTOR.submit(task));
+		}
+		// the submitted buffer is not modified anymore, so it can be used as dictionary for the next block
+		this.previousBlock = this.buffer;
+		this.buffer = new byte[BLOCK_SIZE];
+		this.count = 0;
+		while (this.pending.size() > this.maxPendingBlocks) {
+			writeFirstPendingBlock();
+		}
+	}
+
+	private void writeFirstPendingBlock() throws IOException {
+		Future<ByteArrayOutputStream> future = this.pending.removeFirst();
+		try {
+			future.get().writeTo(this.out);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the compression of a block.");
+		} catch (ExecutionException e) {
+			throw new IOException("Could not compress block.", e.getCause());
+		}
+	}
+
+	private void writeIntLE(final int value) throws IOException {
+		this.out.write(value & 0xff);
+		this.out.write((value >>> 8) & 0xff);
+		this.out.write((value >>> 16) & 0xff);
+		this.out.write((value >>> 24) & 0xff);
+	}
+
+	private void ensureOpen() throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed.");
+		}
+	}
+
+	private static final class BlockCompressor implements Callable<ByteArrayOutputStream> {
+		private final byte[] data;
+		private final int length;
+		private final byte[] dictionary;
+		private final boolean last;
+
+		BlockCompressor(final byte[] data, final int length, final byte[] dictionary, final boolean last) {
+			this.data = data;
+			this.length = length;
+			this.dictionary = dictionary;
+			this.last = last;
+		}
+
+		@Override
+		public ByteArrayOutputStream call() {
+			Deflater deflater = deflaters.get();
+			deflater.reset();
+			if (this.dictionary != null) {
+				deflater.setDictionary(this.dictionary, BLOCK_SIZE - DICTIONARY_SIZE, DICTIONARY_SIZE);
+			}
+			deflater.setInput(this.data, 0, this.length);
+			ByteArrayOutputStream result = new ByteArrayOutputStream(this.length / 4 + 64);
+			byte[] output = new byte[16 * 1024];
+			if (this.last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					int n = deflater.deflate(output, 0, output.length);
+					result.write(output, 0, n);
+				}
+			} else {
+				// a sync flush ends the block on a byte boundary, so the next block can directly follow it
+				int n;
+				do {
+					n = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+					result.write(output, 0, n);
+				} while (n == output.length);
+			}
+			return result;
+		}
+	}
+
+	private static final class CompletedFuture implements Future<ByteArrayOutputStream> {
+		private final ByteArrayOutputStream value;
+
+		CompletedFuture(final ByteArrayOutputStream value) {
+			this.value = value;
+		}
+
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning) {
+			return false;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+
+		@Override
+		public boolean isDone() {
+			return true;
+		}
+
+		@Override
+		public ByteArrayOutputStream get() {
+			return this.value;
+		}
+
+		@Override
+		public ByteArrayOutputStream get(final long timeout, final TimeUnit unit) {
+			return this.value;
+		}
+	}
+
+	/**
+	 * The thread pool is only created when it is used the first time.
+	 */
+	private static final class ThreadPoolHolder {
+		static final int NUMBER_OF_THREADS = Runtime.getRuntime().availableProcessors();
+		static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(NUMBER_OF_THREADS, new ThreadFactory() {
+			private final AtomicInteger counter = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				Thread thread = new Thread(r, "ParallelGZIP-" + this.counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+}
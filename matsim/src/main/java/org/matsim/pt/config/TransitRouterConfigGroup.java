@@ -31,11 +31,15 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 	/*package*/ static final String EXTENSION_RADIUS = "extensionRadius";
 	/*package*/ static final String MAX_BEELINE_WALK_CONNECTION_DISTANCE = "maxBeelineWalkConnectionDistance";
 	/*package*/ static final String ADDITIONAL_TRANSFER_TIME = "additionalTransferTime";
+	/*package*/ static final String ROUTER_TYPE = "routerType";
+
+	public enum TransitRouterType { Dijkstra, Raptor }
 
 	private double searchRadius = 1000.0;
 	private double extensionRadius = 200.0;
 	private double maxBeelineWalkConnectionDistance = 100.0;
 	private double additionalTransferTime = 0.0;
+	private TransitRouterType routerType = TransitRouterType.Dijkstra;
 
 	private double directWalkFactor = 1. ;
 
@@ -54,6 +58,8 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 		comments.put(MAX_BEELINE_WALK_CONNECTION_DISTANCE, "maximum beeline distance between stops that agents could transfer to by walking");
 		comments.put(ADDITIONAL_TRANSFER_TIME, "additional time the router allocates when a line switch happens. Can be interpreted as a 'safety' time that agents need to safely transfer from one line to another");
 		comments.put(DIRECT_WALK_FACTOR, DIRECT_WALK_FACTOR_CMT);
+		comments.put(ROUTER_TYPE, "the algorithm used to find the routes, may have the values: " + TransitRouterType.Dijkstra + " (on the transit router network) or "
+				+ TransitRouterType.Raptor + " (round-based, on flat arrays of the schedule). Both find the same routes, except that " + TransitRouterType.Raptor + " sometimes finds a cheaper one, and " + TransitRouterType.Raptor + " is considerably faster.");
 		return comments;
 	}
 
@@ -101,6 +107,17 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 		return this.additionalTransferTime;
 	}
 
+	@StringSetter( ROUTER_TYPE )
+	public void setRouterType(final TransitRouterType routerType) {
+		testForLocked() ;
+		this.routerType = routerType;
+	}
+
+	@StringGetter( ROUTER_TYPE )
+	public TransitRouterType getRouterType() {
+		return this.routerType;
+	}
+
 	/**
 	 * {@value #DIRECT_WALK_FACTOR_CMT}
 	 */
@@ -20,10 +20,15 @@
 package org.matsim.pt.router;
 
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
 import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitRoute;
 import org.matsim.pt.transitSchedule.api.TransitRouteStop;
 import org.matsim.pt.transitSchedule.api.TransitSchedule;
@@ -35,27 +40,42 @@ import org.matsim.pt.transitSchedule.api.TransitSchedule;
  * 
  * (I renamed this class and put the TransitSchedule in the constructor to make the purpose clear. michaz '13)
  * 
- * Thread-safe.
+ * Thread-safe. The sorted departures of all routes of the schedule are prepared in the constructor and only read
+ * afterwards, so one instance can be shared by all transit routers of all threads. It is bound as singleton, so
+ * the routers created by the injector share the same instance.
  * 
  * @author mrieser
  *
  */
+@Singleton
 public class PreparedTransitSchedule {
-	
+
+	/**
+	 * The sorted departure times of each route at its first stop. Filled in the constructor, read-only afterwards.
+	 */
+	private final Map<TransitRoute, double[]> sortedDepartures = new IdentityHashMap<>();
+
 	/*
 	 * This needs to be a ConcurrentHashMap since multiple threads might add
 	 * data concurrently. Alternatively, the map could be filled with data
 	 * before getNextDepartureTime(...) - then all concurrent accesses would be
 	 * read only.
 	 * cdobler, nov'12
+	 * 
+	 * Only used for routes which were not part of the schedule when this object was created.
 	 */
 	private final Map<TransitRoute, double[]> sortedDepartureCache = new ConcurrentHashMap<TransitRoute, double[]>();
 
     /*
      * Conceptually, an instance of this class wraps a TransitSchedule to optimize a function of it.
      */
+	@Inject
 	public PreparedTransitSchedule(TransitSchedule schedule) {
-		
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				this.sortedDepartures.put(route, createSortedDepartures(route));
+			}
+		}
 	}
 
 	@Deprecated
@@ -65,10 +85,44 @@ public class PreparedTransitSchedule {
 	public PreparedTransitSchedule() {
 
 	}
-	
+
+	private static double[] createSortedDepartures(final TransitRoute route) {
+		double[] departures = new double[route.getDepartures().size()];
+		int i = 0;
+		for (Departure dep : route.getDepartures().values()) {
+			departures[i++] = dep.getDepartureTime();
+		}
+		Arrays.sort(departures);
+		return departures;
+	}
+
 	public double getNextDepartureTime(final TransitRoute route, final TransitRouteStop stop, final double depTime) {
+		// this will search for the terminus departure that corresponds to my departure at the stop:
+		double[] cache = this.sortedDepartures.get(route);
+		if (cache == null) {
+			cache = this.sortedDepartureCache.get(route);
+			if (cache == null) {
+				cache = createSortedDepartures(route);
+				this.sortedDepartureCache.put(route, cache);
+			}
+		}
+		return getNextDepartureTime(cache, 0, cache.length, stop.getDepartureOffset(), depTime);
+	}
+
+	/**
+	 * @param sortedDepartures contains the sorted departure times of the route at its first stop at the indices
+	 * <code>from ... to-1</code>.
+	 * @param departureOffset the departure offset of the stop.
+	 * @return the next departure time of the route at the stop, or <code>Double.POSITIVE_INFINITY</code> if the route
+	 * has no departures.
+	 */
+	/*package*/ static double getNextDepartureTime(final double[] sortedDepartures, final int from, final int to,
+			final double departureOffset, final double depTime) {
+		if (from == to) {
+			return Double.POSITIVE_INFINITY;
+		}
 	
-		double earliestDepartureTimeAtTerminus = depTime - stop.getDepartureOffset();
+		double earliestDepartureTimeAtTerminus = depTime - departureOffset;
 		// This shifts my time back to the terminus.
 	
 		if (earliestDepartureTimeAtTerminus >= TransitRouterNetworkTravelTimeAndDisutility.MIDNIGHT) {
@@ -79,31 +133,20 @@ public class PreparedTransitSchedule {
 			earliestDepartureTimeAtTerminus += TransitRouterNetworkTravelTimeAndDisutility.MIDNIGHT;
 		}
 	
-		// this will search for the terminus departure that corresponds to my departure at the stop:
-		double[] cache = sortedDepartureCache.get(route);
-		if (cache == null) {
-			cache = new double[route.getDepartures().size()];
-			int i = 0;
-			for (Departure dep : route.getDepartures().values()) {
-				cache[i++] = dep.getDepartureTime();
-			}
-			Arrays.sort(cache);
-			sortedDepartureCache.put(route, cache);
-		}
-		int pos = Arrays.binarySearch(cache, earliestDepartureTimeAtTerminus);
+		int pos = Arrays.binarySearch(sortedDepartures, from, to, earliestDepartureTimeAtTerminus);
 		if (pos < 0) {
 			// (if the departure time is not found _exactly_, binarySearch returns (-(insertion point) - 1).  That is
 			// retval = -(insertion point) - 1  or insertion point = -(retval+1) .
 			// This will, in fact, be the normal situation, so it is important to understand this.)
 			pos = -(pos + 1);
 		}
-		if (pos >= cache.length) {
-			pos = 0; // there is no later departure time, take the first in the morning
+		if (pos >= to) {
+			pos = from; // there is no later departure time, take the first in the morning
 		}
-		double bestDepartureTime = cache[pos];
+		double bestDepartureTime = sortedDepartures[pos];
 		// (departure time at terminus)
 	
-		bestDepartureTime += stop.getDepartureOffset();
+		bestDepartureTime += departureOffset;
 		// (resulting departure time at stop)
 		
 		while (bestDepartureTime < depTime) {
@@ -112,4 +155,4 @@ public class PreparedTransitSchedule {
 		}
 		return bestDepartureTime;
 	}
-}
\ No newline at end of file
+}
@@ -28,6 +28,9 @@ import javax.inject.Provider;
 import javax.inject.Singleton;
 
 /**
+ * Creates {@link TransitRouterImpl}s. The {@link TransitRouterNetwork} and the {@link PreparedTransitSchedule}
+ * are created once and shared by all routers, as both are only read while routing.
+ *
  * @author mrieser
  */
 @Singleton
@@ -38,18 +41,33 @@ public class TransitRouterImplFactory implements Provider<TransitRouter> {
 	private final PreparedTransitSchedule preparedTransitSchedule;
 
 	@Inject
-	TransitRouterImplFactory(final TransitSchedule schedule, final Config config) {
+	TransitRouterImplFactory(final TransitSchedule schedule, final Config config, final PreparedTransitSchedule preparedTransitSchedule) {
 		this(schedule, new TransitRouterConfig(
 				config.planCalcScore(),
 				config.plansCalcRoute(),
 				config.transitRouter(),
-				config.vspExperimental()));
+				config.vspExperimental()), preparedTransitSchedule);
 	}
 
 	public TransitRouterImplFactory(final TransitSchedule schedule, final TransitRouterConfig config) {
+		this(schedule, config, new PreparedTransitSchedule(schedule));
+	}
+
+	public TransitRouterImplFactory(final TransitSchedule schedule, final TransitRouterConfig config, final PreparedTransitSchedule preparedTransitSchedule) {
+		this(config, TransitRouterNetwork.createFromSchedule(schedule, config.getBeelineWalkConnectionDistance()), preparedTransitSchedule);
+	}
+
+	/**
+	 * Uses the given network instead of creating one, e.g. to share the network between several factories.
+	 */
+	public TransitRouterImplFactory(final TransitSchedule schedule, final TransitRouterConfig config, final TransitRouterNetwork routerNetwork) {
+		this(config, routerNetwork, new PreparedTransitSchedule(schedule));
+	}
+
+	private TransitRouterImplFactory(final TransitRouterConfig config, final TransitRouterNetwork routerNetwork, final PreparedTransitSchedule preparedTransitSchedule) {
 		this.config = config;
-		this.routerNetwork = TransitRouterNetwork.createFromSchedule(schedule, this.config.getBeelineWalkConnectionDistance());
-		this.preparedTransitSchedule = new PreparedTransitSchedule(schedule);
+		this.routerNetwork = routerNetwork;
+		this.preparedTransitSchedule = preparedTransitSchedule;
 	}
 
 	@Override
@@ -0,0 +1,590 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TransitRouterRaptor.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.gbl.Gbl;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.GenericRouteImpl;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.facilities.Facility;
+import org.matsim.pt.routes.ExperimentalTransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * A {@link TransitRouter} based on RAPTOR (round-based public transit routing, Delling et al. 2012),
+ * working on the flat arrays of a {@link TransitRouterRaptorData}.
+ * <br>
+ * Each round first scans the transit routes which can be boarded at a stop whose cost was improved
+ * in the previous round, and then relaxes the transfers from all stops improved by riding. In contrast
+ * to the original RAPTOR, which minimizes the arrival time per number of transfers, the labels are the
+ * generalized costs of {@link TransitRouterNetworkTravelTimeAndDisutility}, and the labels are kept per
+ * stop of a transit route, like the nodes of the {@link TransitRouterNetwork}. The rounds are repeated
+ * until no label improves any more. Thus the routes found are the same as the ones of
+ * {@link TransitRouterImpl}, while no objects are created or looked up in maps during the search.
+ * The only exception: as the cost of a ride depends on the time when the stop is reached, a stop which
+ * is reached earlier but at a higher cost can lead to a cheaper route. {@link TransitRouterImpl} only
+ * continues with the cheapest label of each stop and thus misses such routes, this router finds them.
+ * <br>
+ * As labels may be replaced after they were used, the way each label was reached is stored in an
+ * append-only list of the search, so the route can be reconstructed even if the labels of some of its
+ * stops were replaced later.
+ * <br>
+ * The costs of walking to and from the stops are calculated with the given {@link TransitTravelDisutility},
+ * the costs of riding and transferring with the utilities of the {@link TransitRouterConfig}, the same way
+ * as {@link TransitRouterNetworkTravelTimeAndDisutility#getLinkTravelDisutility} does. As there are no links
+ * to pass to {@link TransitTravelDisutility#getLinkTravelDisutility}, other implementations of it, including
+ * subclasses of {@link TransitRouterNetworkTravelTimeAndDisutility}, are not supported; use
+ * {@link TransitRouterImpl} for them.
+ *
+ * <h2>Important note</h2>
+ * This class is NOT thread-safe! The {@link TransitRouterRaptorData} can be shared by all threads.
+ */
+public class TransitRouterRaptor implements TransitRouter {
+
+	private static final Logger log = Logger.getLogger(TransitRouterRaptor.class);
+
+	/** a safeguard against an endless loop if transfers have negative costs */
+	private static final int MAX_ROUNDS = 1000;
+	private static final int MAX_ROUNDS_WARN_COUNT = 10;
+	private static final AtomicInteger maxRoundsWarnCount = new AtomicInteger(0);
+
+	private static final byte ACCESS = 0;
+	private static final byte RIDE = 1;
+	private static final byte TRANSFER = 2;
+
+	private final TransitRouterRaptorData data;
+	private final TransitRouterConfig trConfig;
+	private final TransitTravelDisutility travelDisutility;
+
+	private final double[] cost;
+	private final double[] time;
+	/** the entry of the current label of each route stop in the list of all labels of the search */
+	private final int[] label;
+	/*
+	 * The list of all labels set during the search: the route stop, how it was reached (ACCESS, RIDE from
+	 * the previous route stop, or TRANSFER), and the entry of the label it was reached from.
+	 */
+	private int[] labelRouteStop;
+	private byte[] labelReachedBy;
+	private int[] labelPrevious;
+	private int labelCount = 0;
+	/** the search in which the values of each route stop were set, the values of other searches are invalid */
+	private final int[] visited;
+	private final double[] egressCost;
+	private final int[] egressVisited;
+	private int searchId = 0;
+
+	private final boolean[] rideMarked;
+	private final int[] rideList;
+	private int rideCount = 0;
+	private final boolean[] transferMarked;
+	private int[] transferList;
+	private int[] transferWork;
+	private int transferCount = 0;
+	private final int[] routeMarkedFrom;
+	private final int[] markedRoutes;
+	private double bestTargetCost;
+
+	public TransitRouterRaptor(final TransitRouterConfig config, final TransitSchedule schedule) {
+		this(new TransitRouterRaptorData(schedule, config),
+				new TransitRouterNetworkTravelTimeAndDisutility(config, new PreparedTransitSchedule(schedule)));
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the travel disutility is not a {@link TransitRouterNetworkTravelTimeAndDisutility},
+	 * as the costs of riding and transferring would not be the ones of the given travel disutility.
+	 */
+	public TransitRouterRaptor(final TransitRouterRaptorData data, final TransitTravelDisutility travelDisutility) {
+		if (travelDisutility.getClass() != TransitRouterNetworkTravelTimeAndDisutility.class) {
+			throw new IllegalArgumentException("TransitRouterRaptor calculates the costs of riding and transferring from the "
+					+ "TransitRouterConfig and does not support the travel disutility " + travelDisutility.getClass().getName()
+					+ ". Use TransitRouterImpl instead.");
+		}
+		this.data = data;
+		this.trConfig = data.config;
+		this.travelDisutility = travelDisutility;
+		int routeStopCount = data.routeStops.length;
+		this.cost = new double[routeStopCount];
+		this.time = new double[routeStopCount];
+		this.label = new int[routeStopCount];
+		this.labelRouteStop = new int[routeStopCount];
+		this.labelReachedBy = new byte[routeStopCount];
+		this.labelPrevious = new int[routeStopCount];
+		this.visited = new int[routeStopCount];
+		this.egressCost = new double[routeStopCount];
+		this.egressVisited = new int[routeStopCount];
+		this.rideMarked = new boolean[routeStopCount];
+		this.rideList = new int[routeStopCount];
+		this.transferMarked = new boolean[routeStopCount];
+		this.transferList = new int[routeStopCount];
+		this.transferWork = new int[routeStopCount];
+		this.routeMarkedFrom = new int[data.routes.length];
+		Arrays.fill(this.routeMarkedFrom, -1);
+		this.markedRoutes = new int[data.routes.length];
+	}
+
+	@Override
+	public List<Leg> calcRoute(final Facility<?> fromFacility, final Facility<?> toFacility, final double departureTime, final Person person) {
+		Coord fromCoord = fromFacility.getCoord();
+		Coord toCoord = toFacility.getCoord();
+		int best = search(fromCoord, toCoord, departureTime, person);
+		if (best < 0) {
+			return null;
+		}
+
+		double directWalkCost = getWalkDisutility(person, fromCoord, toCoord);
+		double pathCost = this.cost[best] + this.egressCost[best];
+		if (directWalkCost * this.trConfig.getDirectWalkFactor() < pathCost) {
+			return createDirectWalkLegList(person, fromCoord, toCoord);
+		}
+		return convertToLegList(best, departureTime, fromCoord, toCoord, person);
+	}
+
+	/**
+	 * Finds the routes for all departure times in the given time window, as range RAPTOR does: a route is
+	 * only returned if no route departing later arrives at the same time or earlier. For each departure of
+	 * a transit route at a stop near the start coordinate, the time when the agent has to leave to catch
+	 * it is used as departure time.
+	 *
+	 * @return the routes, ordered by their departure time.
+	 */
+	public List<Connection> calcRoutes(final Facility<?> fromFacility, final Facility<?> toFacility,
+			final double earliestDepartureTime, final double latestDepartureTime, final Person person) {
+		Coord fromCoord = fromFacility.getCoord();
+		double[] departureTimes = new double[16];
+		int count = 0;
+		for (int rs : locateNearestRouteStops(fromCoord)) {
+			if (this.data.isLastStop(rs)) {
+				continue;
+			}
+			double walkTime = getWalkTime(person, fromCoord, this.data.routeStops[rs].getStopFacility().getCoord());
+			int r = this.data.routeStopRoute[rs];
+			for (int d = this.data.routeFirstDeparture[r]; d < this.data.routeFirstDeparture[r + 1]; d++) {
+				double departureTime = this.data.departures[d] + this.data.departureOffset[rs] - walkTime;
+				if (departureTime >= earliestDepartureTime && departureTime <= latestDepartureTime) {
+					if (count == departureTimes.length) {
+						departureTimes = Arrays.copyOf(departureTimes, 2 * count);
+					}
+					departureTimes[count++] = departureTime;
+				}
+			}
+		}
+		Arrays.sort(departureTimes, 0, count);
+
+		List<Connection> connections = new ArrayList<>();
+		double bestArrivalTime = Double.POSITIVE_INFINITY;
+		for (int i = count - 1; i >= 0; i--) {
+			double departureTime = departureTimes[i];
+			if (i < count - 1 && departureTime == departureTimes[i + 1]) {
+				continue;
+			}
+			List<Leg> legs = calcRoute(fromFacility, toFacility, departureTime, person);
+			if (legs == null) {
+				continue;
+			}
+			double arrivalTime = departureTime;
+			for (Leg leg : legs) {
+				arrivalTime += leg.getTravelTime();
+			}
+			if (arrivalTime < bestArrivalTime) {
+				bestArrivalTime = arrivalTime;
+				connections.add(new Connection(departureTime, arrivalTime, legs));
+			}
+		}
+		Collections.reverse(connections);
+		return connections;
+	}
+
+	/**
+	 * A route found by {@link TransitRouterRaptor#calcRoutes(Facility, Facility, double, double, Person)}.
+	 */
+	public static final class Connection {
+		public final double departureTime;
+		public final double arrivalTime;
+		public final List<Leg> legs;
+
+		Connection(final double departureTime, final double arrivalTime, final List<Leg> legs) {
+			this.departureTime = departureTime;
+			this.arrivalTime = arrivalTime;
+			this.legs = legs;
+		}
+	}
+
+	/**
+	 * @return the route stop at which the least cost path to the target coordinate leaves the transit
+	 * system, or -1 if there is none.
+	 */
+	private int search(final Coord fromCoord, final Coord toCoord, final double departureTime, final Person person) {
+		augmentSearchId();
+		this.bestTargetCost = Double.POSITIVE_INFINITY;
+		this.labelCount = 0;
+		Collection<Integer> egressStops = locateNearestRouteStops(toCoord);
+		for (int rs : egressStops) {
+			this.egressVisited[rs] = this.searchId;
+			this.egressCost[rs] = getWalkDisutility(person, toCoord, this.data.routeStops[rs].getStopFacility().getCoord());
+		}
+		for (int rs : locateNearestRouteStops(fromCoord)) {
+			Coord stopCoord = this.data.routeStops[rs].getStopFacility().getCoord();
+			double accessTime = getWalkTime(person, fromCoord, stopCoord);
+			double accessCost = getWalkDisutility(person, fromCoord, stopCoord);
+			if (!isVisited(rs) || accessCost < this.cost[rs]) {
+				setLabel(rs, accessCost, departureTime + accessTime, ACCESS, -1);
+				markForRide(rs);
+				markForTransfer(rs);
+			}
+		}
+
+		int round = 0;
+		while (this.rideCount > 0 || this.transferCount > 0) {
+			if (round++ == MAX_ROUNDS) {
+				if (maxRoundsWarnCount.getAndIncrement() < MAX_ROUNDS_WARN_COUNT) {
+					log.warn("the search from " + fromCoord + " to " + toCoord + " at " + departureTime + " was stopped after "
+							+ MAX_ROUNDS + " rounds, as the costs still improved. The route found may not be the cheapest one. "
+							+ "Check the transfer costs for negative values.");
+					if (maxRoundsWarnCount.get() == MAX_ROUNDS_WARN_COUNT) {
+						log.warn(Gbl.FUTURE_SUPPRESSED);
+					}
+				}
+				break;
+			}
+			scanRoutes();
+			relaxTransfers();
+		}
+		while (this.rideCount > 0) {
+			this.rideMarked[this.rideList[--this.rideCount]] = false;
+		}
+		while (this.transferCount > 0) {
+			this.transferMarked[this.transferList[--this.transferCount]] = false;
+		}
+
+		int best = -1;
+		double minCost = Double.POSITIVE_INFINITY;
+		for (int rs : egressStops) {
+			if (isVisited(rs)) {
+				double totalCost = this.cost[rs] + this.egressCost[rs];
+				if (totalCost < minCost) {
+					minCost = totalCost;
+					best = rs;
+				}
+			}
+		}
+		return best;
+	}
+
+	private void augmentSearchId() {
+		if (this.searchId == Integer.MAX_VALUE) {
+			Arrays.fill(this.visited, 0);
+			Arrays.fill(this.egressVisited, 0);
+			this.searchId = 0;
+		}
+		this.searchId++;
+	}
+
+	private boolean isVisited(final int rs) {
+		return this.visited[rs] == this.searchId;
+	}
+
+	/**
+	 * @param prev the route stop from which <code>rs</code> is reached, or -1
+	 */
+	private void setLabel(final int rs, final double c, final double t, final byte by, final int prev) {
+		if (this.labelCount == this.labelRouteStop.length) {
+			int newLength = 2 * this.labelCount;
+			this.labelRouteStop = Arrays.copyOf(this.labelRouteStop, newLength);
+			this.labelReachedBy = Arrays.copyOf(this.labelReachedBy, newLength);
+			this.labelPrevious = Arrays.copyOf(this.labelPrevious, newLength);
+		}
+		int entry = this.labelCount++;
+		this.labelRouteStop[entry] = rs;
+		this.labelReachedBy[entry] = by;
+		this.labelPrevious[entry] = prev < 0 ? -1 : this.label[prev];
+		this.visited[rs] = this.searchId;
+		this.cost[rs] = c;
+		this.time[rs] = t;
+		this.label[rs] = entry;
+		if (this.egressVisited[rs] == this.searchId && c + this.egressCost[rs] < this.bestTargetCost) {
+			this.bestTargetCost = c + this.egressCost[rs];
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the cost is lower than the one of the route stop, and lower than the
+	 * cost of the best path found so far, as the cost of walking to the target cannot be negative.
+	 */
+	private boolean improves(final int rs, final double c) {
+		return c < this.bestTargetCost && (!isVisited(rs) || c < this.cost[rs]);
+	}
+
+	private void markForRide(final int rs) {
+		if (!this.rideMarked[rs]) {
+			this.rideMarked[rs] = true;
+			this.rideList[this.rideCount++] = rs;
+		}
+	}
+
+	private void markForTransfer(final int rs) {
+		if (!this.transferMarked[rs]) {
+			this.transferMarked[rs] = true;
+			this.transferList[this.transferCount++] = rs;
+		}
+	}
+
+	/**
+	 * Rides all routes from the first stop which was marked, and marks all route stops whose cost
+	 * improved for the transfers.
+	 */
+	private void scanRoutes() {
+		int routeCount = 0;
+		for (int i = 0; i < this.rideCount; i++) {
+			int rs = this.rideList[i];
+			int r = this.data.routeStopRoute[rs];
+			if (this.routeMarkedFrom[r] < 0) {
+				this.markedRoutes[routeCount++] = r;
+				this.routeMarkedFrom[r] = rs;
+			} else if (rs < this.routeMarkedFrom[r]) {
+				this.routeMarkedFrom[r] = rs;
+			}
+		}
+		this.rideCount = 0;
+
+		for (int i = 0; i < routeCount; i++) {
+			int r = this.markedRoutes[i];
+			int end = this.data.routeFirstStop[r + 1] - 1;
+			boolean active = false;
+			for (int rs = this.routeMarkedFrom[r]; rs < end; rs++) {
+				active |= this.rideMarked[rs];
+				this.rideMarked[rs] = false;
+				if (active && isVisited(rs)) {
+					active = relaxRide(rs);
+				} else {
+					active = false;
+				}
+			}
+			this.rideMarked[end] = false;
+			this.routeMarkedFrom[r] = -1;
+		}
+	}
+
+	/**
+	 * Same cost and time as {@link TransitRouterNetworkTravelTimeAndDisutility} for the link from route
+	 * stop <code>rs</code> to the next stop of the route.
+	 *
+	 * @return <code>true</code> if the next route stop was improved
+	 */
+	private boolean relaxRide(final int rs) {
+		double currTime = this.time[rs];
+		double departureTime = this.data.getNextDepartureTime(rs, currTime);
+		if (departureTime == Double.POSITIVE_INFINITY) {
+			return false;
+		}
+		int next = rs + 1;
+		double travelTime = (departureTime - currTime) + (this.data.arrivalOffset[next] - this.data.departureOffset[rs]);
+		if (travelTime < 0) {
+			travelTime += TransitRouterNetworkTravelTimeAndDisutility.MIDNIGHT;
+		}
+		double vehicleArrivalTime = departureTime - (this.data.departureOffset[rs] - this.data.arrivalOffset[rs]);
+		double offVehicleWaitTime = currTime < vehicleArrivalTime ? vehicleArrivalTime - currTime : 0.0;
+		double totalCost = this.cost[rs]
+				- (travelTime - offVehicleWaitTime) * this.data.marginalUtilityOfTravelTimePt
+				- offVehicleWaitTime * this.data.marginalUtilityOfWaitingPt
+				- this.data.rideDistance[next] * this.data.marginalUtilityOfTravelDistancePt;
+		if (!improves(next, totalCost)) {
+			return false;
+		}
+		setLabel(next, totalCost, currTime + travelTime, RIDE, rs);
+		markForTransfer(next);
+		return true;
+	}
+
+	/**
+	 * Relaxes the transfers of all marked route stops, and marks the improved route stops for riding and
+	 * further transfers.
+	 */
+	private void relaxTransfers() {
+		int[] work = this.transferList;
+		int count = this.transferCount;
+		this.transferList = this.transferWork;
+		this.transferWork = work;
+		this.transferCount = 0;
+		for (int i = 0; i < count; i++) {
+			this.transferMarked[work[i]] = false;
+		}
+		for (int i = 0; i < count; i++) {
+			int rs = work[i];
+			double currCost = this.cost[rs];
+			double currTime = this.time[rs];
+			for (int t = this.data.firstTransfer[rs], end = this.data.firstTransfer[rs + 1]; t < end; t++) {
+				int to = this.data.transferTo[t];
+				double totalCost = currCost + this.data.transferCost[t];
+				if (improves(to, totalCost)) {
+					setLabel(to, totalCost, currTime + this.data.transferTime[t], TRANSFER, rs);
+					markForRide(to);
+					markForTransfer(to);
+				}
+			}
+		}
+	}
+
+	private Collection<Integer> locateNearestRouteStops(final Coord coord) {
+		Collection<Integer> nearestStops = this.data.getNearestRouteStops(coord, this.trConfig.getSearchRadius());
+		if (nearestStops.size() < 2) {
+			// also enlarge search area if only one stop found, maybe a second one is near the border of the search area
+			int nearestStop = this.data.getNearestRouteStop(coord);
+			double distance = CoordUtils.calcEuclideanDistance(coord, this.data.routeStops[nearestStop].getStopFacility().getCoord());
+			nearestStops = this.data.getNearestRouteStops(coord, distance + this.trConfig.getExtensionRadius());
+		}
+		return nearestStops;
+	}
+
+	private double getWalkTime(final Person person, final Coord coord, final Coord toCoord) {
+		return this.travelDisutility.getTravelTime(person, coord, toCoord);
+	}
+
+	private double getTransferTime(final Person person, final Coord coord, final Coord toCoord) {
+		return this.travelDisutility.getTravelTime(person, coord, toCoord) + this.trConfig.getAdditionalTransferTime();
+	}
+
+	private double getWalkDisutility(final Person person, final Coord coord, final Coord toCoord) {
+		return this.travelDisutility.getTravelDisutility(person, coord, toCoord);
+	}
+
+	private List<Leg> createDirectWalkLegList(final Person person, final Coord fromCoord, final Coord toCoord) {
+		List<Leg> legs = new ArrayList<>();
+		Leg leg = PopulationUtils.createLeg(TransportMode.transit_walk);
+		double walkTime = getWalkTime(person, fromCoord, toCoord);
+		leg.setTravelTime(walkTime);
+		Route walkRoute = new GenericRouteImpl(null, null);
+		walkRoute.setTravelTime(walkTime);
+		leg.setRoute(walkRoute);
+		legs.add(leg);
+		return legs;
+	}
+
+	/**
+	 * Creates the same legs as {@link TransitRouterImpl} would for the same path: consecutive transfers are
+	 * merged into one walk leg, and transfers at the same stop facility do not result in a walk leg.
+	 */
+	private List<Leg> convertToLegList(final int egressStop, final double departureTime, final Coord fromCoord, final Coord toCoord, final Person person) {
+		// collect the rides, from the last to the first
+		List<int[]> rides = new ArrayList<>();
+		List<Integer> firstTransferAfterRide = new ArrayList<>();
+		int firstTransfer = -1;
+		int entry = this.label[egressStop];
+		while (this.labelReachedBy[entry] != ACCESS) {
+			if (this.labelReachedBy[entry] == TRANSFER) {
+				firstTransfer = this.labelRouteStop[entry];
+				entry = this.labelPrevious[entry];
+			} else {
+				int alight = this.labelRouteStop[entry];
+				while (this.labelReachedBy[entry] == RIDE) {
+					entry = this.labelPrevious[entry];
+				}
+				rides.add(new int[] { this.labelRouteStop[entry], alight });
+				firstTransferAfterRide.add(firstTransfer);
+				firstTransfer = -1;
+			}
+		}
+		Collections.reverse(rides);
+		Collections.reverse(firstTransferAfterRide);
+
+		List<Leg> legs = new ArrayList<>();
+		if (rides.isEmpty()) {
+			// it seems, the agent only walked
+			Leg leg = PopulationUtils.createLeg(TransportMode.transit_walk);
+			leg.setTravelTime(getWalkTime(person, fromCoord, toCoord));
+			legs.add(leg);
+			return legs;
+		}
+
+		double time = departureTime;
+		TransitStopFacility accessStop = null;
+		for (int i = 0; i < rides.size(); i++) {
+			int board = rides.get(i)[0];
+			int alight = rides.get(i)[1];
+			TransitStopFacility boardStop = this.data.routeStops[board].getStopFacility();
+			TransitStopFacility alightStop = this.data.routeStops[alight].getStopFacility();
+			if (accessStop == null) {
+				Leg leg = PopulationUtils.createLeg(TransportMode.transit_walk);
+				double walkTime = getWalkTime(person, fromCoord, boardStop.getCoord());
+				Route walkRoute = new GenericRouteImpl(null, boardStop.getLinkId());
+				walkRoute.setTravelTime(walkTime);
+				walkRoute.setDistance(this.trConfig.getBeelineDistanceFactor() * NetworkUtils.getEuclideanDistance(fromCoord, boardStop.getCoord()));
+				leg.setRoute(walkRoute);
+				leg.setTravelTime(walkTime);
+				time += walkTime;
+				legs.add(leg);
+			} else if (accessStop != boardStop) {
+				Leg leg = PopulationUtils.createLeg(TransportMode.transit_walk);
+				double transferTime = getTransferTime(person, accessStop.getCoord(), boardStop.getCoord());
+				Route walkRoute = new GenericRouteImpl(accessStop.getLinkId(), boardStop.getLinkId());
+				walkRoute.setTravelTime(transferTime);
+				walkRoute.setDistance(this.trConfig.getBeelineDistanceFactor() * NetworkUtils.getEuclideanDistance(accessStop.getCoord(), boardStop.getCoord()));
+				leg.setRoute(walkRoute);
+				leg.setTravelTime(transferTime);
+				time += transferTime;
+				legs.add(leg);
+			}
+
+			Leg leg = PopulationUtils.createLeg(TransportMode.pt);
+			ExperimentalTransitRoute ptRoute = new ExperimentalTransitRoute(boardStop, this.data.getLine(board), this.data.getRoute(board), alightStop);
+			double arrivalTime = this.data.getNextDepartureTime(board, time) + (this.data.arrivalOffset[alight] - this.data.departureOffset[board]);
+			ptRoute.setTravelTime(arrivalTime - time);
+			int transfer = firstTransferAfterRide.get(i);
+			if (transfer >= 0) {
+				// the length of the first transfer link, as in TransitRouterImpl (see MATSIM-556)
+				ptRoute.setDistance(CoordUtils.calcEuclideanDistance(alightStop.getCoord(), this.data.routeStops[transfer].getStopFacility().getCoord()));
+			} else {
+				ptRoute.setDistance(this.trConfig.getBeelineDistanceFactor() * NetworkUtils.getEuclideanDistance(boardStop.getCoord(), alightStop.getCoord()));
+			}
+			leg.setRoute(ptRoute);
+			leg.setTravelTime(arrivalTime - time);
+			time = arrivalTime;
+			legs.add(leg);
+			accessStop = alightStop;
+		}
+
+		Leg leg = PopulationUtils.createLeg(TransportMode.transit_walk);
+		leg.setTravelTime(getWalkTime(person, accessStop.getCoord(), toCoord));
+		legs.add(leg);
+		return legs;
+	}
+
+	public TransitRouterRaptorData getData() {
+		return this.data;
+	}
+
+}
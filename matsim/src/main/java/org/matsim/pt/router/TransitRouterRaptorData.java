@@ -0,0 +1,251 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TransitRouterRaptorData.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.core.utils.collections.QuadTree;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+
+/**
+ * The transit schedule in flat arrays, as used by {@link TransitRouterRaptor}.
+ * <br>
+ * The elements are the stops of the transit routes ("route stops"), in the same order as the nodes of
+ * the {@link TransitRouterNetwork}: the route stops of a route are stored one after the other, so that
+ * riding a route means going through consecutive indices. Next to them, the sorted departures of each
+ * route and the transfers between route stops are stored. The transfers connect the same route stops as
+ * the transfer links of the {@link TransitRouterNetwork}, and their travel times and costs are calculated
+ * in advance with the utilities of the {@link TransitRouterConfig}.
+ * <br>
+ * The data is never modified after it is created, so it can be shared by the routers of all threads.
+ * Changes of the {@link TransitRouterConfig} after the creation are not taken into account.
+ */
+public final class TransitRouterRaptorData {
+
+	private final static Logger log = Logger.getLogger(TransitRouterRaptorData.class);
+
+	/*package*/ final TransitRouterConfig config;
+
+	/*package*/ final TransitLine[] lines;
+	/*package*/ final TransitRoute[] routes;
+	/** the route stops of route <code>r</code> are <code>routeFirstStop[r] ... routeFirstStop[r+1]-1</code> */
+	/*package*/ final int[] routeFirstStop;
+	/** the departures of route <code>r</code> at its first stop are <code>departures[routeFirstDeparture[r] ... routeFirstDeparture[r+1]-1]</code>, sorted */
+	/*package*/ final int[] routeFirstDeparture;
+	/*package*/ final double[] departures;
+
+	/*package*/ final TransitRouteStop[] routeStops;
+	/*package*/ final int[] routeStopRoute;
+	/** the arrival offset, or the departure offset if the route stop has no arrival offset */
+	/*package*/ final double[] arrivalOffset;
+	/*package*/ final double[] departureOffset;
+	/** the distance from the previous route stop of the same route, 0 for the first stop of a route */
+	/*package*/ final double[] rideDistance;
+
+	/** the transfers from route stop <code>rs</code> are <code>firstTransfer[rs] ... firstTransfer[rs+1]-1</code> */
+	/*package*/ final int[] firstTransfer;
+	/*package*/ final int[] transferTo;
+	/*package*/ final double[] transferTime;
+	/*package*/ final double[] transferCost;
+
+	/*package*/ final double marginalUtilityOfTravelTimePt;
+	/*package*/ final double marginalUtilityOfWaitingPt;
+	/*package*/ final double marginalUtilityOfTravelDistancePt;
+
+	private final QuadTree<Integer> quadTree;
+
+	public TransitRouterRaptorData(final TransitSchedule schedule, final TransitRouterConfig config) {
+		log.info("start creating raptor data");
+		this.config = config;
+		this.marginalUtilityOfTravelTimePt = config.getMarginalUtilityOfTravelTimePt_utl_s();
+		this.marginalUtilityOfWaitingPt = config.getMarginalUtilityOfWaitingPt_utl_s();
+		this.marginalUtilityOfTravelDistancePt = config.getMarginalUtilityOfTravelDistancePt_utl_m();
+
+		int routeCount = 0;
+		int routeStopCount = 0;
+		int departureCount = 0;
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				routeCount++;
+				routeStopCount += route.getStops().size();
+				departureCount += route.getDepartures().size();
+			}
+		}
+
+		this.lines = new TransitLine[routeCount];
+		this.routes = new TransitRoute[routeCount];
+		this.routeFirstStop = new int[routeCount + 1];
+		this.routeFirstDeparture = new int[routeCount + 1];
+		this.departures = new double[departureCount];
+		this.routeStops = new TransitRouteStop[routeStopCount];
+		this.routeStopRoute = new int[routeStopCount];
+		this.arrivalOffset = new double[routeStopCount];
+		this.departureOffset = new double[routeStopCount];
+		this.rideDistance = new double[routeStopCount];
+
+		int r = 0;
+		int rs = 0;
+		int d = 0;
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				this.lines[r] = line;
+				this.routes[r] = route;
+				this.routeFirstStop[r] = rs;
+				this.routeFirstDeparture[r] = d;
+				for (Departure departure : route.getDepartures().values()) {
+					this.departures[d++] = departure.getDepartureTime();
+				}
+				Arrays.sort(this.departures, this.routeFirstDeparture[r], d);
+				TransitRouteStop prevStop = null;
+				for (TransitRouteStop stop : route.getStops()) {
+					this.routeStops[rs] = stop;
+					this.routeStopRoute[rs] = r;
+					this.arrivalOffset[rs] = stop.getArrivalOffset() != Time.UNDEFINED_TIME ? stop.getArrivalOffset() : stop.getDepartureOffset();
+					this.departureOffset[rs] = stop.getDepartureOffset();
+					this.rideDistance[rs] = prevStop == null ? 0.0
+							: CoordUtils.calcEuclideanDistance(stop.getStopFacility().getCoord(), prevStop.getStopFacility().getCoord());
+					prevStop = stop;
+					rs++;
+				}
+				r++;
+			}
+		}
+		this.routeFirstStop[routeCount] = rs;
+		this.routeFirstDeparture[routeCount] = d;
+
+		this.quadTree = createQuadTree();
+
+		// connect all route stops which are located less than beelineWalkConnectionDistance from each other,
+		// in the same way as TransitRouterNetwork.createFromSchedule(...)
+		List<Integer> transferTargets = new ArrayList<>();
+		this.firstTransfer = new int[routeStopCount + 1];
+		for (int from = 0; from < routeStopCount; from++) {
+			this.firstTransfer[from] = transferTargets.size();
+			if (isFirstStop(from)) {
+				continue; // agents cannot arrive here
+			}
+			Coord coord = this.routeStops[from].getStopFacility().getCoord();
+			for (Integer to : this.quadTree.getDisk(coord.getX(), coord.getY(), config.getBeelineWalkConnectionDistance())) {
+				if (to != from && !isLastStop(to)
+						&& (getLine(from) != getLine(to) || this.routeStops[from].getStopFacility() != this.routeStops[to].getStopFacility())) {
+					transferTargets.add(to);
+				}
+			}
+		}
+		this.firstTransfer[routeStopCount] = transferTargets.size();
+		this.transferTo = new int[transferTargets.size()];
+		this.transferTime = new double[transferTargets.size()];
+		this.transferCost = new double[transferTargets.size()];
+		for (int from = 0; from < routeStopCount; from++) {
+			for (int t = this.firstTransfer[from]; t < this.firstTransfer[from + 1]; t++) {
+				int to = transferTargets.get(t);
+				this.transferTo[t] = to;
+				double distance = CoordUtils.calcEuclideanDistance(this.routeStops[from].getStopFacility().getCoord(), this.routeStops[to].getStopFacility().getCoord());
+				// same as TransitRouterNetworkTravelTimeAndDisutility.defaultTransferCost(...)
+				double walkTime = distance / config.getBeelineWalkSpeed();
+				double waitTime = config.getAdditionalTransferTime();
+				this.transferTime[t] = walkTime + waitTime;
+				this.transferCost[t] = - walkTime * config.getMarginalUtilityOfTravelTimeWalk_utl_s()
+						- distance * config.getMarginalUtilityOfTravelDistanceWalk_utl_m()
+						- waitTime * config.getMarginalUtilityOfWaitingPt_utl_s()
+						- config.getUtilityOfLineSwitch_utl();
+			}
+		}
+
+		log.info("raptor data statistics:");
+		log.info(" # routes:      " + routeCount);
+		log.info(" # route stops: " + routeStopCount);
+		log.info(" # departures:  " + departureCount);
+		log.info(" # transfers:   " + this.transferTo.length);
+	}
+
+	private QuadTree<Integer> createQuadTree() {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (TransitRouteStop stop : this.routeStops) {
+			Coord c = stop.getStopFacility().getCoord();
+			minX = Math.min(minX, c.getX());
+			minY = Math.min(minY, c.getY());
+			maxX = Math.max(maxX, c.getX());
+			maxY = Math.max(maxY, c.getY());
+		}
+		QuadTree<Integer> qt = new QuadTree<>(minX, minY, maxX, maxY);
+		for (int rs = 0; rs < this.routeStops.length; rs++) {
+			Coord c = this.routeStops[rs].getStopFacility().getCoord();
+			qt.put(c.getX(), c.getY(), rs);
+		}
+		return qt;
+	}
+
+	/*package*/ boolean isFirstStop(final int rs) {
+		return rs == this.routeFirstStop[this.routeStopRoute[rs]];
+	}
+
+	/*package*/ boolean isLastStop(final int rs) {
+		return rs == this.routeFirstStop[this.routeStopRoute[rs] + 1] - 1;
+	}
+
+	/*package*/ TransitLine getLine(final int rs) {
+		return this.lines[this.routeStopRoute[rs]];
+	}
+
+	/*package*/ TransitRoute getRoute(final int rs) {
+		return this.routes[this.routeStopRoute[rs]];
+	}
+
+	/*package*/ Collection<Integer> getNearestRouteStops(final Coord coord, final double distance) {
+		return this.quadTree.getDisk(coord.getX(), coord.getY(), distance);
+	}
+
+	/*package*/ int getNearestRouteStop(final Coord coord) {
+		return this.quadTree.getClosest(coord.getX(), coord.getY());
+	}
+
+	/**
+	 * Same as {@link PreparedTransitSchedule#getNextDepartureTime(TransitRoute, TransitRouteStop, double)}.
+	 *
+	 * @return the next departure of the route at the route stop, at or after the given time.
+	 */
+	/*package*/ double getNextDepartureTime(final int rs, final double depTime) {
+		int r = this.routeStopRoute[rs];
+		return PreparedTransitSchedule.getNextDepartureTime(this.departures, this.routeFirstDeparture[r], this.routeFirstDeparture[r + 1],
+				this.departureOffset[rs], depTime);
+	}
+
+	public TransitRouterConfig getConfig() {
+		return this.config;
+	}
+
+}
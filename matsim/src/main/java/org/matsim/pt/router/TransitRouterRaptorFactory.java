@@ -0,0 +1,67 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TransitRouterRaptorFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.pt.router;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.matsim.core.config.Config;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+
+/**
+ * Creates {@link TransitRouterRaptor}s. The {@link TransitRouterRaptorData} and the {@link PreparedTransitSchedule}
+ * are created once and shared by all routers.
+ */
+@Singleton
+public class TransitRouterRaptorFactory implements Provider<TransitRouter> {
+
+	private final TransitRouterConfig config;
+	private final TransitRouterRaptorData data;
+	private final PreparedTransitSchedule preparedTransitSchedule;
+
+	@Inject
+	TransitRouterRaptorFactory(final TransitSchedule schedule, final Config config, final PreparedTransitSchedule preparedTransitSchedule) {
+		this(schedule, new TransitRouterConfig(
+				config.planCalcScore(),
+				config.plansCalcRoute(),
+				config.transitRouter(),
+				config.vspExperimental()), preparedTransitSchedule);
+	}
+
+	public TransitRouterRaptorFactory(final TransitSchedule schedule, final TransitRouterConfig config) {
+		this(schedule, config, new PreparedTransitSchedule(schedule));
+	}
+
+	public TransitRouterRaptorFactory(final TransitSchedule schedule, final TransitRouterConfig config, final PreparedTransitSchedule preparedTransitSchedule) {
+		this.config = config;
+		this.data = new TransitRouterRaptorData(schedule, config);
+		this.preparedTransitSchedule = preparedTransitSchedule;
+	}
+
+	@Override
+	public TransitRouter get() {
+		TransitRouterNetworkTravelTimeAndDisutility ttCalculator = new TransitRouterNetworkTravelTimeAndDisutility(this.config, this.preparedTransitSchedule);
+		return new TransitRouterRaptor(this.data, ttCalculator);
+	}
+
+}
@@ -86,6 +86,10 @@ public final class Attributes {
 		values = new Object[ 0 ];
 	}
 
+	public boolean isEmpty() {
+		return keys.length == 0;
+	}
+
 	int size() {
 		return keys.length;
 	}
@@ -67,7 +67,22 @@ public class IdTest {
 //		} // FIXME temporarily deactivated
 	}
 	
+	@Test
+	public void testIndex() {
+		Id<TPerson> personId1 = Id.create("1", TPerson.class);
+		Id<TPerson> personId2 = Id.create("2", TPerson.class);
+		Id<TPerson> personId1again = Id.create("1", TPerson.class);
+		
+		Assert.assertEquals(0, personId1.index());
+		Assert.assertEquals(1, personId2.index());
+		Assert.assertEquals(personId1.index(), personId1again.index());
+		Assert.assertEquals(2, Id.getNumberOfIds(TPerson.class));
+		Assert.assertSame(personId2, Id.get(1, TPerson.class));
+		Assert.assertNull(Id.get(2, TPerson.class));
+	}
+	
 	private static class TLink {}
 	private static class TNode {}
+	private static class TPerson {}
 	
 }
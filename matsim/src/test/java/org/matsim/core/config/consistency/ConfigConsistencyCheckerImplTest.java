@@ -24,6 +24,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.core.config.Config;
+import org.matsim.core.config.groups.ControlerConfigGroup.RoutingAlgorithmType;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup.ActivityParams;
 import org.matsim.pt.PtConstants;
 import org.matsim.testcases.utils.LogCounter;
@@ -150,5 +151,48 @@ public class ConfigConsistencyCheckerImplTest {
 		
 	}
 
+	@Test
+	public void testCheckContractionHierarchies_RoutingRandomness() {
+		Config config = new Config();
+		config.addCoreModules();
+		config.plansCalcRoute().setRoutingRandomness(0.0);
+		int warningsWithoutRandomness = countWarnings(config);
+
+		config.controler().setRoutingAlgorithmType(RoutingAlgorithmType.ContractionHierarchies);
+		Assert.assertEquals(warningsWithoutRandomness, countWarnings(config));
+
+		config.plansCalcRoute().setRoutingRandomness(3.0);
+		Assert.assertEquals("Dijkstra is used instead, with a warning, as the routing randomness is not 0.",
+				warningsWithoutRandomness + 1, countWarnings(config));
+	}
+
+	@Test
+	public void testCheckRouteCache_RoutingRandomness() {
+		Config config = new Config();
+		config.addCoreModules();
+		config.plansCalcRoute().setRoutingRandomness(0.0);
+		int warningsWithoutCache = countWarnings(config);
+
+		config.controler().setRouteCacheSize(1000);
+		Assert.assertEquals(warningsWithoutCache, countWarnings(config));
+
+		config.plansCalcRoute().setRoutingRandomness(3.0);
+		Assert.assertEquals("the cache is disabled with a warning, as the routing randomness is not 0.", warningsWithoutCache + 1, countWarnings(config));
+
+		// without the cache, the routing randomness does not matter
+		config.controler().setRouteCacheSize(0);
+		Assert.assertEquals(warningsWithoutCache, countWarnings(config));
+	}
+
+	private static int countWarnings(final Config config) {
+		LogCounter logger = new LogCounter(Level.WARN);
+		try {
+			logger.activiate();
+			new ConfigConsistencyCheckerImpl().checkConsistency(config);
+			return logger.getWarnCount();
+		} finally {
+			logger.deactiviate();
+		}
+	}
 
 }
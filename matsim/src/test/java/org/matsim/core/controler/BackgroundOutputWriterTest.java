@@ -0,0 +1,104 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BackgroundOutputWriterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.core.controler.events.ShutdownEvent;
+
+public class BackgroundOutputWriterTest {
+
+	@Test
+	public void testNoThreads_runsDirectly() {
+		BackgroundOutputWriter writer = new BackgroundOutputWriter(0);
+		final AtomicReference<Thread> thread = new AtomicReference<>();
+		writer.submit("test", new Runnable() {
+			@Override
+			public void run() {
+				thread.set(Thread.currentThread());
+			}
+		});
+		Assert.assertSame(Thread.currentThread(), thread.get());
+	}
+
+	@Test
+	public void testAwaitCompletion() throws InterruptedException {
+		BackgroundOutputWriter writer = new BackgroundOutputWriter(2);
+		final CountDownLatch started = new CountDownLatch(1);
+		final AtomicBoolean finished = new AtomicBoolean(false);
+		writer.submit("test", new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				finished.set(true);
+			}
+		});
+		started.await();
+		Assert.assertFalse(finished.get());
+		writer.awaitCompletion();
+		Assert.assertTrue(finished.get());
+		writer.notifyShutdown(new ShutdownEvent(null, false));
+	}
+
+	@Test
+	public void testFailingTask() {
+		BackgroundOutputWriter writer = new BackgroundOutputWriter(1);
+		writer.submit("test", new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException("just some exception to make the task fail.");
+			}
+		});
+		try {
+			writer.awaitCompletion();
+			Assert.fail("expected exception, got none.");
+		} catch (RuntimeException e) {
+			Assert.assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+		}
+		// the failure is only reported once
+		writer.awaitCompletion();
+		writer.notifyShutdown(new ShutdownEvent(null, false));
+	}
+
+	@Test
+	public void testAfterShutdown_runsDirectly() {
+		BackgroundOutputWriter writer = new BackgroundOutputWriter(2);
+		writer.notifyShutdown(new ShutdownEvent(null, false));
+		final AtomicReference<Thread> thread = new AtomicReference<>();
+		writer.submit("test", new Runnable() {
+			@Override
+			public void run() {
+				thread.set(Thread.currentThread());
+			}
+		});
+		Assert.assertSame(Thread.currentThread(), thread.get());
+	}
+
+}
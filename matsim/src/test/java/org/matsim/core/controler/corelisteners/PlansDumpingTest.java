@@ -19,10 +19,22 @@
 
 package org.matsim.core.controler.corelisteners;
 
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.controler.Controler;
+import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.io.PopulationReader;
+import org.matsim.core.scenario.ScenarioUtils;
 import org.matsim.testcases.MatsimTestUtils;
 
 import java.io.File;
@@ -108,4 +120,74 @@ public class PlansDumpingTest {
 		assertTrue(new File(c.getControlerIO().getIterationFilename(9, "plans.xml.gz")).exists());
 		assertTrue(new File(c.getControlerIO().getIterationFilename(10, "plans.xml.gz")).exists());
 	}
+
+	@Test
+	public void testPlansDump_Background() {
+		Config config = this.util.loadConfig("test/scenarios/equil/config_plans1.xml");
+		config.controler().setLastIteration(3);
+		config.controler().setWritePlansInterval(2);
+		config.controler().setNumberOfOutputThreads(2);
+		Controler c = new Controler(config);
+		c.getConfig().controler().setWriteEventsInterval(0);
+		c.getConfig().controler().setCreateGraphs(false);
+
+		c.run();
+
+		for (int i = 0; i <= 2; i++) {
+			Scenario dumped = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+			new PopulationReader(dumped).readFile(c.getControlerIO().getIterationFilename(i, "plans.xml.gz"));
+			Assert.assertEquals(c.getScenario().getPopulation().getPersons().size(), dumped.getPopulation().getPersons().size());
+		}
+		assertFalse(new File(c.getControlerIO().getIterationFilename(3, "plans.xml.gz")).exists());
+	}
+
+	/**
+	 * When the plans are written in the background, a snapshot is written, which must not change with the selected plans.
+	 */
+	@Test
+	public void testCreateSnapshot() {
+		Config config = ConfigUtils.createConfig();
+		Population population = PopulationUtils.createPopulation(config);
+		population.setName("test");
+		Person person = population.getFactory().createPerson(Id.createPersonId(1));
+		person.getAttributes().putAttribute("age", 42);
+		for (int i = 0; i < 2; i++) {
+			Plan plan = PopulationUtils.createPlan(person);
+			plan.setScore((double) i);
+			plan.getAttributes().putAttribute("index", i);
+			Activity home = PopulationUtils.createAndAddActivityFromLinkId(plan, "home", Id.createLinkId(1));
+			home.setEndTime(7 * 3600 + i);
+			PopulationUtils.createAndAddLeg(plan, "car");
+			PopulationUtils.createAndAddActivityFromLinkId(plan, "work", Id.createLinkId(2));
+			person.addPlan(plan);
+		}
+		person.setSelectedPlan(person.getPlans().get(1));
+		population.addPerson(person);
+
+		Population snapshot = PlansDumpingImpl.createSnapshot(population, config);
+
+		// changes of the selected plan and the list of plans after the snapshot was taken, e.g. by the mobsim
+		((Activity) person.getSelectedPlan().getPlanElements().get(0)).setEndTime(8 * 3600);
+		person.getSelectedPlan().setScore(10.0);
+		person.addPlan(PopulationUtils.createPlan(person));
+
+		Assert.assertEquals("test", snapshot.getName());
+		Person copy = snapshot.getPersons().get(Id.createPersonId(1));
+		Assert.assertNotSame(person, copy);
+		Assert.assertEquals(42, copy.getAttributes().getAttribute("age"));
+		Assert.assertEquals(2, copy.getPlans().size());
+		Assert.assertSame(copy.getPlans().get(1), copy.getSelectedPlan());
+		Assert.assertSame(copy, copy.getSelectedPlan().getPerson());
+		Assert.assertTrue(PersonUtils.isSelected(copy.getPlans().get(1)));
+		Assert.assertFalse(PersonUtils.isSelected(copy.getPlans().get(0)));
+		Assert.assertSame("the plans which are not selected are not copied", person.getPlans().get(0), copy.getPlans().get(0));
+		for (int i = 0; i < 2; i++) {
+			Plan plan = copy.getPlans().get(i);
+			Assert.assertEquals(i, plan.getScore(), 0.0);
+			Assert.assertEquals(i, plan.getAttributes().getAttribute("index"));
+			Assert.assertEquals(3, plan.getPlanElements().size());
+			Assert.assertEquals(7 * 3600 + i, ((Activity) plan.getPlanElements().get(0)).getEndTime(), 0.0);
+		}
+	}
+
 }
@@ -63,6 +63,18 @@ public class EventsManagerImplTest {
 		}
 	}
 
+	@Test
+	public void testProcessEvent_DifferentHandlerInterfacesForSameEvent() {
+		EventsManager manager = EventsUtils.createEventsManager();
+		CountingMyEventHandler handler = new CountingMyEventHandler();
+		CountingOtherMyEventHandler otherHandler = new CountingOtherMyEventHandler();
+		manager.addHandler(handler);
+		manager.addHandler(otherHandler);
+		manager.processEvent(new MyEvent(123.45));
+		Assert.assertEquals("EventHandler was not called.", 1, handler.counter);
+		Assert.assertEquals("EventHandler was not called.", 1, otherHandler.counter);
+	}
+
 	/*package*/ static class MyEvent extends Event {
 		public MyEvent(final double time) {
 			super(time);
@@ -77,6 +89,10 @@ public class EventsManagerImplTest {
 		public void handleEvent(final MyEvent e);
 	}
 
+	/*package*/ static interface OtherMyEventHandler extends EventHandler {
+		public void handleEvent(final MyEvent e);
+	}
+
 	/*package*/ static class CountingMyEventHandler implements MyEventHandler {
 		/*package*/ int counter = 0;
 		@Override
@@ -89,6 +105,18 @@ public class EventsManagerImplTest {
 		}
 	}
 
+	/*package*/ static class CountingOtherMyEventHandler implements OtherMyEventHandler {
+		/*package*/ int counter = 0;
+		@Override
+		public void reset(final int iteration) {
+			this.counter = 0;
+		}
+		@Override
+		public void handleEvent(final MyEvent e) {
+			this.counter++;
+		}
+	}
+
 	/*package*/ static class CrashingMyEventHandler implements MyEventHandler {
 		/*package*/ int counter = 0;
 		@Override
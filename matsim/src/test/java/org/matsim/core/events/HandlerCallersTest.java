@@ -0,0 +1,143 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * HandlerCallersTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.core.events.handler.EventHandler;
+
+public class HandlerCallersTest {
+
+	@Test
+	public void testGeneratedCaller() throws NoSuchMethodException {
+		Method method = PublicEventHandler.class.getMethod("handleEvent", PublicEvent.class);
+		HandlerCaller caller = HandlerCallers.getCaller(method);
+		Assert.assertTrue(HandlerCallers.isGenerated(caller));
+		Assert.assertSame("the caller should be created only once per method.", caller, HandlerCallers.getCaller(method));
+
+		CountingHandler handler = new CountingHandler();
+		caller.call(handler, new PublicEvent(1.0));
+		caller.call(handler, new PublicEvent(2.0));
+		Assert.assertEquals(2, handler.counter);
+		Assert.assertEquals(2.0, handler.lastTime, 0.0);
+	}
+
+	@Test
+	public void testGeneratedCaller_CoreEvent() throws NoSuchMethodException {
+		Method method = LinkEnterEventHandler.class.getMethod("handleEvent", LinkEnterEvent.class);
+		HandlerCaller caller = HandlerCallers.getCaller(method);
+		Assert.assertTrue(HandlerCallers.isGenerated(caller));
+
+		CountingHandler handler = new CountingHandler();
+		caller.call(handler, new LinkEnterEvent(3.0, Id.createVehicleId(1), Id.createLinkId(1)));
+		Assert.assertEquals(1, handler.counter);
+		Assert.assertEquals(3.0, handler.lastTime, 0.0);
+	}
+
+	@Test
+	public void testGeneratedCaller_ExceptionInEventHandler() throws NoSuchMethodException {
+		HandlerCaller caller = HandlerCallers.getCaller(PublicEventHandler.class.getMethod("handleEvent", PublicEvent.class));
+		CountingHandler handler = new CountingHandler();
+		handler.crash = true;
+		try {
+			caller.call(handler, new PublicEvent(1.0));
+			Assert.fail("expected exception, but got none.");
+		} catch (RuntimeException e) {
+			// wrapped as by Method.invoke
+			Assert.assertEquals(1, handler.counter);
+			Assert.assertTrue(e.getCause() instanceof InvocationTargetException);
+			Assert.assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+		}
+	}
+
+	/**
+	 * The callers cannot be generated for package-private interfaces, so these are called by reflection.
+	 */
+	@Test
+	public void testReflectiveCaller_PackagePrivateHandler() throws NoSuchMethodException {
+		HandlerCaller caller = HandlerCallers.getCaller(HiddenEventHandler.class.getMethod("handleEvent", PublicEvent.class));
+		Assert.assertFalse(HandlerCallers.isGenerated(caller));
+
+		CountingHandler handler = new CountingHandler();
+		caller.call(handler, new PublicEvent(1.0));
+		Assert.assertEquals(1, handler.counter);
+
+		handler.crash = true;
+		try {
+			caller.call(handler, new PublicEvent(1.0));
+			Assert.fail("expected exception, but got none.");
+		} catch (RuntimeException e) {
+			Assert.assertEquals(2, handler.counter);
+			Assert.assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+		}
+	}
+
+	public static class PublicEvent extends Event {
+		public PublicEvent(final double time) {
+			super(time);
+		}
+		@Override
+		public String getEventType() {
+			return "publicEvent";
+		}
+	}
+
+	public static interface PublicEventHandler extends EventHandler {
+		public void handleEvent(final PublicEvent event);
+	}
+
+	/*package*/ static interface HiddenEventHandler extends EventHandler {
+		public void handleEvent(final PublicEvent event);
+	}
+
+	/*package*/ static class CountingHandler implements PublicEventHandler, HiddenEventHandler, LinkEnterEventHandler {
+		/*package*/ int counter = 0;
+		/*package*/ double lastTime = Double.NaN;
+		/*package*/ boolean crash = false;
+		@Override
+		public void reset(final int iteration) {
+			this.counter = 0;
+		}
+		@Override
+		public void handleEvent(final PublicEvent event) {
+			count(event);
+		}
+		@Override
+		public void handleEvent(final LinkEnterEvent event) {
+			count(event);
+		}
+		private void count(final Event event) {
+			this.counter++;
+			this.lastTime = event.getTime();
+			if (this.crash) {
+				throw new IllegalStateException("just some exception.");
+			}
+		}
+	}
+
+}
@@ -21,11 +21,14 @@
 package org.matsim.core.events;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import junit.framework.TestCase;
 
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.EventAttributeSink;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.algorithms.EventWriterXML;
 import org.matsim.testcases.utils.EventsCollector;
@@ -49,6 +52,7 @@ public abstract class XmlEventsTester extends TestCase {
 	 * @return the read-in event
 	 */
 	public static <T extends Event> T testWriteReadXml(final String eventsFile, final T event) {
+		assertWriteAttributes(event);
 		EventWriterXML writer = new EventWriterXML(eventsFile);
 		writer.handleEvent(event);
 		writer.closeFile();
@@ -73,4 +77,26 @@ public abstract class XmlEventsTester extends TestCase {
 		return (T) readEvent;
 	}
 
+	/**
+	 * Makes sure {@link Event#writeAttributes(EventAttributeSink)}, which is used by the writer, passes exactly
+	 * the same attributes in the same order as contained in {@link Event#getAttributes()}.
+	 */
+	public static void assertWriteAttributes(final Event event) {
+		final Map<String, String> written = new LinkedHashMap<String, String>();
+		event.writeAttributes(new EventAttributeSink() {
+			@Override
+			public void attribute(String name, String value) {
+				assertFalse("attribute '" + name + "' is written twice.", written.containsKey(name));
+				written.put(name, value);
+			}
+			@Override
+			public void attribute(String name, double value) {
+				attribute(name, Double.toString(value));
+			}
+		});
+		assertEquals("written attributes differ from the event's attributes.",
+				new ArrayList<Map.Entry<String, String>>(event.getAttributes().entrySet()),
+				new ArrayList<Map.Entry<String, String>>(written.entrySet()));
+	}
+
 }
@@ -0,0 +1,154 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinaryTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsReaderBinary;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
+
+public class EventWriterBinaryTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testWriteRead() {
+		String filename = this.utils.getOutputDirectory() + "events.bin";
+		List<Event> expected = createEvents();
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (Event event : expected) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new MatsimEventsReader(events).readFile(filename);
+
+		Assert.assertEquals(expected.size(), collector.getEvents().size());
+		for (int i = 0; i < expected.size(); i++) {
+			Event event = collector.getEvents().get(i);
+			Assert.assertEquals(expected.get(i).getClass(), event.getClass());
+			Assert.assertEquals(expected.get(i).getTime(), event.getTime(), 0.0);
+			Assert.assertEquals(expected.get(i).getAttributes(), event.getAttributes());
+		}
+	}
+
+	@Test
+	public void testReadTimeWindow() {
+		String filename = this.utils.getOutputDirectory() + "events.bin";
+		List<Event> all = createEvents();
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (Event event : all) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		List<Event> expected = new ArrayList<>();
+		for (Event event : all) {
+			if (event.getTime() >= 20000.0 && event.getTime() <= 20100.0) {
+				expected.add(event);
+			}
+		}
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new EventsReaderBinary(events).readFile(filename, 20000.0, 20100.0);
+
+		Assert.assertEquals(expected.size(), collector.getEvents().size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).getAttributes(), collector.getEvents().get(i).getAttributes());
+		}
+	}
+
+	/**
+	 * A time window can only be read from an uncompressed file, as the reader has to jump to the blocks.
+	 */
+	@Test
+	public void testReadTimeWindow_compressed() {
+		String filename = this.utils.getOutputDirectory() + "events.bin.gz";
+		List<Event> all = createEvents();
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (Event event : all) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		try {
+			new EventsReaderBinary(events).readFile(filename, 20000.0, 20100.0);
+			Assert.fail("expected exception, as the file is compressed.");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		Assert.assertEquals(0, collector.getEvents().size());
+
+		new EventsReaderBinary(events).readFile(filename);
+		Assert.assertEquals(all.size(), collector.getEvents().size());
+	}
+
+	/**
+	 * more events than fit into one block, with some times which are not whole seconds, and strings which
+	 * have a special meaning in xml.
+	 */
+	private static List<Event> createEvents() {
+		List<Event> events = new ArrayList<>();
+		for (int i = 0; i < 3 * EventWriterBinary.EVENTS_PER_BLOCK; i++) {
+			double time = i / 2;
+			if (i % 7 == 0) {
+				time += 0.25;
+			}
+			Id<Vehicle> vehicleId = Id.create("veh\"" + (i % 100), Vehicle.class);
+			Id<Link> linkId = Id.create("link<" + (i % 50), Link.class);
+			events.add(new LinkEnterEvent(time, vehicleId, linkId));
+			if (i % 10 == 0) {
+				events.add(new PersonDepartureEvent(time, Id.createPersonId(i % 100), linkId, "car"));
+			}
+			if (i % 13 == 0) {
+				GenericEvent event = new GenericEvent("custom", time);
+				event.getAttributes().put("value", Double.toString(i * 0.1));
+				events.add(event);
+			}
+			events.add(new LinkLeaveEvent(time, vehicleId, linkId));
+		}
+		return events;
+	}
+}
@@ -19,18 +19,54 @@
 
 package org.matsim.core.events.algorithms;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.EventAttributeSink;
 import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
+import org.matsim.api.core.v01.events.VehicleAbortsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
+import org.matsim.core.api.experimental.events.BoardingDeniedEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.LaneEnterEvent;
+import org.matsim.core.api.experimental.events.LaneLeaveEvent;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.XmlEventsTester;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.lanes.data.Lane;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.testcases.utils.EventsCollector;
 import org.matsim.vehicles.Vehicle;
@@ -92,4 +128,111 @@ public class EventWriterXMLTest {
 		
 		Assert.assertEquals("there must be 1 event.", 1, collector.getEvents().size());
 	}
+
+	/**
+	 * The writer uses {@link Event#writeAttributes(EventAttributeSink)} instead of {@link Event#getAttributes()},
+	 * so both must provide exactly the same attributes, in the same order.
+	 */
+	@Test
+	public void testWriteAttributesOfAllEventTypes() {
+		for (Event event : createEventsOfAllTypes()) {
+			XmlEventsTester.assertWriteAttributes(event);
+		}
+	}
+
+	/**
+	 * Compares the written file to the format as it was written based on {@link Event#getAttributes()},
+	 * and makes sure all events can be read again.
+	 */
+	@Test
+	public void testWriteReadAllEventTypes() throws IOException {
+		String filename = this.utils.getOutputDirectory() + "testEvents.xml";
+		List<Event> allEvents = createEventsOfAllTypes();
+		EventWriterXML writer = new EventWriterXML(filename);
+		for (Event event : allEvents) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		StringBuilder expected = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<events version=\"1.0\">\n");
+		for (Event event : allEvents) {
+			expected.append("\t<event ");
+			for (Map.Entry<String, String> entry : event.getAttributes().entrySet()) {
+				expected.append(entry.getKey()).append("=\"").append(encode(entry.getValue())).append("\" ");
+			}
+			expected.append(" />\n");
+		}
+		expected.append("</events>");
+		StringBuilder actual = new StringBuilder();
+		BufferedReader reader = IOUtils.getBufferedReader(filename);
+		try {
+			char[] buffer = new char[4096];
+			int len;
+			while ((len = reader.read(buffer)) >= 0) {
+				actual.append(buffer, 0, len);
+			}
+		} finally {
+			reader.close();
+		}
+		Assert.assertEquals(expected.toString(), actual.toString());
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new MatsimEventsReader(events).readFile(filename);
+		Assert.assertEquals(allEvents.size(), collector.getEvents().size());
+		for (int i = 0; i < allEvents.size(); i++) {
+			Map<String, String> readAttributes = collector.getEvents().get(i).getAttributes();
+			for (Map.Entry<String, String> attribute : allEvents.get(i).getAttributes().entrySet()) {
+				if (attribute.getValue() != null) { // null values are written as "null"
+					Assert.assertEquals(attribute.getValue(), readAttributes.get(attribute.getKey()));
+				}
+			}
+		}
+	}
+
+	private static String encode(final String value) {
+		if (value == null) {
+			return "null";
+		}
+		return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+	}
+
+	private static List<Event> createEventsOfAllTypes() {
+		Id<Person> personId = Id.create("person&1", Person.class);
+		Id<Link> linkId = Id.create("link<1>", Link.class);
+		Id<Vehicle> vehicleId = Id.create("veh\"1", Vehicle.class);
+		Id<TransitStopFacility> stopId = Id.create("stop1", TransitStopFacility.class);
+		Id<TransitStopFacility> stopId2 = Id.create("stop2", TransitStopFacility.class);
+		List<Event> events = new ArrayList<Event>();
+		events.add(new ActivityEndEvent(21600.0, personId, linkId, Id.create("fac1", ActivityFacility.class), "home"));
+		events.add(new ActivityEndEvent(21600.5, personId, linkId, null, "home"));
+		events.add(new ActivityStartEvent(-0.0, personId, linkId, Id.create("fac1", ActivityFacility.class), "work"));
+		events.add(new ActivityStartEvent(1.0e9, personId, linkId, null, "work"));
+		events.add(new LinkEnterEvent(12345678.0, vehicleId, linkId));
+		events.add(new LinkLeaveEvent(-7.0, vehicleId, linkId));
+		events.add(new PersonArrivalEvent(3600.0, personId, linkId, "car"));
+		events.add(new PersonArrivalEvent(3600.0, personId, linkId, null));
+		events.add(new PersonDepartureEvent(Double.NEGATIVE_INFINITY, personId, linkId, "pt"));
+		events.add(new PersonEntersVehicleEvent(3600.0, personId, vehicleId));
+		events.add(new PersonLeavesVehicleEvent(3600.0, personId, vehicleId));
+		events.add(new PersonMoneyEvent(3600.0, personId, -1.0 / 3));
+		events.add(new PersonStuckEvent(Double.NaN, personId, linkId, "car"));
+		events.add(new PersonStuckEvent(3600.0, personId, null, null));
+		events.add(new TransitDriverStartsEvent(3600.0, personId, vehicleId, Id.create("line1", TransitLine.class),
+				Id.create("route1", TransitRoute.class), Id.create("dep1", Departure.class)));
+		events.add(new VehicleAbortsEvent(3600.0, vehicleId, linkId));
+		events.add(new VehicleEntersTrafficEvent(3600.0, personId, linkId, vehicleId, "car", 1.0));
+		events.add(new VehicleEntersTrafficEvent(3600.0, personId, null, vehicleId, null, 0.25));
+		events.add(new VehicleLeavesTrafficEvent(3600.0, personId, linkId, vehicleId, "car", 0.5));
+		events.add(new VehicleLeavesTrafficEvent(3600.0, personId, null, null, null, 1.0));
+		events.add(new AgentWaitingForPtEvent(3600.0, personId, stopId, stopId2));
+		events.add(new BoardingDeniedEvent(3600.0, personId, vehicleId));
+		events.add(new LaneEnterEvent(3600.0, vehicleId, linkId, Id.create("lane1", Lane.class)));
+		events.add(new LaneLeaveEvent(3600.0, vehicleId, linkId, Id.create("lane1", Lane.class)));
+		events.add(new TeleportationArrivalEvent(3600.0, personId, 1234.5));
+		events.add(new VehicleArrivesAtFacilityEvent(3600.0, vehicleId, stopId, 0.1));
+		events.add(new VehicleDepartsAtFacilityEvent(3600.0, vehicleId, stopId, -60.0));
+		return events;
+	}
 }
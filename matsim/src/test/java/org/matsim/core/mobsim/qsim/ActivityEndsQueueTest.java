@@ -0,0 +1,148 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ActivityEndsQueueTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.mobsim.qsim;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+
+public class ActivityEndsQueueTest {
+
+	@Test
+	public void testOrder() {
+		ActivityEndsQueue queue = new ActivityEndsQueue();
+		MobsimAgent a = createAgent("a");
+		MobsimAgent b = createAgent("b");
+		MobsimAgent c = createAgent("c");
+		queue.add(a, 300.0);
+		queue.add(b, 100.0);
+		queue.add(c, 300.0);
+		Assert.assertEquals(3, queue.size());
+		Assert.assertEquals(100.0, queue.getNextActivityEndTime(), 0.0);
+
+		Assert.assertNull(queue.pollUntil(99.0));
+		Assert.assertSame(b, queue.pollUntil(100.0));
+		// same end time: the larger id first
+		Assert.assertSame(c, queue.pollUntil(300.0));
+		Assert.assertSame(a, queue.pollUntil(300.0));
+		Assert.assertNull(queue.pollUntil(Double.POSITIVE_INFINITY));
+		Assert.assertEquals(Double.POSITIVE_INFINITY, queue.getNextActivityEndTime(), 0.0);
+	}
+
+	@Test
+	public void testUpdateAndRemove() {
+		ActivityEndsQueue queue = new ActivityEndsQueue();
+		MobsimAgent a = createAgent("a");
+		MobsimAgent b = createAgent("b");
+		MobsimAgent c = createAgent("c");
+		queue.add(a, 100.0);
+		queue.add(b, 200.0);
+		queue.add(c, 300.0);
+
+		Assert.assertTrue(queue.update(c, 50.0));
+		Assert.assertTrue(queue.update(a, 400.0));
+		Assert.assertTrue(queue.remove(b));
+		Assert.assertFalse(queue.remove(b));
+		Assert.assertFalse(queue.update(b, 10.0));
+		Assert.assertEquals(2, queue.size());
+
+		Assert.assertSame(c, queue.pollUntil(400.0));
+		Assert.assertSame(a, queue.pollUntil(400.0));
+		Assert.assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(4711);
+		ActivityEndsQueue queue = new ActivityEndsQueue();
+		List<MobsimAgent> agents = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			agents.add(createAgent("agent" + i));
+		}
+		Map<MobsimAgent, Double> expected = new HashMap<>();
+		double now = 0.0;
+		for (int step = 0; step < 100000; step++) {
+			MobsimAgent agent = agents.get(random.nextInt(agents.size()));
+			double time = now + random.nextInt(3600);
+			switch (random.nextInt(4)) {
+			case 0:
+				queue.add(agent, time);
+				expected.put(agent, time);
+				break;
+			case 1:
+				Assert.assertEquals(expected.containsKey(agent), queue.update(agent, time));
+				if (expected.containsKey(agent)) {
+					expected.put(agent, time);
+				}
+				break;
+			case 2:
+				Assert.assertEquals(expected.remove(agent) != null, queue.remove(agent));
+				break;
+			default:
+				now += random.nextInt(60);
+				MobsimAgent polled;
+				while ((polled = queue.pollUntil(now)) != null) {
+					double polledTime = expected.remove(polled);
+					Assert.assertTrue(polledTime <= now);
+					for (Map.Entry<MobsimAgent, Double> e : expected.entrySet()) {
+						Assert.assertTrue(e.getValue() > polledTime
+								|| (e.getValue() == polledTime && e.getKey().getId().compareTo(polled.getId()) < 0));
+					}
+				}
+			}
+			Assert.assertEquals(expected.size(), queue.size());
+		}
+	}
+
+	private static MobsimAgent createAgent(final String id) {
+		final Id<?> agentId = Id.createPersonId(id);
+		return (MobsimAgent) Proxy.newProxyInstance(MobsimAgent.class.getClassLoader(), new Class<?>[] {MobsimAgent.class},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						switch (method.getName()) {
+						case "getId":
+							return agentId;
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "equals":
+							return proxy == args[0];
+						case "toString":
+							return agentId.toString();
+						default:
+							throw new UnsupportedOperationException(method.getName());
+						}
+					}
+				});
+	}
+
+}
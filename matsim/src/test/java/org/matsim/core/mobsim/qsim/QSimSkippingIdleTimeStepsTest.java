@@ -0,0 +1,103 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QSimSkippingIdleTimeStepsTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.mobsim.framework.events.MobsimAfterSimStepEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimAfterSimStepListener;
+import org.matsim.core.mobsim.qsim.agents.AgentFactory;
+import org.matsim.core.mobsim.qsim.agents.DefaultAgentFactory;
+import org.matsim.core.mobsim.qsim.agents.PopulationAgentSource;
+import org.matsim.core.mobsim.qsim.qnetsimengine.QNetsimEngineModule;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+
+/**
+ * Checks that skipping idle time steps does not change the events, but reduces the number of simulated time steps.
+ */
+public class QSimSkippingIdleTimeStepsTest {
+
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testSameEventsWithFewerTimeSteps() {
+		StepCounter allSteps = new StepCounter();
+		List<Event> withAllSteps = runQSim(false, allSteps);
+		StepCounter skippedSteps = new StepCounter();
+		List<Event> withSkippedSteps = runQSim(true, skippedSteps);
+
+		Assert.assertFalse(withAllSteps.isEmpty());
+		Assert.assertEquals(withAllSteps.size(), withSkippedSteps.size());
+		for (int i = 0; i < withAllSteps.size(); i++) {
+			Assert.assertEquals(withAllSteps.get(i).toString(), withSkippedSteps.get(i).toString());
+		}
+		Assert.assertTrue("no time steps were skipped", skippedSteps.count < allSteps.count);
+		Assert.assertEquals("the simulation did not end at the same time", allSteps.lastTime, skippedSteps.lastTime, MatsimTestUtils.EPSILON);
+	}
+
+	private List<Event> runQSim(boolean skippingIdleTimeSteps, StepCounter counter) {
+		MatsimRandom.reset();
+		Config config = utils.loadConfig("test/scenarios/equil/config.xml");
+		config.qsim().setSkippingIdleTimeSteps(skippingIdleTimeSteps);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+
+		QSim qSim = new QSim(scenario, events);
+		AgentFactory agentFactory = new DefaultAgentFactory(qSim);
+		PopulationAgentSource agentSource = new PopulationAgentSource(scenario.getPopulation(), agentFactory, qSim);
+		qSim.addAgentSource(agentSource);
+		ActivityEngine activityEngine = new ActivityEngine(events, qSim.getAgentCounter());
+		qSim.addMobsimEngine(activityEngine);
+		qSim.addActivityHandler(activityEngine);
+		QNetsimEngineModule.configure(qSim);
+		qSim.addMobsimEngine(new TeleportationEngine(scenario, events));
+		qSim.addQueueSimulationListeners(counter);
+		qSim.run();
+
+		return collector.getEvents();
+	}
+
+	private static class StepCounter implements MobsimAfterSimStepListener {
+		int count = 0;
+		double lastTime = Double.NaN;
+
+		@Override
+		public void notifyMobsimAfterSimStep(MobsimAfterSimStepEvent e) {
+			this.count++;
+			this.lastTime = e.getSimulationTime();
+		}
+	}
+}
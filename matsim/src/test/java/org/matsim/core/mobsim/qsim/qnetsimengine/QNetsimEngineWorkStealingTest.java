@@ -0,0 +1,128 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineWorkStealingTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.mobsim.qsim.ActivityEngine;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.TeleportationEngine;
+import org.matsim.core.mobsim.qsim.agents.AgentFactory;
+import org.matsim.core.mobsim.qsim.agents.DefaultAgentFactory;
+import org.matsim.core.mobsim.qsim.agents.PopulationAgentSource;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+
+/**
+ * Checks that the work stealing mode of the {@link QNetsimEngine} produces the same events in every run, and
+ * simulates all agents as the fixed assignment of net elements to runners does. The events may differ from the
+ * ones of the fixed assignment, as the order in which the vehicles are moved depends on the runners (MATSIM-404).
+ */
+public class QNetsimEngineWorkStealingTest {
+
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testSameEventsInEveryRun() {
+		List<String> firstRun = toSortedStrings(runQSim(true));
+		List<String> secondRun = toSortedStrings(runQSim(true));
+
+		Assert.assertFalse(firstRun.isEmpty());
+		Assert.assertEquals(firstRun.size(), secondRun.size());
+		for (int i = 0; i < firstRun.size(); i++) {
+			Assert.assertEquals(firstRun.get(i), secondRun.get(i));
+		}
+	}
+
+	@Test
+	public void testSameEventCountsAsWithFixedRunners() {
+		Map<String, Integer> withFixedRunners = countByType(runQSim(false));
+		Map<String, Integer> withWorkStealing = countByType(runQSim(true));
+
+		Assert.assertFalse(withFixedRunners.isEmpty());
+		Assert.assertEquals(withFixedRunners, withWorkStealing);
+	}
+
+	private List<Event> runQSim(boolean usingWorkStealing) {
+		MatsimRandom.reset();
+		Config config = utils.loadConfig("test/scenarios/equil/config.xml");
+		config.qsim().setNumberOfThreads(2);
+		config.qsim().setUsingThreadpool(true);
+		config.qsim().setUsingWorkStealing(usingWorkStealing);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+
+		QSim qSim = new QSim(scenario, events);
+		AgentFactory agentFactory = new DefaultAgentFactory(qSim);
+		PopulationAgentSource agentSource = new PopulationAgentSource(scenario.getPopulation(), agentFactory, qSim);
+		qSim.addAgentSource(agentSource);
+		ActivityEngine activityEngine = new ActivityEngine(events, qSim.getAgentCounter());
+		qSim.addMobsimEngine(activityEngine);
+		qSim.addActivityHandler(activityEngine);
+		QNetsimEngineModule.configure(qSim);
+		qSim.addMobsimEngine(new TeleportationEngine(scenario, events));
+		qSim.run();
+
+		return new ArrayList<>(collector.getEvents());
+	}
+
+	/**
+	 * The order of events within a time step depends on the threads, so only the sorted events are compared.
+	 */
+	private static List<String> toSortedStrings(List<Event> events) {
+		List<String> result = new ArrayList<>();
+		for (Event event : events) {
+			result.add(event.toString());
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * The routes are given by the plans, so every agent throws the same number of events of each type.
+	 */
+	private static Map<String, Integer> countByType(List<Event> events) {
+		Map<String, Integer> result = new TreeMap<>();
+		for (Event event : events) {
+			Integer count = result.get(event.getEventType());
+			result.put(event.getEventType(), count == null ? 1 : count + 1);
+		}
+		return result;
+	}
+}
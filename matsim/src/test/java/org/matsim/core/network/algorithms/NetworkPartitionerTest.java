@@ -0,0 +1,99 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NetworkPartitionerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network.algorithms;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+public class NetworkPartitionerTest {
+
+	private static final int GRID_SIZE = 20;
+
+	@Test
+	public void testPartitionsAreBalancedAndConnected() {
+		Network network = createGrid();
+		Map<Id<Node>, Integer> partitions = new NetworkPartitioner(4).run(network);
+
+		Assert.assertEquals(network.getNodes().size(), partitions.size());
+		int[] nodesPerPartition = new int[4];
+		for (Integer partition : partitions.values()) {
+			Assert.assertTrue(partition >= 0 && partition < 4);
+			nodesPerPartition[partition]++;
+		}
+		// all nodes have the same weight except for the border nodes
+		for (int n : nodesPerPartition) {
+			Assert.assertTrue("unbalanced partitions: " + n, n > 0.8 * GRID_SIZE * GRID_SIZE / 4);
+			Assert.assertTrue("unbalanced partitions: " + n, n < 1.2 * GRID_SIZE * GRID_SIZE / 4);
+		}
+
+		// round robin cuts nearly every link; a reasonable partitioning of a 20x20 grid into 4 parts cuts about 2*2*20 links
+		int cut = 0;
+		for (Link link : network.getLinks().values()) {
+			if (!partitions.get(link.getFromNode().getId()).equals(partitions.get(link.getToNode().getId()))) cut++;
+		}
+		Assert.assertTrue("too many links are cut: " + cut, cut < 0.25 * network.getLinks().size());
+	}
+
+	@Test
+	public void testDeterministic() {
+		Network network = createGrid();
+		Assert.assertEquals(new NetworkPartitioner(3).run(network), new NetworkPartitioner(3).run(network));
+	}
+
+	@Test
+	public void testSinglePartition() {
+		Network network = createGrid();
+		for (Integer partition : new NetworkPartitioner(1).run(network).values()) {
+			Assert.assertEquals(0, partition.intValue());
+		}
+	}
+
+	private static Network createGrid() {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[GRID_SIZE][GRID_SIZE];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.create(x + "_" + y, Node.class), new Coord(100. * x, 100. * y));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					NetworkUtils.createAndAddLink(network, Id.create(x + "_" + y + "_e", Link.class), nodes[x][y], nodes[x + 1][y], 100., 10., 1000., 1.);
+					NetworkUtils.createAndAddLink(network, Id.create(x + "_" + y + "_w", Link.class), nodes[x + 1][y], nodes[x][y], 100., 10., 1000., 1.);
+				}
+				if (y + 1 < GRID_SIZE) {
+					NetworkUtils.createAndAddLink(network, Id.create(x + "_" + y + "_n", Link.class), nodes[x][y], nodes[x][y + 1], 100., 10., 1000., 1.);
+					NetworkUtils.createAndAddLink(network, Id.create(x + "_" + y + "_s", Link.class), nodes[x][y + 1], nodes[x][y], 100., 10., 1000., 1.);
+				}
+			}
+		}
+		return network;
+	}
+}
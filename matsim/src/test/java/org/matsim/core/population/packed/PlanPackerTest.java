@@ -0,0 +1,139 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PlanPackerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.LinkNetworkRouteImpl;
+import org.matsim.core.population.routes.NetworkRoute;
+
+public class PlanPackerTest {
+
+	@Test
+	public void testPackPlans() {
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		Person person = population.getFactory().createPerson(Id.createPersonId("1"));
+		population.addPerson(person);
+		person.addPlan(createPlan(3, 0));
+		person.addPlan(createPlan(3, 1));
+		Plan selected = createPlan(3, 2);
+		person.addPlan(selected);
+		person.setSelectedPlan(selected);
+
+		PlanPacker packer = new PlanPacker(population, new PlansConfigGroup());
+		packer.run();
+
+		Assert.assertEquals(3, person.getPlans().size());
+		for (int i = 0; i < 3; i++) {
+			Plan plan = person.getPlans().get(i);
+			Assert.assertTrue(plan instanceof PackedPlan);
+			Assert.assertSame(person, plan.getPerson());
+			Assert.assertEquals(i, ((Activity) plan.getPlanElements().get(0)).getEndTime(), 0.0);
+		}
+		Assert.assertSame(person.getPlans().get(2), person.getSelectedPlan());
+
+		Plan packed = person.getPlans().get(0);
+		Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+		packer.run();
+		Assert.assertSame(packed, person.getPlans().get(0));
+		Assert.assertTrue(person.getSelectedPlan() instanceof PackedPlan);
+		Assert.assertNotSame(copy, person.getSelectedPlan());
+	}
+
+	@Test
+	public void testCompaction() {
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		for (int i = 0; i < 3000; i++) {
+			Person person = population.getFactory().createPerson(Id.createPersonId(i));
+			person.addPlan(createPlan(500, i));
+			population.addPerson(person);
+		}
+		PlanPacker packer = new PlanPacker(population, new PlansConfigGroup());
+		packer.run();
+		PackedPlan packed = (PackedPlan) population.getPersons().get(Id.createPersonId(0)).getSelectedPlan();
+		PlanStore store = packed.getLocation().store;
+		Assert.assertTrue(store.getSize() > PlanStore.CHUNK_SIZE);
+
+		// replace all plans by shorter ones, such that less than half of the store is used after packing the new plans
+		for (Person person : population.getPersons().values()) {
+			Plan plan = person.getSelectedPlan();
+			Plan newPlan = createPlan(400, Integer.parseInt(person.getId().toString()));
+			person.addPlan(newPlan);
+			person.setSelectedPlan(newPlan);
+			person.removePlan(plan);
+		}
+		packer.run();
+
+		long used = 0;
+		for (Person person : population.getPersons().values()) {
+			PackedPlan plan = (PackedPlan) person.getSelectedPlan();
+			Assert.assertNotSame(store, plan.getLocation().store);
+			used += plan.getLength();
+		}
+		for (Person person : population.getPersons().values()) {
+			PackedPlan plan = (PackedPlan) person.getSelectedPlan();
+			Assert.assertEquals(used, plan.getLocation().store.getSize());
+			int i = Integer.parseInt(person.getId().toString());
+			Assert.assertEquals(i, ((Activity) plan.getPlanElements().get(0)).getEndTime(), 0.0);
+			NetworkRoute route = (NetworkRoute) ((Leg) plan.getPlanElements().get(1)).getRoute();
+			Assert.assertEquals(400, route.getLinkIds().size());
+			Assert.assertEquals(Id.createLinkId(399), route.getLinkIds().get(399));
+		}
+
+		// the views of the plan elements stay the same when the plans are moved
+		PackedPlan moved = (PackedPlan) population.getPersons().get(Id.createPersonId(0)).getSelectedPlan();
+		PlanElement movedElement = moved.getPlanElements().get(1);
+		for (int i = 0; i < 2; i++) {
+			packer.compact();
+			Assert.assertSame(movedElement, moved.getPlanElements().get(1));
+			Assert.assertEquals(400, ((NetworkRoute) ((Leg) movedElement).getRoute()).getLinkIds().size());
+		}
+	}
+
+	private static Plan createPlan(final int links, final double endTime) {
+		Plan plan = PopulationUtils.createPlan();
+		Activity home = PopulationUtils.createAndAddActivityFromLinkId(plan, "home", Id.createLinkId("start"));
+		home.setEndTime(endTime);
+		Leg leg = PopulationUtils.createAndAddLeg(plan, "car");
+		List<Id<Link>> linkIds = new ArrayList<>();
+		for (int i = 0; i < links; i++) {
+			linkIds.add(Id.createLinkId(i));
+		}
+		leg.setRoute(new LinkNetworkRouteImpl(Id.createLinkId("start"), linkIds, Id.createLinkId("end")));
+		PopulationUtils.createAndAddActivityFromLinkId(plan, "work", Id.createLinkId("end"));
+		return plan;
+	}
+
+}
@@ -0,0 +1,235 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PlanStoreTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.packed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.DeltaEncodedNetworkRouteFactory;
+import org.matsim.core.population.routes.DeltaEncodedNetworkRouteImpl;
+import org.matsim.core.population.routes.GenericRouteImpl;
+import org.matsim.core.population.routes.LinkNetworkRouteImpl;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+
+public class PlanStoreTest {
+
+	@Test
+	public void testPack() {
+		assertPackedPlan(new PlanStore(false));
+	}
+
+	@Test
+	public void testPack_OffHeap() {
+		assertPackedPlan(new PlanStore(true));
+	}
+
+	private static void assertPackedPlan(final PlanStore store) {
+		Plan plan = createPlan();
+		Plan packed = store.pack(plan);
+		Assert.assertTrue(packed instanceof PackedPlan);
+		assertEqualPlans(plan, packed);
+		Assert.assertEquals(plan.getScore(), packed.getScore());
+		Assert.assertEquals("new", packed.getAttributes().getAttribute("origin"));
+		Assert.assertEquals(1, packed.getPlanElements().get(0).getAttributes().getAttribute("visits"));
+		Assert.assertNull(packed.getPlanElements().get(2).getAttributes().getAttribute("visits"));
+
+		Assert.assertSame(packed.getPlanElements().get(1), packed.getPlanElements().get(1));
+		Assert.assertSame(((Leg) packed.getPlanElements().get(1)).getRoute(), ((Leg) packed.getPlanElements().get(1)).getRoute());
+		Assert.assertEquals(1, packed.getPlanElements().indexOf(packed.getPlanElements().get(1)));
+		Assert.assertSame(PopulationUtils.getLastActivity(packed), packed.getPlanElements().get(4));
+	}
+
+	@Test
+	public void testCopy() {
+		Plan plan = createPlan();
+		Plan packed = new PlanStore(false).pack(plan);
+		Plan copy = PopulationUtils.createPlan();
+		PopulationUtils.copyFromTo(packed, copy);
+		assertEqualPlans(plan, copy);
+		Assert.assertEquals(LinkNetworkRouteImpl.class, ((Leg) copy.getPlanElements().get(1)).getRoute().getClass());
+		Assert.assertEquals(GenericRouteImpl.class, ((Leg) copy.getPlanElements().get(3)).getRoute().getClass());
+
+		NetworkRoute route = (NetworkRoute) ((Leg) packed.getPlanElements().get(1)).getRoute();
+		NetworkRoute subRoute = route.getSubRoute(Id.createLinkId("2"), Id.createLinkId("4"));
+		Assert.assertEquals(Arrays.asList(Id.createLinkId("3")), subRoute.getLinkIds());
+		Assert.assertEquals("1 2 3 4 5", route.getRouteDescription());
+	}
+
+	/**
+	 * Copies of the routes must be of the classes created by the route factories of the population.
+	 */
+	@Test
+	public void testCopyWithRouteFactories() {
+		RouteFactories routeFactories = new RouteFactories();
+		routeFactories.setRouteFactory(NetworkRoute.class, new DeltaEncodedNetworkRouteFactory());
+		Plan plan = createPlan();
+		Plan packed = new PlanStore(false, routeFactories).pack(plan);
+		Plan copy = PopulationUtils.createPlan();
+		PopulationUtils.copyFromTo(packed, copy);
+		assertEqualPlans(plan, copy);
+		Assert.assertEquals(DeltaEncodedNetworkRouteImpl.class, ((Leg) copy.getPlanElements().get(1)).getRoute().getClass());
+		NetworkRoute route = (NetworkRoute) ((Leg) packed.getPlanElements().get(1)).getRoute();
+		Assert.assertEquals(DeltaEncodedNetworkRouteImpl.class, route.getSubRoute(Id.createLinkId("2"), Id.createLinkId("4")).getClass());
+	}
+
+	@Test
+	public void testSetters() {
+		Plan packed = new PlanStore(false).pack(createPlan());
+
+		Activity act = (Activity) packed.getPlanElements().get(2);
+		act.setType("shop");
+		act.setEndTime(12 * 3600);
+		act.setLinkId(Id.createLinkId("9"));
+		act.setCoord(null);
+		Leg leg = (Leg) packed.getPlanElements().get(1);
+		leg.setMode("ride");
+		leg.setTravelTime(Time.UNDEFINED_TIME);
+		NetworkRoute route = (NetworkRoute) leg.getRoute();
+		route.setTravelCost(-3.5);
+		route.setVehicleId(null);
+
+		act = (Activity) packed.getPlanElements().get(2);
+		Assert.assertEquals("shop", act.getType());
+		Assert.assertEquals(12 * 3600, act.getEndTime(), 0.0);
+		Assert.assertEquals(Id.createLinkId("9"), act.getLinkId());
+		Assert.assertNull(act.getCoord());
+		leg = (Leg) packed.getPlanElements().get(1);
+		Assert.assertEquals("ride", leg.getMode());
+		Assert.assertEquals(Time.UNDEFINED_TIME, leg.getTravelTime(), 0.0);
+		Assert.assertEquals(-3.5, ((NetworkRoute) leg.getRoute()).getTravelCost(), 0.0);
+		Assert.assertNull(((NetworkRoute) leg.getRoute()).getVehicleId());
+
+		try {
+			leg.setRoute(null);
+			Assert.fail("expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+		}
+		try {
+			route.setLinkIds(route.getStartLinkId(), new ArrayList<Id<Link>>(), route.getEndLinkId());
+			Assert.fail("expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+		}
+		try {
+			packed.getPlanElements().remove(4);
+			Assert.fail("expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+		}
+	}
+
+	@Test
+	public void testNotPackable() {
+		PlanStore store = new PlanStore(false);
+		Plan plan = createPlan();
+		((Activity) plan.getPlanElements().get(0)).setCoord(new Coord(1.0, 2.0, 3.0));
+		Assert.assertSame(plan, store.pack(plan));
+		Assert.assertEquals(0, store.getSize());
+	}
+
+	private static Plan createPlan() {
+		Plan plan = PopulationUtils.createPlan();
+		plan.setScore(42.5);
+		plan.getAttributes().putAttribute("origin", "new");
+
+		Activity home = PopulationUtils.createAndAddActivityFromCoord(plan, "home", new Coord(4525347.25, 5612340.125));
+		home.setLinkId(Id.createLinkId("1"));
+		home.setFacilityId(Id.create("f1", ActivityFacility.class));
+		home.setEndTime(7 * 3600 + 1800);
+		home.getAttributes().putAttribute("visits", 1);
+
+		Leg car = PopulationUtils.createAndAddLeg(plan, "car");
+		car.setDepartureTime(7 * 3600 + 1800);
+		car.setTravelTime(1234);
+		List<Id<Link>> links = Arrays.asList(Id.createLinkId("2"), Id.createLinkId("3"), Id.createLinkId("4"));
+		NetworkRoute networkRoute = new LinkNetworkRouteImpl(Id.createLinkId("1"), links, Id.createLinkId("5"));
+		networkRoute.setDistance(2500.0);
+		networkRoute.setTravelTime(1234);
+		networkRoute.setTravelCost(12.0);
+		networkRoute.setVehicleId(Id.create("v1", Vehicle.class));
+		car.setRoute(networkRoute);
+
+		Activity work = PopulationUtils.createAndAddActivityFromLinkId(plan, "work", Id.createLinkId("5"));
+		work.setStartTime(8 * 3600);
+		work.setMaximumDuration(8 * 3600);
+
+		Leg pt = PopulationUtils.createAndAddLeg(plan, "pt");
+		Route genericRoute = new GenericRouteImpl(Id.createLinkId("5"), Id.createLinkId("1"));
+		genericRoute.setRouteDescription("PT1===5===line1===route1===1");
+		genericRoute.setDistance(Double.NaN);
+		pt.setRoute(genericRoute);
+
+		PopulationUtils.createAndAddActivityFromCoord(plan, "home", new Coord(4525347.25, 5612340.125));
+		return plan;
+	}
+
+	private static void assertEqualPlans(final Plan expected, final Plan actual) {
+		Assert.assertEquals(expected.getPlanElements().size(), actual.getPlanElements().size());
+		for (int i = 0; i < expected.getPlanElements().size(); i++) {
+			PlanElement pe = expected.getPlanElements().get(i);
+			if (pe instanceof Activity) {
+				Activity e = (Activity) pe;
+				Activity a = (Activity) actual.getPlanElements().get(i);
+				Assert.assertEquals(e.getType(), a.getType());
+				Assert.assertEquals(e.getCoord(), a.getCoord());
+				Assert.assertEquals(e.getLinkId(), a.getLinkId());
+				Assert.assertEquals(e.getFacilityId(), a.getFacilityId());
+				Assert.assertEquals(e.getStartTime(), a.getStartTime(), 0.0);
+				Assert.assertEquals(e.getEndTime(), a.getEndTime(), 0.0);
+				Assert.assertEquals(e.getMaximumDuration(), a.getMaximumDuration(), 0.0);
+			} else {
+				Leg e = (Leg) pe;
+				Leg a = (Leg) actual.getPlanElements().get(i);
+				Assert.assertEquals(e.getMode(), a.getMode());
+				Assert.assertEquals(e.getDepartureTime(), a.getDepartureTime(), 0.0);
+				Assert.assertEquals(e.getTravelTime(), a.getTravelTime(), 0.0);
+				Route er = e.getRoute();
+				Route ar = a.getRoute();
+				Assert.assertEquals(er.getRouteType(), ar.getRouteType());
+				Assert.assertEquals(er.getRouteDescription(), ar.getRouteDescription());
+				Assert.assertEquals(er.getStartLinkId(), ar.getStartLinkId());
+				Assert.assertEquals(er.getEndLinkId(), ar.getEndLinkId());
+				Assert.assertEquals(er.getDistance(), ar.getDistance(), 0.0);
+				Assert.assertEquals(er.getTravelTime(), ar.getTravelTime(), 0.0);
+				if (er instanceof NetworkRoute) {
+					Assert.assertEquals(((NetworkRoute) er).getLinkIds(), ((NetworkRoute) ar).getLinkIds());
+					Assert.assertEquals(((NetworkRoute) er).getTravelCost(), ((NetworkRoute) ar).getTravelCost(), 0.0);
+					Assert.assertEquals(((NetworkRoute) er).getVehicleId(), ((NetworkRoute) ar).getVehicleId());
+				}
+			}
+		}
+	}
+
+}
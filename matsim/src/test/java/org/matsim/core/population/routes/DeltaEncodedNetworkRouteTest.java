@@ -0,0 +1,179 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * DeltaEncodedNetworkRouteTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+public class DeltaEncodedNetworkRouteTest extends AbstractNetworkRouteTest {
+
+	private final LinkSequenceStore store = new LinkSequenceStore();
+
+	@Override
+	public NetworkRoute getNetworkRouteInstance(final Id<Link> fromLinkId, final Id<Link> toLinkId, final Network network) {
+		return new DeltaEncodedNetworkRouteImpl(fromLinkId, toLinkId, this.store);
+	}
+
+	@Test
+	public void testClone() {
+		Id<Link> id1 = Id.create(1, Link.class);
+		Id<Link> id2 = Id.create(2, Link.class);
+		List<Id<Link>> srcRoute = new ArrayList<>();
+		srcRoute.add(Id.create(3, Link.class));
+		srcRoute.add(Id.create(4, Link.class));
+		DeltaEncodedNetworkRouteImpl route1 = new DeltaEncodedNetworkRouteImpl(id1, id2, this.store);
+		route1.setLinkIds(id1, srcRoute, id2);
+		route1.setTravelCost(12.5);
+
+		DeltaEncodedNetworkRouteImpl route2 = route1.clone();
+		Assert.assertEquals(12.5, route2.getTravelCost(), 0.0);
+
+		srcRoute.add(Id.create(5, Link.class));
+		route1.setLinkIds(id1, srcRoute, id2);
+
+		Assert.assertEquals(3, route1.getLinkIds().size());
+		Assert.assertEquals(2, route2.getLinkIds().size());
+		Assert.assertEquals(srcRoute.subList(0, 2), route2.getLinkIds());
+	}
+
+	@Test
+	public void testSharedLinks() {
+		Id<Link> id1 = Id.create(1, Link.class);
+		Id<Link> id2 = Id.create(2, Link.class);
+		List<Id<Link>> links = new ArrayList<>();
+		links.add(Id.create(3, Link.class));
+		links.add(Id.create(4, Link.class));
+		NetworkRoute route1 = new DeltaEncodedNetworkRouteImpl(id1, id2, this.store);
+		route1.setLinkIds(id1, links, id2);
+		NetworkRoute route2 = new DeltaEncodedNetworkRouteImpl(id1, id2, this.store);
+		route2.setLinkIds(id1, new ArrayList<>(links), id2);
+		Assert.assertEquals(1, this.store.getNumberOfSequences());
+
+		links.add(Id.create(5, Link.class));
+		NetworkRoute route3 = new DeltaEncodedNetworkRouteImpl(id1, id2, this.store);
+		route3.setLinkIds(id1, links, id2);
+		Assert.assertEquals(2, this.store.getNumberOfSequences());
+		Assert.assertEquals(route1.getLinkIds(), route2.getLinkIds());
+	}
+
+	/**
+	 * The list of links is only created once per sequence of links, so the mobsim can get it for every link it enters.
+	 */
+	@Test
+	public void testLinkIdsOnlyCreatedOnce() {
+		Id<Link> id1 = Id.create(1, Link.class);
+		Id<Link> id2 = Id.create(2, Link.class);
+		List<Id<Link>> links = new ArrayList<>();
+		links.add(Id.create(3, Link.class));
+		links.add(Id.create(4, Link.class));
+		DeltaEncodedNetworkRouteImpl route = new DeltaEncodedNetworkRouteImpl(id1, id2, this.store);
+		route.setLinkIds(id1, links, id2);
+		List<Id<Link>> linkIds = route.getLinkIds();
+		Assert.assertSame(linkIds, route.getLinkIds());
+		Assert.assertEquals(Id.create(4, Link.class), linkIds.get(1));
+
+		DeltaEncodedNetworkRouteImpl cloned = route.clone();
+		Assert.assertNotSame(linkIds, cloned.getLinkIds());
+		Assert.assertEquals(Id.create(3, Link.class), cloned.getLinkIds().get(0));
+		Assert.assertEquals(Id.create(4, Link.class), linkIds.get(1));
+
+		links.add(Id.create(5, Link.class));
+		route.setLinkIds(id1, links, id2);
+		Assert.assertNotSame(linkIds, route.getLinkIds());
+		Assert.assertEquals(2, linkIds.size());
+		Assert.assertEquals(links, route.getLinkIds());
+	}
+
+	@Test
+	public void testRandomAccess() {
+		Random random = new Random(4711);
+		List<Id<Link>> links = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			links.add(Id.create("delta" + random.nextInt(100000), Link.class));
+		}
+		Id<Link> id1 = Id.create(1, Link.class);
+		NetworkRoute route = new DeltaEncodedNetworkRouteImpl(id1, id1, this.store);
+		route.setLinkIds(id1, links, id1);
+
+		List<Id<Link>> linkIds = route.getLinkIds();
+		Assert.assertEquals(links.size(), linkIds.size());
+		Iterator<Id<Link>> iter = linkIds.iterator();
+		for (int i = 0; i < links.size(); i++) {
+			Assert.assertEquals(links.get(i), linkIds.get(i));
+			Assert.assertEquals(links.get(i), iter.next());
+		}
+		Assert.assertFalse(iter.hasNext());
+		for (int i = 0; i < 1000; i++) {
+			int index = random.nextInt(links.size());
+			Assert.assertEquals(links.get(index), route.getLinkIds().get(index));
+		}
+	}
+
+	/**
+	 * The list of links is shared, so several threads may access it by index at the same time.
+	 */
+	@Test
+	public void testConcurrentRandomAccess() throws InterruptedException {
+		Random random = new Random(4711);
+		final List<Id<Link>> links = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			links.add(Id.create("delta" + random.nextInt(100000), Link.class));
+		}
+		Id<Link> id1 = Id.create(1, Link.class);
+		NetworkRoute route = new DeltaEncodedNetworkRouteImpl(id1, id1, this.store);
+		route.setLinkIds(id1, links, id1);
+		final List<Id<Link>> linkIds = route.getLinkIds();
+
+		final AtomicInteger errors = new AtomicInteger(0);
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final long seed = t;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Random threadRandom = new Random(seed);
+					for (int i = 0; i < 100000; i++) {
+						// mostly forward, as the mobsim does, with some jumps back
+						int index = (i % 10 == 0) ? threadRandom.nextInt(links.size()) : (i % links.size());
+						if (!links.get(index).equals(linkIds.get(index))) {
+							errors.incrementAndGet();
+						}
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals(0, errors.get());
+	}
+
+}
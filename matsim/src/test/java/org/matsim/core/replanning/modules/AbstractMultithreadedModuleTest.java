@@ -20,12 +20,20 @@
 
 package org.matsim.core.replanning.modules;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 
 /**
@@ -60,6 +68,140 @@ public class AbstractMultithreadedModuleTest {
 
 	}
 
+	@Test
+	public void testGetBatchSize() {
+		Config config = new Config();
+		config.addCoreModules();
+		config.global().setReplanningBatchSize(10);
+		DummyAbstractMultithreadedModule testee = new DummyAbstractMultithreadedModule(config.global());
+		Assert.assertEquals(10, testee.getBatchSize());
+	}
+
+	@Test
+	public void testBatches_allPlansHandled() {
+		List<Plan> plans = createPlans(1000);
+		RandomScoringModule testee = new RandomScoringModule(4);
+		testee.setBatchSize(7);
+		runModule(testee, plans);
+		for (Plan plan : plans) {
+			Assert.assertNotNull(plan.getScore());
+		}
+	}
+
+	@Test
+	public void testBatches_independentOfThreads() {
+		List<Plan> plans1 = createPlans(500);
+		List<Plan> plans2 = createPlans(500);
+
+		MatsimRandom.reset(4711);
+		RandomScoringModule testee1 = new RandomScoringModule(1);
+		testee1.setBatchSize(500);
+		runModule(testee1, plans1);
+
+		MatsimRandom.reset(4711);
+		RandomScoringModule testee2 = new RandomScoringModule(3);
+		testee2.setBatchSize(5);
+		runModule(testee2, plans2);
+
+		for (int i = 0; i < plans1.size(); i++) {
+			Assert.assertEquals(plans1.get(i).getScore(), plans2.get(i).getScore(), 0.0);
+		}
+		// different persons should not get the same random numbers
+		Assert.assertNotEquals(plans1.get(0).getScore(), plans1.get(1).getScore(), 0.0);
+	}
+
+	/**
+	 * Other modules, and persons whose ids have the same {@link String#hashCode()}, must get other random numbers.
+	 */
+	@Test
+	public void testBatches_independentRandoms() {
+		List<Plan> plans1 = createPlans("Aa", "BB");
+		List<Plan> plans2 = createPlans("Aa", "BB");
+		Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+
+		MatsimRandom.reset(4711);
+		RandomScoringModule testee1 = new RandomScoringModule(1);
+		testee1.setBatchSize(1);
+		runModule(testee1, plans1);
+
+		MatsimRandom.reset(4711);
+		RandomScoringModule testee2 = new OtherRandomScoringModule(1);
+		testee2.setBatchSize(1);
+		runModule(testee2, plans2);
+
+		Assert.assertNotEquals(plans1.get(0).getScore(), plans1.get(1).getScore(), 0.0);
+		Assert.assertNotEquals(plans1.get(0).getScore(), plans2.get(0).getScore(), 0.0);
+		Assert.assertNotEquals(plans1.get(1).getScore(), plans2.get(1).getScore(), 0.0);
+	}
+
+	@Test
+	public void testBatches_crashingThread() {
+		try {
+			DummyCrashingModule testee = new DummyCrashingModule(2);
+			testee.setBatchSize(2);
+			testee.prepareReplanning(null);
+			testee.handlePlan(null);
+			testee.handlePlan(null);
+			testee.handlePlan(null);
+			testee.finishReplanning();
+			Assert.fail("expected exception, got none.");
+		} catch (Exception e) {
+			log.info("Catched expected exception.", e);
+		}
+	}
+
+	private static List<Plan> createPlans(final int count) {
+		List<Plan> plans = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.create(i, Person.class));
+			Plan plan = PopulationUtils.createPlan(person);
+			person.addPlan(plan);
+			plans.add(plan);
+		}
+		return plans;
+	}
+
+	private static List<Plan> createPlans(final String... ids) {
+		List<Plan> plans = new ArrayList<>();
+		for (String id : ids) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.create(id, Person.class));
+			Plan plan = PopulationUtils.createPlan(person);
+			person.addPlan(plan);
+			plans.add(plan);
+		}
+		return plans;
+	}
+
+	private static void runModule(final AbstractMultithreadedModule module, final List<Plan> plans) {
+		module.prepareReplanning(null);
+		for (Plan plan : plans) {
+			module.handlePlan(plan);
+		}
+		module.finishReplanning();
+	}
+
+	private static class RandomScoringModule extends AbstractMultithreadedModule {
+		public RandomScoringModule(final int nOfThreads) {
+			super(nOfThreads);
+		}
+		@Override
+		public PlanAlgorithm getPlanAlgoInstance() {
+			final Random random = MatsimRandom.getLocalInstance();
+			return new PlanAlgorithm() {
+				@Override
+				public void run(Plan plan) {
+					plan.setScore(random.nextDouble());
+				}
+			};
+		}
+	}
+
+	private static class OtherRandomScoringModule extends RandomScoringModule {
+		public OtherRandomScoringModule(final int nOfThreads) {
+			super(nOfThreads);
+		}
+	}
+
 	private static class DummyAbstractMultithreadedModule extends AbstractMultithreadedModule {
 		public DummyAbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
 			super(globalConfigGroup);
@@ -0,0 +1,96 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CSRDijkstraTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Collections;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.ControlerConfigGroup.RoutingAlgorithmType;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.controler.AbstractModule;
+import org.matsim.core.controler.Injector;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.scenario.ScenarioByInstanceModule;
+import org.matsim.core.scenario.ScenarioUtils;
+
+public class CSRDijkstraTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		return new CSRDijkstra(new CSRRoutingGraph(network, null), travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testModeRestriction() {
+		Network network = NetworkUtils.createNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId(1), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId(2), new Coord(1000, 1000));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.createNodeId(3), new Coord(1000, -1000));
+		Node node4 = NetworkUtils.createAndAddNode(network, Id.createNodeId(4), new Coord(2000, 0));
+		Link link12 = NetworkUtils.createAndAddLink(network, Id.createLinkId("12"), node1, node2, 1000, 10, 2000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("24"), node2, node4, 1000, 10, 2000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("13"), node1, node3, 2000, 10, 2000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("34"), node3, node4, 2000, 10, 2000, 1);
+		link12.setAllowedModes(Collections.singleton(TransportMode.pt));
+
+		CSRDijkstra router = (CSRDijkstra) getLeastCostPathCalculator(network);
+		Path path = router.calcLeastCostPath(node1, node4, 8.0 * 3600, null, null);
+		assertEquals(Id.createLinkId("12"), path.links.get(0).getId());
+
+		router.setModeRestriction(Collections.singleton(TransportMode.car));
+		path = router.calcLeastCostPath(node1, node4, 8.0 * 3600, null, null);
+		assertEquals(Id.createLinkId("13"), path.links.get(0).getId());
+
+		router.setModeRestriction(null);
+		path = router.calcLeastCostPath(node1, node4, 8.0 * 3600, null, null);
+		assertEquals(Id.createLinkId("12"), path.links.get(0).getId());
+	}
+
+	public void testFastRouterTypeFromConfig() {
+		Config config = ConfigUtils.createConfig();
+		config.controler().setRoutingAlgorithmType(RoutingAlgorithmType.FastDijkstra);
+		config.controler().setFastRouterType(FastRouterType.CSR);
+		final Scenario scenario = ScenarioUtils.createScenario(config);
+		com.google.inject.Injector injector = Injector.createInjector(config, new AbstractModule() {
+			@Override
+			public void install() {
+				install(new ScenarioByInstanceModule(scenario));
+				install(new LeastCostPathCalculatorModule());
+			}
+		});
+		LeastCostPathCalculatorFactory factory = injector.getInstance(LeastCostPathCalculatorFactory.class);
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		assertTrue(factory.createPathCalculator(scenario.getNetwork(), travelTimeCostCalculator, travelTimeCostCalculator) instanceof CSRDijkstra);
+	}
+
+}
@@ -0,0 +1,158 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ManyToManyPathCalculatorTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.LeastCostPathTreeCalculator;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ManyToManyPathCalculatorTest {
+
+	private Network network;
+	private FreespeedTravelTimeAndDisutility costFunction;
+
+	private void loadNetwork() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		new MatsimNetworkReader(scenario.getNetwork()).readFile("test/scenarios/equil/network.xml");
+		this.network = scenario.getNetwork();
+		this.costFunction = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+	}
+
+	@Test
+	public void testMatrix_sameAsDijkstra() {
+		loadNetwork();
+		List<Node> nodes = new ArrayList<>(this.network.getNodes().values());
+		Dijkstra dijkstra = new Dijkstra(this.network, this.costFunction, this.costFunction);
+		ManyToManyPathCalculator calculator = new ManyToManyPathCalculator(this.network, this.costFunction, this.costFunction, 2);
+
+		LeastCostPathMatrix forward = calculator.calcLeastCostPathMatrix(nodes, nodes, 8.0 * 3600, null, null);
+		LeastCostPathMatrix backward = calculator.calcLeastCostPathMatrixBackwards(nodes, nodes, 9.0 * 3600, null, null);
+		for (int i = 0; i < nodes.size(); i++) {
+			for (int j = 0; j < nodes.size(); j++) {
+				Path path = dijkstra.calcLeastCostPath(nodes.get(i), nodes.get(j), 8.0 * 3600, null, null);
+				Assert.assertEquals(path.travelCost, forward.getCost(i, j), MatsimTestUtils.EPSILON);
+				Assert.assertEquals(path.travelTime, forward.getTravelTime(i, j), MatsimTestUtils.EPSILON);
+				Assert.assertEquals(path.travelCost, backward.getCost(i, j), MatsimTestUtils.EPSILON);
+				Assert.assertEquals(path.travelTime, backward.getTravelTime(i, j), MatsimTestUtils.EPSILON);
+			}
+		}
+		calculator.shutdown();
+	}
+
+	/**
+	 * The executor of the caller is used for all matrices, and is not shut down by the calculator.
+	 */
+	@Test
+	public void testMatrix_executorOfCaller() {
+		loadNetwork();
+		List<Node> nodes = new ArrayList<>(this.network.getNodes().values());
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ManyToManyPathCalculator calculator = new ManyToManyPathCalculator(new CSRRoutingGraph(this.network, null),
+					this.costFunction, this.costFunction, executor, 2);
+			LeastCostPathMatrix first = calculator.calcLeastCostPathMatrix(nodes, nodes, 8.0 * 3600, null, null);
+			LeastCostPathMatrix second = calculator.calcLeastCostPathMatrix(nodes, nodes, 8.0 * 3600, null, null);
+			calculator.shutdown();
+			Assert.assertFalse(executor.isShutdown());
+			for (int i = 0; i < nodes.size(); i++) {
+				for (int j = 0; j < nodes.size(); j++) {
+					Assert.assertEquals(first.getCost(i, j), second.getCost(i, j), 0.0);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testMatrix_tooLarge() {
+		List<Node> nodes = Collections.nCopies(50000, (Node) null);
+		try {
+			new LeastCostPathMatrix(nodes, nodes);
+			Assert.fail("expected exception, as the matrix has more cells than an array can hold.");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testTree_earlyTermination() {
+		loadNetwork();
+		Node node1 = this.network.getNodes().get(Id.create("1", Node.class));
+		Node node2 = this.network.getNodes().get(Id.create("2", Node.class));
+		Node node15 = this.network.getNodes().get(Id.create("15", Node.class));
+		LeastCostPathTreeCalculator tree = new ManyToManyPathCalculator(this.network, this.costFunction, this.costFunction, 1).createTreeCalculator();
+
+		List<Node> targets = new ArrayList<>();
+		targets.add(node2);
+		tree.calcLeastCostPathTree(node1, 0.0, targets, null, null);
+		Assert.assertTrue(tree.isReached(node2));
+		Assert.assertFalse(tree.isReached(node15));
+		Assert.assertEquals(Double.POSITIVE_INFINITY, tree.getCost(node15), 0.0);
+		Assert.assertNull(tree.getPath(node15));
+
+		Path path = tree.getPath(node2);
+		Assert.assertEquals(1, path.links.size());
+		Assert.assertEquals(this.network.getLinks().get(Id.create("1", Link.class)), path.links.get(0));
+		Assert.assertEquals(node1, path.nodes.get(0));
+		Assert.assertEquals(node2, path.nodes.get(1));
+
+		tree.calcLeastCostPathTree(node1, 0.0, null, null, null);
+		for (Node node : this.network.getNodes().values()) {
+			Assert.assertTrue(tree.isReached(node));
+		}
+	}
+
+	@Test
+	public void testTree_backwardPath() {
+		loadNetwork();
+		Node node2 = this.network.getNodes().get(Id.create("2", Node.class));
+		Node node13 = this.network.getNodes().get(Id.create("13", Node.class));
+		LeastCostPathTreeCalculator tree = new ManyToManyPathCalculator(this.network, this.costFunction, this.costFunction, 1).createTreeCalculator();
+
+		tree.calcLeastCostPathTreeBackwards(node2, 10.0 * 3600, null, null, null);
+		Path path = tree.getPath(node13);
+		Path reference = new Dijkstra(this.network, this.costFunction, this.costFunction).calcLeastCostPath(node13, node2, 0.0, null, null);
+		Assert.assertEquals(reference.nodes, path.nodes);
+		Assert.assertEquals(reference.links, path.links);
+		Assert.assertEquals(reference.travelCost, path.travelCost, MatsimTestUtils.EPSILON);
+		Assert.assertEquals(10.0 * 3600 - reference.travelTime, tree.getTime(node13), MatsimTestUtils.EPSILON);
+	}
+
+}
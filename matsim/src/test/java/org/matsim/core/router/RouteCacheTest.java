@@ -0,0 +1,255 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RouteCacheTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.router;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class RouteCacheTest {
+
+	@Test
+	public void testCachePerTimeBin() {
+		Network network = loadNetwork();
+		Node node1 = network.getNodes().get(Id.create("1", Node.class));
+		Node node13 = network.getNodes().get(Id.create("13", Node.class));
+		CountingPathCalculator counter = new CountingPathCalculator(network);
+		RouteCache cache = new RouteCache(100, 900.0);
+		LeastCostPathCalculator router = createCachingPathCalculator(cache, counter, TransportMode.car, FreespeedTravelTimeAndDisutility.class);
+
+		Path path = router.calcLeastCostPath(node1, node13, 7.0 * 3600, null, null);
+		Assert.assertSame(path.links, router.calcLeastCostPath(node1, node13, 7.0 * 3600 + 899, null, null).links);
+		Assert.assertEquals(1, counter.count);
+		Assert.assertEquals(1, cache.getHits());
+		Assert.assertEquals(1, cache.getMisses());
+		Assert.assertEquals(0.5, cache.getHitRate(), 1e-10);
+
+		router.calcLeastCostPath(node1, node13, 7.0 * 3600 + 900, null, null);
+		Assert.assertEquals("another time bin must be routed again", 2, counter.count);
+		router.calcLeastCostPath(node13, node1, 7.0 * 3600, null, null);
+		Assert.assertEquals("another origin-destination pair must be routed", 3, counter.count);
+		Assert.assertEquals(3, cache.size());
+
+		try {
+			path.links.clear();
+			Assert.fail("cached paths must not be modifiable.");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCacheByModeAndFingerprint() {
+		Network network = loadNetwork();
+		Node node1 = network.getNodes().get(Id.create("1", Node.class));
+		Node node13 = network.getNodes().get(Id.create("13", Node.class));
+		CountingPathCalculator counter = new CountingPathCalculator(network);
+		RouteCache cache = new RouteCache(100, 900.0);
+
+		Object fingerprintA = new Object();
+		Object fingerprintB = new Object();
+
+		createCachingPathCalculator(cache, counter, TransportMode.car, fingerprintA).calcLeastCostPath(node1, node13, 0.0, null, null);
+		createCachingPathCalculator(cache, counter, TransportMode.car, fingerprintA).calcLeastCostPath(node1, node13, 0.0, null, null);
+		Assert.assertEquals("routers with the same mode and fingerprint share the paths", 1, counter.count);
+		createCachingPathCalculator(cache, counter, TransportMode.car, fingerprintB).calcLeastCostPath(node1, node13, 0.0, null, null);
+		Assert.assertEquals(2, counter.count);
+		createCachingPathCalculator(cache, counter, TransportMode.ride, fingerprintA).calcLeastCostPath(node1, node13, 0.0, null, null);
+		Assert.assertEquals(3, counter.count);
+		createCachingPathCalculator(cache, counter, TransportMode.car, new String("a")).calcLeastCostPath(node1, node13, 0.0, null, null);
+		createCachingPathCalculator(cache, counter, TransportMode.car, new String("a")).calcLeastCostPath(node1, node13, 0.0, null, null);
+		Assert.assertEquals("fingerprints are compared by identity", 5, counter.count);
+	}
+
+	@Test
+	public void testInvalidateAndMaxSize() {
+		Network network = loadNetwork();
+		Node node1 = network.getNodes().get(Id.create("1", Node.class));
+		Node node13 = network.getNodes().get(Id.create("13", Node.class));
+		CountingPathCalculator counter = new CountingPathCalculator(network);
+		RouteCache cache = new RouteCache(1, 900.0);
+		LeastCostPathCalculator router = createCachingPathCalculator(cache, counter, TransportMode.car, null);
+
+		router.calcLeastCostPath(node1, node13, 0.0, null, null);
+		router.calcLeastCostPath(node13, node1, 0.0, null, null);
+		router.calcLeastCostPath(node13, node1, 0.0, null, null);
+		Assert.assertEquals("the second path must not be cached", 3, counter.count);
+		Assert.assertEquals(1, cache.size());
+
+		cache.invalidate();
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.getHits());
+		Assert.assertEquals(0, cache.getMisses());
+		router.calcLeastCostPath(node1, node13, 0.0, null, null);
+		Assert.assertEquals(4, counter.count);
+	}
+
+	@Test
+	public void testDisabled() {
+		Network network = loadNetwork();
+		Node node1 = network.getNodes().get(Id.create("1", Node.class));
+		Node node13 = network.getNodes().get(Id.create("13", Node.class));
+		CountingPathCalculator counter = new CountingPathCalculator(network);
+		RouteCache cache = new RouteCache(0, 900.0);
+		Assert.assertFalse(cache.isEnabled());
+		LeastCostPathCalculator router = createCachingPathCalculator(cache, counter, TransportMode.car, null);
+
+		router.calcLeastCostPath(node1, node13, 0.0, null, null);
+		router.calcLeastCostPath(node1, node13, 0.0, null, null);
+		Assert.assertEquals(2, counter.count);
+		Assert.assertEquals(0, cache.size());
+	}
+
+	/**
+	 * The links of a cached path are shared, but its travel time and cost are the ones of each departure time.
+	 */
+	@Test
+	public void testTimeAndCostPerDeparture() {
+		Network network = loadNetwork();
+		Node node1 = network.getNodes().get(Id.create("1", Node.class));
+		Node node13 = network.getNodes().get(Id.create("13", Node.class));
+		final CountingPathCalculator counter = new CountingPathCalculator(network);
+		TravelTime slowerLater = new TravelTime() {
+			@Override
+			public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+				double travelTime = counter.costFunction.getLinkTravelTime(link, time, person, vehicle);
+				return time >= 7.0 * 3600 + 600 ? 2 * travelTime : travelTime;
+			}
+		};
+		RouteCache cache = new RouteCache(100, 900.0);
+		LeastCostPathCalculator router = cache.createCachingPathCalculator(counter, TransportMode.car, null, counter.costFunction, slowerLater);
+
+		Path first = router.calcLeastCostPath(node1, node13, 7.0 * 3600, null, null);
+		Path second = router.calcLeastCostPath(node1, node13, 7.0 * 3600 + 600, null, null);
+		Assert.assertEquals(1, counter.count);
+		Assert.assertSame(first.links, second.links);
+		double expectedTime = 0.0;
+		double expectedCost = 0.0;
+		for (Link link : first.links) {
+			expectedCost += counter.costFunction.getLinkTravelDisutility(link, 7.0 * 3600 + 600 + expectedTime, null, null);
+			expectedTime += 2 * counter.costFunction.getLinkTravelTime(link, 7.0 * 3600 + 600 + expectedTime, null, null);
+		}
+		Assert.assertEquals(expectedTime, second.travelTime, 1e-8);
+		Assert.assertEquals(expectedCost, second.travelCost, 1e-8);
+		Assert.assertEquals(2 * first.travelTime, second.travelTime, 1e-8);
+	}
+
+	/**
+	 * The paths are found for the start of the time bin, also if the cache is full, so the routes do not depend on
+	 * which trip of a time bin is routed first.
+	 */
+	@Test
+	public void testRoutedAtStartOfTimeBin() {
+		Network network = loadNetwork();
+		Node node1 = network.getNodes().get(Id.create("1", Node.class));
+		Node node13 = network.getNodes().get(Id.create("13", Node.class));
+		CountingPathCalculator counter = new CountingPathCalculator(network);
+		RouteCache cache = new RouteCache(1, 900.0);
+		LeastCostPathCalculator router = createCachingPathCalculator(cache, counter, TransportMode.car, null);
+
+		router.calcLeastCostPath(node1, node13, 7.0 * 3600 + 600, null, null);
+		Assert.assertEquals(7.0 * 3600, counter.lastStartTime, 0.0);
+		Path uncached = router.calcLeastCostPath(node13, node1, 8.0 * 3600 + 899, null, null);
+		Assert.assertEquals(0, cache.getHits());
+		Assert.assertEquals(8.0 * 3600, counter.lastStartTime, 0.0);
+		Path direct = counter.delegate.calcLeastCostPath(node13, node1, 8.0 * 3600 + 899, null, null);
+		Assert.assertEquals(direct.links, uncached.links);
+		Assert.assertEquals(direct.travelTime, uncached.travelTime, 1e-8);
+		Assert.assertEquals(direct.travelCost, uncached.travelCost, 1e-8);
+	}
+
+	/**
+	 * The travel times change while the mobsim runs, so within-day replanning must not get cached paths.
+	 */
+	@Test
+	public void testSuspendedDuringMobsim() {
+		Network network = loadNetwork();
+		Node node1 = network.getNodes().get(Id.create("1", Node.class));
+		Node node13 = network.getNodes().get(Id.create("13", Node.class));
+		CountingPathCalculator counter = new CountingPathCalculator(network);
+		RouteCache cache = new RouteCache(100, 900.0);
+		LeastCostPathCalculator router = createCachingPathCalculator(cache, counter, TransportMode.car, null);
+
+		router.calcLeastCostPath(node1, node13, 0.0, null, null);
+		router.calcLeastCostPath(node1, node13, 0.0, null, null);
+		Assert.assertEquals(1, counter.count);
+
+		cache.notifyBeforeMobsim(null);
+		Assert.assertEquals(0, cache.size());
+		router.calcLeastCostPath(node1, node13, 0.0, null, null);
+		router.calcLeastCostPath(node1, node13, 0.0, null, null);
+		Assert.assertEquals(3, counter.count);
+		Assert.assertEquals(0, cache.size());
+
+		cache.notifyIterationStarts(null);
+		router.calcLeastCostPath(node1, node13, 0.0, null, null);
+		router.calcLeastCostPath(node1, node13, 0.0, null, null);
+		Assert.assertEquals(4, counter.count);
+	}
+
+	private static LeastCostPathCalculator createCachingPathCalculator(final RouteCache cache, final CountingPathCalculator counter,
+			final String mode, final Object fingerprint) {
+		return cache.createCachingPathCalculator(counter, mode, fingerprint, counter.costFunction, counter.costFunction);
+	}
+
+	private static Network loadNetwork() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		new MatsimNetworkReader(scenario.getNetwork()).readFile("test/scenarios/equil/network.xml");
+		return scenario.getNetwork();
+	}
+
+	private static class CountingPathCalculator implements LeastCostPathCalculator {
+
+		private final LeastCostPathCalculator delegate;
+		/*package*/ final FreespeedTravelTimeAndDisutility costFunction = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		/*package*/ int count = 0;
+		/*package*/ double lastStartTime = Double.NaN;
+
+		CountingPathCalculator(final Network network) {
+			this.delegate = new Dijkstra(network, this.costFunction, this.costFunction);
+		}
+
+		@Override
+		public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double starttime, final Person person, final Vehicle vehicle) {
+			this.count++;
+			this.lastStartTime = starttime;
+			return this.delegate.calcLeastCostPath(fromNode, toNode, starttime, person, vehicle);
+		}
+
+	}
+
+}
@@ -32,6 +32,7 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.PopulationWriter;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.controler.AbstractModule;
 import org.matsim.core.controler.Injector;
 import org.matsim.core.network.io.MatsimNetworkReader;
@@ -172,6 +173,61 @@ public class RoutingTest  {
 		});
 	}
 
+	@Test
+	public void testCSRDijkstra() {
+		doTest(new RouterProvider() {
+			@Override
+			public String getName() {
+				return "CSRDijkstra";
+			}
+			@Override
+			public LeastCostPathCalculatorFactory getFactory(final Network network, final TravelDisutility costCalc, final TravelTime timeCalc) {
+				return new FastDijkstraFactory(null, FastRouterType.CSR);
+			}
+		});
+	}
+	@Test
+	public void testCSRDijkstraPruneDeadEnds() {
+		doTest(new RouterProvider() {
+			@Override
+			public String getName() {
+				return "CSRDijkstraPruneDeadends";
+			}
+			@Override
+			public LeastCostPathCalculatorFactory getFactory(final Network network, final TravelDisutility costCalc, final TravelTime timeCalc) {
+				PreProcessDijkstra preProcessData = new PreProcessDijkstra();
+				preProcessData.run(network);
+				return new FastDijkstraFactory(preProcessData, FastRouterType.CSR);
+			}
+		});
+	}
+	@Test
+	public void testCSRAStarEuclidean() {
+		doTest(new RouterProvider() {
+			@Override
+			public String getName() {
+				return "CSRAStarEuclidean";
+			}
+			@Override
+			public LeastCostPathCalculatorFactory getFactory(final Network network, final TravelDisutility costCalc, final TravelTime timeCalc) {
+				return new FastAStarEuclideanFactory(network, costCalc, FastRouterType.CSR);
+			}
+		});
+	}
+	@Test
+	public void testCSRAStarLandmarks() {
+		doTest(new RouterProvider() {
+			@Override
+			public String getName() {
+				return "CSRAStarLandmarks";
+			}
+			@Override
+			public LeastCostPathCalculatorFactory getFactory(final Network network, final TravelDisutility costCalc, final TravelTime timeCalc) {
+				return new FastAStarLandmarksFactory(network, costCalc, new GlobalConfigGroup(), FastRouterType.CSR);
+			}
+		});
+	}
+
 	private void doTest(final RouterProvider provider) {
 //		final Config config = loadConfig("test/input/" + this.getClass().getCanonicalName().replace('.', '/') + "/config.xml");
 		final Config config = ConfigUtils.loadConfig( utils.getClassInputDirectory() + "/config.xml" );
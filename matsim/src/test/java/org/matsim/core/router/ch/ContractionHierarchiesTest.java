@@ -0,0 +1,286 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchiesTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.ch;
+
+import java.util.Arrays;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.controler.AbstractModule;
+import org.matsim.core.controler.Injector;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.router.AbstractLeastCostPathCalculatorTest;
+import org.matsim.core.router.Dijkstra;
+import org.matsim.core.router.NetworkRouting;
+import org.matsim.core.router.RoutingModule;
+import org.matsim.core.router.TripRouterModule;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.SharingLeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.scenario.ScenarioByInstanceModule;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.vehicles.Vehicle;
+
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+
+public class ContractionHierarchiesTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		return new ContractionHierarchiesFactory().createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testSameCostsAsDijkstra_allPairs() {
+		Scenario scenario = ScenarioUtils.createScenario(loadConfig(null));
+		Network network = scenario.getNetwork();
+		new MatsimNetworkReader(scenario.getNetwork()).readFile("test/scenarios/berlin/network.xml.gz");
+
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculator dijkstra = new Dijkstra(network, travelTimeCostCalculator, travelTimeCostCalculator);
+		LeastCostPathCalculator ch = getLeastCostPathCalculator(network);
+
+		Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+		for (int i = 0; i < nodes.length; i += 37) {
+			for (int j = 0; j < nodes.length; j += 41) {
+				Path expected = dijkstra.calcLeastCostPath(nodes[i], nodes[j], 7.0 * 3600, null, null);
+				Path path = ch.calcLeastCostPath(nodes[i], nodes[j], 7.0 * 3600, null, null);
+				if (expected == null) {
+					assertNull(path);
+					continue;
+				}
+				assertEquals(expected.travelCost, path.travelCost, 1e-6);
+				assertEquals(expected.travelTime, path.travelTime, 1e-6);
+				assertEquals(nodes[i], path.nodes.get(0));
+				assertEquals(nodes[j], path.nodes.get(path.nodes.size() - 1));
+				for (int k = 0; k < path.links.size(); k++) {
+					assertEquals(path.nodes.get(k), path.links.get(k).getFromNode());
+					assertEquals(path.nodes.get(k + 1), path.links.get(k).getToNode());
+				}
+			}
+		}
+	}
+
+	/**
+	 * The path is searched with the link costs of the time bin in which the trip starts.
+	 */
+	public void testTimeDependentTravelTimes() {
+		Network network = createTwoRoutesNetwork();
+		CongestedTravelTime travelTime = new CongestedTravelTime(Id.createLinkId("12"));
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(3600.0, 30 * 3600.0);
+		LeastCostPathCalculator ch = factory.createPathCalculator(network, new TimeDisutility(travelTime, 0.0), travelTime);
+		Node node1 = network.getNodes().get(Id.createNodeId(1));
+		Node node4 = network.getNodes().get(Id.createNodeId(4));
+
+		Path path = ch.calcLeastCostPath(node1, node4, 6.5 * 3600, null, null);
+		assertEquals(Id.createLinkId("12"), path.links.get(0).getId());
+		assertEquals(250.0, path.travelTime, 1e-8);
+
+		path = ch.calcLeastCostPath(node1, node4, 7.5 * 3600, null, null);
+		assertEquals(Id.createLinkId("13"), path.links.get(0).getId());
+		assertEquals(350.0, path.travelTime, 1e-8);
+		assertEquals(350.0, path.travelCost, 1e-8);
+
+		path = ch.calcLeastCostPath(node1, node4, 8.5 * 3600, null, null);
+		assertEquals(Id.createLinkId("12"), path.links.get(0).getId());
+
+		// trips after the last time bin use the costs of the last time bin
+		path = ch.calcLeastCostPath(node1, node4, 40 * 3600, null, null);
+		assertEquals(Id.createLinkId("12"), path.links.get(0).getId());
+	}
+
+	public void testResetMetrics() {
+		Network network = createTwoRoutesNetwork();
+		CongestedTravelTime travelTime = new CongestedTravelTime(Id.createLinkId("12"));
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(3600.0, 30 * 3600.0);
+		LeastCostPathCalculator ch = factory.createPathCalculator(network, new TimeDisutility(travelTime, 0.0), travelTime);
+		Node node1 = network.getNodes().get(Id.createNodeId(1));
+		Node node4 = network.getNodes().get(Id.createNodeId(4));
+
+		assertEquals(Id.createLinkId("13"), ch.calcLeastCostPath(node1, node4, 7.5 * 3600, null, null).links.get(0).getId());
+
+		travelTime.congestedLinkId = Id.createLinkId("13");
+		// the weights of the time bin are still the ones of the old travel times
+		assertEquals(Id.createLinkId("13"), ch.calcLeastCostPath(node1, node4, 7.5 * 3600, null, null).links.get(0).getId());
+
+		factory.resetMetrics();
+		assertEquals(Id.createLinkId("12"), ch.calcLeastCostPath(node1, node4, 7.5 * 3600, null, null).links.get(0).getId());
+		LeastCostPathCalculator ch2 = factory.createPathCalculator(network, new TimeDisutility(travelTime, 0.0), travelTime);
+		assertEquals(Id.createLinkId("12"), ch2.calcLeastCostPath(node1, node4, 7.5 * 3600, null, null).links.get(0).getId());
+	}
+
+	/**
+	 * The hierarchy of a network is kept only as long as routers for it are requested.
+	 */
+	public void testResetMetrics_DiscardsUnusedGraphs() {
+		Network network = createTwoRoutesNetwork();
+		Network otherNetwork = createTwoRoutesNetwork();
+		CongestedTravelTime travelTime = new CongestedTravelTime(null);
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(3600.0, 30 * 3600.0);
+		factory.createPathCalculator(network, new TimeDisutility(travelTime, 0.0), travelTime);
+		factory.createPathCalculator(otherNetwork, new TimeDisutility(travelTime, 0.0), travelTime);
+		assertEquals(2, factory.getNumberOfGraphs());
+
+		factory.resetMetrics();
+		assertEquals("the graphs used in the last iteration are kept", 2, factory.getNumberOfGraphs());
+		factory.createPathCalculator(network, new TimeDisutility(travelTime, 0.0), travelTime);
+		factory.resetMetrics();
+		assertEquals(1, factory.getNumberOfGraphs());
+		factory.resetMetrics();
+		assertEquals(0, factory.getNumberOfGraphs());
+	}
+
+	/**
+	 * Routers with the same travel times, but different travel disutilities, must not share the weights.
+	 */
+	public void testDifferentDisutilitiesWithSameTravelTime() {
+		Network network = createTwoRoutesNetwork();
+		CongestedTravelTime travelTime = new CongestedTravelTime(null);
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(3600.0, 30 * 3600.0);
+		LeastCostPathCalculator ch = factory.createPathCalculator(network, new TimeDisutility(travelTime, 0.0), travelTime);
+		LeastCostPathCalculator chToll = factory.createPathCalculator(network, new TimeDisutility(travelTime, 1000.0), travelTime);
+		Node node1 = network.getNodes().get(Id.createNodeId(1));
+		Node node4 = network.getNodes().get(Id.createNodeId(4));
+
+		assertEquals(Id.createLinkId("12"), ch.calcLeastCostPath(node1, node4, 7.5 * 3600, null, null).links.get(0).getId());
+		Path path = chToll.calcLeastCostPath(node1, node4, 7.5 * 3600, null, null);
+		assertEquals(Id.createLinkId("13"), path.links.get(0).getId());
+		assertEquals(350.0, path.travelCost, 1e-8);
+		assertEquals(Id.createLinkId("12"), ch.calcLeastCostPath(node1, node4, 7.5 * 3600, null, null).links.get(0).getId());
+	}
+
+	/**
+	 * The routers which {@link NetworkRouting} creates, e.g. for each replanning thread, get their own travel
+	 * disutility objects from the same factory, and must share the weights.
+	 */
+	public void testRoutersOfNetworkRoutingShareWeights() {
+		final Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		addTwoRoutesNetwork(scenario.getNetwork());
+		final CongestedTravelTime travelTime = new CongestedTravelTime(null);
+		final ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(3600.0, 30 * 3600.0);
+		com.google.inject.Injector injector = Injector.createInjector(scenario.getConfig(), new AbstractModule() {
+			@Override
+			public void install() {
+				install(AbstractModule.override(Arrays.asList(new TripRouterModule()), new AbstractModule() {
+					@Override
+					public void install() {
+						install(new ScenarioByInstanceModule(scenario));
+						addTravelTimeBinding(TransportMode.car).toInstance(travelTime);
+						addTravelDisutilityFactoryBinding(TransportMode.car).toInstance(new TravelDisutilityFactory() {
+							@Override
+							public TravelDisutility createTravelDisutility(final TravelTime timeCalculator) {
+								return new TimeDisutility(timeCalculator, 0.0);
+							}
+						});
+						bindLeastCostPathCalculatorFactory().toInstance(factory);
+						bind(SharingLeastCostPathCalculatorFactory.class).toInstance(factory);
+					}
+				}));
+			}
+		});
+
+		Key<RoutingModule> key = Key.get(RoutingModule.class, Names.named(TransportMode.car));
+		RoutingModule router1 = injector.getInstance(key);
+		RoutingModule router2 = injector.getInstance(key);
+		assertNotSame(router1, router2);
+		assertEquals(1, factory.getNumberOfMetrics());
+	}
+
+	/**
+	 * Two routes from node 1 to node 4: over node 2, which takes 250s at free speed, and over node 3,
+	 * which takes 350s.
+	 */
+	private static Network createTwoRoutesNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		addTwoRoutesNetwork(network);
+		return network;
+	}
+
+	private static void addTwoRoutesNetwork(final Network network) {
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId(1), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId(2), new Coord(1000, 1000));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.createNodeId(3), new Coord(1000, -1000));
+		Node node4 = NetworkUtils.createAndAddNode(network, Id.createNodeId(4), new Coord(2000, 0));
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("12"), node1, node2, 1000, 10, 2000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("24"), node2, node4, 1500, 10, 2000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("13"), node1, node3, 2000, 10, 2000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("34"), node3, node4, 1500, 10, 2000, 1);
+	}
+
+	/**
+	 * Free speed travel times, except for one link which takes ten times as long between 7:00 and 8:00.
+	 */
+	private static class CongestedTravelTime implements TravelTime {
+		/*package*/ Id<Link> congestedLinkId;
+
+		CongestedTravelTime(final Id<Link> congestedLinkId) {
+			this.congestedLinkId = congestedLinkId;
+		}
+
+		@Override
+		public double getLinkTravelTime(final Link link, final double time, final Person person, final Vehicle vehicle) {
+			double travelTime = link.getLength() / link.getFreespeed();
+			if (link.getId().equals(this.congestedLinkId) && time >= 7 * 3600 && time < 8 * 3600) {
+				return 10 * travelTime;
+			}
+			return travelTime;
+		}
+	}
+
+	/**
+	 * The travel time as costs, plus a toll on link 12.
+	 */
+	private static class TimeDisutility implements TravelDisutility {
+		private final TravelTime travelTime;
+		private final double toll;
+
+		TimeDisutility(final TravelTime travelTime, final double toll) {
+			this.travelTime = travelTime;
+			this.toll = toll;
+		}
+
+		@Override
+		public double getLinkTravelDisutility(final Link link, final double time, final Person person, final Vehicle vehicle) {
+			double cost = this.travelTime.getLinkTravelTime(link, time, person, vehicle);
+			return link.getId().equals(Id.createLinkId("12")) ? cost + this.toll : cost;
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(final Link link) {
+			return link.getLength() / link.getFreespeed();
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IntBinaryMinHeapTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.priorityqueue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntBinaryMinHeapTest {
+
+	@Test
+	public void testAddPoll() {
+		IntBinaryMinHeap pq = new IntBinaryMinHeap(10);
+		Assert.assertTrue(pq.isEmpty());
+		Assert.assertEquals(-1, pq.poll());
+		pq.add(5, 3.0);
+		pq.add(3, 1.0);
+		pq.add(7, 2.0);
+		Assert.assertEquals(3, pq.size());
+		Assert.assertTrue(pq.contains(7));
+		Assert.assertFalse(pq.contains(6));
+		Assert.assertEquals(3, pq.peek());
+		Assert.assertEquals(3, pq.poll());
+		Assert.assertEquals(7, pq.poll());
+		Assert.assertEquals(5, pq.poll());
+		Assert.assertEquals(-1, pq.poll());
+		Assert.assertFalse(pq.contains(5));
+	}
+
+	@Test
+	public void testAdd_Twice() {
+		IntBinaryMinHeap pq = new IntBinaryMinHeap(10);
+		pq.add(5, 3.0);
+		try {
+			pq.add(5, 1.0);
+			Assert.fail("missing IllegalArgumentException.");
+		} catch (IllegalArgumentException e) {
+		}
+		Assert.assertEquals(1, pq.size());
+	}
+
+	@Test
+	public void testUpdate() {
+		IntBinaryMinHeap pq = new IntBinaryMinHeap(10);
+		pq.add(0, 1.0);
+		pq.add(1, 2.0);
+		pq.add(2, 3.0);
+		pq.add(3, 4.0);
+		pq.update(3, 0.5);
+		Assert.assertEquals(0.5, pq.getCost(3), 0.0);
+		pq.update(0, 5.0);
+		Assert.assertEquals(3, pq.poll());
+		Assert.assertEquals(1, pq.poll());
+		Assert.assertEquals(2, pq.poll());
+		Assert.assertEquals(0, pq.poll());
+	}
+
+	@Test
+	public void testClear() {
+		IntBinaryMinHeap pq = new IntBinaryMinHeap(10);
+		pq.add(4, 1.0);
+		pq.add(8, 2.0);
+		pq.clear();
+		Assert.assertTrue(pq.isEmpty());
+		Assert.assertFalse(pq.contains(4));
+		pq.add(8, 3.0);
+		Assert.assertEquals(8, pq.poll());
+	}
+
+	@Test
+	public void testRandomOrder() {
+		Random random = new Random(4711);
+		int n = 1000;
+		IntBinaryMinHeap pq = new IntBinaryMinHeap(n);
+		double[] costs = new double[n];
+		for (int i = 0; i < n; i++) {
+			costs[i] = random.nextDouble();
+			pq.add(i, costs[i]);
+		}
+		for (int i = 0; i < n; i += 3) {
+			costs[i] = random.nextDouble();
+			pq.update(i, costs[i]);
+		}
+		Assert.assertEquals(n, pq.toArray().length);
+		double[] sorted = costs.clone();
+		Arrays.sort(sorted);
+		for (int i = 0; i < n; i++) {
+			Assert.assertEquals(sorted[i], costs[pq.poll()], 0.0);
+		}
+		Assert.assertTrue(pq.isEmpty());
+	}
+
+}
@@ -0,0 +1,104 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PreProcessLandmarksTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.router.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class PreProcessLandmarksTest {
+
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testCacheFile() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		new MatsimNetworkReader(scenario.getNetwork()).readFile("test/scenarios/equil/network.xml");
+		Network network = scenario.getNetwork();
+		String cacheFile = this.utils.getOutputDirectory() + "landmarks.bin";
+
+		PreProcessLandmarks calculated = new PreProcessLandmarks(new ScaledFreespeedDisutility(1.0));
+		calculated.setCacheFile(cacheFile);
+		calculated.run(network);
+
+		PreProcessLandmarks read = new PreProcessLandmarks(new ScaledFreespeedDisutility(1.0));
+		read.setCacheFile(cacheFile);
+		read.run(network);
+		assertSameData(calculated, read, network, 1.0);
+
+		// links got more expensive: the stored costs are still lower bounds and are used
+		PreProcessLandmarks moreExpensive = new PreProcessLandmarks(new ScaledFreespeedDisutility(2.0));
+		moreExpensive.setCacheFile(cacheFile);
+		moreExpensive.run(network);
+		assertSameData(calculated, moreExpensive, network, 1.0);
+
+		// links got cheaper: the landmarks must be calculated again
+		PreProcessLandmarks cheaper = new PreProcessLandmarks(new ScaledFreespeedDisutility(0.5));
+		cheaper.setCacheFile(cacheFile);
+		cheaper.run(network);
+		assertSameData(calculated, cheaper, network, 0.5);
+	}
+
+	private static void assertSameData(final PreProcessLandmarks expected, final PreProcessLandmarks actual, final Network network, final double factor) {
+		Assert.assertArrayEquals(expected.getLandmarks(), actual.getLandmarks());
+		for (Node node : network.getNodes().values()) {
+			for (int i = 0; i < expected.getLandmarks().length; i++) {
+				Assert.assertEquals(factor * expected.getNodeData(node).getMinLandmarkTravelTime(i),
+						actual.getNodeData(node).getMinLandmarkTravelTime(i), MatsimTestUtils.EPSILON);
+				Assert.assertEquals(factor * expected.getNodeData(node).getMaxLandmarkTravelTime(i),
+						actual.getNodeData(node).getMaxLandmarkTravelTime(i), MatsimTestUtils.EPSILON);
+			}
+		}
+	}
+
+	private static class ScaledFreespeedDisutility implements TravelDisutility {
+
+		private final double factor;
+
+		ScaledFreespeedDisutility(final double factor) {
+			this.factor = factor;
+		}
+
+		@Override
+		public double getLinkTravelDisutility(final Link link, final double time, final Person person, final Vehicle vehicle) {
+			return getLinkMinimumTravelDisutility(link);
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(final Link link) {
+			return this.factor * link.getLength() / link.getFreespeed();
+		}
+
+	}
+
+}
@@ -0,0 +1,316 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScoringFunctionsForPopulationTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.controler.AbstractModule;
+import org.matsim.core.controler.ControlerListenerManager;
+import org.matsim.core.controler.ControlerListenerManagerImpl;
+import org.matsim.core.controler.Injector;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioByInstanceModule;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.scoring.functions.CharyparNagelScoringFunctionFactory;
+import org.matsim.pt.routes.ExperimentalTransitRoute;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.vehicles.Vehicle;
+
+import com.google.inject.Singleton;
+
+public class ScoringFunctionsForPopulationTest {
+
+	private static final int NUMBER_OF_PERSONS = 50;
+
+	@Test
+	public void testPartitionedEventHandlers_sameScores() {
+		double[] expected = calcScores(1, 1);
+		double[] partitioned = calcScores(4, 4);
+		for (int p = 0; p < NUMBER_OF_PERSONS; p++) {
+			assertEquals("person " + p, expected[p], partitioned[p], 1e-9);
+		}
+		// the scores should differ between the persons, otherwise the test would not detect mixed up persons
+		assertNotEquals(expected[0], expected[1], 1e-9);
+	}
+
+	@Test
+	public void testPartitionedEventHandlers_experiencedPlans() {
+		Map<Id<Person>, Plan> expected = calcExperiencedPlans(1, 1, 1);
+		Map<Id<Person>, Plan> partitioned = calcExperiencedPlans(4, 4, 0);
+		for (int p = 0; p < NUMBER_OF_PERSONS; p++) {
+			Plan expectedPlan = expected.get(Id.createPersonId(p));
+			Plan plan = partitioned.get(Id.createPersonId(p));
+			assertEquals("person " + p, 11, expectedPlan.getPlanElements().size());
+			assertEquals("person " + p, expectedPlan.getPlanElements().size(), plan.getPlanElements().size());
+			for (int i = 0; i < plan.getPlanElements().size(); i++) {
+				PlanElement expectedElement = expectedPlan.getPlanElements().get(i);
+				PlanElement element = plan.getPlanElements().get(i);
+				if (expectedElement instanceof Leg) {
+					assertEquals(((Leg) expectedElement).getTravelTime(), ((Leg) element).getTravelTime(), 1e-9);
+					Route expectedRoute = ((Leg) expectedElement).getRoute();
+					Route route = ((Leg) element).getRoute();
+					assertEquals(expectedRoute.getClass(), route.getClass());
+					assertEquals(expectedRoute.getDistance(), route.getDistance(), 1e-9);
+					if (expectedRoute instanceof ExperimentalTransitRoute) {
+						assertEquals(((ExperimentalTransitRoute) expectedRoute).getLineId(), ((ExperimentalTransitRoute) route).getLineId());
+						assertEquals(((ExperimentalTransitRoute) expectedRoute).getAccessStopId(), ((ExperimentalTransitRoute) route).getAccessStopId());
+						assertEquals(((ExperimentalTransitRoute) expectedRoute).getEgressStopId(), ((ExperimentalTransitRoute) route).getEgressStopId());
+					}
+				} else {
+					assertEquals(((Activity) expectedElement).getStartTime(), ((Activity) element).getStartTime(), 1e-9);
+					assertEquals(((Activity) expectedElement).getEndTime(), ((Activity) element).getEndTime(), 1e-9);
+				}
+			}
+			// the last leg is by transit
+			Leg transitLeg = (Leg) plan.getPlanElements().get(9);
+			assertEquals(TransportMode.pt, transitLeg.getMode());
+			assertEquals(Id.create("bus", TransitLine.class), ((ExperimentalTransitRoute) transitLeg.getRoute()).getLineId());
+		}
+	}
+
+	private static double[] calcScores(final int numberOfEventHandlers, final int numberOfThreads) {
+		Config config = createConfig(numberOfEventHandlers, numberOfThreads);
+		final Scenario scenario = createScenario(config);
+		final EventsManager events = EventsUtils.createEventsManager(config);
+		final ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+		ScoringFunctionsForPopulation scoringFunctionsForPopulation = new ScoringFunctionsForPopulation(controlerListenerManager, events,
+				new Provider<EventsToActivities>() {
+					@Override
+					public EventsToActivities get() {
+						return new EventsToActivities(controlerListenerManager, events);
+					}
+				},
+				new Provider<EventsToLegs>() {
+					@Override
+					public EventsToLegs get() {
+						EventsToLegs eventsToLegs = new EventsToLegs(scenario.getNetwork(), events);
+						eventsToLegs.setTransitSchedule(scenario.getTransitSchedule());
+						return eventsToLegs;
+					}
+				},
+				config.plans(), config.planCalcScore(), scenario.getNetwork(), scenario.getPopulation(), new CharyparNagelScoringFunctionFactory(scenario));
+		scoringFunctionsForPopulation.setTransitSchedule(scenario.getTransitSchedule());
+		processEvents(controlerListenerManager, events);
+		scoringFunctionsForPopulation.finishScoringFunctions();
+
+		double[] scores = new double[NUMBER_OF_PERSONS];
+		for (int p = 0; p < NUMBER_OF_PERSONS; p++) {
+			scores[p] = scoringFunctionsForPopulation.getScoringFunctionForAgent(Id.createPersonId(p)).getScore();
+		}
+		return scores;
+	}
+
+	/**
+	 * Collects the experienced plans with the scoring bound as in the controler, and checks how often the global
+	 * {@link EventsToActivities} and {@link EventsToLegs}, which handle the events of all persons, are created.
+	 */
+	private static Map<Id<Person>, Plan> calcExperiencedPlans(final int numberOfEventHandlers, final int numberOfThreads, final int expectedGlobalInstances) {
+		Config config = createConfig(numberOfEventHandlers, numberOfThreads);
+		final Scenario scenario = createScenario(config);
+		final EventsManager events = EventsUtils.createEventsManager(config);
+		final AtomicInteger globalInstances = new AtomicInteger();
+		com.google.inject.Injector injector = Injector.createInjector(config,
+				new ScenarioByInstanceModule(scenario),
+				new AbstractModule() {
+					@Override
+					public void install() {
+						bind(EventsToActivities.class).toProvider(new Provider<EventsToActivities>() {
+							@Inject ControlerListenerManager controlerListenerManager;
+							@Override
+							public EventsToActivities get() {
+								globalInstances.incrementAndGet();
+								return new EventsToActivities(controlerListenerManager, events);
+							}
+						}).in(Singleton.class);
+						bind(EventsToLegs.class).toProvider(new Provider<EventsToLegs>() {
+							@Override
+							public EventsToLegs get() {
+								globalInstances.incrementAndGet();
+								EventsToLegs eventsToLegs = new EventsToLegs(scenario.getNetwork(), events);
+								eventsToLegs.setTransitSchedule(scenario.getTransitSchedule());
+								return eventsToLegs;
+							}
+						}).in(Singleton.class);
+						bind(ExperiencedPlansService.class).to(ExperiencedPlansServiceImpl.class).asEagerSingleton();
+						bind(ScoringFunctionsForPopulation.class).asEagerSingleton();
+						bind(ScoringFunctionFactory.class).toInstance(new CharyparNagelScoringFunctionFactory(scenario));
+						bind(ControlerListenerManagerImpl.class).asEagerSingleton();
+						bind(ControlerListenerManager.class).to(ControlerListenerManagerImpl.class);
+						bind(EventsManager.class).toInstance(events);
+					}
+				});
+		processEvents(injector.getInstance(ControlerListenerManagerImpl.class), events);
+		assertEquals(2 * expectedGlobalInstances, globalInstances.get());
+		return injector.getInstance(ExperiencedPlansService.class).getExperiencedPlans();
+	}
+
+	private static Config createConfig(final int numberOfEventHandlers, final int numberOfThreads) {
+		Config config = ConfigUtils.createConfig();
+		config.parallelEventHandling().setNumberOfThreads(numberOfThreads);
+		config.planCalcScore().setNumberOfEventHandlers(numberOfEventHandlers);
+		PlanCalcScoreConfigGroup.ActivityParams work = new PlanCalcScoreConfigGroup.ActivityParams("work");
+		work.setTypicalDuration(100.0);
+		config.planCalcScore().addActivityParams(work);
+		PlanCalcScoreConfigGroup.ModeParams car = new PlanCalcScoreConfigGroup.ModeParams("car");
+		car.setMarginalUtilityOfTraveling(-6.0);
+		car.setMarginalUtilityOfDistance(0.0);
+		car.setConstant(-1.0);
+		config.planCalcScore().addModeParams(car);
+		config.transit().setUseTransit(true);
+		return config;
+	}
+
+	private static Scenario createScenario(final Config config) {
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Network network = scenario.getNetwork();
+		Node node0 = NetworkUtils.createAndAddNode(network, Id.createNodeId(0), new Coord(0, 0));
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId(1), new Coord(100, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId(2), new Coord(200, 0));
+		Link link0 = NetworkUtils.createAndAddLink(network, Id.createLinkId(0), node0, node1, 100, 10, 1000, 1);
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.createLinkId(1), node1, node2, 100, 10, 1000, 1);
+
+		// a bus line from the first to the second link
+		TransitSchedule schedule = scenario.getTransitSchedule();
+		TransitScheduleFactory factory = schedule.getFactory();
+		TransitStopFacility stop0 = factory.createTransitStopFacility(Id.create(0, TransitStopFacility.class), link0.getToNode().getCoord(), false);
+		stop0.setLinkId(link0.getId());
+		TransitStopFacility stop1 = factory.createTransitStopFacility(Id.create(1, TransitStopFacility.class), link1.getToNode().getCoord(), false);
+		stop1.setLinkId(link1.getId());
+		schedule.addStopFacility(stop0);
+		schedule.addStopFacility(stop1);
+		List<TransitRouteStop> stops = new ArrayList<>();
+		stops.add(factory.createTransitRouteStop(stop0, 0, 0));
+		stops.add(factory.createTransitRouteStop(stop1, 100, 100));
+		TransitRoute transitRoute = factory.createTransitRoute(Id.create("bus", TransitRoute.class),
+				RouteUtils.createNetworkRoute(Arrays.asList(link0.getId(), link1.getId()), network), stops, "bus");
+		transitRoute.addDeparture(factory.createDeparture(Id.create(0, Departure.class), 5100));
+		TransitLine line = factory.createTransitLine(Id.create("bus", TransitLine.class));
+		line.addRoute(transitRoute);
+		schedule.addTransitLine(line);
+
+		for (int p = 0; p < NUMBER_OF_PERSONS; p++) {
+			scenario.getPopulation().addPerson(scenario.getPopulation().getFactory().createPerson(Id.createPersonId(p)));
+		}
+		return scenario;
+	}
+
+	private static void processEvents(final ControlerListenerManagerImpl controlerListenerManager, final EventsManager events) {
+		Id<Link> link0 = Id.createLinkId(0);
+		Id<Link> link1 = Id.createLinkId(1);
+		controlerListenerManager.fireControlerIterationStartsEvent(0);
+		events.initProcessing();
+		// the events have to be in chronological order for the parallel events managers
+		for (int trip = 0; trip < 4; trip++) {
+			double time = trip * 1000;
+			for (int p = 0; p < NUMBER_OF_PERSONS; p++) {
+				Id<Person> personId = Id.createPersonId(p);
+				Id<Vehicle> vehicleId = Id.create(p, Vehicle.class);
+				events.processEvent(new ActivityEndEvent(time + p, personId, link0, null, "work"));
+				events.processEvent(new PersonDepartureEvent(time + p, personId, link0, "car"));
+				events.processEvent(new VehicleEntersTrafficEvent(time + p, personId, link0, vehicleId, "car", 1.0));
+			}
+			for (int p = 0; p < NUMBER_OF_PERSONS; p++) {
+				events.processEvent(new LinkEnterEvent(time + 100 + 2 * p, Id.create(p, Vehicle.class), link1));
+			}
+			for (int p = 0; p < NUMBER_OF_PERSONS; p++) {
+				Id<Person> personId = Id.createPersonId(p);
+				Id<Vehicle> vehicleId = Id.create(p, Vehicle.class);
+				events.processEvent(new VehicleLeavesTrafficEvent(time + 200 + 3 * p, personId, link1, vehicleId, "car", 1.0));
+				events.processEvent(new PersonArrivalEvent(time + 200 + 3 * p, personId, link1, "car"));
+				events.processEvent(new ActivityStartEvent(time + 200 + 3 * p, personId, link1, null, "work"));
+				events.processEvent(new PersonMoneyEvent(time + 200 + 3 * p, personId, p));
+			}
+		}
+		// a last trip by bus, whose events are needed by the legs of all persons
+		Id<Vehicle> busId = Id.create("bus", Vehicle.class);
+		Id<TransitStopFacility> stop0 = Id.create(0, TransitStopFacility.class);
+		Id<TransitStopFacility> stop1 = Id.create(1, TransitStopFacility.class);
+		for (int p = 0; p < NUMBER_OF_PERSONS; p++) {
+			Id<Person> personId = Id.createPersonId(p);
+			events.processEvent(new ActivityEndEvent(5000 + p, personId, link0, null, "work"));
+			events.processEvent(new PersonDepartureEvent(5000 + p, personId, link0, TransportMode.pt));
+		}
+		events.processEvent(new TransitDriverStartsEvent(5100, Id.createPersonId("busDriver"), busId, Id.create("bus", TransitLine.class),
+				Id.create("bus", TransitRoute.class), Id.create(0, Departure.class)));
+		events.processEvent(new VehicleArrivesAtFacilityEvent(5100, busId, stop0, 0));
+		for (int p = 0; p < NUMBER_OF_PERSONS; p++) {
+			events.processEvent(new PersonEntersVehicleEvent(5100, Id.createPersonId(p), busId));
+		}
+		events.processEvent(new VehicleArrivesAtFacilityEvent(5200, busId, stop1, 0));
+		for (int p = 0; p < NUMBER_OF_PERSONS; p++) {
+			Id<Person> personId = Id.createPersonId(p);
+			events.processEvent(new PersonLeavesVehicleEvent(5200, personId, busId));
+			events.processEvent(new PersonArrivalEvent(5200, personId, link1, TransportMode.pt));
+			events.processEvent(new ActivityStartEvent(5200, personId, link1, null, "work"));
+		}
+		events.finishProcessing();
+		controlerListenerManager.fireControlerAfterMobsimEvent(0);
+	}
+
+}
@@ -0,0 +1,110 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayBasedDataContainerProviderTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.trafficmonitoring;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.trafficmonitoring.TravelTimeCalculator.DataContainer;
+
+public class ArrayBasedDataContainerProviderTest {
+
+	@Test
+	public void testGetTravelTimeData() {
+		Network network = createNetwork();
+		Link link1 = network.getLinks().get(Id.createLinkId("abdcp1"));
+		Map<Id<Link>, DataContainer> linkData = new ConcurrentHashMap<>();
+		ArrayBasedDataContainerProvider provider = new ArrayBasedDataContainerProvider(linkData, new TravelTimeDataArrayFactory(network, 96), network);
+
+		Assert.assertNull(provider.getTravelTimeData(link1.getId(), false));
+		DataContainer data = provider.getTravelTimeData(link1.getId(), true);
+		Assert.assertNotNull(data);
+		Assert.assertSame(data, provider.getTravelTimeData(link1, false));
+		Assert.assertSame(data, provider.getTravelTimeData(link1.getId(), true));
+		Assert.assertSame(data, linkData.get(link1.getId()));
+
+		// a link whose id was created after the provider is looked up in the map
+		Node node2 = network.getNodes().get(Id.createNodeId("abdcp2"));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.createNodeId("abdcp3"), new Coord(2000, 0));
+		Link link2 = NetworkUtils.createAndAddLink(network, Id.createLinkId("abdcp2-later"), node2, node3, 1000, 10, 1000, 1);
+		DataContainer data2 = provider.getTravelTimeData(link2, true);
+		Assert.assertNotNull(data2);
+		Assert.assertSame(data2, provider.getTravelTimeData(link2.getId(), false));
+		Assert.assertSame(data2, linkData.get(link2.getId()));
+	}
+
+	@Test
+	public void testConcurrentCreation() throws InterruptedException {
+		Network network = createNetwork();
+		final Id<Link> linkId = Id.createLinkId("abdcp1");
+		Map<Id<Link>, DataContainer> linkData = new ConcurrentHashMap<>();
+		final ArrayBasedDataContainerProvider provider = new ArrayBasedDataContainerProvider(linkData,
+				new TravelTimeDataFlatArrayFactory(network, 96), network);
+
+		final int numberOfThreads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final DataContainer[] results = new DataContainer[numberOfThreads];
+		Thread[] threads = new Thread[numberOfThreads];
+		for (int i = 0; i < numberOfThreads; i++) {
+			final int t = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+					results[t] = provider.getTravelTimeData(linkId, true);
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		DataContainer data = provider.getTravelTimeData(linkId, false);
+		Assert.assertSame(data, linkData.get(linkId));
+		for (DataContainer result : results) {
+			Assert.assertSame(data, result);
+		}
+	}
+
+	private static Network createNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId("abdcp1"), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId("abdcp2"), new Coord(1000, 0));
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("abdcp1"), node1, node2, 1000, 10, 1000, 1);
+		return network;
+	}
+
+}
@@ -50,6 +50,8 @@ import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
 import org.matsim.core.events.EventsManagerImpl;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.ParallelEventsManagerImpl;
+import org.matsim.core.events.handler.EventHandler;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.io.MatsimNetworkReader;
 import org.matsim.core.scenario.MutableScenario;
@@ -176,6 +178,52 @@ public class TravelTimeCalculatorTest extends MatsimTestCase {
 				aggregator, binSize, compareFile, false);
 	}
 
+	public final void testTravelTimeCalculator_FlatArray_Optimistic() throws IOException {
+		doFlatArrayTravelTimeCalculatorTest(1);
+	}
+
+	public final void testTravelTimeCalculator_FlatArray_Optimistic_ParallelEventHandlers() throws IOException {
+		doFlatArrayTravelTimeCalculatorTest(3);
+	}
+
+	private final void doFlatArrayTravelTimeCalculatorTest(final int numberOfEventHandlers) throws IOException {
+		MutableScenario scenario = (MutableScenario) ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		new MatsimNetworkReader(network).readFile(getClassInputDirectory() + "link10_network.xml");
+
+		EventsManagerImpl events = (EventsManagerImpl) EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new MatsimEventsReader(events).readFile(getClassInputDirectory() + "link10_events.xml");
+
+		TravelTimeCalculatorConfigGroup config = scenario.getConfig().travelTimeCalculator();
+		config.setTravelTimeCalculatorType(TravelTimeCalculatorConfigGroup.TravelTimeCalculatorType.TravelTimeCalculatorFlatArray.name());
+		config.setNumberOfEventHandlers(numberOfEventHandlers);
+		TravelTimeCalculator ttcalc = TravelTimeCalculator.create(network, config);
+		assertEquals(numberOfEventHandlers, ttcalc.getEventHandlers().size());
+
+		EventsManager events2 = new ParallelEventsManagerImpl(numberOfEventHandlers);
+		for (EventHandler handler : ttcalc.getEventHandlers()) {
+			events2.addHandler(handler);
+		}
+		events2.initProcessing();
+		for (Event e : collector.getEvents()) {
+			events2.processEvent(e);
+		}
+		events2.finishProcessing();
+
+		BufferedReader infile = IOUtils.getBufferedReader(getClassInputDirectory() + "link10_ttimes.txt");
+		try {
+			Link link10 = network.getLinks().get(Id.create("10", Link.class));
+			for (int i = 0; i < 4*24; i++) {
+				double ttime = ttcalc.getLinkTravelTimes().getLinkTravelTime(link10, i*config.getTraveltimeBinSize(), null, null);
+				assertEquals(infile.readLine(), Double.toString(ttime));
+			}
+		} finally {
+			infile.close();
+		}
+	}
+
 	private final void doTravelTimeCalculatorTest(final MutableScenario scenario, final TravelTimeDataFactory ttDataFactory,
 			final AbstractTravelTimeAggregator aggregator, final int timeBinSize,
 			final String compareFile, final boolean generateNewData) throws IOException {
@@ -0,0 +1,75 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TravelTimeDataFlatArrayFactoryTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.trafficmonitoring;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+public class TravelTimeDataFlatArrayFactoryTest {
+
+	@Test
+	public void testCreateTravelTimeData() {
+		Network network = createNetwork();
+		Id<Link> linkId = Id.createLinkId("ttdfaf1");
+		TravelTimeDataFlatArrayFactory factory = new TravelTimeDataFlatArrayFactory(network, 24);
+
+		TravelTimeData data = factory.createTravelTimeData(linkId);
+		Assert.assertEquals(100.0, data.getTravelTime(3, 3 * 3600), 1e-8);
+		data.addTravelTime(3, 150.0);
+		data.addTravelTime(3, 250.0);
+		Assert.assertEquals(200.0, data.getTravelTime(3, 3 * 3600), 1e-8);
+
+		// a second data object of the same link must not clear the data collected so far
+		TravelTimeData data2 = factory.createTravelTimeData(linkId);
+		Assert.assertEquals(200.0, data2.getTravelTime(3, 3 * 3600), 1e-8);
+		data2.resetTravelTimes();
+		Assert.assertEquals(100.0, data.getTravelTime(3, 3 * 3600), 1e-8);
+	}
+
+	@Test
+	public void testTooManySlots() {
+		Network network = createNetwork();
+		try {
+			new TravelTimeDataFlatArrayFactory(network, Integer.MAX_VALUE / 2 + 1);
+			Assert.fail("expected exception, as the arrays cannot be that large.");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	private static Network createNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId("ttdfaf1"), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId("ttdfaf2"), new Coord(1000, 0));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.createNodeId("ttdfaf3"), new Coord(2000, 0));
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("ttdfaf1"), node1, node2, 1000, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("ttdfaf2"), node2, node3, 1000, 10, 1000, 1);
+		return network;
+	}
+
+}
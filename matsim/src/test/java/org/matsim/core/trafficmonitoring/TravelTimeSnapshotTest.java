@@ -0,0 +1,129 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TravelTimeSnapshotTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.core.trafficmonitoring;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class TravelTimeSnapshotTest {
+
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		Network network = createNetwork();
+		Link link1 = network.getLinks().get(Id.createLinkId(1));
+		Link link2 = network.getLinks().get(Id.createLinkId(2));
+		TravelTimeCalculator ttc = createCalculator(network);
+		Id<Vehicle> vehId = Id.create(1, Vehicle.class);
+		ttc.handleEvent(new LinkEnterEvent(7 * 3600, vehId, link1.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(7 * 3600 + 250, vehId, link1.getId()));
+
+		File file = new File(this.utils.getOutputDirectory() + "linkTravelTimes.bin");
+		TravelTimeSnapshot.write(file, network, ttc.getLinkTravelTimes(), ttc.getTimeSlice(), ttc.getNumSlots());
+		TravelTimeSnapshot snapshot = TravelTimeSnapshot.read(file);
+
+		Assert.assertEquals(900, snapshot.getTimeBinSize());
+		Assert.assertEquals(ttc.getNumSlots(), snapshot.getNumberOfTimeBins());
+		for (Link link : network.getLinks().values()) {
+			for (int i = 0; i < ttc.getNumSlots(); i++) {
+				Assert.assertEquals(ttc.getLinkTravelTime(link.getId(), i * 900), snapshot.getLinkTravelTime(link, i * 900 + 450, null, null), 1e-3);
+			}
+		}
+		Assert.assertEquals(250.0, snapshot.getLinkTravelTime(link1, 7 * 3600 + 100, null, null), 1e-3);
+		Assert.assertEquals(100.0, snapshot.getLinkTravelTime(link2, 7 * 3600 + 100, null, null), 1e-3);
+		// times after the last time bin belong to the last time bin
+		Assert.assertEquals(100.0, snapshot.getLinkTravelTime(link1, 100 * 3600, null, null), 1e-3);
+
+		// links which are not contained in the snapshot are traversed with free speed
+		Node node3 = network.getFactory().createNode(Id.createNodeId(3), new Coord(3000, 0));
+		network.addNode(node3);
+		Link link3 = network.getFactory().createLink(Id.createLinkId(3), network.getNodes().get(Id.createNodeId(2)), node3);
+		link3.setLength(1000.0);
+		link3.setFreespeed(20.0);
+		network.addLink(link3);
+		Assert.assertEquals(50.0, snapshot.getLinkTravelTime(link3, 7 * 3600, null, null), 1e-8);
+	}
+
+	@Test
+	public void testInitTravelTimes() throws IOException {
+		Network network = createNetwork();
+		Link link1 = network.getLinks().get(Id.createLinkId(1));
+		TravelTimeCalculator ttc = createCalculator(network);
+		Id<Vehicle> vehId = Id.create(1, Vehicle.class);
+		ttc.handleEvent(new LinkEnterEvent(7 * 3600, vehId, link1.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(7 * 3600 + 250, vehId, link1.getId()));
+		File file = new File(this.utils.getOutputDirectory() + "linkTravelTimes.bin");
+		TravelTimeSnapshot.write(file, network, ttc.getLinkTravelTimes(), ttc.getTimeSlice(), ttc.getNumSlots());
+
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setInputTravelTimesFile(file.getPath());
+		TravelTimeCalculator warm = TravelTimeCalculator.create(network, config);
+		Assert.assertEquals(250.0, warm.getLinkTravelTime(link1.getId(), 7 * 3600), 1e-3);
+		Assert.assertEquals(100.0, warm.getLinkTravelTime(link1.getId(), 8 * 3600), 1e-3);
+
+		// the travel times of the snapshot are dropped as soon as events are collected
+		warm.reset(0);
+		Assert.assertEquals(100.0, warm.getLinkTravelTime(link1.getId(), 7 * 3600), 1e-3);
+	}
+
+	private static TravelTimeCalculator createCalculator(final Network network) {
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTraveltimeBinSize(900);
+		return TravelTimeCalculator.create(network, config);
+	}
+
+	private static Network createNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		Node node0 = network.getFactory().createNode(Id.createNodeId(0), new Coord(0, 0));
+		Node node1 = network.getFactory().createNode(Id.createNodeId(1), new Coord(1000, 0));
+		Node node2 = network.getFactory().createNode(Id.createNodeId(2), new Coord(2000, 0));
+		network.addNode(node0);
+		network.addNode(node1);
+		network.addNode(node2);
+		Link link1 = network.getFactory().createLink(Id.createLinkId(1), node0, node1);
+		Link link2 = network.getFactory().createLink(Id.createLinkId(2), node1, node2);
+		for (Link link : new Link[] {link1, link2}) {
+			link.setLength(1000.0);
+			link.setFreespeed(10.0);
+			network.addLink(link);
+		}
+		return network;
+	}
+
+}
@@ -0,0 +1,124 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdMapTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+
+public class IdMapTest {
+
+	@Test
+	public void testPutGetRemove() {
+		Id<TLink> id1 = Id.create("1", TLink.class);
+		Id<TLink> id2 = Id.create("2", TLink.class);
+		Id<TLink> id3 = Id.create("3", TLink.class);
+
+		IdMap<TLink, String> map = new IdMap<>(TLink.class);
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.put(id1, "one"));
+		Assert.assertNull(map.put(id2, "two"));
+		Assert.assertEquals("one", map.put(id1, "eins"));
+		Assert.assertEquals(2, map.size());
+
+		Assert.assertEquals("eins", map.get(id1));
+		Assert.assertEquals("two", map.get(id2));
+		Assert.assertNull(map.get(id3));
+		Assert.assertNull(map.get("1"));
+		Assert.assertTrue(map.containsKey(id2));
+		Assert.assertFalse(map.containsKey(id3));
+
+		Assert.assertEquals("two", map.remove(id2));
+		Assert.assertNull(map.remove(id2));
+		Assert.assertEquals(1, map.size());
+		Assert.assertFalse(map.containsKey(id2));
+	}
+
+	@Test
+	public void testGrowing() {
+		IdMap<TLink, Integer> map = new IdMap<>(0);
+		for (int i = 0; i < 100; i++) {
+			map.put(Id.create("grow" + i, TLink.class), i);
+		}
+		Assert.assertEquals(100, map.size());
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(i, map.get(Id.create("grow" + i, TLink.class)).intValue());
+		}
+	}
+
+	@Test
+	public void testIdsOfOtherTypes() {
+		Id<TLink> linkId = Id.create("other", TLink.class);
+		Id<TNode> nodeId = Id.create("other-node", TNode.class);
+		IdMap<TLink, String> map = new IdMap<>(TLink.class);
+		map.put(linkId, "link");
+		for (int i = 0; i <= linkId.index(); i++) {
+			Id.create("other-node" + i, TNode.class); // make sure there is a node id with the same index as the link id
+		}
+		Assert.assertNull(map.get(Id.get(linkId.index(), TNode.class)));
+		Assert.assertNull(map.get(nodeId));
+	}
+
+	@Test
+	public void testIteration() {
+		Id<TLink> id1 = Id.create("iter1", TLink.class);
+		Id<TLink> id2 = Id.create("iter2", TLink.class);
+		Id<TLink> id3 = Id.create("iter3", TLink.class);
+		IdMap<TLink, String> map = new IdMap<>(TLink.class);
+		// the entries are iterated in the order of the ids' creation, not in the order of insertion
+		map.put(id3, "three");
+		map.put(id1, "one");
+		map.put(id2, "two");
+
+		Iterator<Map.Entry<Id<TLink>, String>> iter = map.entrySet().iterator();
+		Map.Entry<Id<TLink>, String> entry = iter.next();
+		Assert.assertSame(id1, entry.getKey());
+		Assert.assertEquals("one", entry.getValue());
+		entry = iter.next();
+		Assert.assertSame(id2, entry.getKey());
+		iter.remove();
+		entry = iter.next();
+		Assert.assertSame(id3, entry.getKey());
+		Assert.assertEquals("three", entry.setValue("drei"));
+		Assert.assertFalse(iter.hasNext());
+
+		Assert.assertEquals(2, map.size());
+		Assert.assertNull(map.get(id2));
+		Assert.assertEquals("drei", map.get(id3));
+		Assert.assertEquals(2, map.values().size());
+		Assert.assertTrue(map.keySet().contains(id1));
+
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertFalse(map.entrySet().iterator().hasNext());
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testPut_NullValue() {
+		new IdMap<TLink, String>(TLink.class).put(Id.create("1", TLink.class), null);
+	}
+
+	private static class TLink {}
+	private static class TNode {}
+}
@@ -0,0 +1,129 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RingBufferQueueTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RingBufferQueueTest {
+
+	@Test
+	public void testFifoOrder() {
+		RingBufferQueue<Integer> queue = new RingBufferQueue<>(2);
+		Assert.assertTrue(queue.isEmpty());
+		Assert.assertNull(queue.peek());
+		Assert.assertNull(queue.poll());
+		for (int i = 0; i < 10; i++) {
+			queue.add(i);
+		}
+		Assert.assertEquals(10, queue.size());
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals(i, queue.peek().intValue());
+			Assert.assertEquals(i, queue.poll().intValue());
+		}
+		Assert.assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testAddFirst() {
+		RingBufferQueue<Integer> queue = new RingBufferQueue<>(4);
+		queue.add(2);
+		queue.add(3);
+		queue.addFirst(1);
+		queue.addFirst(0);
+		queue.addFirst(-1); // needs to grow
+		for (int i = -1; i <= 3; i++) {
+			Assert.assertEquals(i, queue.poll().intValue());
+		}
+	}
+
+	@Test
+	public void testRemoveAndIterator() {
+		RingBufferQueue<Integer> queue = new RingBufferQueue<>(4);
+		// move the head such that the elements wrap around the end of the array
+		queue.add(-2);
+		queue.add(-1);
+		queue.poll();
+		queue.poll();
+		for (int i = 0; i < 4; i++) {
+			queue.add(i);
+		}
+		Assert.assertTrue(queue.remove(Integer.valueOf(2)));
+		Assert.assertFalse(queue.remove(Integer.valueOf(2)));
+		Assert.assertTrue(queue.remove(Integer.valueOf(0)));
+
+		Iterator<Integer> iter = queue.iterator();
+		Assert.assertEquals(1, iter.next().intValue());
+		iter.remove();
+		Assert.assertEquals(3, iter.next().intValue());
+		Assert.assertFalse(iter.hasNext());
+		Assert.assertEquals(1, queue.size());
+		Assert.assertEquals(3, queue.peek().intValue());
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void testIterator_ConcurrentModification() {
+		RingBufferQueue<Integer> queue = new RingBufferQueue<>();
+		queue.add(1);
+		queue.add(2);
+		Iterator<Integer> iter = queue.iterator();
+		iter.next();
+		queue.add(3);
+		iter.next();
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testAdd_Null() {
+		new RingBufferQueue<Integer>().add(null);
+	}
+
+	@Test
+	public void testSameBehaviorAsLinkedList() {
+		RingBufferQueue<Integer> queue = new RingBufferQueue<>(1);
+		LinkedList<Integer> reference = new LinkedList<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			int op = random.nextInt(5);
+			if (op < 2) {
+				queue.add(i);
+				reference.add(i);
+			} else if (op == 2) {
+				queue.addFirst(i);
+				reference.addFirst(i);
+			} else if (op == 3) {
+				Assert.assertEquals(reference.poll(), queue.poll());
+			} else if (!reference.isEmpty()) {
+				Integer toRemove = reference.get(random.nextInt(reference.size()));
+				Assert.assertEquals(reference.remove(toRemove), queue.remove(toRemove));
+			}
+			Assert.assertEquals(reference.size(), queue.size());
+			Assert.assertEquals(reference.peek(), queue.peek());
+		}
+		Assert.assertArrayEquals(reference.toArray(), queue.toArray());
+		queue.clear();
+		Assert.assertTrue(queue.isEmpty());
+	}
+}
@@ -0,0 +1,107 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelGZIPOutputStreamTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelGZIPOutputStreamTest {
+
+	@Test
+	public void testRoundTrip_empty() throws IOException {
+		assertRoundTrip(new byte[0]);
+	}
+
+	@Test
+	public void testRoundTrip_smallerThanBlock() throws IOException {
+		assertRoundTrip(createData(1000));
+	}
+
+	@Test
+	public void testRoundTrip_exactBlockSize() throws IOException {
+		assertRoundTrip(createData(ParallelGZIPOutputStream.BLOCK_SIZE));
+	}
+
+	@Test
+	public void testRoundTrip_manyBlocks() throws IOException {
+		assertRoundTrip(createData(50 * ParallelGZIPOutputStream.BLOCK_SIZE + 17));
+	}
+
+	@Test
+	public void testSingleBytes() throws IOException {
+		byte[] data = createData(3 * ParallelGZIPOutputStream.BLOCK_SIZE);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new ParallelGZIPOutputStream(compressed)) {
+			for (byte b : data) {
+				out.write(b);
+			}
+		}
+		Assert.assertArrayEquals(data, decompress(compressed.toByteArray()));
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteAfterClose() throws IOException {
+		OutputStream out = new ParallelGZIPOutputStream(new ByteArrayOutputStream());
+		out.close();
+		out.write(1);
+	}
+
+	private static void assertRoundTrip(final byte[] data) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new ParallelGZIPOutputStream(compressed)) {
+			// write in chunks which do not align with the blocks
+			for (int i = 0; i < data.length; i += 7777) {
+				out.write(data, i, Math.min(7777, data.length - i));
+			}
+		}
+		Assert.assertArrayEquals(data, decompress(compressed.toByteArray()));
+	}
+
+	/**
+	 * compressible, but not trivial data, so that the dictionary of the preceding block matters.
+	 */
+	private static byte[] createData(final int length) {
+		Random random = new Random(4711);
+		StringBuilder str = new StringBuilder(length + 100);
+		while (str.length() < length) {
+			str.append("<event time=\"").append(random.nextInt(86400)).append(".0\" link=\"").append(random.nextInt(1000)).append("\" />\n");
+		}
+		return Arrays.copyOf(str.toString().getBytes(IOUtils.CHARSET_UTF8), length);
+	}
+
+	private static byte[] decompress(final byte[] compressed) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			IOUtils.copyStream(in, result);
+		}
+		return result.toByteArray();
+	}
+
+}
@@ -0,0 +1,86 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PreparedTransitScheduleTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.pt.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+
+public class PreparedTransitScheduleTest {
+
+	@Test
+	public void testSameAsLazilyPrepared() {
+		Fixture f = new Fixture();
+		f.init();
+		PreparedTransitSchedule prepared = new PreparedTransitSchedule(f.schedule);
+		@SuppressWarnings("deprecation")
+		PreparedTransitSchedule lazilyPrepared = new PreparedTransitSchedule();
+		int count = 0;
+		for (TransitLine line : f.schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				for (TransitRouteStop stop : route.getStops()) {
+					if (stop.getDepartureOffset() == Time.UNDEFINED_TIME) {
+						continue;
+					}
+					for (double time = 0.0; time < 30.0 * 3600; time += 397.0) {
+						assertEquals(lazilyPrepared.getNextDepartureTime(route, stop, time),
+								prepared.getNextDepartureTime(route, stop, time), 0.0);
+						count++;
+					}
+				}
+			}
+		}
+		assertTrue(count > 0);
+	}
+
+	@Test
+	public void testRouteAddedLater() {
+		Fixture f = new Fixture();
+		f.init();
+		PreparedTransitSchedule prepared = new PreparedTransitSchedule(f.schedule);
+
+		List<TransitRouteStop> stops = new ArrayList<>();
+		stops.add(f.builder.createTransitRouteStop(f.schedule.getFacilities().values().iterator().next(), Time.UNDEFINED_TIME, 0.0));
+		TransitRouteStop stop = f.builder.createTransitRouteStop(f.schedule.getFacilities().values().iterator().next(), 300.0, 360.0);
+		stops.add(stop);
+		TransitRoute route = f.builder.createTransitRoute(Id.create("later", TransitRoute.class), null, stops, "bus");
+		assertEquals(Double.POSITIVE_INFINITY, prepared.getNextDepartureTime(route, stop, 8.0 * 3600), 0.0);
+
+		TransitRoute route2 = f.builder.createTransitRoute(Id.create("later2", TransitRoute.class), null, stops, "bus");
+		route2.addDeparture(f.builder.createDeparture(Id.create("1", Departure.class), 8.0 * 3600));
+		route2.addDeparture(f.builder.createDeparture(Id.create("2", Departure.class), 7.0 * 3600));
+		assertEquals(7.0 * 3600 + 360.0, prepared.getNextDepartureTime(route2, stop, 6.5 * 3600), 0.0);
+		assertEquals(8.0 * 3600 + 360.0, prepared.getNextDepartureTime(route2, stop, 7.5 * 3600), 0.0);
+		assertEquals(31.0 * 3600 + 360.0, prepared.getNextDepartureTime(route2, stop, 8.5 * 3600), 0.0); // the first departure of the next day
+	}
+
+}
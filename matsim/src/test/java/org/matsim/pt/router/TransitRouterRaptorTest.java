@@ -0,0 +1,247 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TransitRouterRaptorTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.pt.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.pt.routes.ExperimentalTransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestCase;
+import org.matsim.vehicles.Vehicle;
+
+public class TransitRouterRaptorTest {
+
+	@Test
+	public void testSingleLine() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig config = createConfig(f);
+		TransitRouterRaptor router = new TransitRouterRaptor(config, f.schedule);
+		Coord toCoord = new Coord((double) 16100, (double) 5050);
+		List<Leg> legs = router.calcRoute(new FakeFacility(new Coord((double) 3800, (double) 5100)), new FakeFacility(toCoord), 5.0*3600, null);
+		assertEquals(3, legs.size());
+		assertEquals(TransportMode.transit_walk, legs.get(0).getMode());
+		assertEquals(TransportMode.pt, legs.get(1).getMode());
+		assertEquals(TransportMode.transit_walk, legs.get(2).getMode());
+		ExperimentalTransitRoute ptRoute = (ExperimentalTransitRoute) legs.get(1).getRoute();
+		assertEquals(Id.create("0", TransitStopFacility.class), ptRoute.getAccessStopId());
+		assertEquals(Id.create("6", TransitStopFacility.class), ptRoute.getEgressStopId());
+		assertEquals(f.blueLine.getId(), ptRoute.getLineId());
+		assertEquals(Id.create("blue A > I", TransitRoute.class), ptRoute.getRouteId());
+		double expectedTravelTime = 29.0 * 60 + // agent takes the *:06 course, arriving in D at *:29
+				CoordUtils.calcEuclideanDistance(f.schedule.getFacilities().get(Id.create("6", TransitStopFacility.class)).getCoord(), toCoord) / config.getBeelineWalkSpeed();
+		assertEquals(expectedTravelTime, getTravelTime(legs), MatsimTestCase.EPSILON);
+	}
+
+	@Test
+	public void testLineChange() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig config = createConfig(f);
+		TransitRouterRaptor router = new TransitRouterRaptor(config, f.schedule);
+		Coord toCoord = new Coord((double) 16100, (double) 10050);
+		List<Leg> legs = router.calcRoute(new FakeFacility(new Coord((double) 3800, (double) 5100)), new FakeFacility(toCoord), 6.0*3600, null);
+		assertEquals(5, legs.size());
+		assertEquals(TransportMode.transit_walk, legs.get(0).getMode());
+		assertEquals(TransportMode.pt, legs.get(1).getMode());
+		assertEquals(TransportMode.transit_walk, legs.get(2).getMode());
+		assertEquals(TransportMode.pt, legs.get(3).getMode());
+		assertEquals(TransportMode.transit_walk, legs.get(4).getMode());
+		ExperimentalTransitRoute ptRoute = (ExperimentalTransitRoute) legs.get(1).getRoute();
+		assertEquals(Id.create("0", TransitStopFacility.class), ptRoute.getAccessStopId());
+		assertEquals(Id.create("4", TransitStopFacility.class), ptRoute.getEgressStopId());
+		assertEquals(f.blueLine.getId(), ptRoute.getLineId());
+		ptRoute = (ExperimentalTransitRoute) legs.get(3).getRoute();
+		assertEquals(Id.create("18", TransitStopFacility.class), ptRoute.getAccessStopId());
+		assertEquals(Id.create("19", TransitStopFacility.class), ptRoute.getEgressStopId());
+		assertEquals(f.greenLine.getId(), ptRoute.getLineId());
+		double expectedTravelTime = 31.0 * 60 + // agent takes the *:06 course, arriving in C at *:18, departing at *:21, arriving in K at*:31
+				CoordUtils.calcEuclideanDistance(f.schedule.getFacilities().get(Id.create("19", TransitStopFacility.class)).getCoord(), toCoord) / config.getBeelineWalkSpeed();
+		assertEquals(expectedTravelTime, getTravelTime(legs), MatsimTestCase.EPSILON);
+	}
+
+	@Test
+	public void testDirectWalkCheaper() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig config = createConfig(f);
+		TransitRouterRaptor router = new TransitRouterRaptor(config, f.schedule);
+		Coord fromCoord = new Coord((double) 4000, (double) 3000);
+		Coord toCoord = new Coord((double) 8000, (double) 3000);
+		List<Leg> legs = router.calcRoute(new FakeFacility(fromCoord), new FakeFacility(toCoord), 5.0*3600, null);
+		assertEquals(1, legs.size());
+		assertEquals(TransportMode.transit_walk, legs.get(0).getMode());
+		assertEquals(CoordUtils.calcEuclideanDistance(fromCoord, toCoord) / config.getBeelineWalkSpeed(), getTravelTime(legs), MatsimTestCase.EPSILON);
+	}
+
+	@Test
+	public void testAfterMidnight() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig config = createConfig(f);
+		config.setBeelineWalkSpeed(0.1); // something very slow, so the agent does not walk over night
+		TransitRouterRaptor router = new TransitRouterRaptor(config, f.schedule);
+		Coord toCoord = new Coord((double) 16100, (double) 5050);
+		List<Leg> legs = router.calcRoute(new FakeFacility(new Coord((double) 3800, (double) 5100)), new FakeFacility(toCoord), 25.0*3600, null);
+		assertEquals(3, legs.size());
+		ExperimentalTransitRoute ptRoute = (ExperimentalTransitRoute) legs.get(1).getRoute();
+		assertEquals(Id.create("0", TransitStopFacility.class), ptRoute.getAccessStopId());
+		assertEquals(Id.create("6", TransitStopFacility.class), ptRoute.getEgressStopId());
+		double expectedTravelTime = 4*3600 + 29.0 * 60 + // arrival at 05:29 at D
+				CoordUtils.calcEuclideanDistance(f.schedule.getFacilities().get(Id.create("6", TransitStopFacility.class)).getCoord(), toCoord) / config.getBeelineWalkSpeed();
+		assertEquals(expectedTravelTime, getTravelTime(legs), MatsimTestCase.EPSILON);
+	}
+
+	/**
+	 * The legs must be the same as the ones of {@link TransitRouterImpl}, including the routes and distances.
+	 */
+	@Test
+	public void testSameLegsAsTransitRouterImpl() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig config = createConfig(f);
+		TransitRouterImpl expectedRouter = new TransitRouterImpl(config, f.schedule);
+		TransitRouterRaptor router = new TransitRouterRaptor(config, f.schedule);
+		Coord[] coords = new Coord[] { new Coord((double) 3800, (double) 5100), new Coord((double) 16100, (double) 5050),
+				new Coord((double) 16100, (double) 10050), new Coord((double) 11900, (double) 5100), new Coord((double) 28000, (double) 4950),
+				new Coord((double) 4000, (double) 3000), new Coord((double) 24100, (double) 10100) };
+		int compared = 0;
+		for (Coord fromCoord : coords) {
+			for (Coord toCoord : coords) {
+				for (double time = 5.0 * 3600; time < 10.0 * 3600; time += 1723) {
+					List<Leg> expected = expectedRouter.calcRoute(new FakeFacility(fromCoord), new FakeFacility(toCoord), time, null);
+					List<Leg> actual = router.calcRoute(new FakeFacility(fromCoord), new FakeFacility(toCoord), time, null);
+					assertEquals(toString(expected), toString(actual));
+					compared++;
+				}
+			}
+		}
+		assertEquals(coords.length * coords.length * 11, compared);
+	}
+
+	@Test
+	public void testCalcRoutes() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig config = createConfig(f);
+		TransitRouterRaptor router = new TransitRouterRaptor(config, f.schedule);
+		Coord fromCoord = new Coord((double) 3800, (double) 5100);
+		Coord toCoord = new Coord((double) 16100, (double) 5050);
+		List<TransitRouterRaptor.Connection> connections = router.calcRoutes(new FakeFacility(fromCoord), new FakeFacility(toCoord), 5.0*3600, 6.0*3600, null);
+		assertTrue(connections.size() > 1);
+		TransitRouterRaptor.Connection previous = null;
+		for (TransitRouterRaptor.Connection connection : connections) {
+			assertTrue(connection.departureTime >= 5.0*3600 && connection.departureTime <= 6.0*3600);
+			assertEquals(connection.arrivalTime - connection.departureTime, getTravelTime(connection.legs), MatsimTestCase.EPSILON);
+			if (previous != null) {
+				assertTrue(connection.departureTime > previous.departureTime);
+				assertTrue(connection.arrivalTime > previous.arrivalTime);
+			}
+			previous = connection;
+		}
+		// the single routes are the ones found for the same departure time
+		for (TransitRouterRaptor.Connection connection : connections) {
+			List<Leg> legs = router.calcRoute(new FakeFacility(fromCoord), new FakeFacility(toCoord), connection.departureTime, null);
+			assertEquals(toString(legs), toString(connection.legs));
+		}
+	}
+
+	/**
+	 * With negative transfer costs, the costs improve in every round. The search must still terminate.
+	 */
+	@Test
+	public void testNegativeTransferCosts() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig config = createConfig(f);
+		config.setUtilityOfLineSwitch_utl(1000.0);
+		TransitRouterRaptor router = new TransitRouterRaptor(config, f.schedule);
+		Coord toCoord = new Coord((double) 16100, (double) 10050);
+		List<Leg> legs = router.calcRoute(new FakeFacility(new Coord((double) 3800, (double) 5100)), new FakeFacility(toCoord), 6.0*3600, null);
+		assertNotNull(legs);
+	}
+
+	/**
+	 * The costs of riding and transferring are not calculated by the travel disutility, so other ones are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCustomTravelDisutility() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig config = createConfig(f);
+		new TransitRouterRaptor(new TransitRouterRaptorData(f.schedule, config), new TransitRouterNetworkTravelTimeAndDisutility(config) {
+			@Override
+			public double getLinkTravelDisutility(final Link link, final double time, final Person person, final Vehicle vehicle, final CustomDataManager dataManager) {
+				return 2 * super.getLinkTravelDisutility(link, time, person, vehicle, dataManager);
+			}
+		});
+	}
+
+	private static TransitRouterConfig createConfig(final Fixture f) {
+		return new TransitRouterConfig(f.scenario.getConfig().planCalcScore(),
+				f.scenario.getConfig().plansCalcRoute(), f.scenario.getConfig().transitRouter(),
+				f.scenario.getConfig().vspExperimental());
+	}
+
+	private static double getTravelTime(final List<Leg> legs) {
+		double travelTime = 0.0;
+		for (Leg leg : legs) {
+			travelTime += leg.getTravelTime();
+		}
+		return travelTime;
+	}
+
+	private static String toString(final List<Leg> legs) {
+		if (legs == null) {
+			return "null";
+		}
+		StringBuilder str = new StringBuilder();
+		for (Leg leg : legs) {
+			str.append(leg.getMode()).append(' ').append(leg.getTravelTime());
+			if (leg.getRoute() != null) {
+				str.append(' ').append(leg.getRoute().getStartLinkId()).append('-').append(leg.getRoute().getEndLinkId());
+				str.append(' ').append(leg.getRoute().getDistance());
+				if (leg.getRoute() instanceof ExperimentalTransitRoute) {
+					ExperimentalTransitRoute route = (ExperimentalTransitRoute) leg.getRoute();
+					str.append(' ').append(route.getLineId()).append(' ').append(route.getRouteId());
+					str.append(' ').append(route.getAccessStopId()).append('-').append(route.getEgressStopId());
+				}
+			}
+			str.append("; ");
+		}
+		return str.toString();
+	}
+
+}